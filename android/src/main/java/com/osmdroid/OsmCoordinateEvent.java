@@ -0,0 +1,61 @@
+package com.osmdroid;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.uimanager.events.Event;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+
+/**
+ * Map event carrying a coordinate and its screen position, in the same shape as
+ * {@link OsmMapView#makeClickEventData}.
+ *
+ * The values are kept as primitives and the payload map is only built when the event is actually
+ * dispatched, so continuous events (pan drag, marker drag) that get coalesced away by the event
+ * dispatcher cost nothing on the bridge.
+ */
+public class OsmCoordinateEvent extends Event<OsmCoordinateEvent> {
+  private final String eventName;
+  private final double latitude;
+  private final double longitude;
+  private final double x;
+  private final double y;
+  private final boolean continuous;
+
+  public OsmCoordinateEvent(int id, String eventName, double latitude, double longitude,
+                            double x, double y, boolean continuous) {
+    super(id);
+    this.eventName = eventName;
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.x = x;
+    this.y = y;
+    this.continuous = continuous;
+  }
+
+  @Override
+  public String getEventName() {
+    return eventName;
+  }
+
+  @Override
+  public boolean canCoalesce() {
+    return continuous;
+  }
+
+  @Override
+  public void dispatch(RCTEventEmitter rctEventEmitter) {
+    WritableMap event = new WritableNativeMap();
+
+    WritableMap coordinate = new WritableNativeMap();
+    coordinate.putDouble("latitude", latitude);
+    coordinate.putDouble("longitude", longitude);
+    event.putMap("coordinate", coordinate);
+
+    WritableMap position = new WritableNativeMap();
+    position.putDouble("x", x);
+    position.putDouble("y", y);
+    event.putMap("position", position);
+
+    rctEventEmitter.receiveEvent(getViewTag(), getEventName(), event);
+  }
+}
@@ -2,19 +2,14 @@ package com.osmdroid;
 
 import android.content.Context;
 
+import com.osmdroid.overlays.CircleOverlay;
+
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.Polygon;
 
 public class OsmMapCircle extends OsmMapFeature {
 
-  private Polygon polygon;
-
-  private GeoPoint center;
-  private double radius;
-  private int strokeColor;
-  private int fillColor;
-  private float strokeWidth;
+  private final CircleOverlay circle = new CircleOverlay();
   private MapView mapView;
 
   public OsmMapCircle(Context context) {
@@ -22,64 +17,61 @@ public class OsmMapCircle extends OsmMapFeature {
   }
 
   public void setCenter(GeoPoint center) {
-    this.center = center;
-    if (polygon != null) {
-      polygon.setPoints(Polygon.pointsAsCircle(center, radius));
-    }
+    circle.setCenter(center.getLatitude(), center.getLongitude());
+    onGeometryChanged();
   }
 
+  /**
+   * @param radius in meters
+   */
   public void setRadius(double radius) {
-    this.radius = radius;
-    if (polygon != null) {
-      polygon.setPoints(Polygon.pointsAsCircle(center, radius));
+    circle.setRadius(radius);
+    onGeometryChanged();
+  }
+
+  private void onGeometryChanged() {
+    if (mapView != null) {
+      notifyBoundsChanged(mapView);
+      requestRedraw(mapView);
     }
   }
 
   public void setFillColor(int color) {
-    this.fillColor = color;
-    if (polygon != null) {
-      polygon.getFillPaint().setColor(color);
-      mapView.invalidate();
-    }
+    circle.setFillColor(color);
+    requestRedraw(mapView);
   }
 
   public void setStrokeColor(int color) {
-    this.strokeColor = color;
-    if (polygon != null) {
-      polygon.getOutlinePaint().setColor(color);
-      mapView.invalidate();
-    }
+    circle.setStrokeColor(color);
+    requestRedraw(mapView);
   }
 
   public void setStrokeWidth(float width) {
-    this.strokeWidth = width;
-    if (polygon != null) {
-      polygon.getOutlinePaint().setStrokeWidth(width);
-      mapView.invalidate();
-    }
+    circle.setStrokeWidth(width);
+    requestRedraw(mapView);
+  }
+
+  /**
+   * @see CircleOverlay#getBounds(double[])
+   */
+  public boolean getBounds(double[] out) {
+    return circle.getBounds(out);
   }
 
   @Override
   public Object getFeature() {
-    return polygon;
+    return circle;
   }
 
   @Override
   public void addToMap(MapView map) {
-    polygon = new Polygon();
     mapView = map;
-    polygon.setPoints(Polygon.pointsAsCircle(center, radius));
-    polygon.getFillPaint().setColor(fillColor);
-    polygon.getOutlinePaint().setColor(strokeColor);
-    polygon.getOutlinePaint().setStrokeWidth(strokeWidth);
-    map.getOverlays().add(polygon);
-    mapView.invalidate();
+    addOverlay(map, circle);
   }
 
   @Override
   public void removeFromMap(MapView map) {
-    map.getOverlays().remove(polygon);
-    polygon = null;
+    removeOverlay(map, circle);
     mapView = null;
   }
 }
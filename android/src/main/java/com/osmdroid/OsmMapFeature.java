@@ -5,6 +5,7 @@ import android.content.Context;
 import com.facebook.react.views.view.ReactViewGroup;
 
 import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Overlay;
 
 public abstract class OsmMapFeature extends ReactViewGroup {
   public OsmMapFeature(Context context) {
@@ -16,4 +17,51 @@ public abstract class OsmMapFeature extends ReactViewGroup {
   public abstract void removeFromMap(MapView map);
 
   public abstract Object getFeature();
+
+  /**
+   * Adds this feature's overlay to the map, together with the rest of the current UI batch when the
+   * map is an {@link OsmMapView}.
+   */
+  protected void addOverlay(MapView map, Overlay overlay) {
+    if (map instanceof OsmMapView) {
+      // applied together with the rest of the current UI batch
+      ((OsmMapView) map).queueOverlayAdd(overlay);
+    } else {
+      map.getOverlays().add(overlay);
+      map.invalidate();
+    }
+  }
+
+  /**
+   * Removes this feature's overlay from the map, batched like {@link #addOverlay}.
+   */
+  protected void removeOverlay(MapView map, Overlay overlay) {
+    if (map instanceof OsmMapView) {
+      ((OsmMapView) map).queueOverlayRemove(overlay);
+    } else {
+      map.getOverlays().remove(overlay);
+      map.invalidate();
+    }
+  }
+
+  /**
+   * Tells the map this feature's hit area moved or changed size, so its spatial index entry can be
+   * updated.
+   */
+  protected void notifyBoundsChanged(MapView map) {
+    if (map instanceof OsmMapView) {
+      ((OsmMapView) map).onFeatureBoundsChanged(this);
+    }
+  }
+
+  /**
+   * Redraws the map on its next frame. Many features changing in the same frame cost one redraw.
+   */
+  protected void requestRedraw(MapView map) {
+    if (map instanceof OsmMapView) {
+      ((OsmMapView) map).requestRedraw();
+    } else if (map != null) {
+      map.postInvalidateOnAnimation();
+    }
+  }
 }
@@ -1,9 +1,12 @@
 package com.osmdroid;
 
 import android.content.Context;
+import android.graphics.drawable.BitmapDrawable;
 import androidx.annotation.NonNull;
 import android.util.Log;
 
+import com.osmdroid.tiles.TilePlaceholderCache;
+
 import org.osmdroid.tileprovider.modules.ArchiveFileFactory;
 import org.osmdroid.tileprovider.modules.IArchiveFile;
 import org.osmdroid.tileprovider.modules.OfflineTileProvider;
@@ -24,18 +27,27 @@ public class OsmMapFileTile extends OsmMapFeature {
   private float maximumZ = 100.f;
   private float minimumZ = 0;
   private String fileDirPath = "/offline_tiles/";
+  private String loadingTile = null;
+  private String failedTile = null;
+  private MapView mapView;
 
   public OsmMapFileTile(Context context) {
     super(context);
   }
 
   @Override public void addToMap(MapView map) {
+    mapView = map;
     setupMapProvider(map);
     map.setUseDataConnection(false);
+    applyPlaceholders();
   }
 
   @Override public void removeFromMap(MapView map) {
+    if (loadingTile != null) {
+      map.getOverlayManager().getTilesOverlay().setLoadingDrawable(null);
+    }
     map.setTileSource(TileSourceFactory.DEFAULT_TILE_SOURCE);
+    mapView = null;
   }
 
   @Override public Object getFeature() {
@@ -54,6 +66,50 @@ public class OsmMapFileTile extends OsmMapFeature {
     this.fileDirPath = filePath;
   }
 
+  public void setLoadingTile(String loadingTile) {
+    this.loadingTile = loadingTile;
+    applyPlaceholders();
+  }
+
+  public void setFailedTile(String failedTile) {
+    this.failedTile = failedTile;
+    applyPlaceholders();
+  }
+
+  private void applyPlaceholders() {
+    if (mapView == null) {
+      return;
+    }
+    final MapView map = mapView;
+    int tileSize = map.getTileProvider().getTileSource().getTileSizePixels();
+
+    if (loadingTile == null) {
+      map.getOverlayManager().getTilesOverlay().setLoadingDrawable(null);
+    } else {
+      TilePlaceholderCache.forMap(map).get(loadingTile, tileSize, new TilePlaceholderCache.Callback() {
+        @Override
+        public void onPlaceholderReady(BitmapDrawable placeholder) {
+          if (mapView != map) return;
+          map.getOverlayManager().getTilesOverlay().setLoadingDrawable(placeholder);
+          map.invalidate();
+        }
+      });
+    }
+
+    if (failedTile == null) {
+      map.getTileProvider().setTileLoadFailureImage(null);
+    } else {
+      TilePlaceholderCache.forMap(map).get(failedTile, tileSize, new TilePlaceholderCache.Callback() {
+        @Override
+        public void onPlaceholderReady(BitmapDrawable placeholder) {
+          if (mapView != map) return;
+          map.getTileProvider().setTileLoadFailureImage(placeholder);
+          map.invalidate();
+        }
+      });
+    }
+  }
+
   @NonNull
   private File[] findAllSupportedFilesInDirectory(File directory) {
     List<File> candidates = new ArrayList<>();
@@ -4,6 +4,8 @@ import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
 
+import javax.annotation.Nullable;
+
 public class OsmMapFileTileManager extends ViewGroupManager<OsmMapFileTile> {
 
   public OsmMapFileTileManager() {
@@ -35,10 +37,14 @@ public class OsmMapFileTileManager extends ViewGroupManager<OsmMapFileTile> {
     view.setFileDirPath(fileDirPath);
   }
 
-  // todo create offline placeholder binding\
-  //         //https://github.com/osmdroid/osmdroid/issues/330
-  //        //custom image placeholder for files that aren't available
-  //        mMapView.getTileProvider().setTileLoadFailureImage(getResources().getDrawable(R
-  //        .drawable.notfound));
+  @ReactProp(name = "loadingTile")
+  public void setLoadingTile(OsmMapFileTile view, @Nullable String loadingTile) {
+    view.setLoadingTile(loadingTile);
+  }
+
+  @ReactProp(name = "failedTile")
+  public void setFailedTile(OsmMapFileTile view, @Nullable String failedTile) {
+    view.setFailedTile(failedTile);
+  }
 
 }
@@ -0,0 +1,272 @@
+package com.osmdroid;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import com.osmdroid.geojson.FlatGeobufFile;
+import com.osmdroid.geojson.GeojsonData;
+import com.osmdroid.geojson.GeojsonOverlay;
+import com.osmdroid.geojson.GeojsonStyle;
+import com.osmdroid.geojson.StyleExpression;
+import com.osmdroid.utils.PaddedViewport;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.TileSystem;
+import org.osmdroid.views.MapView;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A FlatGeobuf file too large to load, drawn by a single overlay.
+ *
+ * Only the features in and around the visible region are read. Whenever the region leaves the
+ * area read last, or the zoom level changes by a whole level, the file's spatial index is queried
+ * again on a background thread. Features are decoded there, or taken from the file's cache of
+ * decoded features, and styled, and the UI thread only swaps in the result. Lines and polygons
+ * smaller than a pixel are not read at all.
+ */
+public class OsmMapFlatGeobuf extends OsmMapFeature {
+
+  private static final String TAG = "OsmMapFlatGeobuf";
+
+  private static final ExecutorService queryExecutor = Executors.newSingleThreadExecutor();
+
+  private static final int DEFAULT_MAX_FEATURES = 20000;
+
+  private final GeojsonOverlay overlay;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private MapView mapView;
+
+  private String uri;
+  private StyleExpression strokeColor;
+  private StyleExpression fillColor;
+  private StyleExpression strokeWidth;
+  private StyleExpression color;
+  private int maxFeatures = DEFAULT_MAX_FEATURES;
+
+  // only touched on the query executor
+  private FlatGeobufFile file;
+
+  // region and zoom level of the last query
+  private final PaddedViewport queriedArea = new PaddedViewport();
+  private double queriedZoom;
+  private boolean viewportStale = true;
+  private boolean updatePending = false;
+  // read on the query executor to skip queries that are already outdated
+  private volatile int queryGeneration = 0;
+
+  public OsmMapFlatGeobuf(Context context) {
+    super(context);
+    overlay = new GeojsonOverlay(context.getResources().getDisplayMetrics().density);
+  }
+
+  /**
+   * Sets a {@code file://} or {@code content://} URI, or a plain file path, of the file.
+   */
+  public void setUri(String uri) {
+    this.uri = uri;
+    if (mapView != null) {
+      open();
+    }
+  }
+
+  public void setStrokeColor(StyleExpression strokeColor) {
+    this.strokeColor = strokeColor;
+    scheduleUpdate();
+  }
+
+  public void setFillColor(StyleExpression fillColor) {
+    this.fillColor = fillColor;
+    scheduleUpdate();
+  }
+
+  public void setStrokeWidth(StyleExpression strokeWidth) {
+    this.strokeWidth = strokeWidth;
+    scheduleUpdate();
+  }
+
+  public void setColor(StyleExpression color) {
+    this.color = color;
+    scheduleUpdate();
+  }
+
+  public void setMaxFeatures(int maxFeatures) {
+    this.maxFeatures = maxFeatures > 0 ? maxFeatures : DEFAULT_MAX_FEATURES;
+    scheduleUpdate();
+  }
+
+  private void scheduleUpdate() {
+    viewportStale = true;
+    if (updatePending) return;
+    updatePending = true;
+    // posted so that all styles set in the same batch are applied by one query
+    mainHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        updatePending = false;
+        if (mapView != null) {
+          updateViewport(mapView);
+        }
+      }
+    });
+  }
+
+  /**
+   * Closes the file being read, if any, and opens the current one.
+   */
+  private void open() {
+    final String path = uri;
+    final int run = ++queryGeneration;
+    viewportStale = true;
+    overlay.setData(null, null);
+    redraw();
+    queryExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        closeFile();
+        if (path == null) return;
+        try {
+          file = FlatGeobufFile.open(openChannel(path));
+        } catch (IOException | RuntimeException e) {
+          Log.e(TAG, "Could not open FlatGeobuf file " + path, e);
+          return;
+        }
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            if (run == queryGeneration && mapView != null) {
+              updateViewport(mapView);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private FileChannel openChannel(String path) throws IOException {
+    Uri parsed = Uri.parse(path);
+    if (parsed.getScheme() == null) {
+      return new FileInputStream(path).getChannel();
+    }
+    if ("file".equals(parsed.getScheme())) {
+      return new FileInputStream(parsed.getPath()).getChannel();
+    }
+    ParcelFileDescriptor descriptor = getContext().getContentResolver().openFileDescriptor(parsed, "r");
+    if (descriptor == null) {
+      throw new IOException("Could not open " + path);
+    }
+    // closing the channel closes the descriptor too
+    return new ParcelFileDescriptor.AutoCloseInputStream(descriptor).getChannel();
+  }
+
+  private void closeFile() {
+    if (file == null) return;
+    try {
+      file.close();
+    } catch (IOException e) {
+      Log.w(TAG, "Could not close FlatGeobuf file", e);
+    }
+    file = null;
+  }
+
+  private final OsmMapView.OnRegionChangeListener regionChangeListener = new OsmMapView.OnRegionChangeListener() {
+    @Override
+    public void onRegionChange(OsmMapView map) {
+      updateViewport(map);
+    }
+  };
+
+  private void updateViewport(MapView map) {
+    BoundingBox bounds = map.getBoundingBox();
+    if (bounds == null || map.getWidth() == 0 || map.getHeight() == 0) return;
+    double zoom = map.getZoomLevelDouble();
+    if (!viewportStale && Math.abs(zoom - queriedZoom) < 1 && queriedArea.contains(bounds)) {
+      return;
+    }
+    viewportStale = false;
+    queriedArea.set(bounds);
+    queriedZoom = zoom;
+
+    final int run = ++queryGeneration;
+    final double north = queriedArea.getNorth();
+    final double south = queriedArea.getSouth();
+    final double west = queriedArea.getWest();
+    final double east = queriedArea.getEast();
+    // one pixel in world units
+    final double minSize = 1 / TileSystem.MapSize(zoom);
+    final int limit = maxFeatures;
+    final StyleExpression strokeColor = this.strokeColor;
+    final StyleExpression fillColor = this.fillColor;
+    final StyleExpression strokeWidth = this.strokeWidth;
+    final StyleExpression color = this.color;
+    queryExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (run != queryGeneration || file == null) return;
+        final GeojsonData data;
+        final GeojsonStyle style;
+        try {
+          data = file.query(west, south, east, north, minSize, limit);
+          style = GeojsonStyle.build(data, strokeColor, fillColor, strokeWidth, color);
+        } catch (IOException | RuntimeException e) {
+          Log.e(TAG, "Could not read FlatGeobuf file " + uri, e);
+          return;
+        }
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            // the region changed again meanwhile
+            if (run != queryGeneration) return;
+            overlay.setData(data, style);
+            redraw();
+          }
+        });
+      }
+    });
+  }
+
+  private void redraw() {
+    if (mapView != null) {
+      mapView.postInvalidate();
+    }
+  }
+
+  @Override
+  public Object getFeature() {
+    return overlay;
+  }
+
+  @Override
+  public void addToMap(MapView map) {
+    mapView = map;
+    addOverlay(map, overlay);
+    if (map instanceof OsmMapView) {
+      ((OsmMapView) map).addOnRegionChangeListener(regionChangeListener);
+    }
+    open();
+  }
+
+  @Override
+  public void removeFromMap(MapView map) {
+    if (map instanceof OsmMapView) {
+      ((OsmMapView) map).removeOnRegionChangeListener(regionChangeListener);
+    }
+    removeOverlay(map, overlay);
+    mapView = null;
+    ++queryGeneration;
+    queryExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        closeFile();
+      }
+    });
+  }
+}
@@ -0,0 +1,62 @@
+package com.osmdroid;
+
+import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.common.MapBuilder;
+import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.ViewGroupManager;
+import com.facebook.react.uimanager.annotations.ReactProp;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+public class OsmMapFlatGeobufManager extends ViewGroupManager<OsmMapFlatGeobuf> {
+
+  @Override
+  public String getName() {
+    return "OsmMapFlatGeobuf";
+  }
+
+  @Override
+  public OsmMapFlatGeobuf createViewInstance(ThemedReactContext context) {
+    return new OsmMapFlatGeobuf(context);
+  }
+
+  @ReactProp(name = "uri")
+  public void setUri(OsmMapFlatGeobuf view, @Nullable String uri) {
+    view.setUri(uri);
+  }
+
+  @ReactProp(name = "strokeColor")
+  public void setStrokeColor(OsmMapFlatGeobuf view, Dynamic strokeColor) {
+    view.setStrokeColor(OsmMapGeojsonManager.toExpression(strokeColor));
+  }
+
+  @ReactProp(name = "fillColor")
+  public void setFillColor(OsmMapFlatGeobuf view, Dynamic fillColor) {
+    view.setFillColor(OsmMapGeojsonManager.toExpression(fillColor));
+  }
+
+  @ReactProp(name = "strokeWidth")
+  public void setStrokeWidth(OsmMapFlatGeobuf view, Dynamic strokeWidth) {
+    view.setStrokeWidth(OsmMapGeojsonManager.toExpression(strokeWidth));
+  }
+
+  @ReactProp(name = "color")
+  public void setColor(OsmMapFlatGeobuf view, Dynamic color) {
+    view.setColor(OsmMapGeojsonManager.toExpression(color));
+  }
+
+  @ReactProp(name = "maxFeatures", defaultInt = 0)
+  public void setMaxFeatures(OsmMapFlatGeobuf view, int maxFeatures) {
+    view.setMaxFeatures(maxFeatures);
+  }
+
+  @Override
+  @Nullable
+  public Map getExportedCustomDirectEventTypeConstants() {
+    return MapBuilder.of(
+        "onPress", MapBuilder.of("registrationName", "onPress")
+    );
+  }
+}
@@ -0,0 +1,216 @@
+package com.osmdroid;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.osmdroid.geojson.GeojsonData;
+import com.osmdroid.geojson.GeojsonOverlay;
+import com.osmdroid.geojson.GeojsonParser;
+import com.osmdroid.geojson.GeojsonStyle;
+import com.osmdroid.geojson.StyleExpression;
+
+import org.osmdroid.views.MapView;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A GeoJSON document drawn by a single overlay.
+ *
+ * The document, given as a string or read from a file or content URI, is parsed by a streaming
+ * parser on a background thread straight into flat arrays and a spatial index, and the styles are
+ * evaluated for every feature there as well. The UI thread only swaps in the result. Changing only
+ * the styles evaluates them again without parsing.
+ */
+public class OsmMapGeojson extends OsmMapFeature {
+
+  private static final String TAG = "OsmMapGeojson";
+
+  private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+
+  private final GeojsonOverlay overlay;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private MapView mapView;
+
+  private String geojson;
+  private String uri;
+  private StyleExpression strokeColor;
+  private StyleExpression fillColor;
+  private StyleExpression strokeWidth;
+  private StyleExpression color;
+
+  private GeojsonData data;
+  private boolean sourceChanged = false;
+  private boolean updatePending = false;
+  private int loadGeneration = 0;
+  private int styleGeneration = 0;
+
+  public OsmMapGeojson(Context context) {
+    super(context);
+    overlay = new GeojsonOverlay(context.getResources().getDisplayMetrics().density);
+  }
+
+  /**
+   * Sets the document as a GeoJSON string. Takes precedence over {@link #setUri(String)}.
+   */
+  public void setGeojson(String geojson) {
+    this.geojson = geojson;
+    sourceChanged = true;
+    scheduleUpdate();
+  }
+
+  /**
+   * Sets a {@code file://} or {@code content://} URI, or a plain file path, to read the document
+   * from.
+   */
+  public void setUri(String uri) {
+    this.uri = uri;
+    sourceChanged = true;
+    scheduleUpdate();
+  }
+
+  public void setStrokeColor(StyleExpression strokeColor) {
+    this.strokeColor = strokeColor;
+    scheduleUpdate();
+  }
+
+  public void setFillColor(StyleExpression fillColor) {
+    this.fillColor = fillColor;
+    scheduleUpdate();
+  }
+
+  public void setStrokeWidth(StyleExpression strokeWidth) {
+    this.strokeWidth = strokeWidth;
+    scheduleUpdate();
+  }
+
+  public void setColor(StyleExpression color) {
+    this.color = color;
+    scheduleUpdate();
+  }
+
+  private void scheduleUpdate() {
+    if (updatePending) return;
+    updatePending = true;
+    // posted so that the source and all styles set in the same batch are applied together
+    mainHandler.post(update);
+  }
+
+  private final Runnable update = new Runnable() {
+    @Override
+    public void run() {
+      updatePending = false;
+      final int styleRun = ++styleGeneration;
+      final StyleExpression strokeColor = OsmMapGeojson.this.strokeColor;
+      final StyleExpression fillColor = OsmMapGeojson.this.fillColor;
+      final StyleExpression strokeWidth = OsmMapGeojson.this.strokeWidth;
+      final StyleExpression color = OsmMapGeojson.this.color;
+
+      if (!sourceChanged) {
+        // only the styles changed
+        final GeojsonData current = data;
+        if (current == null) return;
+        loadExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            final GeojsonStyle style = GeojsonStyle.build(current, strokeColor, fillColor, strokeWidth, color);
+            mainHandler.post(new Runnable() {
+              @Override
+              public void run() {
+                if (styleRun != styleGeneration || current != data) return;
+                overlay.setData(current, style);
+                redraw();
+              }
+            });
+          }
+        });
+        return;
+      }
+
+      sourceChanged = false;
+      final int loadRun = ++loadGeneration;
+      final String geojson = OsmMapGeojson.this.geojson;
+      final String uri = OsmMapGeojson.this.uri;
+      loadExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          GeojsonData loaded = null;
+          GeojsonStyle loadedStyle = null;
+          if (geojson != null || uri != null) {
+            try {
+              loaded = GeojsonParser.parse(open(geojson, uri));
+              loadedStyle = GeojsonStyle.build(loaded, strokeColor, fillColor, strokeWidth, color);
+            } catch (IOException | RuntimeException e) {
+              Log.e(TAG, "Could not load GeoJSON " + (geojson != null ? "string" : uri), e);
+              loaded = null;
+            }
+          }
+          final GeojsonData result = loaded;
+          final GeojsonStyle style = loadedStyle;
+          mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+              // a newer document was set meanwhile
+              if (loadRun != loadGeneration) return;
+              data = result;
+              overlay.setData(result, style);
+              redraw();
+              if (result != null && styleRun != styleGeneration) {
+                // the styles changed while loading
+                scheduleUpdate();
+              }
+            }
+          });
+        }
+      });
+    }
+  };
+
+  private Reader open(String geojson, String uri) throws IOException {
+    if (geojson != null) {
+      return new StringReader(geojson);
+    }
+    Uri parsed = Uri.parse(uri);
+    InputStream stream = parsed.getScheme() == null
+        ? new FileInputStream(uri)
+        : getContext().getContentResolver().openInputStream(parsed);
+    if (stream == null) {
+      throw new IOException("Could not open " + uri);
+    }
+    return new BufferedReader(new InputStreamReader(stream, Charset.forName("UTF-8")), 1 << 16);
+  }
+
+  private void redraw() {
+    if (mapView != null) {
+      mapView.postInvalidate();
+    }
+  }
+
+  @Override
+  public Object getFeature() {
+    return overlay;
+  }
+
+  @Override
+  public void addToMap(MapView map) {
+    mapView = map;
+    addOverlay(map, overlay);
+  }
+
+  @Override
+  public void removeFromMap(MapView map) {
+    removeOverlay(map, overlay);
+    mapView = null;
+  }
+}
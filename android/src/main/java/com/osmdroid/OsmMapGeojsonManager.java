@@ -0,0 +1,93 @@
+package com.osmdroid;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.common.MapBuilder;
+import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.ViewGroupManager;
+import com.facebook.react.uimanager.annotations.ReactProp;
+import com.osmdroid.geojson.StyleExpression;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+public class OsmMapGeojsonManager extends ViewGroupManager<OsmMapGeojson> {
+
+  private static final String TAG = "OsmMapGeojsonManager";
+
+  @Override
+  public String getName() {
+    return "OsmMapGeojson";
+  }
+
+  @Override
+  public OsmMapGeojson createViewInstance(ThemedReactContext context) {
+    return new OsmMapGeojson(context);
+  }
+
+  @ReactProp(name = "geojson")
+  public void setGeojson(OsmMapGeojson view, @Nullable String geojson) {
+    view.setGeojson(geojson);
+  }
+
+  @ReactProp(name = "uri")
+  public void setUri(OsmMapGeojson view, @Nullable String uri) {
+    view.setUri(uri);
+  }
+
+  @ReactProp(name = "strokeColor")
+  public void setStrokeColor(OsmMapGeojson view, Dynamic strokeColor) {
+    view.setStrokeColor(toExpression(strokeColor));
+  }
+
+  @ReactProp(name = "fillColor")
+  public void setFillColor(OsmMapGeojson view, Dynamic fillColor) {
+    view.setFillColor(toExpression(fillColor));
+  }
+
+  @ReactProp(name = "strokeWidth")
+  public void setStrokeWidth(OsmMapGeojson view, Dynamic strokeWidth) {
+    view.setStrokeWidth(toExpression(strokeWidth));
+  }
+
+  @ReactProp(name = "color")
+  public void setColor(OsmMapGeojson view, Dynamic color) {
+    view.setColor(toExpression(color));
+  }
+
+  /**
+   * A constant (colors already processed in JS) or an expression array; null when unset or when
+   * the expression is invalid, which is logged.
+   */
+  @Nullable
+  static StyleExpression toExpression(Dynamic value) {
+    if (value == null) return null;
+    switch (value.getType()) {
+      case Number:
+        return StyleExpression.literal(value.asDouble());
+      case String:
+        return StyleExpression.literal(value.asString());
+      case Boolean:
+        return StyleExpression.literal(value.asBoolean());
+      case Array:
+        try {
+          return StyleExpression.parse(value.asArray().toArrayList());
+        } catch (IllegalArgumentException e) {
+          Log.e(TAG, "Invalid style expression", e);
+          return null;
+        }
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  @Nullable
+  public Map getExportedCustomDirectEventTypeConstants() {
+    return MapBuilder.of(
+        "onPress", MapBuilder.of("registrationName", "onPress")
+    );
+  }
+}
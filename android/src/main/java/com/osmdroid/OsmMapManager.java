@@ -3,6 +3,7 @@ package com.osmdroid;
 import android.preference.PreferenceManager;
 import android.view.View;
 
+import com.osmdroid.markers.MarkerAnimator;
 import com.osmdroid.utils.SizeReportingShadowNode;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -112,6 +113,16 @@ public class OsmMapManager extends ViewGroupManager<OsmMapView> {
     view.setHandlePanDrag(handlePanDrag);
   }
 
+  @ReactProp(name = "dragEventThrottle", defaultInt = 0)
+  public void setDragEventThrottle(OsmMapView view, int dragEventThrottle) {
+    view.setDragEventThrottle(dragEventThrottle);
+  }
+
+  @ReactProp(name = "minFeatureSize", defaultFloat = 0f)
+  public void setMinFeatureSize(OsmMapView view, float minFeatureSize) {
+    view.setMinFeatureSize(minFeatureSize);
+  }
+
   @ReactProp(name = "scrollEnabled", defaultBoolean = false)
   public void setScrollEnabled(OsmMapView view, boolean scrollEnabled) {
     view.setScrollEnabled(scrollEnabled);
@@ -205,6 +216,11 @@ public class OsmMapManager extends ViewGroupManager<OsmMapView> {
       case "fitToCoordinates":
         view.fitToCoordinates(args.getArray(0), args.getMap(1), args.getBoolean(2));
         break;
+
+      case "animateMarkersToCoordinates":
+        view.animateMarkersToCoordinates(args.getArray(0), args.getArray(1), args.getInt(2),
+          MarkerAnimator.parseEasing(args.size() > 3 && !args.isNull(3) ? args.getString(3) : null));
+        break;
     }
   }
 
@@ -2,34 +2,19 @@ package com.osmdroid;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
 import android.graphics.Rect;
-import android.graphics.drawable.Animatable;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
-import android.net.Uri;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.LinearLayout;
 
-import com.facebook.common.references.CloseableReference;
-import com.facebook.datasource.DataSource;
-import com.facebook.drawee.backends.pipeline.Fresco;
-import com.facebook.drawee.controller.BaseControllerListener;
-import com.facebook.drawee.controller.ControllerListener;
-import com.facebook.drawee.drawable.ScalingUtils;
-import com.facebook.drawee.generic.GenericDraweeHierarchy;
-import com.facebook.drawee.generic.GenericDraweeHierarchyBuilder;
-import com.facebook.drawee.interfaces.DraweeController;
-import com.facebook.drawee.view.DraweeHolder;
-import com.facebook.imagepipeline.core.ImagePipeline;
-import com.facebook.imagepipeline.image.CloseableImage;
-import com.facebook.imagepipeline.image.CloseableStaticBitmap;
-import com.facebook.imagepipeline.image.ImageInfo;
-import com.facebook.imagepipeline.request.ImageRequest;
-import com.facebook.imagepipeline.request.ImageRequestBuilder;
 import com.facebook.react.bridge.ReadableMap;
+import com.osmdroid.markers.MarkerAnimator;
+import com.osmdroid.markers.MarkerIconCache;
+import com.osmdroid.markers.MarkerPositionFeed;
+import com.osmdroid.markers.MarkerViewRasterizer;
+import com.osmdroid.overlays.IndexedMarker;
 
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
@@ -40,7 +25,8 @@ import javax.annotation.Nullable;
 
 import static android.view.KeyEvent.ACTION_UP;
 
-public class OsmMapMarker extends OsmMapFeature {
+public class OsmMapMarker extends OsmMapFeature
+        implements MarkerAnimator.Target, MarkerPositionFeed.Target {
 
     private Marker marker;
     private MapView mapView;
@@ -76,69 +62,115 @@ public class OsmMapMarker extends OsmMapFeature {
     private boolean calloutAnchorIsSet;
 
     private boolean hasCustomMarkerView = false;
-    private boolean isCustomMarkerViewDirty = false;
-    private Bitmap customMarkerViewBitmap = null;
+    private long customViewKey;
+    private Bitmap customViewBitmap;
+    private Drawable customIconDrawable;
+    // inputs customIconDrawable was made from
+    private Bitmap customIconView;
+    private MarkerIconCache.Icon customIconSource;
 
     private OnCalloutPressListener onCalloutPressListener;
 
-    private final DraweeHolder<?> logoHolder;
-    private DataSource<CloseableReference<CloseableImage>> dataSource;
-    private final ControllerListener<ImageInfo> mLogoControllerListener =
-            new BaseControllerListener<ImageInfo>() {
-                @Override
-                public void onFinalImageSet(
-                        String id,
-                        @Nullable final ImageInfo imageInfo,
-                        @Nullable Animatable animatable) {
-                    CloseableReference<CloseableImage> imageReference = null;
-                    try {
-                        imageReference = dataSource.getResult();
-                        if (imageReference != null) {
-                            CloseableImage image = imageReference.get();
-                            if (image != null && image instanceof CloseableStaticBitmap) {
-                                CloseableStaticBitmap closeableStaticBitmap = (CloseableStaticBitmap) image;
-                                Bitmap bitmap = closeableStaticBitmap.getUnderlyingBitmap();
-                                if (bitmap != null) {
-                                    bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
-                                    iconBitmap = bitmap;
-                                    iconBitmapDrawable = new BitmapDrawable(getResources(), bitmap);
-                                }
-                            }
-                        }
-                    } finally {
-                        dataSource.close();
-                        if (imageReference != null) {
-                            CloseableReference.closeSafely(imageReference);
-                        }
-                    }
-                    update();
-                }
-            };
+    // properties changed since they were last applied to the osmdroid marker
+    private static final int DIRTY_POSITION = 1;
+    private static final int DIRTY_ANCHOR = 1 << 1;
+    private static final int DIRTY_CALLOUT_ANCHOR = 1 << 2;
+    private static final int DIRTY_INFO_WINDOW = 1 << 3;
+    private static final int DIRTY_TEXT = 1 << 4;
+    private static final int DIRTY_ROTATION = 1 << 5;
+    private static final int DIRTY_FLAT = 1 << 6;
+    private static final int DIRTY_DRAGGABLE = 1 << 7;
+    private static final int DIRTY_OPACITY = 1 << 8;
+    private static final int DIRTY_ICON = 1 << 9;
+    // changes that can move or resize the marker's hit area
+    private static final int DIRTY_BOUNDS = DIRTY_POSITION | DIRTY_ANCHOR | DIRTY_ROTATION | DIRTY_FLAT | DIRTY_ICON;
+    private int dirty = 0;
+
+    private String imageUri;
+    private MarkerIconCache.Icon icon;
+    // the icon iconBitmap belongs to, holding its own reference so it outlives a newer icon's load
+    private MarkerIconCache.Icon shownIcon;
+    private final MarkerIconCache.Listener iconListener = new MarkerIconCache.Listener() {
+        @Override
+        public void onIconLoaded(MarkerIconCache.Icon loaded) {
+            if (loaded == icon) {
+                applyIcon();
+                commitUpdates();
+            }
+        }
+    };
 
     public OsmMapMarker(Context context) {
         super(context);
-        logoHolder = DraweeHolder.create(createDraweeHierarchy(), context);
-        logoHolder.onAttach();
-    }
-
-    private GenericDraweeHierarchy createDraweeHierarchy() {
-        return new GenericDraweeHierarchyBuilder(getResources())
-                .setActualImageScaleType(ScalingUtils.ScaleType.FIT_CENTER)
-                .setFadeDuration(0)
-                .build();
     }
 
     public void setCoordinate(ReadableMap coordinate) {
         position = new GeoPoint(coordinate.getDouble("latitude"), coordinate.getDouble("longitude"));
-        if (marker != null) {
+        // a new coordinate prop wins over a running animation or position feed
+        if (mapView instanceof OsmMapView) {
+            ((OsmMapView) mapView).getMarkerAnimator().cancel(this);
+            ((OsmMapView) mapView).getMarkerPositionFeed().cancel(identifier);
+        }
+        markDirty(DIRTY_POSITION);
+    }
+
+    /**
+     * Moves the marker to the coordinate over {@code duration} milliseconds, interpolated natively
+     * on display frames. Without a map to animate on, the marker is moved at once.
+     */
+    public void animateToCoordinate(double latitude, double longitude, int duration, int easing) {
+        if (marker == null || position == null || !(mapView instanceof OsmMapView)) {
+            position = new GeoPoint(latitude, longitude);
+            markDirty(DIRTY_POSITION);
+            commitUpdates();
+            return;
+        }
+        ((OsmMapView) mapView).getMarkerAnimator().animate(this,
+                position.getLatitude(), position.getLongitude(), latitude, longitude, duration, easing);
+    }
+
+    @Override
+    public void onAnimationFrame(double latitude, double longitude, boolean finished) {
+        if (marker == null) return;
+        moveTo(latitude, longitude, finished);
+    }
+
+    @Override
+    public boolean onFeedPosition(double latitude, double longitude, float heading, boolean fix) {
+        if (marker == null) return false;
+        ((OsmMapView) mapView).getMarkerAnimator().cancel(this);
+        if (!Float.isNaN(heading) && heading != rotation) {
+            rotation = heading;
+            marker.setRotation(heading);
+        }
+        moveTo(latitude, longitude, fix);
+        return true;
+    }
+
+    /**
+     * Moves the marker outside of prop updates. Unless {@code settle} is set, the osmdroid marker's
+     * position is changed in place, which allocates nothing but does not move an open info window.
+     */
+    private void moveTo(double latitude, double longitude, boolean settle) {
+        if (position == null) {
+            position = new GeoPoint(latitude, longitude);
+        } else {
+            position.setCoords(latitude, longitude);
+        }
+        GeoPoint current = marker.getPosition();
+        if (settle || current == null) {
             marker.setPosition(position);
+        } else {
+            current.setCoords(latitude, longitude);
         }
-        update();
+        notifyBoundsChanged(mapView);
     }
 
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
-        update();
+        if (mapView instanceof OsmMapView) {
+            ((OsmMapView) mapView).onMarkerIdentifierChanged();
+        }
     }
 
     public String getIdentifier() {
@@ -147,42 +179,28 @@ public class OsmMapMarker extends OsmMapFeature {
 
     public void setTitle(String title) {
         this.title = title;
-        if (marker != null) {
-            marker.setTitle(title);
-        }
-        update();
+        // a title can decide whether there is an info window at all
+        markDirty(DIRTY_TEXT | DIRTY_INFO_WINDOW);
     }
 
     public void setSnippet(String snippet) {
         this.snippet = snippet;
-        if (marker != null) {
-            marker.setSnippet(snippet);
-        }
-        update();
+        markDirty(DIRTY_TEXT | DIRTY_INFO_WINDOW);
     }
 
     public void setRotation(float rotation) {
         this.rotation = rotation;
-        if (marker != null) {
-            marker.setRotation(rotation);
-        }
-        update();
+        markDirty(DIRTY_ROTATION);
     }
 
     public void setFlat(boolean flat) {
         this.flat = flat;
-        if (marker != null) {
-            marker.setFlat(flat);
-        }
-        update();
+        markDirty(DIRTY_FLAT);
     }
 
     public void setDraggable(boolean draggable) {
         this.draggable = draggable;
-        if (marker != null) {
-            marker.setDraggable(draggable);
-        }
-        update();
+        markDirty(DIRTY_DRAGGABLE);
     }
 
 //  public void setZIndex(int zIndex) {
@@ -195,62 +213,52 @@ public class OsmMapMarker extends OsmMapFeature {
 
     public void setOpacity(float opacity) {
         this.opacity = opacity;
-        if (marker != null) {
-            marker.setAlpha(opacity);
-        }
-        update();
+        markDirty(DIRTY_OPACITY);
     }
 
     public void setMarkerHue(float markerHue) {
         this.markerHue = markerHue;
-        update();
     }
 
     public void setAnchor(double x, double y) {
         anchorIsSet = true;
         anchorX = (float) x;
         anchorY = (float) y;
-        if (marker != null) {
-            marker.setAnchor(anchorX, anchorY);
-        }
-        update();
+        markDirty(DIRTY_ANCHOR);
     }
 
     public void setCalloutAnchor(double x, double y) {
         calloutAnchorIsSet = true;
         calloutAnchorX = (float) x;
         calloutAnchorY = (float) y;
-        if (marker != null) {
-            marker.setInfoWindowAnchor(calloutAnchorX, calloutAnchorY);
-        }
-        update();
+        markDirty(DIRTY_CALLOUT_ANCHOR);
     }
 
     public void setImage(String uri) {
-        if (uri == null) {
-            iconBitmapDrawable = null;
-            update();
-        } else if (uri.startsWith("http://") || uri.startsWith("https://") ||
-                uri.startsWith("file://")) {
-            ImageRequest imageRequest = ImageRequestBuilder
-                    .newBuilderWithSource(Uri.parse(uri))
-                    .build();
-
-            ImagePipeline imagePipeline = Fresco.getImagePipeline();
-            dataSource = imagePipeline.fetchDecodedImage(imageRequest, this);
-            DraweeController controller = Fresco.newDraweeControllerBuilder()
-                    .setImageRequest(imageRequest)
-                    .setControllerListener(mLogoControllerListener)
-                    .setOldController(logoHolder.getController())
-                    .build();
-            logoHolder.setController(controller);
-        } else {
-            iconBitmapDrawable = getBitmapDrawableByName(uri);
-            if (iconBitmapDrawable != null) {
-                iconBitmap = BitmapFactory.decodeResource(getResources(), getDrawableResourceByName(uri));
+        imageUri = uri;
+        MarkerIconCache.Icon previous = icon;
+        // acquire before releasing, so re-setting the same image keeps the loaded bitmap
+        icon = uri != null
+                ? MarkerIconCache.getInstance().acquire(getContext(), uri, 0, 0, 0, iconListener)
+                : null;
+        MarkerIconCache.getInstance().release(previous, iconListener);
+        if (icon == null || icon.getBitmap() != null) {
+            applyIcon();
+        }
+        // otherwise keep showing the previous image until the new one is loaded
+    }
+
+    private void applyIcon() {
+        if (shownIcon != icon) {
+            if (icon != null) {
+                MarkerIconCache.getInstance().retain(icon);
             }
-            update();
+            MarkerIconCache.getInstance().release(shownIcon, iconListener);
+            shownIcon = icon;
         }
+        iconBitmap = icon != null ? icon.getBitmap() : null;
+        iconBitmapDrawable = iconBitmap != null ? new BitmapDrawable(getResources(), iconBitmap) : null;
+        markDirty(DIRTY_ICON);
     }
 
     @Override
@@ -270,22 +278,38 @@ public class OsmMapMarker extends OsmMapFeature {
 
     @Override
     public void addToMap(MapView map) {
-        marker = new Marker(map);
+        if (imageUri != null && icon == null) {
+            // the icon was released when this marker was last removed from a map
+            setImage(imageUri);
+        }
+        marker = new IndexedMarker(map);
         defaultInfoWindow = marker.getInfoWindow();
         defaultInfoWindow.getView().setOnTouchListener(OsmMapMarker.this.infoWindowTouched);
         mapView = map;
+        refreshCustomIcon();
         fillProperties(marker);
-        map.getOverlays().add(marker);
+        dirty = 0;
+        addOverlay(map, marker);
     }
 
     @Override
     public void removeFromMap(MapView map) {
         if (marker == null) return;
-        marker.remove(map);
+        marker.closeInfoWindow();
+        removeOverlay(map, marker);
         cleanup();
     }
 
     public void cleanup() {
+        if (mapView instanceof OsmMapView) {
+            ((OsmMapView) mapView).getMarkerAnimator().cancel(this);
+        }
+        MarkerIconCache.getInstance().release(icon, iconListener);
+        MarkerIconCache.getInstance().release(shownIcon, iconListener);
+        icon = null;
+        shownIcon = null;
+        iconBitmap = null;
+        iconBitmapDrawable = null;
         marker = null;
         mapView = null;
         defaultInfoWindow = null;
@@ -295,19 +319,8 @@ public class OsmMapMarker extends OsmMapFeature {
 
     private Drawable getIcon() {
         if (hasCustomMarkerView) {
-            // creating a bitmap from an arbitrary view
-            if (iconBitmapDrawable != null) {
-                Bitmap viewBitmap = getCustomMarkerViewBitmap();
-                int width = Math.max(iconBitmap.getWidth(), viewBitmap.getWidth());
-                int height = Math.max(iconBitmap.getHeight(), viewBitmap.getHeight());
-                Bitmap combinedBitmap = Bitmap.createBitmap(width, height, iconBitmap.getConfig());
-                Canvas canvas = new Canvas(combinedBitmap);
-                canvas.drawBitmap(iconBitmap, 0, 0, null);
-                canvas.drawBitmap(viewBitmap, 0, 0, null);
-                return new BitmapDrawable(getResources(), combinedBitmap);
-            } else {
-                return new BitmapDrawable(getResources(), getCustomMarkerViewBitmap());
-            }
+            // the rasterized view, composited over the image if there is one
+            return customIconDrawable;
         } else if (iconBitmapDrawable != null) {
             // use local image as a marker
             return iconBitmapDrawable;
@@ -318,6 +331,50 @@ public class OsmMapMarker extends OsmMapFeature {
         }
     }
 
+    /**
+     * Brings the custom view icon up to date. The view is drawn again only when its content key
+     * changed, and image plus view are composited off the UI thread; both results are shared with
+     * every marker showing the same content.
+     */
+    private void refreshCustomIcon() {
+        if (!hasCustomMarkerView) return;
+        int width = this.width <= 0 ? 100 : this.width;
+        int height = this.height <= 0 ? 100 : this.height;
+        MarkerViewRasterizer rasterizer = MarkerViewRasterizer.getInstance();
+
+        long key = MarkerViewRasterizer.contentKey(this, width, height);
+        if (customViewBitmap == null || key != customViewKey) {
+            customViewKey = key;
+            customViewBitmap = rasterizer.rasterize(this, width, height, key);
+        }
+
+        final MarkerIconCache.Icon source = shownIcon != null && shownIcon.getBitmap() != null ? shownIcon : null;
+        if (customIconDrawable != null && customIconView == customViewBitmap && customIconSource == source) {
+            return;
+        }
+        final Bitmap viewBitmap = customViewBitmap;
+        customIconView = viewBitmap;
+        customIconSource = source;
+
+        Bitmap composited = source != null ? rasterizer.getComposite(source, key) : viewBitmap;
+        if (composited != null) {
+            customIconDrawable = new BitmapDrawable(getResources(), composited);
+            return;
+        }
+        if (customIconDrawable == null) {
+            // show the view alone until the composite is ready
+            customIconDrawable = new BitmapDrawable(getResources(), viewBitmap);
+        }
+        rasterizer.composite(source, key, viewBitmap, new MarkerViewRasterizer.Callback() {
+            @Override
+            public void onComposited(Bitmap bitmap) {
+                if (customIconSource != source || customIconView != viewBitmap) return;
+                customIconDrawable = new BitmapDrawable(getResources(), bitmap);
+                update();
+            }
+        });
+    }
+
     private void fillProperties(Marker marker) {
         marker.setPosition(position);
         if (anchorIsSet) {
@@ -340,18 +397,72 @@ public class OsmMapMarker extends OsmMapFeature {
         marker.setIcon(getIcon());
     }
 
-    public void update() {
-        if (marker == null) {
+    private void markDirty(int properties) {
+        dirty |= properties;
+    }
+
+    /**
+     * Applies the properties changed since the last commit to the osmdroid marker and schedules
+     * one redraw of the map. Prop setters only mark what changed; the manager commits once per
+     * React update transaction.
+     */
+    public void commitUpdates() {
+        if (marker == null || dirty == 0) {
             return;
         }
-        fillProperties(marker);
-        mapView.invalidate();
+        int changed = dirty;
+        dirty = 0;
+
+        if ((changed & DIRTY_POSITION) != 0) {
+            marker.setPosition(position);
+        }
+        if ((changed & DIRTY_ANCHOR) != 0) {
+            marker.setAnchor(anchorX, anchorY);
+        }
+        if ((changed & DIRTY_CALLOUT_ANCHOR) != 0) {
+            marker.setInfoWindowAnchor(calloutAnchorX, calloutAnchorY);
+        }
+        if ((changed & DIRTY_TEXT) != 0) {
+            marker.setTitle(title);
+            marker.setSnippet(snippet);
+        }
+        if ((changed & DIRTY_INFO_WINDOW) != 0) {
+            marker.setInfoWindow(getInfoWindow());
+        }
+        if ((changed & DIRTY_ROTATION) != 0) {
+            marker.setRotation(rotation);
+        }
+        if ((changed & DIRTY_FLAT) != 0) {
+            marker.setFlat(flat);
+        }
+        if ((changed & DIRTY_DRAGGABLE) != 0) {
+            marker.setDraggable(draggable);
+        }
+        if ((changed & DIRTY_OPACITY) != 0) {
+            marker.setAlpha(opacity);
+        }
+        if ((changed & DIRTY_ICON) != 0) {
+            refreshCustomIcon();
+            marker.setIcon(getIcon());
+        }
+        if ((changed & DIRTY_BOUNDS) != 0) {
+            notifyBoundsChanged(mapView);
+        }
+        requestRedraw(mapView);
+    }
+
+    /**
+     * Applies a change of the marker's image or custom view right away, for changes that do not
+     * come with a prop update (children added, layout, images loaded).
+     */
+    public void update() {
+        markDirty(DIRTY_ICON);
+        commitUpdates();
     }
 
     public void update(int width, int height) {
         this.width = width;
         this.height = height;
-        isCustomMarkerViewDirty = true;
         update();
     }
 
@@ -365,28 +476,9 @@ public class OsmMapMarker extends OsmMapFeature {
         return null;
     }
 
-    private Bitmap getCustomMarkerViewBitmap() {
-        if (isCustomMarkerViewDirty || customMarkerViewBitmap == null) {
-            customMarkerViewBitmap = createCustomMarkerViewBitmap();
-            isCustomMarkerViewDirty = false;
-        }
-        return customMarkerViewBitmap;
-    }
-
-    private Bitmap createCustomMarkerViewBitmap() {
-        int width = this.width <= 0 ? 100 : this.width;
-        int height = this.height <= 0 ? 100 : this.height;
-        this.buildDrawingCache();
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-
-        Canvas canvas = new Canvas(bitmap);
-        this.draw(canvas);
-
-        return bitmap;
-    }
-
     public void setCalloutView(OsmMapCallout view) {
         this.calloutView = view;
+        markDirty(DIRTY_INFO_WINDOW);
     }
 
     public OsmMapCallout getCalloutView() {
@@ -429,17 +521,6 @@ public class OsmMapMarker extends OsmMapFeature {
         return customInfoWindowCache;
     }
 
-    private int getDrawableResourceByName(String name) {
-        return getResources().getIdentifier(
-                name,
-                "drawable",
-                getContext().getPackageName());
-    }
-
-    private Drawable getBitmapDrawableByName(String name) {
-        return getResources().getDrawable(getDrawableResourceByName(name));
-    }
-
     private void infoWindowPressed(MotionEvent e) {
         if (this.onCalloutPressListener != null) {
             onCalloutPressListener.OnCalloutPress(this);
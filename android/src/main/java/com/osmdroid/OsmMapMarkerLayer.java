@@ -0,0 +1,253 @@
+package com.osmdroid;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.osmdroid.markers.MarkerClusterIndex;
+import com.osmdroid.markers.MarkerLayerIcon;
+import com.osmdroid.markers.MarkerLayerOverlay;
+import com.osmdroid.markers.MarkerLayerStore;
+
+import org.osmdroid.views.MapView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Many markers drawn by a single overlay.
+ *
+ * Points are plain (id, latitude, longitude, icon) records sent in packed arrays and updated by id,
+ * instead of one marker view and one osmdroid {@code Marker} per point.
+ *
+ * With clustering on, a {@link MarkerClusterIndex} is rebuilt in the background after the points
+ * change (once per UI batch, however many commands it holds), and the items to draw are looked up
+ * again only when the map region changes.
+ */
+public class OsmMapMarkerLayer extends OsmMapFeature {
+
+  private static final String TAG = "OsmMapMarkerLayer";
+
+  private static final ExecutorService clusterExecutor = Executors.newSingleThreadExecutor();
+
+  private static final float DEFAULT_CLUSTER_RADIUS = 40;
+  private static final int DEFAULT_CLUSTER_MAX_ZOOM = 16;
+
+  private final MarkerLayerStore store = new MarkerLayerStore();
+  private final List<MarkerLayerIcon> icons = new ArrayList<>();
+  private final MarkerLayerOverlay overlay;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private MapView mapView;
+
+  private MarkerClusterIndex.Options clusterOptions;
+  private int clusterGeneration = 0;
+  private boolean clusterBuildPending = false;
+
+  public OsmMapMarkerLayer(Context context) {
+    super(context);
+    overlay = new MarkerLayerOverlay(store, icons, context.getResources().getDisplayMetrics().density);
+  }
+
+  public void setIcons(ReadableArray iconArray) {
+    List<MarkerLayerIcon> previous = new ArrayList<>(icons);
+    icons.clear();
+    float density = getResources().getDisplayMetrics().density;
+    for (int i = 0; iconArray != null && i < iconArray.size(); i++) {
+      ReadableMap iconMap = iconArray.getMap(i);
+      int width = iconMap.hasKey("width") ? Math.round((float) iconMap.getDouble("width") * density) : 0;
+      int height = iconMap.hasKey("height") ? Math.round((float) iconMap.getDouble("height") * density) : 0;
+      float anchorX = 0.5f;
+      float anchorY = 1.0f;
+      if (iconMap.hasKey("anchor") && !iconMap.isNull("anchor")) {
+        ReadableMap anchor = iconMap.getMap("anchor");
+        anchorX = (float) anchor.getDouble("x");
+        anchorY = (float) anchor.getDouble("y");
+      }
+      MarkerLayerIcon icon = new MarkerLayerIcon(getContext(), width, height, anchorX, anchorY,
+          new Runnable() {
+            @Override
+            public void run() {
+              redraw();
+            }
+          });
+      icons.add(icon);
+      if (iconMap.hasKey("uri") && !iconMap.isNull("uri")) {
+        icon.load(iconMap.getString("uri"));
+      }
+    }
+    // released after loading the new icons, so images used by both stay cached
+    for (MarkerLayerIcon icon : previous) {
+      icon.release();
+    }
+    redraw();
+  }
+
+  /**
+   * Turns clustering on with the given options ({@code radius} in dp, {@code minZoom},
+   * {@code maxZoom}, {@code minPoints}), or off when null.
+   */
+  public void setClustering(ReadableMap clustering) {
+    if (clustering == null) {
+      clusterOptions = null;
+      clusterGeneration++;
+      overlay.setClusterIndex(null);
+      redraw();
+      return;
+    }
+    float density = getResources().getDisplayMetrics().density;
+    float radius = clustering.hasKey("radius") ? (float) clustering.getDouble("radius") : DEFAULT_CLUSTER_RADIUS;
+    MarkerClusterIndex.Options options = new MarkerClusterIndex.Options(
+        radius * density,
+        clustering.hasKey("minZoom") ? clustering.getInt("minZoom") : 0,
+        clustering.hasKey("maxZoom") ? clustering.getInt("maxZoom") : DEFAULT_CLUSTER_MAX_ZOOM,
+        clustering.hasKey("minPoints") ? clustering.getInt("minPoints") : 2);
+    if (options.equals(clusterOptions)) {
+      return;
+    }
+    clusterOptions = options;
+    scheduleClusterBuild();
+  }
+
+  public void setClusterColor(int color) {
+    overlay.setClusterColor(color);
+    redraw();
+  }
+
+  public void setClusterTextColor(int color) {
+    overlay.setClusterTextColor(color);
+    redraw();
+  }
+
+  public void setOnPointPressListener(MarkerLayerOverlay.OnPointPressListener listener) {
+    overlay.setOnPointPressListener(listener);
+  }
+
+  public void setOnClusterPressListener(MarkerLayerOverlay.OnClusterPressListener listener) {
+    overlay.setOnClusterPressListener(listener);
+  }
+
+  /**
+   * Replaces all points. {@code coordinates} holds latitude/longitude pairs and {@code iconIndexes}
+   * (optional) the icon of each point.
+   */
+  public void setPoints(ReadableArray ids, ReadableArray coordinates, ReadableArray iconIndexes) {
+    if (!hasCoordinatesForIds(ids, coordinates)) return;
+    store.clear();
+    upsertPoints(ids, coordinates, iconIndexes);
+  }
+
+  public void upsertPoints(ReadableArray ids, ReadableArray coordinates, ReadableArray iconIndexes) {
+    if (!hasCoordinatesForIds(ids, coordinates)) return;
+    int count = ids.size();
+    store.ensureCapacity(store.size() + count);
+    for (int i = 0; i < count; i++) {
+      int icon = iconIndexes != null && i < iconIndexes.size() ? iconIndexes.getInt(i) : 0;
+      store.upsert(ids.getString(i), coordinates.getDouble(i * 2), coordinates.getDouble(i * 2 + 1), icon);
+    }
+    onPointsChanged();
+  }
+
+  private static boolean hasCoordinatesForIds(ReadableArray ids, ReadableArray coordinates) {
+    if (coordinates.size() == ids.size() * 2) return true;
+    Log.w(TAG, "Ignoring points: expected " + ids.size() * 2 + " coordinates, got " + coordinates.size());
+    return false;
+  }
+
+  public void removePoints(ReadableArray ids) {
+    for (int i = 0; i < ids.size(); i++) {
+      store.remove(ids.getString(i));
+    }
+    onPointsChanged();
+  }
+
+  public MarkerLayerStore getStore() {
+    return store;
+  }
+
+  private void onPointsChanged() {
+    if (clusterOptions != null) {
+      scheduleClusterBuild();
+    } else {
+      redraw();
+    }
+  }
+
+  private void scheduleClusterBuild() {
+    if (clusterBuildPending) return;
+    clusterBuildPending = true;
+    // posted so that all commands of the current batch land in one build
+    mainHandler.post(buildClusters);
+  }
+
+  private final Runnable buildClusters = new Runnable() {
+    @Override
+    public void run() {
+      clusterBuildPending = false;
+      if (clusterOptions == null) return;
+      final int generation = ++clusterGeneration;
+      final MarkerClusterIndex.Builder builder = new MarkerClusterIndex.Builder(store, clusterOptions);
+      clusterExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          final MarkerClusterIndex index = builder.build();
+          mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+              // a newer build was started, or clustering turned off, meanwhile
+              if (generation != clusterGeneration) return;
+              overlay.setClusterIndex(index);
+              redraw();
+            }
+          });
+        }
+      });
+    }
+  };
+
+  private final OsmMapView.OnRegionChangeListener regionChangeListener = new OsmMapView.OnRegionChangeListener() {
+    @Override
+    public void onRegionChange(OsmMapView map) {
+      overlay.updateViewport(map);
+    }
+  };
+
+  private void redraw() {
+    if (mapView != null) {
+      mapView.postInvalidate();
+    }
+  }
+
+  @Override
+  public Object getFeature() {
+    return overlay;
+  }
+
+  @Override
+  public void addToMap(MapView map) {
+    mapView = map;
+    for (MarkerLayerIcon icon : icons) {
+      icon.reload();
+    }
+    addOverlay(map, overlay);
+    if (map instanceof OsmMapView) {
+      ((OsmMapView) map).addOnRegionChangeListener(regionChangeListener);
+    }
+  }
+
+  @Override
+  public void removeFromMap(MapView map) {
+    if (map instanceof OsmMapView) {
+      ((OsmMapView) map).removeOnRegionChangeListener(regionChangeListener);
+    }
+    removeOverlay(map, overlay);
+    for (MarkerLayerIcon icon : icons) {
+      icon.release();
+    }
+    mapView = null;
+  }
+}
@@ -0,0 +1,72 @@
+package com.osmdroid;
+
+import android.graphics.Color;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.common.MapBuilder;
+import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.ViewGroupManager;
+import com.facebook.react.uimanager.annotations.ReactProp;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+public class OsmMapMarkerLayerManager extends ViewGroupManager<OsmMapMarkerLayer> {
+
+  @Override
+  public String getName() {
+    return "OsmMapMarkerLayer";
+  }
+
+  @Override
+  public OsmMapMarkerLayer createViewInstance(ThemedReactContext context) {
+    return new OsmMapMarkerLayer(context);
+  }
+
+  @ReactProp(name = "icons")
+  public void setIcons(OsmMapMarkerLayer view, @Nullable ReadableArray icons) {
+    view.setIcons(icons);
+  }
+
+  @ReactProp(name = "clustering")
+  public void setClustering(OsmMapMarkerLayer view, @Nullable ReadableMap clustering) {
+    view.setClustering(clustering);
+  }
+
+  @ReactProp(name = "clusterColor", defaultInt = 0xff1e88e5, customType = "Color")
+  public void setClusterColor(OsmMapMarkerLayer view, int color) {
+    view.setClusterColor(color);
+  }
+
+  @ReactProp(name = "clusterTextColor", defaultInt = Color.WHITE, customType = "Color")
+  public void setClusterTextColor(OsmMapMarkerLayer view, int color) {
+    view.setClusterTextColor(color);
+  }
+
+  @Override
+  public void receiveCommand(OsmMapMarkerLayer view, String commandId, @Nullable ReadableArray args) {
+    switch (commandId) {
+      case "setPoints":
+        view.setPoints(args.getArray(0), args.getArray(1), args.isNull(2) ? null : args.getArray(2));
+        break;
+
+      case "upsertPoints":
+        view.upsertPoints(args.getArray(0), args.getArray(1), args.isNull(2) ? null : args.getArray(2));
+        break;
+
+      case "removePoints":
+        view.removePoints(args.getArray(0));
+        break;
+    }
+  }
+
+  @Override
+  @Nullable
+  public Map getExportedCustomDirectEventTypeConstants() {
+    return MapBuilder.of(
+        "onPress", MapBuilder.of("registrationName", "onPress")
+    );
+  }
+}
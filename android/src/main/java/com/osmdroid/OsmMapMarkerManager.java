@@ -3,6 +3,7 @@ package com.osmdroid;
 import android.graphics.Color;
 import android.view.View;
 
+import com.osmdroid.markers.MarkerAnimator;
 import com.osmdroid.utils.SizeReportingShadowNode;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
@@ -179,6 +180,31 @@ public class OsmMapMarkerManager extends ViewGroupManager<OsmMapMarker> {
     }
     }
 
+    @Override
+    public void receiveCommand(OsmMapMarker view, String commandId, @Nullable ReadableArray args) {
+    switch (commandId) {
+      case "showCallout":
+        receiveCommand(view, SHOW_INFO_WINDOW, args);
+        break;
+
+      case "hideCallout":
+        receiveCommand(view, HIDE_INFO_WINDOW, args);
+        break;
+
+      case "animateMarkerToCoordinate":
+        ReadableMap coordinate = args.getMap(0);
+        int duration = args.getInt(1);
+        String easing = args.size() > 2 && !args.isNull(2) ? args.getString(2) : null;
+        view.animateToCoordinate(coordinate.getDouble("latitude"), coordinate.getDouble("longitude"),
+            duration, MarkerAnimator.parseEasing(easing));
+        break;
+
+      case "redraw":
+        view.update();
+        break;
+    }
+    }
+
     @Override
     @Nullable
     public Map getExportedCustomDirectEventTypeConstants() {
@@ -199,6 +225,13 @@ public class OsmMapMarkerManager extends ViewGroupManager<OsmMapMarker> {
         return map;
     }
 
+    @Override
+    protected void onAfterUpdateTransaction(OsmMapMarker view) {
+        super.onAfterUpdateTransaction(view);
+        // all props of this transaction are set: apply them to the osmdroid marker at once
+        view.commitUpdates();
+    }
+
     @Override
     public LayoutShadowNode createShadowNodeInstance() {
         // we use a custom shadow node that emits the width/height of the view
@@ -7,12 +7,15 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.uimanager.NativeViewHierarchyManager;
 import com.facebook.react.uimanager.UIBlock;
 import com.facebook.react.uimanager.UIManagerModule;
+import com.osmdroid.markers.MarkerPositionFeed;
 
 
 import org.osmdroid.api.IGeoPoint;
@@ -272,6 +275,43 @@ public class OsmMapModule extends ReactContextBaseJavaModule {
     });
   }
 
+  /**
+   * Moves the markers of a map to streamed live positions without going through React props.
+   * {@code records} holds latitude, longitude, heading and timestamp (milliseconds) for each
+   * identifier. The batch is unpacked on the module thread and applied with the next UI batch.
+   */
+  @ReactMethod
+  public void updateMarkerPositions(final int tag, ReadableArray identifiers, ReadableArray records,
+                                    ReadableMap options) {
+    final String[] ids = new String[identifiers.size()];
+    final double[] values = new double[ids.length * MarkerPositionFeed.RECORD_SIZE];
+    if (records.size() < values.length) {
+      Log.w(NAME, "updateMarkerPositions: expected " + values.length + " record values, got " + records.size());
+      return;
+    }
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = identifiers.getString(i);
+    }
+    for (int i = 0; i < values.length; i++) {
+      values[i] = records.isNull(i) ? Double.NaN : records.getDouble(i);
+    }
+    boolean deadReckoning = options != null && options.hasKey("deadReckoning") && options.getBoolean("deadReckoning");
+    final long maxExtrapolation = !deadReckoning ? 0
+        : options.hasKey("maxExtrapolation") ? (long) options.getDouble("maxExtrapolation") : 2000;
+
+    UIManagerModule uiManager = getReactApplicationContext().getNativeModule(UIManagerModule.class);
+    assert uiManager != null;
+    uiManager.addUIBlock(new UIBlock() {
+      @Override
+      public void execute(NativeViewHierarchyManager nvhm) {
+        OsmMapView view = (OsmMapView) nvhm.resolveView(tag);
+        if (view != null) {
+          view.getMarkerPositionFeed().apply(ids, values, maxExtrapolation);
+        }
+      }
+    });
+  }
+
   //   @ReactMethod
   // public void enableLatestRenderer(final Promise promise) {
   //   final ReactApplicationContext context = getReactApplicationContext();
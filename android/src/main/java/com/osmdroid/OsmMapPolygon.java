@@ -1,20 +1,33 @@
 package com.osmdroid;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.osmdroid.overlays.IndexedPolygon;
+import com.osmdroid.utils.LineSimplification;
+import com.osmdroid.utils.PolylineEncoding;
 
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.Polygon;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Polygons with many points are drawn simplified like {@link OsmMapPolyline}; taps are tested
+ * against every coordinate.
+ */
 public class OsmMapPolygon extends OsmMapFeature {
 
-  private Polygon polygon;
+  private static final String TAG = "OsmMapPolygon";
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private IndexedPolygon polygon;
+  private int simplifyGeneration = 0;
 
   private List<GeoPoint> coordinates;
   private int strokeColor;
@@ -27,18 +40,106 @@ public class OsmMapPolygon extends OsmMapFeature {
   }
 
   public void setCoordinates(ReadableArray coordinates) {
+    // unset when the polygon switched to encodedCoordinates
+    if (coordinates == null) return;
     // it's kind of a bummer that we can't run map() or anything on the ReadableArray
-    this.coordinates = new ArrayList<>(coordinates.size()+1);
+    List<GeoPoint> points = new ArrayList<>(coordinates.size()+1);
     for (int i = 0; i < coordinates.size(); i++) {
       ReadableMap coordinate = coordinates.getMap(i);
-      this.coordinates.add(i,
+      points.add(i,
           new GeoPoint(coordinate.getDouble("latitude"), coordinate.getDouble("longitude")));
     }
-    this.coordinates.add(this.coordinates.get(0));
+    setRing(points);
+  }
+
+  /**
+   * Sets the coordinates from an encoded polyline string, decoded in one pass.
+   */
+  public void setEncodedCoordinates(String encoded) {
+    if (encoded == null) return;
+    double[] coordinates;
+    try {
+      coordinates = PolylineEncoding.decode(encoded, PolylineEncoding.DEFAULT_PRECISION);
+    } catch (IllegalArgumentException e) {
+      // keep what is drawn rather than crash on a bad prop
+      Log.e(TAG, "Invalid encodedCoordinates", e);
+      return;
+    }
+    List<GeoPoint> points = new ArrayList<>(coordinates.length / 2 + 1);
+    for (int i = 0; i < coordinates.length; i += 2) {
+      points.add(new GeoPoint(coordinates[i], coordinates[i + 1]));
+    }
+    setRing(points);
+  }
+
+  private void setRing(List<GeoPoint> points) {
+    // no points clears the ring
+    if (!points.isEmpty()) {
+      points.add(points.get(0));
+    }
+    this.coordinates = points;
     if (polygon != null) {
+      polygon.setSimplification(null);
       polygon.setPoints(this.coordinates);
+      notifyBoundsChanged(mapView);
       mapView.invalidate();
+      simplify();
+    }
+  }
+
+  /**
+   * All coordinates of the closed ring, whatever is drawn at the current zoom level.
+   */
+  public List<GeoPoint> getCoordinates() {
+    return coordinates;
+  }
+
+  private void simplify() {
+    final int generation = ++simplifyGeneration;
+    final List<GeoPoint> points = coordinates;
+    if (points == null || points.size() < OsmMapPolyline.SIMPLIFY_MIN_POINTS) return;
+    OsmMapPolyline.simplifyExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        final LineSimplification simplification =
+            LineSimplification.build(points, OsmMapPolyline.SIMPLIFY_TOLERANCE);
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            if (generation != simplifyGeneration || polygon == null) return;
+            polygon.setSimplification(simplification);
+            mapView.invalidate();
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Whether {@code point} is inside the polygon at full precision, by crossing number in Web
+   * Mercator coordinates, where the drawn edges are straight.
+   */
+  public boolean contains(GeoPoint point) {
+    if (coordinates == null || coordinates.size() < 3) return false;
+    double x = point.getLongitude();
+    double y = MapView.getTileSystem().getY01FromLatitude(point.getLatitude(), true);
+    boolean inside = false;
+    GeoPoint previous = coordinates.get(coordinates.size() - 1);
+    double previousY = MapView.getTileSystem().getY01FromLatitude(previous.getLatitude(), true);
+    for (int i = 0; i < coordinates.size(); i++) {
+      GeoPoint current = coordinates.get(i);
+      double currentY = MapView.getTileSystem().getY01FromLatitude(current.getLatitude(), true);
+      if ((currentY > y) != (previousY > y)) {
+        double crossingX = current.getLongitude() + (y - currentY) / (previousY - currentY)
+            * (previous.getLongitude() - current.getLongitude());
+        if (x < crossingX) {
+          inside = !inside;
+        }
+      }
+      previous = current;
+      previousY = currentY;
     }
+    return inside;
   }
 
   public void setFillColor(int color) {
@@ -73,19 +174,20 @@ public class OsmMapPolygon extends OsmMapFeature {
 
   @Override
   public void addToMap(MapView map) {
-    polygon = new Polygon();
+    polygon = new IndexedPolygon();
     mapView = map;
     polygon.setPoints(coordinates);
     polygon.getFillPaint().setColor(fillColor);
     polygon.getOutlinePaint().setColor(strokeColor);
     polygon.getOutlinePaint().setStrokeWidth(strokeWidth);
-    map.getOverlays().add(polygon);
-    mapView.invalidate();
+    addOverlay(map, polygon);
+    simplify();
   }
 
   @Override
   public void removeFromMap(MapView map) {
-    map.getOverlays().remove(polygon);
+    removeOverlay(map, polygon);
+    simplifyGeneration++;
     polygon = null;
     mapView = null;
   }
@@ -1,20 +1,52 @@
 package com.osmdroid;
 
 import android.content.Context;
+import android.graphics.Point;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.osmdroid.overlays.IndexedPolyline;
+import com.osmdroid.utils.LineSimplification;
+import com.osmdroid.utils.PolylineEncoding;
 
 import org.osmdroid.util.GeoPoint;
+import org.osmdroid.util.TileSystem;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.Polyline;
+import org.osmdroid.views.Projection;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Long lines are drawn simplified: after the coordinates change, a {@link LineSimplification} is
+ * built in the background and the overlay then draws the points kept at the current zoom level.
+ * Taps are still tested against every coordinate.
+ *
+ * Points appended to a growing line are added to the overlay and drawn as they are after the
+ * simplified points. The line is only simplified again once the unsimplified tail has grown by a
+ * quarter, so recording a long track costs no more than simplifying it a few times overall.
+ */
 public class OsmMapPolyline extends OsmMapFeature {
 
-  private Polyline polyline;
+  private static final String TAG = "OsmMapPolyline";
+
+  static final ExecutorService simplifyExecutor = Executors.newSingleThreadExecutor();
+
+  // lines with fewer points are drawn as they are
+  static final int SIMPLIFY_MIN_POINTS = 256;
+  // pixels a simplified line may stray from the full one
+  static final float SIMPLIFY_TOLERANCE = 0.5f;
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private IndexedPolyline polyline;
+  private int simplifyGeneration = 0;
+  // points the latest simplification is built from, 0 when none is
+  private int simplifiedSize = 0;
 
   private List<GeoPoint> coordinates;
   private int color;
@@ -28,16 +60,167 @@ public class OsmMapPolyline extends OsmMapFeature {
   }
 
   public void setCoordinates(ReadableArray coordinates) {
-    this.coordinates = new ArrayList<>(coordinates.size());
+    // unset when the line switched to encodedCoordinates
+    if (coordinates == null) return;
+    List<GeoPoint> points = new ArrayList<>(coordinates.size());
     for (int i = 0; i < coordinates.size(); i++) {
       ReadableMap coordinate = coordinates.getMap(i);
-      this.coordinates.add(i,
+      points.add(i,
           new GeoPoint(coordinate.getDouble("latitude"), coordinate.getDouble("longitude")));
     }
+    setPoints(points);
+  }
+
+  /**
+   * Sets the coordinates from an encoded polyline string, decoded in one pass.
+   */
+  public void setEncodedCoordinates(String encoded) {
+    if (encoded == null) return;
+    double[] coordinates;
+    try {
+      coordinates = PolylineEncoding.decode(encoded, PolylineEncoding.DEFAULT_PRECISION);
+    } catch (IllegalArgumentException e) {
+      // keep what is drawn rather than crash on a bad prop
+      Log.e(TAG, "Invalid encodedCoordinates", e);
+      return;
+    }
+    List<GeoPoint> points = new ArrayList<>(coordinates.length / 2);
+    for (int i = 0; i < coordinates.length; i += 2) {
+      points.add(new GeoPoint(coordinates[i], coordinates[i + 1]));
+    }
+    setPoints(points);
+  }
+
+  private void setPoints(List<GeoPoint> points) {
+    this.coordinates = points;
     if (polyline != null) {
+      polyline.setSimplification(null, null);
       polyline.setPoints(this.coordinates);
+      notifyBoundsChanged(mapView);
       mapView.invalidate();
+      simplify();
+    }
+  }
+
+  /**
+   * Adds coordinates, given as latitude, longitude pairs, to the end of the line. Only the new
+   * points are projected into the overlay and added to the line's indexed bounds.
+   */
+  public void appendCoordinates(ReadableArray coordinates) {
+    if (coordinates.size() < 2) return;
+    if (this.coordinates == null) {
+      this.coordinates = new ArrayList<>();
+    }
+    List<GeoPoint> added = new ArrayList<>(coordinates.size() / 2);
+    for (int i = 0; i + 1 < coordinates.size(); i += 2) {
+      added.add(new GeoPoint(coordinates.getDouble(i), coordinates.getDouble(i + 1)));
+    }
+    this.coordinates.addAll(added);
+    if (polyline != null) {
+      polyline.appendPoints(added);
+      if (mapView instanceof OsmMapView) {
+        ((OsmMapView) mapView).onFeaturePointsAdded(this, added);
+      }
+      requestRedraw(mapView);
+      int size = this.coordinates.size();
+      if (size >= SIMPLIFY_MIN_POINTS
+          && size - simplifiedSize >= Math.max(SIMPLIFY_MIN_POINTS, simplifiedSize / 4)) {
+        simplify();
+      }
+    }
+  }
+
+  /**
+   * Removes the first {@code count} coordinates, the oldest of a recorded track. The line is set
+   * again as a whole, since simplification depends on where it starts.
+   */
+  public void trimCoordinates(int count) {
+    if (coordinates == null || count <= 0) return;
+    List<GeoPoint> remaining = new ArrayList<>(
+        coordinates.subList(Math.min(count, coordinates.size()), coordinates.size()));
+    setPoints(remaining);
+  }
+
+  /**
+   * All coordinates, whatever is drawn at the current zoom level.
+   */
+  public List<GeoPoint> getCoordinates() {
+    return coordinates;
+  }
+
+  private void simplify() {
+    final int generation = ++simplifyGeneration;
+    if (coordinates == null || coordinates.size() < SIMPLIFY_MIN_POINTS) {
+      simplifiedSize = 0;
+      return;
+    }
+    // appended to meanwhile, so the background build gets its own copy
+    final List<GeoPoint> points = new ArrayList<>(coordinates);
+    simplifiedSize = points.size();
+    simplifyExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        final LineSimplification simplification = LineSimplification.build(points, SIMPLIFY_TOLERANCE);
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            // the coordinates changed, or the line left the map, meanwhile
+            if (generation != simplifyGeneration || polyline == null) return;
+            // points appended since the build are drawn after it as they are
+            polyline.setSimplification(simplification,
+                coordinates.subList(simplification.size(), coordinates.size()));
+            mapView.invalidate();
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Whether {@code point} is within {@code tolerance} pixels of the line at full precision. Only
+   * segments whose bounds are that close to the point are projected.
+   */
+  public boolean isCloseTo(GeoPoint point, double tolerance, MapView map) {
+    if (coordinates == null || coordinates.isEmpty()) return false;
+    if (geodesic) {
+      // drawn as great circle arcs, which only the overlay knows
+      return polyline.isCloseTo(point, tolerance, map);
     }
+    Projection projection = map.getProjection();
+    // degrees of longitude per pixel bound degrees of latitude per pixel from above
+    double degrees = tolerance / TileSystem.MapSize(projection.getZoomLevel()) * 360;
+    double latitude = point.getLatitude();
+    double longitude = point.getLongitude();
+    Point tap = projection.toPixels(point, null);
+    Point start = new Point();
+    Point end = new Point();
+    for (int i = 1; i < coordinates.size(); i++) {
+      GeoPoint a = coordinates.get(i - 1);
+      GeoPoint b = coordinates.get(i);
+      if (Math.min(a.getLatitude(), b.getLatitude()) - degrees > latitude
+          || Math.max(a.getLatitude(), b.getLatitude()) + degrees < latitude
+          || Math.min(a.getLongitude(), b.getLongitude()) - degrees > longitude
+          || Math.max(a.getLongitude(), b.getLongitude()) + degrees < longitude) {
+        continue;
+      }
+      projection.toPixels(a, start);
+      projection.toPixels(b, end);
+      if (segmentDistanceSquared(tap, start, end) <= tolerance * tolerance) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static double segmentDistanceSquared(Point p, Point a, Point b) {
+    double dx = b.x - a.x;
+    double dy = b.y - a.y;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0 : ((p.x - a.x) * dx + (p.y - a.y) * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+    double ex = p.x - (a.x + t * dx);
+    double ey = p.y - (a.y + t * dy);
+    return ex * ex + ey * ey;
   }
 
   public void setColor(int color) {
@@ -52,6 +235,7 @@ public class OsmMapPolyline extends OsmMapFeature {
     this.width = width;
     if (polyline != null) {
       polyline.getOutlinePaint().setStrokeWidth(width);
+      notifyBoundsChanged(mapView);
       mapView.invalidate();
     }
   }
@@ -71,19 +255,20 @@ public class OsmMapPolyline extends OsmMapFeature {
 
   @Override
   public void addToMap(MapView map) {
-    polyline = new Polyline();
+    polyline = new IndexedPolyline();
     mapView = map;
     polyline.setPoints(coordinates);
     polyline.getOutlinePaint().setColor(color);
     polyline.getOutlinePaint().setStrokeWidth(width);
     polyline.setGeodesic(geodesic);
-    mapView.getOverlayManager().add(polyline);
-    mapView.invalidate();
+    addOverlay(map, polyline);
+    simplify();
   }
 
   @Override
   public void removeFromMap(MapView map) {
-    map.getOverlays().remove(polyline);
+    removeOverlay(map, polyline);
+    simplifyGeneration++;
     polyline = null;
     mapView = null;
   }
@@ -47,6 +47,11 @@ public class OsmMapPolylineManager extends ViewGroupManager<OsmMapPolyline> {
     view.setCoordinates(coordinates);
   }
 
+  @ReactProp(name = "encodedCoordinates")
+  public void setEncodedCoordinates(OsmMapPolyline view, String encodedCoordinates) {
+    view.setEncodedCoordinates(encodedCoordinates);
+  }
+
   @ReactProp(name = "strokeWidth", defaultFloat = 1f)
   public void setStrokeWidth(OsmMapPolyline view, float widthInPoints) {
     float widthInScreenPx = metrics.density * widthInPoints; // done for parity with iOS
@@ -63,6 +68,18 @@ public class OsmMapPolylineManager extends ViewGroupManager<OsmMapPolyline> {
     view.setGeodesic(geodesic);
   }
 
+  @Override
+  public void receiveCommand(OsmMapPolyline view, String commandId, @Nullable ReadableArray args) {
+    switch (commandId) {
+      case "appendCoordinates":
+        view.appendCoordinates(args.getArray(0));
+        break;
+
+      case "trimCoordinates":
+        view.trimCoordinates(args.getInt(0));
+        break;
+    }
+  }
 
   @Override
   @Nullable
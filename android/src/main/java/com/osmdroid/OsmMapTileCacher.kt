@@ -2,11 +2,29 @@ package com.osmdroid;
 
 import android.content.Context
 import android.database.sqlite.SQLiteDatabase
+import android.os.Handler
+import android.os.Looper
+import android.util.JsonReader
+import android.util.JsonToken
 import android.widget.Toast
+import java.io.Closeable
 import java.io.File
+import java.io.FileReader
+import java.io.IOException
+import java.security.MessageDigest
 import java.util.Calendar
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
 
-class OsmMapTileCacher(private val context: Context) {
+class OsmMapTileCacher(private val context: Context) : Closeable {
+
+    fun interface DeltaProgressListener {
+        fun onProgress(processed: Int, total: Int)
+    }
+
+    class DeltaResult(val written: Int, val deleted: Int, val unchanged: Int, val rejected: Int)
+
+    private val database: SQLiteDatabase by lazy { getDatabase() }
 
     private fun getDatabase(): SQLiteDatabase {
         val dbPath = "${context.filesDir.path}/osmdroid/tiles/cache.db"
@@ -32,6 +50,26 @@ class OsmMapTileCacher(private val context: Context) {
                 )
             """.trimIndent())
             db.execSQL("CREATE INDEX IF NOT EXISTS expires_index ON tiles (expires)")
+            // content hashes live next to osmdroid's own table so its schema stays untouched
+            db.execSQL("""
+                CREATE TABLE IF NOT EXISTS tile_hashes (
+                    key INTEGER PRIMARY KEY,
+                    provider TEXT,
+                    hash TEXT,
+                    pack TEXT
+                )
+            """.trimIndent())
+            // databases created before deltas were scoped to a pack lack the column
+            val hasPackColumn = db.rawQuery("PRAGMA table_info(tile_hashes)", null).use { cursor ->
+                var found = false
+                while (!found && cursor.moveToNext()) {
+                    found = cursor.getString(1) == "pack"
+                }
+                found
+            }
+            if (!hasPackColumn) {
+                db.execSQL("ALTER TABLE tile_hashes ADD COLUMN pack TEXT")
+            }
 
             db.setTransactionSuccessful()
         } finally {
@@ -42,92 +80,382 @@ class OsmMapTileCacher(private val context: Context) {
     }
 
     init {
-        getDatabase()
+        database
+    }
+
+    /**
+     * Closes the tile database this cacher opened. The cacher can't be used afterwards.
+     */
+    override fun close() {
+        database.close()
     }
 
     fun insertTile(z: Int, x: Int, y: Int, provider: String, tileFile: File) {
-        val db = getDatabase()
+        val tileData = tileFile.readBytes()
+        val key = getIndex(x.toLong(), y.toLong(), z.toLong())
+
+        database.execSQL("INSERT OR REPLACE INTO tiles (key, provider, tile, expires) VALUES (?, ?, ?, ?)", arrayOf(key, provider, tileData, expiresTimestamp()))
+        database.execSQL("INSERT OR REPLACE INTO tile_hashes (key, provider, hash) VALUES (?, ?, ?)", arrayOf(key, provider, contentHash(tileData)))
+    }
+
+    /**
+     * Brings the cached tiles in line with a republished pack without re-importing it.
+     *
+     * [manifestPath] points at a JSON file of the form
+     * `{"pack": "<id>", "tiles": {"z/x/y.png": "<sha-256>", ...}}` listing every tile of the new
+     * pack. Tiles whose hash differs from the stored one are read from [directoryPath], everything
+     * else is left alone. Every tile in the manifest is recorded as owned by the pack, given by
+     * [pack] or else by the manifest, and tiles the pack owned that are missing from the manifest
+     * are deleted. Tiles of other packs and of directory imports are never deleted; without a pack
+     * id nothing is. Writes and deletes are applied in batched transactions. Hashes always refer to
+     * the source files, so packs imported with a [transcoder] can still be diffed against the vendor
+     * manifest.
+     */
+    @Throws(IOException::class)
+    fun applyDelta(
+        directoryPath: String,
+        manifestPath: String,
+        pack: String? = null,
+        provider: String = DEFAULT_PROVIDER,
+        transcoder: OsmMapTileTranscoder? = null,
+        listener: DeltaProgressListener? = null
+    ): DeltaResult {
+        val sourceDir = File(directoryPath.removePrefix("file://"))
+        val parsed = readManifest(File(manifestPath.removePrefix("file://")))
+        val manifest = parsed.tiles
+        val packId = pack ?: parsed.pack
+        val storedTiles = loadStoredTiles(provider)
+
+        val changed = ArrayList<Pair<Long, String>>()
+        val claimed = ArrayList<Long>()
+        var unchanged = 0
+        for ((key, entry) in manifest) {
+            val stored = storedTiles.remove(key)
+            if (stored != null && stored.hash == entry.hash) {
+                unchanged++
+                if (packId != null && stored.pack != packId) {
+                    claimed.add(key)
+                }
+            } else {
+                changed.add(key to entry.path)
+            }
+        }
+        // what the pack owned and is no longer part of it; other packs' tiles stay
+        val removed = if (packId == null) {
+            LongArray(0)
+        } else {
+            storedTiles.filterValues { it.pack == packId }.keys.toLongArray()
+        }
+
+        if (packId != null && claimed.isNotEmpty()) {
+            val claimTile = database.compileStatement("UPDATE tile_hashes SET pack = ? WHERE key = ?")
+            try {
+                for (batch in claimed.chunked(DELTA_BATCH_SIZE)) {
+                    database.beginTransaction()
+                    try {
+                        for (key in batch) {
+                            claimTile.bindString(1, packId)
+                            claimTile.bindLong(2, key)
+                            claimTile.executeUpdateDelete()
+                        }
+                        database.setTransactionSuccessful()
+                    } finally {
+                        database.endTransaction()
+                    }
+                }
+            } finally {
+                claimTile.close()
+            }
+        }
+
+        val total = changed.size + removed.size
+        var processed = 0
+        var written = 0
+        var rejected = 0
+
+        val insertTile = database.compileStatement("INSERT OR REPLACE INTO tiles (key, provider, tile, expires) VALUES (?, ?, ?, ?)")
+        val insertHash = database.compileStatement("INSERT OR REPLACE INTO tile_hashes (key, provider, hash, pack) VALUES (?, ?, ?, ?)")
+        val expires = expiresTimestamp()
+        try {
+            for (batch in changed.chunked(DELTA_BATCH_SIZE)) {
+                database.beginTransaction()
+                try {
+                    for ((key, path) in batch) {
+                        val file = File(sourceDir, path)
+                        val expectedHash = manifest.getValue(key).hash
+                        val tileData = if (file.isFile) file.readBytes() else null
+                        if (tileData == null || contentHash(tileData) != expectedHash) {
+                            rejected++
+                            continue
+                        }
+                        insertTile.clearBindings()
+                        insertTile.bindLong(1, key)
+                        insertTile.bindString(2, provider)
+                        insertTile.bindBlob(3, transcoder?.transcode(tileData) ?: tileData)
+                        insertTile.bindLong(4, expires)
+                        insertTile.executeInsert()
+
+                        insertHash.clearBindings()
+                        insertHash.bindLong(1, key)
+                        insertHash.bindString(2, provider)
+                        insertHash.bindString(3, expectedHash)
+                        if (packId != null) {
+                            insertHash.bindString(4, packId)
+                        }
+                        insertHash.executeInsert()
+                        written++
+                    }
+                    database.setTransactionSuccessful()
+                } finally {
+                    database.endTransaction()
+                }
+                processed += batch.size
+                listener?.onProgress(processed, total)
+            }
+        } finally {
+            insertTile.close()
+            insertHash.close()
+        }
+
+        val deleteTile = database.compileStatement("DELETE FROM tiles WHERE key = ?")
+        val deleteHash = database.compileStatement("DELETE FROM tile_hashes WHERE key = ?")
+        try {
+            var start = 0
+            while (start < removed.size) {
+                val end = minOf(start + DELTA_BATCH_SIZE, removed.size)
+                database.beginTransaction()
+                try {
+                    for (i in start until end) {
+                        deleteTile.bindLong(1, removed[i])
+                        deleteTile.executeUpdateDelete()
+                        deleteHash.bindLong(1, removed[i])
+                        deleteHash.executeUpdateDelete()
+                    }
+                    database.setTransactionSuccessful()
+                } finally {
+                    database.endTransaction()
+                }
+                processed += end - start
+                listener?.onProgress(processed, total)
+                start = end
+            }
+        } finally {
+            deleteTile.close()
+            deleteHash.close()
+        }
+
+        return DeltaResult(written, removed.size, unchanged, rejected)
+    }
+
+    private class ManifestEntry(val path: String, val hash: String)
+
+    private class Manifest(val pack: String?, val tiles: Map<Long, ManifestEntry>)
+
+    private class StoredTile(val hash: String?, val pack: String?)
+
+    private fun readManifest(manifestFile: File): Manifest {
+        val entries = HashMap<Long, ManifestEntry>()
+        var pack: String? = null
+        // the manifest of a country-sized pack runs into millions of entries, stream it
+        JsonReader(FileReader(manifestFile)).use { reader ->
+            reader.beginObject()
+            while (reader.hasNext()) {
+                val name = reader.nextName()
+                if (name == "pack" && reader.peek() == JsonToken.STRING) {
+                    pack = reader.nextString()
+                    continue
+                }
+                if (name != "tiles") {
+                    reader.skipValue()
+                    continue
+                }
+                reader.beginObject()
+                while (reader.hasNext()) {
+                    val path = reader.nextName()
+                    val hash = reader.nextString().lowercase()
+                    val coordinates = parseTilePath(path)
+                        ?: throw IOException("Invalid tile path in manifest: $path")
+                    val key = getIndex(coordinates[1].toLong(), coordinates[2].toLong(), coordinates[0].toLong())
+                    entries[key] = ManifestEntry(path, hash)
+                }
+                reader.endObject()
+            }
+            reader.endObject()
+        }
+        return Manifest(pack, entries)
+    }
+
+    private fun loadStoredTiles(provider: String): HashMap<Long, StoredTile> {
+        val tiles = HashMap<Long, StoredTile>()
+        val noHash = StoredTile(null, null)
+        database.rawQuery("SELECT key FROM tiles WHERE provider = ?", arrayOf(provider)).use { cursor ->
+            while (cursor.moveToNext()) {
+                tiles[cursor.getLong(0)] = noHash
+            }
+        }
+        database.rawQuery("SELECT key, hash, pack FROM tile_hashes WHERE provider = ?", arrayOf(provider)).use { cursor ->
+            while (cursor.moveToNext()) {
+                val key = cursor.getLong(0)
+                if (tiles.containsKey(key)) {
+                    tiles[key] = StoredTile(cursor.getString(1), cursor.getString(2))
+                }
+            }
+        }
+        return tiles
+    }
+
+    private fun expiresTimestamp(): Long {
         val calendar = Calendar.getInstance().apply {
             add(Calendar.YEAR, 10)
         }
-        val expiresTimestamp = calendar.timeInMillis
-
-        val tileData = tileFile.readBytes()
-        val key = getIndex(x.toLong(), y.toLong(), z.toLong())
-        
-        db.execSQL("INSERT OR REPLACE INTO tiles (key, provider, tile, expires) VALUES (?, ?, ?, ?)", arrayOf(key, provider, tileData, expiresTimestamp))
+        return calendar.timeInMillis
     }
 
-    fun cacheTilesFromDirectory(directoryPath: String, showProgress: Boolean = false) {
+    /**
+     * Imports every "/{z}/{x}/{y}.png" tile under [directoryPath] and returns how many were cached.
+     */
+    fun cacheTilesFromDirectory(
+        directoryPath: String,
+        showProgress: Boolean = false,
+        transcoder: OsmMapTileTranscoder? = null
+    ): Int {
         val sourceDir = File(directoryPath)
-        val totalFiles = countFiles(sourceDir)
+        val tiles = ArrayList<Pair<Long, File>>()
+        sourceDir.walk().forEach { file ->
+            if (file.isFile) {
+                val coordinates = parseTileCoordinates(sourceDir, file) ?: return@forEach
+                tiles.add(getIndex(coordinates[1].toLong(), coordinates[2].toLong(), coordinates[0].toLong()) to file)
+            }
+        }
+        val totalFiles = tiles.size
 
         if (totalFiles == 0) {
             if (showProgress) {
-                Toast.makeText(context, "No tiles found in directory.", Toast.LENGTH_SHORT).show()
+                showToast("No tiles found in directory.")
             }
-            return
+            return 0
         }
 
         if (showProgress) {
-            Toast.makeText(context, "Caching map tiles in progress", Toast.LENGTH_SHORT).show()
+            showToast("Caching map tiles in progress")
         }
 
+        val insertTile = database.compileStatement("INSERT OR REPLACE INTO tiles (key, provider, tile, expires) VALUES (?, ?, ?, ?)")
+        val insertHash = database.compileStatement("INSERT OR REPLACE INTO tile_hashes (key, provider, hash) VALUES (?, ?, ?)")
+        val expires = expiresTimestamp()
+        val executor = Executors.newFixedThreadPool(INGEST_THREADS)
         var processedFiles = 0
         var lastPercentage = 0
-        sourceDir.walk().forEach { file ->
-            if (file.isFile) {
-                val parts = file.relativeTo(File(directoryPath)).invariantSeparatorsPath.split("/")
-                if (parts.size == 3) {
-                    val z = parts[0].toIntOrNull() ?: return@forEach
-                    val x = parts[1].toIntOrNull() ?: return@forEach
-
-                    val fileName = parts[2]
-                    val extensionIndex = fileName.lastIndexOf('.')
-                    val yValue = if (extensionIndex > 0) {
-                        fileName.substring(0, extensionIndex)
-                    } else {
-                        fileName
+        try {
+            for (batch in tiles.chunked(INGEST_BATCH_SIZE)) {
+                // reading, hashing and transcoding run on the pool, SQLite only sees this thread
+                val prepared = executor.invokeAll(batch.map { (key, file) ->
+                    Callable {
+                        val source = file.readBytes()
+                        PreparedTile(key, transcoder?.transcode(source) ?: source, contentHash(source))
                     }
-                    val y = yValue.toIntOrNull() ?: return@forEach
+                })
 
-                    insertTile(z, x, y, DEFAULT_PROVIDER, file)
-                    processedFiles++
+                database.beginTransaction()
+                try {
+                    for (future in prepared) {
+                        val tile = future.get()
+                        insertTile.clearBindings()
+                        insertTile.bindLong(1, tile.key)
+                        insertTile.bindString(2, DEFAULT_PROVIDER)
+                        insertTile.bindBlob(3, tile.data)
+                        insertTile.bindLong(4, expires)
+                        insertTile.executeInsert()
 
-                    if (showProgress) {
-                        val currentPercentage = (processedFiles * 100 / totalFiles)
-                        if (currentPercentage >= lastPercentage + 10 && currentPercentage % 10 == 0) {
-                            lastPercentage = currentPercentage
-                            showProgressToast(currentPercentage)
-                        }
+                        insertHash.clearBindings()
+                        insertHash.bindLong(1, tile.key)
+                        insertHash.bindString(2, DEFAULT_PROVIDER)
+                        insertHash.bindString(3, tile.sourceHash)
+                        insertHash.executeInsert()
+                    }
+                    database.setTransactionSuccessful()
+                } finally {
+                    database.endTransaction()
+                }
+                processedFiles += batch.size
+
+                if (showProgress) {
+                    val currentPercentage = (processedFiles * 100 / totalFiles)
+                    if (currentPercentage >= lastPercentage + 10) {
+                        lastPercentage = currentPercentage - currentPercentage % 10
+                        showToast("Map tiles caching progress $lastPercentage%")
                     }
                 }
             }
+        } finally {
+            executor.shutdown()
+            insertTile.close()
+            insertHash.close()
         }
 
         if (showProgress) {
-            Toast.makeText(context, "Operation completed successfully.", Toast.LENGTH_SHORT).show()
+            showToast("Operation completed successfully.")
         }
+        return totalFiles
     }
 
-    private fun countFiles(directory: File): Int = directory.walk().count { it.isFile }
+    private class PreparedTile(val key: Long, val data: ByteArray, val sourceHash: String)
 
-    private fun showProgressToast(percentage: Int) {
-        val runnable = Runnable {
-            Toast.makeText(context, "Map tiles caching progress $percentage%", Toast.LENGTH_SHORT).show()
-        }
-        if (context is android.app.Activity) {
-            context.runOnUiThread(runnable)
-        } else {
-            runnable.run()
+    // imports run off the main thread, toasts have to be shown on it
+    private fun showToast(message: String) {
+        Handler(Looper.getMainLooper()).post {
+            Toast.makeText(context, message, Toast.LENGTH_SHORT).show()
         }
     }
 
     companion object {
         private const val DEFAULT_PROVIDER = "CustomTiles"
+        private const val DELTA_BATCH_SIZE = 500
+        private const val INGEST_BATCH_SIZE = 256
+        private val INGEST_THREADS = maxOf(2, Runtime.getRuntime().availableProcessors() - 1)
 
         fun getIndex(pX: Long, pY: Long, pZ: Long): Long {
             return ((pZ shl pZ.toInt()) + pX shl pZ.toInt()) + pY
         }
+
+        /**
+         * Parses `{z}/{x}/{y}.{ext}` relative to [root] into `[z, x, y]`, or null when [file] does
+         * not follow the tile directory layout.
+         */
+        fun parseTileCoordinates(root: File, file: File): IntArray? {
+            return parseTilePath(file.relativeTo(root).invariantSeparatorsPath)
+        }
+
+        fun parseTilePath(relativePath: String): IntArray? {
+            val parts = relativePath.trimStart('/').split("/")
+            if (parts.size != 3) {
+                return null
+            }
+            val z = parts[0].toIntOrNull() ?: return null
+            val x = parts[1].toIntOrNull() ?: return null
+
+            val fileName = parts[2]
+            val extensionIndex = fileName.lastIndexOf('.')
+            val yValue = if (extensionIndex > 0) {
+                fileName.substring(0, extensionIndex)
+            } else {
+                fileName
+            }
+            val y = yValue.toIntOrNull() ?: return null
+            return intArrayOf(z, x, y)
+        }
+
+        /** Hex-encoded SHA-256, the hash format expected in delta manifests. */
+        fun contentHash(bytes: ByteArray): String {
+            val digest = MessageDigest.getInstance("SHA-256").digest(bytes)
+            val hex = StringBuilder(digest.size * 2)
+            for (b in digest) {
+                hex.append(HEX_DIGITS[(b.toInt() shr 4) and 0xF])
+                hex.append(HEX_DIGITS[b.toInt() and 0xF])
+            }
+            return hex.toString()
+        }
+
+        private val HEX_DIGITS = "0123456789abcdef".toCharArray()
     }
 }
@@ -0,0 +1,289 @@
+package com.osmdroid;
+
+import android.content.Context
+import android.database.sqlite.SQLiteDatabase
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.zip.CRC32
+import kotlin.math.atan
+import kotlin.math.exp
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Packs a loose `{z}/{x}/{y}.{ext}` tile tree into a single MBTiles container.
+ *
+ * Tiles are read and checksummed on a worker pool while a single writer inserts them in batched
+ * transactions. The output is written next to the target as a temporary file and only renamed
+ * once every tile has been written (and verified, when requested), so a failed conversion never
+ * leaves a truncated pack behind.
+ *
+ * MBTiles rows use the TMS scheme, which is what osmdroid's `MBTilesFileArchive` expects, so the
+ * result can be dropped into the `fileDirPath` of `OsmMapFileTile` as-is.
+ */
+class OsmMapTilePackConverter(private val context: Context) {
+
+    fun interface ProgressListener {
+        fun onProgress(processed: Int, total: Int)
+    }
+
+    class Options(
+        val name: String? = null,
+        val flipY: Boolean = false,
+        val verifyChecksums: Boolean = true,
+        val threads: Int = DEFAULT_THREADS
+    )
+
+    class Result(
+        val outputPath: String,
+        val tileCount: Int,
+        val skippedFiles: Int,
+        val minZoom: Int,
+        val maxZoom: Int
+    )
+
+    private class TileFile(val z: Int, val x: Int, val y: Int, val file: File)
+
+    private class TileData(val tile: TileFile, val bytes: ByteArray, val checksum: Long)
+
+    fun defaultOutputPath(directoryPath: String): String {
+        val name = File(directoryPath).name.ifEmpty { "tiles" }
+        return "${context.filesDir.path}$DEFAULT_OUTPUT_DIR$name.mbtiles"
+    }
+
+    @Throws(IOException::class)
+    fun convertDirectoryToMBTiles(
+        directoryPath: String,
+        outputPath: String = defaultOutputPath(directoryPath),
+        options: Options = Options(),
+        listener: ProgressListener? = null
+    ): Result {
+        val sourceDir = File(directoryPath.removePrefix("file://"))
+        if (!sourceDir.isDirectory) {
+            throw IOException("Tile directory does not exist: ${sourceDir.path}")
+        }
+
+        var skippedFiles = 0
+        val tiles = ArrayList<TileFile>()
+        sourceDir.walk().forEach { file ->
+            if (file.isFile) {
+                val coordinates = OsmMapTileCacher.parseTileCoordinates(sourceDir, file)
+                if (coordinates == null) {
+                    skippedFiles++
+                } else {
+                    tiles.add(TileFile(coordinates[0], coordinates[1], coordinates[2], file))
+                }
+            }
+        }
+        if (tiles.isEmpty()) {
+            throw IOException("No tiles found in directory: ${sourceDir.path}")
+        }
+
+        val outputFile = File(outputPath.removePrefix("file://"))
+        outputFile.parentFile?.mkdirs()
+        val tempFile = File(outputFile.path + ".tmp")
+        tempFile.delete()
+
+        val checksums = HashMap<Long, Long>(tiles.size * 2)
+        val executor = Executors.newFixedThreadPool(max(1, options.threads))
+        val db = SQLiteDatabase.openOrCreateDatabase(tempFile, null)
+        try {
+            createSchema(db)
+            writeTiles(db, tiles, options, executor, checksums, listener)
+            writeMetadata(db, tiles, options, sourceDir)
+            if (options.verifyChecksums) {
+                verifyTiles(db, checksums)
+            }
+        } catch (e: Exception) {
+            db.close()
+            tempFile.delete()
+            throw if (e is IOException) e else IOException("Tile pack conversion failed", e)
+        } finally {
+            executor.shutdownNow()
+        }
+        db.close()
+
+        if (outputFile.exists() && !outputFile.delete()) {
+            tempFile.delete()
+            throw IOException("Cannot replace existing tile pack: ${outputFile.path}")
+        }
+        if (!tempFile.renameTo(outputFile)) {
+            tempFile.delete()
+            throw IOException("Cannot move tile pack into place: ${outputFile.path}")
+        }
+
+        var minZoom = Int.MAX_VALUE
+        var maxZoom = Int.MIN_VALUE
+        for (tile in tiles) {
+            minZoom = min(minZoom, tile.z)
+            maxZoom = max(maxZoom, tile.z)
+        }
+        return Result(outputFile.path, tiles.size, skippedFiles, minZoom, maxZoom)
+    }
+
+    private fun createSchema(db: SQLiteDatabase) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS metadata (name TEXT, value TEXT)")
+        db.execSQL("""
+            CREATE TABLE IF NOT EXISTS tiles (
+                zoom_level INTEGER,
+                tile_column INTEGER,
+                tile_row INTEGER,
+                tile_data BLOB
+            )
+        """.trimIndent())
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS tile_index ON tiles (zoom_level, tile_column, tile_row)")
+    }
+
+    private fun writeTiles(
+        db: SQLiteDatabase,
+        tiles: List<TileFile>,
+        options: Options,
+        executor: ExecutorService,
+        checksums: HashMap<Long, Long>,
+        listener: ProgressListener?
+    ) {
+        val statement = db.compileStatement(
+            "INSERT OR REPLACE INTO tiles (zoom_level, tile_column, tile_row, tile_data) VALUES (?, ?, ?, ?)"
+        )
+        try {
+            var processed = 0
+            var start = 0
+            while (start < tiles.size) {
+                val end = min(start + BATCH_SIZE, tiles.size)
+                val tasks = ArrayList<Callable<TileData>>(end - start)
+                for (i in start until end) {
+                    val tile = tiles[i]
+                    tasks.add(Callable {
+                        val bytes = tile.file.readBytes()
+                        TileData(tile, bytes, checksum(bytes))
+                    })
+                }
+                // reads and checksums run in parallel, SQLite only ever sees the writer thread
+                val results = executor.invokeAll(tasks)
+
+                db.beginTransaction()
+                try {
+                    for (future in results) {
+                        val data = future.get()
+                        val tile = data.tile
+                        val row = toTmsRow(tile.z, tile.y, options.flipY)
+                        statement.clearBindings()
+                        statement.bindLong(1, tile.z.toLong())
+                        statement.bindLong(2, tile.x.toLong())
+                        statement.bindLong(3, row.toLong())
+                        statement.bindBlob(4, data.bytes)
+                        statement.executeInsert()
+                        checksums[tileKey(tile.z, tile.x, row)] = data.checksum
+                    }
+                    db.setTransactionSuccessful()
+                } finally {
+                    db.endTransaction()
+                }
+
+                processed += end - start
+                listener?.onProgress(processed, tiles.size)
+                start = end
+            }
+        } finally {
+            statement.close()
+        }
+    }
+
+    private fun writeMetadata(db: SQLiteDatabase, tiles: List<TileFile>, options: Options, sourceDir: File) {
+        var minZoom = Int.MAX_VALUE
+        var maxZoom = Int.MIN_VALUE
+        for (tile in tiles) {
+            minZoom = min(minZoom, tile.z)
+            maxZoom = max(maxZoom, tile.z)
+        }
+
+        // bounds are computed on the lowest zoom level, which covers the whole pack
+        var west = Double.MAX_VALUE
+        var east = -Double.MAX_VALUE
+        var south = Double.MAX_VALUE
+        var north = -Double.MAX_VALUE
+        for (tile in tiles) {
+            if (tile.z != minZoom) continue
+            val y = if (options.flipY) (1 shl tile.z) - 1 - tile.y else tile.y
+            west = min(west, tileToLongitude(tile.x, tile.z))
+            east = max(east, tileToLongitude(tile.x + 1, tile.z))
+            north = max(north, tileToLatitude(y, tile.z))
+            south = min(south, tileToLatitude(y + 1, tile.z))
+        }
+
+        val extension = tiles[0].file.extension.lowercase()
+        val format = if (extension == "jpeg") "jpg" else extension.ifEmpty { "png" }
+
+        val metadata = linkedMapOf(
+            "name" to (options.name ?: sourceDir.name),
+            "type" to "baselayer",
+            "version" to "1.1",
+            "description" to "Converted from ${sourceDir.name}",
+            "format" to format,
+            "minzoom" to minZoom.toString(),
+            "maxzoom" to maxZoom.toString(),
+            "bounds" to "$west,$south,$east,$north"
+        )
+
+        db.beginTransaction()
+        try {
+            db.execSQL("DELETE FROM metadata")
+            for ((name, value) in metadata) {
+                db.execSQL("INSERT INTO metadata (name, value) VALUES (?, ?)", arrayOf(name, value))
+            }
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+        }
+    }
+
+    private fun verifyTiles(db: SQLiteDatabase, checksums: Map<Long, Long>) {
+        var verified = 0
+        db.rawQuery("SELECT zoom_level, tile_column, tile_row, tile_data FROM tiles", null).use { cursor ->
+            while (cursor.moveToNext()) {
+                val key = tileKey(cursor.getInt(0), cursor.getInt(1), cursor.getInt(2))
+                val expected = checksums[key]
+                    ?: throw IOException("Unexpected tile in pack: ${cursor.getInt(0)}/${cursor.getInt(1)}/${cursor.getInt(2)}")
+                if (checksum(cursor.getBlob(3)) != expected) {
+                    throw IOException("Checksum mismatch for tile ${cursor.getInt(0)}/${cursor.getInt(1)}/${cursor.getInt(2)}")
+                }
+                verified++
+            }
+        }
+        if (verified != checksums.size) {
+            throw IOException("Tile pack is missing ${checksums.size - verified} tiles")
+        }
+    }
+
+    companion object {
+        private const val DEFAULT_OUTPUT_DIR = "/offline_tiles/"
+        private const val BATCH_SIZE = 256
+        private val DEFAULT_THREADS = max(2, Runtime.getRuntime().availableProcessors() - 1)
+
+        fun toTmsRow(z: Int, y: Int, sourceIsTms: Boolean): Int {
+            return if (sourceIsTms) y else (1 shl z) - 1 - y
+        }
+
+        fun checksum(bytes: ByteArray): Long {
+            val crc = CRC32()
+            crc.update(bytes, 0, bytes.size)
+            return crc.value
+        }
+
+        private fun tileKey(z: Int, x: Int, row: Int): Long {
+            return OsmMapTileCacher.getIndex(x.toLong(), row.toLong(), z.toLong())
+        }
+
+        private fun tileToLongitude(x: Int, z: Int): Double {
+            return x.toDouble() / (1 shl z) * 360.0 - 180.0
+        }
+
+        private fun tileToLatitude(y: Int, z: Int): Double {
+            val n = Math.PI - 2.0 * Math.PI * y / (1 shl z)
+            return Math.toDegrees(atan(0.5 * (exp(n) - exp(-n))))
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.osmdroid;
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.os.Build
+import android.util.Log
+import java.io.ByteArrayOutputStream
+
+/**
+ * Re-encodes imported tiles as WebP before they are stored.
+ *
+ * Tiles that cannot be decoded, or that would not get smaller, are stored as they are, so the cache
+ * can always hold a mix of formats. osmdroid decodes cached tiles with `BitmapFactory`, which sniffs
+ * the format from the content, so no read-side changes are needed for either format.
+ *
+ * Lossless WebP needs API 29. Below that, [lossless] tiles are encoded lossy at quality 100.
+ */
+class OsmMapTileTranscoder(val lossless: Boolean = false, quality: Int = DEFAULT_QUALITY) {
+
+    val quality: Int = quality.coerceIn(0, 100)
+
+    init {
+        if (lossless && Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            Log.w(TAG, "Lossless WebP needs API 29, tiles are encoded lossy at quality 100")
+        }
+    }
+
+    fun transcode(source: ByteArray): ByteArray {
+        val bitmap = BitmapFactory.decodeByteArray(source, 0, source.size) ?: return source
+        try {
+            val output = ByteArrayOutputStream(source.size)
+            if (!bitmap.compress(compressFormat(), if (lossless) 100 else quality, output)) {
+                return source
+            }
+            val encoded = output.toByteArray()
+            return if (encoded.size < source.size) encoded else source
+        } finally {
+            bitmap.recycle()
+        }
+    }
+
+    @Suppress("DEPRECATION")
+    private fun compressFormat(): Bitmap.CompressFormat {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return if (lossless) Bitmap.CompressFormat.WEBP_LOSSLESS else Bitmap.CompressFormat.WEBP_LOSSY
+        }
+        // on API 29 the legacy WEBP format switches to lossless at quality 100, before that it is always lossy
+        return Bitmap.CompressFormat.WEBP
+    }
+
+    companion object {
+        private const val TAG = "OsmMapTileTranscoder"
+        const val DEFAULT_QUALITY = 80
+    }
+}
@@ -1,14 +1,19 @@
 package com.osmdroid;
 
 import android.content.Context;
+import android.graphics.drawable.BitmapDrawable;
 import android.util.Log;
 
+import com.osmdroid.tiles.TilePlaceholderCache;
+import com.osmdroid.tiles.ZoomFallbackTileProvider;
+
 import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.MapTileProviderArray;
 import org.osmdroid.tileprovider.MapTileProviderBase;
 import org.osmdroid.tileprovider.modules.MapTileFileArchiveProvider;
 import org.osmdroid.tileprovider.modules.MapTileFilesystemProvider;
 import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileSqlCacheProvider;
 import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.tileprovider.tilesource.XYTileSource;
@@ -23,6 +28,7 @@ import java.util.ArrayList;
 public class OsmMapUrlTile extends OsmMapFeature {
 
     private static final String TAG = "OsmMapUrlTile";
+    private static final int MAX_FALLBACK_ZOOM_DIFF = 4;
 
     private String urlTemplate;
     private float minimumZ = 0.0f;
@@ -35,6 +41,8 @@ public class OsmMapUrlTile extends OsmMapFeature {
     private boolean doubleTileSize = false;
     private boolean flipY = false;
     private float opacity = 1.0f;
+    private String loadingTile = null;
+    private String failedTile = null;
 
     private MapView mapView;
     private TilesOverlay tilesOverlay;
@@ -102,6 +110,16 @@ public class OsmMapUrlTile extends OsmMapFeature {
         }
     }
 
+    public void setLoadingTile(String loadingTile) {
+        this.loadingTile = loadingTile;
+        applyPlaceholders();
+    }
+
+    public void setFailedTile(String failedTile) {
+        this.failedTile = failedTile;
+        applyPlaceholders();
+    }
+
     @Override
     public Object getFeature() {
         return this;
@@ -115,6 +133,9 @@ public class OsmMapUrlTile extends OsmMapFeature {
 
     @Override
     public void removeFromMap(MapView map) {
+        if (loadingTile != null) {
+            map.getOverlayManager().getTilesOverlay().setLoadingDrawable(null);
+        }
         if (tilesOverlay != null) {
             map.getOverlays().remove(tilesOverlay);
             tilesOverlay = null;
@@ -161,6 +182,7 @@ public class OsmMapUrlTile extends OsmMapFeature {
             }
 
             isConfigured = true;
+            applyPlaceholders();
             mapView.invalidate();
             Log.d(TAG, "Configured: " + urlTemplate + " (offline=" + offlineMode + ", file=" + isFileUrl + ")");
 
@@ -390,10 +412,54 @@ public class OsmMapUrlTile extends OsmMapFeature {
         providers.add(new MapTileFilesystemProvider(
                 new SimpleRegisterReceiver(context), tileSource));
 
+        // Tiles imported through TileCacher live in the sqlite cache, possibly transcoded to WebP.
+        // BitmapFactory sniffs the format from the blob, so PNG and WebP rows decode the same way.
+        providers.add(new MapTileSqlCacheProvider(
+                new SimpleRegisterReceiver(context), tileSource));
+
+        // Last resort for partial packs: upscale the nearest cached ancestor instead of a blank tile
+        providers.add(new ZoomFallbackTileProvider(
+                new SimpleRegisterReceiver(context), tileSource,
+                providers.toArray(new MapTileModuleProviderBase[0]), MAX_FALLBACK_ZOOM_DIFF));
+
         return new MapTileProviderArray(tileSource, new SimpleRegisterReceiver(context),
                 providers.toArray(new MapTileModuleProviderBase[0]));
     }
 
+    private void applyPlaceholders() {
+        if (mapView == null || !isConfigured) {
+            return;
+        }
+        final MapView map = mapView;
+        final int effectiveTileSize = doubleTileSize ? 512 : tileSize;
+
+        if (loadingTile == null) {
+            map.getOverlayManager().getTilesOverlay().setLoadingDrawable(null);
+        } else {
+            TilePlaceholderCache.forMap(map).get(loadingTile, effectiveTileSize, new TilePlaceholderCache.Callback() {
+                @Override
+                public void onPlaceholderReady(BitmapDrawable placeholder) {
+                    if (mapView != map) return;
+                    map.getOverlayManager().getTilesOverlay().setLoadingDrawable(placeholder);
+                    map.invalidate();
+                }
+            });
+        }
+
+        if (failedTile == null) {
+            map.getTileProvider().setTileLoadFailureImage(null);
+        } else {
+            TilePlaceholderCache.forMap(map).get(failedTile, effectiveTileSize, new TilePlaceholderCache.Callback() {
+                @Override
+                public void onPlaceholderReady(BitmapDrawable placeholder) {
+                    if (mapView != map) return;
+                    map.getTileProvider().setTileLoadFailureImage(placeholder);
+                    map.invalidate();
+                }
+            });
+        }
+    }
+
     private void applyOpacity() {
         tilesOverlay = mapView.getOverlayManager().getTilesOverlay();
         if (tilesOverlay != null) {
@@ -10,6 +10,8 @@ import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
 
+import javax.annotation.Nullable;
+
 public class OsmMapUrlTileManager extends ViewGroupManager<OsmMapUrlTile> {
 
   public OsmMapUrlTileManager() {
@@ -81,4 +83,14 @@ public class OsmMapUrlTileManager extends ViewGroupManager<OsmMapUrlTile> {
     view.setOpacity(opacity);
   }
 
+  @ReactProp(name = "loadingTile")
+  public void setLoadingTile(OsmMapUrlTile view, @Nullable String loadingTile) {
+    view.setLoadingTile(loadingTile);
+  }
+
+  @ReactProp(name = "failedTile")
+  public void setFailedTile(OsmMapUrlTile view, @Nullable String failedTile) {
+    view.setFailedTile(failedTile);
+  }
+
 }
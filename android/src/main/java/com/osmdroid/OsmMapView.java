@@ -3,20 +3,32 @@ package com.osmdroid;
 import android.annotation.SuppressLint;
 import android.graphics.Canvas;
 import android.graphics.Point;
-import android.os.Handler;
+import android.graphics.drawable.Drawable;
 import androidx.core.view.GestureDetectorCompat;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 import android.view.View;
 
+import com.osmdroid.geojson.GeojsonData;
+import com.osmdroid.geojson.GeojsonOverlay;
+import com.osmdroid.markers.MarkerAnimator;
+import com.osmdroid.markers.MarkerClusterIndex;
+import com.osmdroid.markers.MarkerLayerOverlay;
+import com.osmdroid.markers.MarkerLayerStore;
+import com.osmdroid.markers.MarkerPositionFeed;
 import com.osmdroid.overlays.InterceptDoubleTapOverlay;
 import com.osmdroid.overlays.InterceptScrollOverlay;
+import com.osmdroid.utils.EventThrottle;
+import com.osmdroid.utils.FeatureIndex;
 import com.osmdroid.utils.LatLngBoundsUtils;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.UIManagerModule;
@@ -31,6 +43,7 @@ import org.osmdroid.events.ZoomEvent;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
+import org.osmdroid.util.TileSystem;
 import org.osmdroid.views.CustomZoomButtonsController;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.Projection;
@@ -45,13 +58,17 @@ import org.osmdroid.views.overlay.infowindow.InfoWindow;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @SuppressLint("ViewConstructor")
 public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener {
 
     private static final int DEFAULT_PADDING = 50;
+    // frames without any camera movement before region monitoring stops
+    private static final int REGION_IDLE_FRAMES = 4;
 
     private BoundingBox boundsToMove;
     private boolean isMonitoringRegion = false;
@@ -61,6 +78,30 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
     private boolean initialRegionSet = false;
 
     private final List<OsmMapFeature> features = new ArrayList<>();
+    // moves markers animated by commands; the map is drawn once per frame for all of them
+    private final MarkerAnimator markerAnimator = new MarkerAnimator(new Runnable() {
+        @Override
+        public void run() {
+            invalidate();
+        }
+    });
+    // moves markers from streamed live positions, see OsmMapModule.updateMarkerPositions
+    private final MarkerPositionFeed markerPositionFeed = new MarkerPositionFeed(
+            new MarkerPositionFeed.Resolver() {
+                @Override
+                public MarkerPositionFeed.Target find(String identifier) {
+                    return findMarker(identifier);
+                }
+            },
+            new Runnable() {
+                @Override
+                public void run() {
+                    requestRedraw();
+                }
+            });
+    // markers by identifier, rebuilt on demand after markers or identifiers changed
+    private final Map<String, OsmMapMarker> markersByIdentifier = new HashMap<>();
+    private boolean markersByIdentifierStale = true;
     private final Map<Marker, OsmMapMarker> markerMap = new HashMap<>();
     private final Map<Polyline, OsmMapPolyline> polylineMap = new HashMap<>();
     private final Map<Polygon, OsmMapPolygon> polygonMap = new HashMap<>();
@@ -135,6 +176,11 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
 
     @Override
     protected void onDetachedFromWindow() {
+        stopMonitoringRegion();
+        panDragThrottle.cancel();
+        markerDragThrottle.cancel();
+        markerAnimator.cancelAll();
+        markerPositionFeed.cancelAll();
         mListnersCache.addAll(mListners);
         mListners.clear();
 
@@ -160,26 +206,33 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
     public void onFirstLayout(View view, int i, int i1, int i2, int i3) {
         manager.pushEvent(context, this, "onMapReady", new WritableNativeMap());
 
+        // projection changes (gestures, animations, programmatic moves) wake up the frame sampler
+        this.addMapListener(new MapListener() {
+            @Override
+            public boolean onScroll(ScrollEvent scrollEvent) {
+                startMonitoringRegion();
+                return false;
+            }
+
+            @Override
+            public boolean onZoom(ZoomEvent zoomEvent) {
+                startMonitoringRegion();
+                return false;
+            }
+        });
+
         this.addMapListener(new DelayedMapListener(new MapListener() {
             @Override
             public boolean onScroll(ScrollEvent scrollEvent) {
-                OsmMapView mapView = OsmMapView.this;
-                BoundingBox bounds = mapView.getBoundingBox();
-                IGeoPoint center = mapView.getMapCenter();
-                lastBoundsEmitted = bounds;
-                if (eventDispatcher != null) { eventDispatcher.dispatchEvent(new OsmRegionChangeEvent(getId(), bounds, center, isTouchDown)); }
-                mapView.stopMonitoringRegion();
+                emitRegion(isTouchDown);
+                stopMonitoringRegion();
                 return true;
             }
 
             @Override
             public boolean onZoom(ZoomEvent zoomEvent) {
-                OsmMapView mapView = OsmMapView.this;
-                BoundingBox bounds = mapView.getBoundingBox();
-                IGeoPoint center = mapView.getMapCenter();
-                lastBoundsEmitted = bounds;
-                if (eventDispatcher != null) { eventDispatcher.dispatchEvent(new OsmRegionChangeEvent(getId(), bounds, center, isTouchDown)); }
-                mapView.stopMonitoringRegion();
+                emitRegion(isTouchDown);
+                stopMonitoringRegion();
                 return true;
             }
         }, 100));
@@ -204,7 +257,7 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
         });
         this.getOverlays().add(OverlayEvents);
 
-        // listen for polygon click
+        // resolve feature taps through the spatial index instead of per-overlay hit tests
         this.getOverlays().add(new Overlay() {
             @Override
             public void draw(Canvas canvas, MapView mapView, boolean b) {
@@ -212,15 +265,7 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
 
             @Override
             public boolean onSingleTapConfirmed(MotionEvent e, MapView mapView) {
-                for (Polygon polygon : polygonMap.keySet()) {
-                    if (polygon.contains(e)) {
-                        WritableMap event = makeClickEventData(polygon.getPoints().get(0));
-                        event.putString("action", "polygon-press");
-                        manager.pushEvent(context, polygonMap.get(polygon), "onPress", event);
-                        return true;
-                    }
-                }
-                return super.onSingleTapConfirmed(e, mapView);
+                return onFeatureTap(e) || super.onSingleTapConfirmed(e, mapView);
             }
         });
     }
@@ -277,24 +322,25 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
             annotation.addToMap(this);
             annotation.setOnCalloutPressListener(onCalloutPressListener);
             features.add(index, annotation);
+            markersByIdentifierStale = true;
             Marker marker = (Marker) annotation.getFeature();
             markerMap.put(marker, annotation);
-            marker.setOnMarkerClickListener(onMarkerClickListener);
             marker.setOnMarkerDragListener(onMarkerDragListener);
+            indexFeature(annotation);
         } else if (child instanceof OsmMapPolyline) {
             OsmMapPolyline polylineView = (OsmMapPolyline) child;
             polylineView.addToMap(this);
             features.add(index, polylineView);
             Polyline polyline = (Polyline) polylineView.getFeature();
             polylineMap.put(polyline, polylineView);
-            polyline.setOnClickListener(onPolylineClickListener);
+            indexFeature(polylineView);
         } else if (child instanceof OsmMapPolygon) {
             OsmMapPolygon polygonView = (OsmMapPolygon) child;
             polygonView.addToMap(this);
             features.add(index, polygonView);
             Polygon polygon = (Polygon) polygonView.getFeature();
             polygonMap.put(polygon, polygonView);
-            polygon.setOnClickListener(onPolygonClickListener);
+            indexFeature(polygonView);
         } else if (child instanceof OsmMapUrlTile) {
             OsmMapUrlTile urlTileView = (OsmMapUrlTile) child;
             urlTileView.addToMap(this);
@@ -303,10 +349,65 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
             OsmMapFileTile filetileView = (OsmMapFileTile) child;
             filetileView.addToMap(this);
             features.add(index, filetileView);
+        } else if (child instanceof OsmMapMarkerLayer) {
+            final OsmMapMarkerLayer layerView = (OsmMapMarkerLayer) child;
+            layerView.addToMap(this);
+            layerView.setOnPointPressListener(new MarkerLayerOverlay.OnPointPressListener() {
+                @Override
+                public void onPointPress(int slot, int x, int y) {
+                    MarkerLayerStore store = layerView.getStore();
+                    GeoPoint position = new GeoPoint(store.getLatitude(slot), store.getLongitude(slot));
+                    WritableMap event;
+
+                    event = makeClickEventData(position);
+                    event.putString("action", "marker-press");
+                    event.putString("id", store.getId(slot));
+                    manager.pushEvent(context, OsmMapView.this, "onMarkerPress", event);
+
+                    event = makeClickEventData(position);
+                    event.putString("action", "marker-press");
+                    event.putString("id", store.getId(slot));
+                    manager.pushEvent(context, layerView, "onPress", event);
+                }
+            });
+            layerView.setOnClusterPressListener(new MarkerLayerOverlay.OnClusterPressListener() {
+                @Override
+                public void onClusterPress(MarkerClusterIndex index, int level, int item, int x, int y) {
+                    GeoPoint position = new GeoPoint(index.getLatitude(level, item), index.getLongitude(level, item));
+                    String[] ids = index.getPointIds(level, item);
+                    WritableMap event;
+
+                    event = makeClusterPressEventData(position, ids);
+                    manager.pushEvent(context, OsmMapView.this, "onMarkerPress", event);
+
+                    event = makeClusterPressEventData(position, ids);
+                    manager.pushEvent(context, layerView, "onPress", event);
+                }
+            });
+            features.add(index, layerView);
+        } else if (child instanceof OsmMapGeojson || child instanceof OsmMapFlatGeobuf) {
+            final OsmMapFeature geojsonView = (OsmMapFeature) child;
+            geojsonView.addToMap(this);
+            final GeojsonOverlay geojsonOverlay = (GeojsonOverlay) geojsonView.getFeature();
+            geojsonOverlay.setOnFeaturePressListener(new GeojsonOverlay.OnFeaturePressListener() {
+                @Override
+                public void onFeaturePress(int feature, int x, int y) {
+                    GeojsonData data = geojsonOverlay.getData();
+                    WritableMap event = makeClickEventData(getProjection().fromPixels(x, y));
+                    event.putString("action", "geojson-press");
+                    event.putString("id", data.getId(feature));
+                    Map<String, Object> properties = data.getProperties(feature);
+                    event.putMap("properties", properties != null
+                            ? Arguments.makeNativeMap(properties) : new WritableNativeMap());
+                    manager.pushEvent(context, geojsonView, "onPress", event);
+                }
+            });
+            features.add(index, geojsonView);
         } else if (child instanceof OsmMapCircle) {
             OsmMapCircle circleView = (OsmMapCircle) child;
             circleView.addToMap(this);
             features.add(index, circleView);
+            indexFeature(circleView);
         } /* else {
             ViewGroup children = (ViewGroup) child;
             for (int i = 0; i < children.getChildCount(); i++) {
@@ -318,13 +419,104 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
     @Override
     public void onViewAdded(View child) {
         super.onViewAdded(child);
-        manager.invalidateNode(this);
+        nodeInvalidationPending = true;
+        scheduleFeatureFlush();
     }
 
     @Override
     public void onViewRemoved(View child) {
         super.onViewRemoved(child);
-        manager.invalidateNode(this);
+        nodeInvalidationPending = true;
+        scheduleFeatureFlush();
+    }
+
+    // Batched Feature Mutations
+
+    /*
+     * All child insertions and removals of one UI batch run back to back on the UI thread. Their
+     * overlay changes are queued here and applied in a single pass after the batch (or right before
+     * the next draw, whichever comes first): one copy of the overlay list for the removals and one
+     * for the additions, one relayout of the node and one redraw, instead of one of each per feature.
+     */
+    private final List<Overlay> pendingOverlayAdds = new ArrayList<>();
+    // a set, so removing it from the overlay list is one lookup per overlay
+    private final Set<Overlay> pendingOverlayRemovals = new HashSet<>();
+    private boolean nodeInvalidationPending = false;
+    private boolean featureFlushScheduled = false;
+
+    private final Runnable featureFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushFeatureChanges(true);
+        }
+    };
+
+    void queueOverlayAdd(Overlay overlay) {
+        if (!pendingOverlayRemovals.remove(overlay)) {
+            pendingOverlayAdds.add(overlay);
+        }
+        scheduleFeatureFlush();
+    }
+
+    void queueOverlayRemove(Overlay overlay) {
+        if (!pendingOverlayAdds.remove(overlay)) {
+            pendingOverlayRemovals.add(overlay);
+        }
+        scheduleFeatureFlush();
+    }
+
+    private void scheduleFeatureFlush() {
+        if (featureFlushScheduled) return;
+        featureFlushScheduled = true;
+        post(featureFlushRunnable);
+    }
+
+    private void flushFeatureChanges(boolean redraw) {
+        if (!featureFlushScheduled) return;
+        featureFlushScheduled = false;
+        removeCallbacks(featureFlushRunnable);
+
+        boolean overlaysChanged = false;
+        // the overlay manager's own addAll/removeAll go through add/remove one overlay at a time;
+        // the copy-on-write list it wraps copies its array only once per bulk call
+        List<Overlay> overlays = getOverlayManager().overlays();
+        if (!pendingOverlayRemovals.isEmpty()) {
+            overlays.removeAll(pendingOverlayRemovals);
+            pendingOverlayRemovals.clear();
+            overlaysChanged = true;
+        }
+        if (!pendingOverlayAdds.isEmpty()) {
+            overlays.addAll(pendingOverlayAdds);
+            pendingOverlayAdds.clear();
+            overlaysChanged = true;
+        }
+        if (nodeInvalidationPending) {
+            nodeInvalidationPending = false;
+            manager.invalidateNode(this);
+        }
+        if (overlaysChanged && redraw) {
+            invalidate();
+        }
+    }
+
+    private boolean redrawRequested = false;
+
+    /**
+     * Invalidates the map for the next frame, once, however many features ask in the meantime.
+     */
+    void requestRedraw() {
+        if (redrawRequested) return;
+        redrawRequested = true;
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        redrawRequested = false;
+        // already drawing: no need for another invalidate
+        flushFeatureChanges(false);
+        updateCulling();
+        super.dispatchDraw(canvas);
     }
 
     public int getFeatureCount() {
@@ -340,10 +532,333 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
         if (feature instanceof OsmMapMarker) {
             //noinspection SuspiciousMethodCalls
             markerMap.remove(feature.getFeature());
+            markersByIdentifierStale = true;
+        } else if (feature instanceof OsmMapPolyline) {
+            //noinspection SuspiciousMethodCalls
+            polylineMap.remove(feature.getFeature());
+        } else if (feature instanceof OsmMapPolygon) {
+            //noinspection SuspiciousMethodCalls
+            polygonMap.remove(feature.getFeature());
+        }
+        featureIndex.remove(feature);
+        if (!visibleFeatures.remove(feature)) {
+            // culled: hand the overlay back enabled
+            setOverlayEnabled(feature, true);
         }
         feature.removeFromMap(this);
     }
 
+    // Feature Hit-Testing
+
+    private final FeatureIndex<OsmMapFeature> featureIndex = new FeatureIndex<>();
+    private final List<OsmMapFeature> tapCandidates = new ArrayList<>();
+    private final GeoPoint tapCorner = new GeoPoint(0.0, 0.0);
+    // how far (px) from its indexed bounds a feature can still be hit: marker icons, line strokes
+    private float hitSlop = 0;
+
+    void onFeatureBoundsChanged(OsmMapFeature feature) {
+        if (featureIndex.contains(feature)) {
+            indexFeature(feature);
+        }
+    }
+
+    /**
+     * Grows the indexed bounds of a line by the points appended to it, without going over the
+     * points it already had.
+     */
+    void onFeaturePointsAdded(OsmMapFeature feature, List<GeoPoint> points) {
+        if (!featureIndex.getBounds(feature, featureBounds)) {
+            // a line that had no points is not indexed yet
+            if (features.contains(feature)) {
+                indexFeature(feature);
+            }
+            return;
+        }
+        for (int i = 0; i < points.size(); i++) {
+            GeoPoint point = points.get(i);
+            featureBounds[0] = Math.min(featureBounds[0], point.getLongitude());
+            featureBounds[1] = Math.min(featureBounds[1], point.getLatitude());
+            featureBounds[2] = Math.max(featureBounds[2], point.getLongitude());
+            featureBounds[3] = Math.max(featureBounds[3], point.getLatitude());
+        }
+        featureIndex.put(feature, featureBounds[0], featureBounds[1], featureBounds[2], featureBounds[3]);
+        cullFeature(feature);
+    }
+
+    private void indexFeature(OsmMapFeature feature) {
+        Object overlay = feature.getFeature();
+        if (overlay instanceof Marker) {
+            Marker marker = (Marker) overlay;
+            Drawable icon = marker.getIcon();
+            if (icon != null) {
+                // the diagonal covers any anchor and rotation
+                hitSlop = Math.max(hitSlop,
+                        (float) Math.hypot(icon.getIntrinsicWidth(), icon.getIntrinsicHeight()));
+            }
+            GeoPoint position = marker.getPosition();
+            if (position != null) {
+                featureIndex.put(feature, position.getLongitude(), position.getLatitude(),
+                        position.getLongitude(), position.getLatitude());
+            }
+        } else if (feature instanceof OsmMapPolyline) {
+            hitSlop = Math.max(hitSlop, polylineTolerance((Polyline) overlay));
+            // the overlay may only hold the points drawn at the current zoom level
+            indexPoints(feature, ((OsmMapPolyline) feature).getCoordinates());
+        } else if (feature instanceof OsmMapPolygon) {
+            indexPoints(feature, ((OsmMapPolygon) feature).getCoordinates());
+        } else if (feature instanceof OsmMapCircle) {
+            if (((OsmMapCircle) feature).getBounds(featureBounds)) {
+                featureIndex.put(feature, featureBounds[0], featureBounds[1], featureBounds[2], featureBounds[3]);
+            } else {
+                featureIndex.remove(feature);
+            }
+        } else if (overlay instanceof Polygon) {
+            indexPoints(feature, ((Polygon) overlay).getPoints());
+        }
+        cullFeature(feature);
+    }
+
+    private void indexPoints(OsmMapFeature feature, List<GeoPoint> points) {
+        if (points == null || points.isEmpty()) {
+            featureIndex.remove(feature);
+            return;
+        }
+        double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points.size(); i++) {
+            GeoPoint point = points.get(i);
+            minLat = Math.min(minLat, point.getLatitude());
+            maxLat = Math.max(maxLat, point.getLatitude());
+            minLng = Math.min(minLng, point.getLongitude());
+            maxLng = Math.max(maxLng, point.getLongitude());
+        }
+        featureIndex.put(feature, minLng, minLat, maxLng, maxLat);
+    }
+
+    private float polylineTolerance(Polyline polyline) {
+        return polyline.getOutlinePaint().getStrokeWidth() * getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * Finds the topmost feature under the tap among the index candidates near the finger and fires
+     * its press events. Markers win over polylines, polylines over polygons, and within one kind the
+     * feature added last wins, matching the drawing order.
+     */
+    private boolean onFeatureTap(MotionEvent e) {
+        if (featureIndex.size() == 0) return false;
+
+        Projection projection = getProjection();
+        int x = (int) e.getX();
+        int y = (int) e.getY();
+        int slop = (int) Math.ceil(hitSlop);
+        double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        // on a rotated map any screen corner can end up as any corner of the geographic box
+        for (int corner = 0; corner < 4; corner++) {
+            projection.fromPixels(x + ((corner & 1) == 0 ? -slop : slop),
+                    y + ((corner & 2) == 0 ? -slop : slop), tapCorner);
+            minLat = Math.min(minLat, tapCorner.getLatitude());
+            maxLat = Math.max(maxLat, tapCorner.getLatitude());
+            minLng = Math.min(minLng, tapCorner.getLongitude());
+            maxLng = Math.max(maxLng, tapCorner.getLongitude());
+        }
+
+        tapCandidates.clear();
+        featureIndex.query(minLng, minLat, maxLng, maxLat, tapCandidates);
+        if (tapCandidates.isEmpty()) return false;
+
+        GeoPoint tapPoint = (GeoPoint) projection.fromPixels(x, y);
+        OsmMapFeature hit = null;
+        int hitRank = -1;
+        for (OsmMapFeature candidate : tapCandidates) {
+            int rank = tapRank(candidate, e, tapPoint);
+            if (rank < 0) continue;
+            if (hit == null || rank > hitRank
+                    || (rank == hitRank && features.indexOf(candidate) > features.indexOf(hit))) {
+                hit = candidate;
+                hitRank = rank;
+            }
+        }
+        tapCandidates.clear();
+        if (hit == null) return false;
+
+        Object overlay = hit.getFeature();
+        if (overlay instanceof Marker) {
+            return onMarkerClickListener.onMarkerClick((Marker) overlay, this);
+        } else if (overlay instanceof Polyline) {
+            return onPolylineClickListener.onClick((Polyline) overlay, this, tapPoint);
+        } else {
+            return onPolygonClickListener.onClick((Polygon) overlay, this, tapPoint);
+        }
+    }
+
+    private int tapRank(OsmMapFeature feature, MotionEvent e, GeoPoint tapPoint) {
+        Object overlay = feature.getFeature();
+        if (!(overlay instanceof Overlay) || !((Overlay) overlay).isEnabled()) {
+            return -1;
+        }
+        if (feature instanceof OsmMapCircle) {
+            // indexed for culling only, circles do not take taps
+            return -1;
+        }
+        if (overlay instanceof Marker) {
+            return ((Marker) overlay).hitTest(e, this) ? 2 : -1;
+        }
+        // shapes are tested at full precision, not against the simplified points drawn
+        if (feature instanceof OsmMapPolyline) {
+            double tolerance = polylineTolerance((Polyline) overlay);
+            return ((OsmMapPolyline) feature).isCloseTo(tapPoint, tolerance, this) ? 1 : -1;
+        }
+        if (feature instanceof OsmMapPolygon) {
+            return ((OsmMapPolygon) feature).contains(tapPoint) ? 0 : -1;
+        }
+        return -1;
+    }
+
+    // Viewport Culling
+
+    // features outside this box, or smaller than minFeatureSize at cullZoom, have their overlay
+    // disabled so that osmdroid skips them when drawing; NaN until the first draw
+    private double cullMinLat = Double.NaN;
+    private double cullMinLng;
+    private double cullMaxLat;
+    private double cullMaxLng;
+    private double cullZoom = Double.NaN;
+    // the box is still used to cull single features, but the index is queried again on next draw
+    private boolean cullStale = false;
+    private float minFeatureSize = 0;
+    // indexed features whose overlay is enabled
+    private Set<OsmMapFeature> visibleFeatures = new HashSet<>();
+    private Set<OsmMapFeature> stillVisibleFeatures = new HashSet<>();
+    private final List<OsmMapFeature> cullCandidates = new ArrayList<>();
+    private final double[] viewportBox = new double[4];
+    private final double[] featureBounds = new double[4];
+
+    /**
+     * Polylines, polygons and circles whose bounds are smaller than {@code size} (dp) on screen are
+     * not drawn. 0 draws them all.
+     */
+    public void setMinFeatureSize(float size) {
+        minFeatureSize = size * getResources().getDisplayMetrics().density;
+        // evaluate the sizes again on the next draw
+        cullStale = true;
+        invalidate();
+    }
+
+    /**
+     * Brings the culled features up to date before a draw. The index is only queried when the
+     * viewport left the box queried last, which has a margin of half a screen, or when the zoom
+     * changed and sizes matter. Only features entering or leaving the box are toggled; features
+     * that move are culled one by one as their bounds change.
+     */
+    private void updateCulling() {
+        if (visibleFeatures.isEmpty() && featureIndex.size() == 0) return;
+        if (getWidth() == 0 || getHeight() == 0) return;
+        double zoom = getZoomLevelDouble();
+        int slop = (int) Math.ceil(hitSlop);
+
+        if (!Double.isNaN(cullMinLat) && !cullStale && (minFeatureSize <= 0 || zoom == cullZoom)) {
+            computeViewportBox(zoom, slop, viewportBox);
+            if (viewportBox[0] >= cullMinLng && viewportBox[1] >= cullMinLat
+                    && viewportBox[2] <= cullMaxLng && viewportBox[3] <= cullMaxLat) {
+                return;
+            }
+        }
+
+        computeViewportBox(zoom, slop + Math.max(getWidth(), getHeight()) / 2, viewportBox);
+        cullMinLng = viewportBox[0];
+        cullMinLat = viewportBox[1];
+        cullMaxLng = viewportBox[2];
+        cullMaxLat = viewportBox[3];
+        cullZoom = zoom;
+        cullStale = false;
+
+        double worldSize = TileSystem.MapSize(zoom);
+        cullCandidates.clear();
+        featureIndex.query(cullMinLng, cullMinLat, cullMaxLng, cullMaxLat, cullCandidates);
+        for (int i = 0; i < cullCandidates.size(); i++) {
+            OsmMapFeature feature = cullCandidates.get(i);
+            if (!isLargeEnough(feature, worldSize)) continue;
+            stillVisibleFeatures.add(feature);
+            if (!visibleFeatures.remove(feature)) {
+                setOverlayEnabled(feature, true);
+            }
+        }
+        cullCandidates.clear();
+        // what is left went out of view or became too small
+        for (OsmMapFeature feature : visibleFeatures) {
+            setOverlayEnabled(feature, false);
+        }
+        visibleFeatures.clear();
+        Set<OsmMapFeature> swap = visibleFeatures;
+        visibleFeatures = stillVisibleFeatures;
+        stillVisibleFeatures = swap;
+    }
+
+    /**
+     * Geographic box around the circle that holds the screen, at any rotation, plus
+     * {@code padding} pixels. Spans the whole world when it would cross the antimeridian.
+     */
+    private void computeViewportBox(double zoom, int padding, double[] out) {
+        double worldSize = TileSystem.MapSize(zoom);
+        double radius = Math.hypot(getWidth(), getHeight()) / 2 + padding;
+        IGeoPoint center = getMapCenter();
+        TileSystem tileSystem = getTileSystem();
+
+        double halfWidth = radius / worldSize * 360;
+        out[0] = center.getLongitude() - halfWidth;
+        out[2] = center.getLongitude() + halfWidth;
+        if (out[0] < -180 || out[2] > 180) {
+            out[0] = -180;
+            out[2] = 180;
+        }
+        double y = tileSystem.getY01FromLatitude(center.getLatitude(), true);
+        out[1] = tileSystem.getLatitudeFromY01(Math.min(1, y + radius / worldSize), true);
+        out[3] = tileSystem.getLatitudeFromY01(Math.max(0, y - radius / worldSize), true);
+    }
+
+    /**
+     * Culls a single feature against the box queried last, after it was indexed or moved.
+     */
+    private void cullFeature(OsmMapFeature feature) {
+        if (Double.isNaN(cullMinLat)) {
+            // the first draw culls everything
+            if (visibleFeatures.add(feature)) {
+                setOverlayEnabled(feature, true);
+            }
+            return;
+        }
+        boolean visible = featureIndex.getBounds(feature, featureBounds)
+                && featureBounds[0] <= cullMaxLng && featureBounds[2] >= cullMinLng
+                && featureBounds[1] <= cullMaxLat && featureBounds[3] >= cullMinLat
+                && isLargeEnough(feature, TileSystem.MapSize(cullZoom));
+        if (visible) {
+            if (visibleFeatures.add(feature)) {
+                setOverlayEnabled(feature, true);
+            }
+        } else if (visibleFeatures.remove(feature)) {
+            setOverlayEnabled(feature, false);
+        }
+    }
+
+    private boolean isLargeEnough(OsmMapFeature feature, double worldSize) {
+        // a marker's icon has the same size at every zoom
+        if (minFeatureSize <= 0 || feature instanceof OsmMapMarker) return true;
+        if (!featureIndex.getBounds(feature, featureBounds)) return true;
+        TileSystem tileSystem = getTileSystem();
+        double width = (featureBounds[2] - featureBounds[0]) / 360 * worldSize;
+        double height = (tileSystem.getY01FromLatitude(featureBounds[1], true)
+                - tileSystem.getY01FromLatitude(featureBounds[3], true)) * worldSize;
+        return Math.max(width, height) >= minFeatureSize;
+    }
+
+    private static void setOverlayEnabled(OsmMapFeature feature, boolean enabled) {
+        Object overlay = feature.getFeature();
+        if (overlay instanceof Overlay) {
+            ((Overlay) overlay).setEnabled(enabled);
+        }
+    }
+
     public WritableMap makeClickEventData(IGeoPoint point) {
         WritableMap event = new WritableNativeMap();
 
@@ -363,6 +878,18 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
         return event;
     }
 
+    private WritableMap makeClusterPressEventData(IGeoPoint point, String[] ids) {
+        WritableMap event = makeClickEventData(point);
+        event.putString("action", "cluster-press");
+        event.putString("id", "");
+        WritableNativeArray idArray = new WritableNativeArray();
+        for (String id : ids) {
+            idArray.pushString(id);
+        }
+        event.putArray("ids", idArray);
+        return event;
+    }
+
     public void animateToCamera(ReadableMap camera, int duration) {
         double zoom = getZoomLevelDouble();
         if (camera.hasKey("zoom")) {
@@ -440,6 +967,49 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
         this.zoomToBoundingBox(bounds, animated, padding, getMaxZoomLevel(), null);
     }
 
+    MarkerAnimator getMarkerAnimator() {
+        return markerAnimator;
+    }
+
+    MarkerPositionFeed getMarkerPositionFeed() {
+        return markerPositionFeed;
+    }
+
+    void onMarkerIdentifierChanged() {
+        markersByIdentifierStale = true;
+    }
+
+    OsmMapMarker findMarker(String identifier) {
+        if (markersByIdentifierStale) {
+            markersByIdentifierStale = false;
+            markersByIdentifier.clear();
+            for (OsmMapFeature feature : features) {
+                if (feature instanceof OsmMapMarker) {
+                    OsmMapMarker marker = (OsmMapMarker) feature;
+                    if (marker.getIdentifier() != null) {
+                        markersByIdentifier.put(marker.getIdentifier(), marker);
+                    }
+                }
+            }
+        }
+        return markersByIdentifier.get(identifier);
+    }
+
+    /**
+     * Animates many markers in one call: {@code coordinates} holds a latitude and a longitude for
+     * each identifier. Unknown identifiers are ignored.
+     */
+    public void animateMarkersToCoordinates(ReadableArray identifiers, ReadableArray coordinates,
+                                            int duration, int easing) {
+        for (int i = 0; i < identifiers.size(); i++) {
+            OsmMapMarker marker = findMarker(identifiers.getString(i));
+            if (marker != null) {
+                marker.animateToCoordinate(coordinates.getDouble(i * 2),
+                        coordinates.getDouble(i * 2 + 1), duration, easing);
+            }
+        }
+    }
+
     public void fitToElements(boolean animated) {
 
         List<GeoPoint> points = new ArrayList<>();
@@ -558,44 +1128,106 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
         return true;
     }
 
-    // Timer Implementation
+    // Region Monitoring
 
     public void startMonitoringRegion() {
+        idleRegionFrames = 0;
         if (isMonitoringRegion) return;
-        timerHandler.postDelayed(timerRunnable, 100);
         isMonitoringRegion = true;
+        Choreographer.getInstance().postFrameCallback(regionFrameCallback);
     }
 
     public void stopMonitoringRegion() {
         if (!isMonitoringRegion) return;
-        timerHandler.removeCallbacks(timerRunnable);
+        Choreographer.getInstance().removeFrameCallback(regionFrameCallback);
         isMonitoringRegion = false;
     }
 
-    private BoundingBox lastBoundsEmitted;
+    /**
+     * Notified on the UI thread whenever a region change is emitted, i.e. only when the visible
+     * region actually moved or zoomed.
+     */
+    public interface OnRegionChangeListener {
+        void onRegionChange(OsmMapView mapView);
+    }
 
-    Handler timerHandler = new Handler();
-    Runnable timerRunnable = new Runnable() {
+    private final List<OnRegionChangeListener> regionChangeListeners = new ArrayList<>();
 
-        @Override
-        public void run() {
+    public void addOnRegionChangeListener(OnRegionChangeListener listener) {
+        regionChangeListeners.add(listener);
+    }
+
+    public void removeOnRegionChangeListener(OnRegionChangeListener listener) {
+        regionChangeListeners.remove(listener);
+    }
 
-            if (OsmMapView.this.isLayoutOccurred()) {
-                BoundingBox bounds = OsmMapView.this.getBoundingBox();
+    private boolean hasEmittedRegion = false;
+    private double lastLatitude;
+    private double lastLongitude;
+    private double lastLatitudeDelta;
+    private double lastLongitudeDelta;
+    private int idleRegionFrames = 0;
+    private final GeoPoint regionCenter = new GeoPoint(0.0, 0.0);
 
-                if ((bounds != null) &&
-                        (lastBoundsEmitted == null ||
-                                LatLngBoundsUtils.BoundsAreDifferent(bounds, lastBoundsEmitted))) {
-                    IGeoPoint center = OsmMapView.this.getMapCenter();
-                    lastBoundsEmitted = bounds;
-                    if (eventDispatcher != null) { eventDispatcher.dispatchEvent(new OsmRegionChangeEvent(getId(), bounds, center, true)); }
-                }
+    private final Choreographer.FrameCallback regionFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!isMonitoringRegion) return;
+
+            if (emitRegionIfChanged()) {
+                idleRegionFrames = 0;
+            } else if (++idleRegionFrames >= REGION_IDLE_FRAMES) {
+                // nothing moved for a few frames: stay quiet until the next scroll/zoom/touch
+                isMonitoringRegion = false;
+                return;
             }
-
-            timerHandler.postDelayed(this, 100);
+            Choreographer.getInstance().postFrameCallback(this);
         }
     };
 
+    /**
+     * Emits a continuous region change if the visible region moved since the last emitted one.
+     * The comparison only reads the current projection's bounds, so idle frames allocate nothing.
+     */
+    private boolean emitRegionIfChanged() {
+        if (!isLayoutOccurred()) return false;
+        BoundingBox bounds = getBoundingBox();
+        if (bounds == null) return false;
+
+        if (hasEmittedRegion && !LatLngBoundsUtils.BoundsAreDifferent(
+                bounds.getCenterLatitude(), bounds.getCenterLongitude(),
+                bounds.getLatitudeSpan(), bounds.getLongitudeSpanWithDateLine(),
+                lastLatitude, lastLongitude, lastLatitudeDelta, lastLongitudeDelta)) {
+            return false;
+        }
+        emitRegion(bounds, true);
+        return true;
+    }
+
+    private void emitRegion(boolean continuous) {
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null) {
+            emitRegion(bounds, continuous);
+        }
+    }
+
+    private void emitRegion(BoundingBox bounds, boolean continuous) {
+        hasEmittedRegion = true;
+        lastLatitude = bounds.getCenterLatitude();
+        lastLongitude = bounds.getCenterLongitude();
+        lastLatitudeDelta = bounds.getLatitudeSpan();
+        lastLongitudeDelta = bounds.getLongitudeSpanWithDateLine();
+        for (int i = 0; i < regionChangeListeners.size(); i++) {
+            regionChangeListeners.get(i).onRegionChange(this);
+        }
+        if (eventDispatcher != null) {
+            getMapCenter(regionCenter);
+            eventDispatcher.dispatchEvent(new OsmRegionChangeEvent(getId(),
+                    regionCenter.getLatitude(), regionCenter.getLongitude(),
+                    lastLatitudeDelta, lastLongitudeDelta, continuous));
+        }
+    }
+
     private OsmMapMarker.OnCalloutPressListener onCalloutPressListener = new OsmMapMarker.OnCalloutPressListener() {
         @Override
         public void OnCalloutPress(OsmMapMarker markerView) {
@@ -642,38 +1274,61 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
         }
     };
 
+    private Marker draggingMarker;
+    private final Point dragPosition = new Point();
+
+    private final EventThrottle markerDragThrottle = new EventThrottle(new Runnable() {
+        @Override
+        public void run() {
+            if (draggingMarker != null) {
+                dispatchMarkerDragEvent(draggingMarker, "onMarkerDrag", "onDrag", true);
+            }
+        }
+    });
+
     private Marker.OnMarkerDragListener onMarkerDragListener = new Marker.OnMarkerDragListener() {
         @Override
         public void onMarkerDragStart(Marker marker) {
-            WritableMap event = makeClickEventData(marker.getPosition());
-            manager.pushEvent(context, OsmMapView.this, "onMarkerDragStart", event);
-
-            OsmMapMarker markerView = markerMap.get(marker);
-            event = makeClickEventData(marker.getPosition());
-            manager.pushEvent(context, markerView, "onDragStart", event);
+            draggingMarker = marker;
+            dispatchMarkerDragEvent(marker, "onMarkerDragStart", "onDragStart", false);
         }
 
         @Override
         public void onMarkerDrag(Marker marker) {
-            WritableMap event = makeClickEventData(marker.getPosition());
-            manager.pushEvent(context, OsmMapView.this, "onMarkerDrag", event);
-
-            OsmMapMarker markerView = markerMap.get(marker);
-            event = makeClickEventData(marker.getPosition());
-            manager.pushEvent(context, markerView, "onDrag", event);
+            draggingMarker = marker;
+            markerDragThrottle.request();
         }
 
         @Override
         public void onMarkerDragEnd(Marker marker) {
-            WritableMap event = makeClickEventData(marker.getPosition());
-            manager.pushEvent(context, OsmMapView.this, "onMarkerDragEnd", event);
-
+            markerDragThrottle.cancel();
+            draggingMarker = null;
             OsmMapMarker markerView = markerMap.get(marker);
-            event = makeClickEventData(marker.getPosition());
-            manager.pushEvent(context, markerView, "onDragEnd", event);
+            if (markerView != null) {
+                onFeatureBoundsChanged(markerView);
+            }
+            dispatchMarkerDragEvent(marker, "onMarkerDragEnd", "onDragEnd", false);
         }
     };
 
+    private void dispatchMarkerDragEvent(Marker marker, String mapEventName, String markerEventName,
+                                         boolean continuous) {
+        if (eventDispatcher == null) return;
+        GeoPoint coordinate = marker.getPosition();
+        getProjection().toPixels(coordinate, dragPosition);
+
+        eventDispatcher.dispatchEvent(new OsmCoordinateEvent(getId(), mapEventName,
+                coordinate.getLatitude(), coordinate.getLongitude(),
+                dragPosition.x, dragPosition.y, continuous));
+
+        OsmMapMarker markerView = markerMap.get(marker);
+        if (markerView != null) {
+            eventDispatcher.dispatchEvent(new OsmCoordinateEvent(markerView.getId(), markerEventName,
+                    coordinate.getLatitude(), coordinate.getLongitude(),
+                    dragPosition.x, dragPosition.y, continuous));
+        }
+    }
+
     private Polyline.OnClickListener onPolylineClickListener = new Polyline.OnClickListener() {
         @Override
         public boolean onClick(Polyline polyline, MapView mapView, GeoPoint geoPoint) {
@@ -694,10 +1349,34 @@ public class OsmMapView extends MapView implements MapView.OnFirstLayoutListener
         }
     };
 
+    private int panDragX;
+    private int panDragY;
+    private final GeoPoint panDragCoordinate = new GeoPoint(0.0, 0.0);
+
+    private final EventThrottle panDragThrottle = new EventThrottle(new Runnable() {
+        @Override
+        public void run() {
+            if (eventDispatcher == null) return;
+            getProjection().fromPixels(panDragX, panDragY, panDragCoordinate);
+            eventDispatcher.dispatchEvent(new OsmCoordinateEvent(getId(), "onPanDrag",
+                    panDragCoordinate.getLatitude(), panDragCoordinate.getLongitude(),
+                    panDragX, panDragY, true));
+        }
+    });
+
     public void onPanDrag(MotionEvent ev) {
-        IGeoPoint coords = this.getProjection().fromPixels((int) ev.getX(), (int) ev.getY());
-        WritableMap event = makeClickEventData(coords);
-        manager.pushEvent(context, this, "onPanDrag", event);
+        panDragX = (int) ev.getX();
+        panDragY = (int) ev.getY();
+        panDragThrottle.request();
+    }
+
+    /**
+     * Minimum time between two pan drag or marker drag events. With 0, events are only coalesced
+     * by the event dispatcher, so JS gets at most one of each per frame.
+     */
+    public void setDragEventThrottle(int throttleMs) {
+        panDragThrottle.setInterval(throttleMs);
+        markerDragThrottle.setInterval(throttleMs);
     }
 
     private InterceptDoubleTapOverlay interceptDoubleTapOverlay;
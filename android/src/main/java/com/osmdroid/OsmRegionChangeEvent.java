@@ -4,18 +4,28 @@ import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.uimanager.events.Event;
 import com.facebook.react.uimanager.events.RCTEventEmitter;
-import org.osmdroid.api.IGeoPoint;
-import org.osmdroid.util.BoundingBox;
 
+/**
+ * Region change of a map view. The region is copied into primitives when the event is created, so
+ * queued events hold no osmdroid objects.
+ *
+ * Continuous events (sent while the camera moves) coalesce per view, so the event dispatcher only
+ * delivers the latest one each frame. The final, non-continuous event is never dropped.
+ */
 public class OsmRegionChangeEvent extends Event<OsmRegionChangeEvent> {
-  private final BoundingBox bounds;
-  private final IGeoPoint center;
+  private final double latitude;
+  private final double longitude;
+  private final double latitudeDelta;
+  private final double longitudeDelta;
   private final boolean continuous;
 
-  public OsmRegionChangeEvent(int id, BoundingBox bounds, IGeoPoint center, boolean continuous) {
+  public OsmRegionChangeEvent(int id, double latitude, double longitude,
+                              double latitudeDelta, double longitudeDelta, boolean continuous) {
     super(id);
-    this.bounds = bounds;
-    this.center = center;
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.latitudeDelta = latitudeDelta;
+    this.longitudeDelta = longitudeDelta;
     this.continuous = continuous;
   }
 
@@ -26,7 +36,7 @@ public class OsmRegionChangeEvent extends Event<OsmRegionChangeEvent> {
 
   @Override
   public boolean canCoalesce() {
-    return false;
+    return continuous;
   }
 
   @Override
@@ -36,10 +46,10 @@ public class OsmRegionChangeEvent extends Event<OsmRegionChangeEvent> {
     event.putBoolean("continuous", continuous);
 
     WritableMap region = new WritableNativeMap();
-    region.putDouble("latitude", center.getLatitude());
-    region.putDouble("longitude", center.getLongitude());
-    region.putDouble("latitudeDelta", bounds.getLatitudeSpan());
-    region.putDouble("longitudeDelta", bounds.getLongitudeSpanWithDateLine());
+    region.putDouble("latitude", latitude);
+    region.putDouble("longitude", longitude);
+    region.putDouble("latitudeDelta", latitudeDelta);
+    region.putDouble("longitudeDelta", longitudeDelta);
     event.putMap("region", region);
 
     rctEventEmitter.receiveEvent(getViewTag(), getEventName(), event);
@@ -18,6 +18,9 @@ public class OsmdroidPackage implements ReactPackage {
   public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
     OsmMapCalloutManager osmCalloutManager = new OsmMapCalloutManager();
     OsmMapMarkerManager osmMarkerManager = new OsmMapMarkerManager();
+    OsmMapMarkerLayerManager osmMarkerLayerManager = new OsmMapMarkerLayerManager();
+    OsmMapGeojsonManager osmGeojsonManager = new OsmMapGeojsonManager();
+    OsmMapFlatGeobufManager osmFlatGeobufManager = new OsmMapFlatGeobufManager();
     OsmMapPolylineManager osmPolylineManager = new OsmMapPolylineManager(reactContext);
     OsmMapPolygonManager osmPolygonManager = new OsmMapPolygonManager(reactContext);
     OsmMapCircleManager osmMapCircleManager = new OsmMapCircleManager(reactContext);
@@ -27,6 +30,9 @@ public class OsmdroidPackage implements ReactPackage {
     return Arrays.<ViewManager>asList(
       osmCalloutManager,
       osmMarkerManager,
+      osmMarkerLayerManager,
+      osmGeojsonManager,
+      osmFlatGeobufManager,
       osmPolylineManager,
       osmPolygonManager,
       osmMapCircleManager,
@@ -1,19 +1,147 @@
 package com.osmdroid;
 
+import android.widget.Toast
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.bridge.ReactContextBaseJavaModule
 import com.facebook.react.bridge.ReactMethod
 import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.modules.core.DeviceEventManagerModule
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 class TileCacherModule(reactContext: ReactApplicationContext) : ReactContextBaseJavaModule(reactContext) {
 
+    private val backgroundExecutor: ExecutorService = Executors.newSingleThreadExecutor()
+
     override fun getName(): String {
         return "TileCacher"
     }
 
     @ReactMethod
-    fun cacheTilesFromDirectory(directoryPath: String, options: ReadableMap?) {
-        val showProgressToast = options?.getBoolean("showProgressToast") ?: false
-        OsmMapTileCacher(reactApplicationContext).cacheTilesFromDirectory(directoryPath, showProgressToast)
+    fun cacheTilesFromDirectory(directoryPath: String, options: ReadableMap?, promise: Promise) {
+        val showProgressToast = options?.getBooleanOrDefault("showProgressToast", false) ?: false
+
+        backgroundExecutor.execute {
+            try {
+                val transcoder = createTranscoder(options)
+                val tileCount = OsmMapTileCacher(reactApplicationContext).use { cacher ->
+                    cacher.cacheTilesFromDirectory(directoryPath, showProgressToast, transcoder)
+                }
+
+                val response = Arguments.createMap()
+                response.putInt("tileCount", tileCount)
+                promise.resolve(response)
+            } catch (e: Exception) {
+                promise.reject("E_TILE_CACHE", e.message, e)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun convertDirectoryToMBTiles(directoryPath: String, options: ReadableMap?, promise: Promise) {
+        val converter = OsmMapTilePackConverter(reactApplicationContext)
+        val outputPath = options?.getStringOrNull("outputPath") ?: converter.defaultOutputPath(directoryPath)
+        val showProgressToast = options?.getBooleanOrDefault("showProgressToast", false) ?: false
+        val packOptions = OsmMapTilePackConverter.Options(
+            name = options?.getStringOrNull("name"),
+            flipY = options?.getBooleanOrDefault("flipY", false) ?: false,
+            verifyChecksums = options?.getBooleanOrDefault("verifyChecksums", true) ?: true
+        )
+
+        backgroundExecutor.execute {
+            try {
+                var lastPercentage = 0
+                val result = converter.convertDirectoryToMBTiles(directoryPath, outputPath, packOptions) { processed, total ->
+                    val percentage = processed * 100 / total
+                    emitProgress(directoryPath, processed, total)
+                    if (showProgressToast && percentage >= lastPercentage + 10) {
+                        lastPercentage = percentage - percentage % 10
+                        showToast("Tile pack conversion progress $lastPercentage%")
+                    }
+                }
+
+                val response = Arguments.createMap()
+                response.putString("outputPath", result.outputPath)
+                response.putInt("tileCount", result.tileCount)
+                response.putInt("skippedFiles", result.skippedFiles)
+                response.putInt("minZoom", result.minZoom)
+                response.putInt("maxZoom", result.maxZoom)
+                promise.resolve(response)
+            } catch (e: Exception) {
+                promise.reject("E_TILE_PACK", e.message, e)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun applyTileDelta(directoryPath: String, manifestPath: String, options: ReadableMap?, promise: Promise) {
+        backgroundExecutor.execute {
+            try {
+                val transcoder = createTranscoder(options)
+                val pack = options?.getStringOrNull("pack")
+                val result = OsmMapTileCacher(reactApplicationContext).use { cacher ->
+                    cacher.applyDelta(directoryPath, manifestPath, pack = pack, transcoder = transcoder) { processed, total ->
+                        emitProgress(directoryPath, processed, total)
+                    }
+                }
+
+                val response = Arguments.createMap()
+                response.putInt("written", result.written)
+                response.putInt("deleted", result.deleted)
+                response.putInt("unchanged", result.unchanged)
+                response.putInt("rejected", result.rejected)
+                promise.resolve(response)
+            } catch (e: Exception) {
+                promise.reject("E_TILE_DELTA", e.message, e)
+            }
+        }
+    }
+
+    private fun createTranscoder(options: ReadableMap?): OsmMapTileTranscoder? {
+        if (options == null || !options.hasKey("transcode") || options.isNull("transcode")) {
+            return null
+        }
+        val transcode = options.getMap("transcode") ?: return null
+        val format = transcode.getStringOrNull("format") ?: "webp"
+        if (format != "webp") {
+            throw IllegalArgumentException("Unsupported tile transcode format: $format")
+        }
+        val quality = if (transcode.hasKey("quality")) transcode.getInt("quality") else OsmMapTileTranscoder.DEFAULT_QUALITY
+        return OsmMapTileTranscoder(transcode.getBooleanOrDefault("lossless", false), quality)
+    }
+
+    private fun emitProgress(directoryPath: String, processed: Int, total: Int) {
+        val event = Arguments.createMap()
+        event.putString("directoryPath", directoryPath)
+        event.putInt("processed", processed)
+        event.putInt("total", total)
+        reactApplicationContext
+            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
+            .emit(PROGRESS_EVENT, event)
+    }
+
+    private fun showToast(message: String) {
+        reactApplicationContext.runOnUiQueueThread {
+            Toast.makeText(reactApplicationContext, message, Toast.LENGTH_SHORT).show()
+        }
+    }
+
+    override fun invalidate() {
+        backgroundExecutor.shutdown()
+        super.invalidate()
+    }
+
+    private fun ReadableMap.getStringOrNull(key: String): String? {
+        return if (hasKey(key) && !isNull(key)) getString(key) else null
+    }
+
+    private fun ReadableMap.getBooleanOrDefault(key: String, fallback: Boolean): Boolean {
+        return if (hasKey(key) && !isNull(key)) getBoolean(key) else fallback
+    }
+
+    companion object {
+        const val PROGRESS_EVENT = "TileCacherProgress"
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,631 @@
+package com.osmdroid.geojson;
+
+import android.util.LruCache;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A FlatGeobuf file read on demand.
+ *
+ * Only the header is read when the file is opened. Queries search the file's packed Hilbert
+ * R-tree, reading just the nodes they reach, and decode only the features found. Files written
+ * without an index are scanned once, and an index of the same layout is built in memory. Decoded
+ * features are kept in an LRU cache keyed by their offset, so that panning back and forth decodes
+ * nothing again.
+ *
+ * Coordinates must be WGS 84 longitude/latitude, or Web Mercator meters (EPSG:3857). Not thread
+ * safe: use it from one background thread.
+ */
+public final class FlatGeobufFile implements Closeable {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  // geometry types
+  private static final int UNKNOWN = 0;
+  private static final int POINT = 1;
+  private static final int LINE_STRING = 2;
+  private static final int POLYGON = 3;
+  private static final int MULTI_POINT = 4;
+  private static final int MULTI_LINE_STRING = 5;
+  private static final int MULTI_POLYGON = 6;
+  private static final int GEOMETRY_COLLECTION = 7;
+
+  // column types
+  private static final int BYTE = 0;
+  private static final int UBYTE = 1;
+  private static final int BOOL = 2;
+  private static final int SHORT = 3;
+  private static final int USHORT = 4;
+  private static final int INT = 5;
+  private static final int UINT = 6;
+  private static final int LONG = 7;
+  private static final int ULONG = 8;
+  private static final int FLOAT = 9;
+  private static final int DOUBLE = 10;
+  private static final int STRING = 11;
+  private static final int DATE_TIME = 13;
+
+  private static final double EARTH_CIRCUMFERENCE = 2 * Math.PI * 6378137;
+
+  // index sizes up to this are read into memory whole when the file is opened
+  private static final int INDEX_CACHE_BYTES = 4 << 20;
+  private static final int READ_AHEAD_BYTES = 64 << 10;
+  // decoded points kept in the feature cache
+  private static final int CACHE_POINTS = 1 << 20;
+
+  private final FileChannel channel;
+  private final int geometryType;
+  private final boolean mercator;
+  private final String[] columnNames;
+  private final int[] columnTypes;
+  private final long featuresStart;
+
+  private final PackedRTree tree;
+  // the whole index when it was small enough or built in memory, otherwise null
+  private final ByteBuffer indexNodes;
+  private final long indexStart;
+  // the item of each leaf of an index built in memory, otherwise null
+  private final int[] leafItems;
+
+  private final ByteBuffer window = ByteBuffer.allocate(READ_AHEAD_BYTES);
+  private long windowStart = 0;
+  private int windowLength = 0;
+
+  private final LruCache<Long, GeojsonData> cache = new LruCache<Long, GeojsonData>(CACHE_POINTS) {
+    @Override
+    protected int sizeOf(Long offset, GeojsonData feature) {
+      // count a few points for the arrays and properties of each feature
+      return feature.points.length / 2 + 8;
+    }
+  };
+
+  private FlatGeobufFile(FileChannel channel) throws IOException {
+    this.channel = channel;
+    ByteBuffer magic = readAt(0, 12);
+    if (magic.get(0) != 'f' || magic.get(1) != 'g' || magic.get(2) != 'b' || magic.get(3) != 3
+        || magic.get(4) != 'f' || magic.get(5) != 'g' || magic.get(6) != 'b') {
+      throw new IOException("Not a FlatGeobuf version 3 file");
+    }
+    int headerSize = magic.getInt(8);
+    ByteBuffer header = copyOf(readAt(12, headerSize));
+    int table = header.getInt(0);
+
+    int field = field(header, table, 2);
+    geometryType = field != 0 ? header.get(field) & 0xff : UNKNOWN;
+
+    field = field(header, table, 7);
+    int columnCount = field != 0 ? header.getInt(indirect(header, field)) : 0;
+    columnNames = new String[columnCount];
+    columnTypes = new int[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      int column = indirect(header, indirect(header, field) + 4 + i * 4);
+      int name = field(header, column, 0);
+      columnNames[i] = name != 0 ? string(header, name) : "";
+      int type = field(header, column, 1);
+      columnTypes[i] = type != 0 ? header.get(type) & 0xff : BYTE;
+    }
+
+    field = field(header, table, 8);
+    long featureCount = field != 0 ? header.getLong(field) : 0;
+    field = field(header, table, 9);
+    int nodeSize = field != 0 ? header.getShort(field) & 0xffff : 16;
+
+    field = field(header, table, 10);
+    int code = 0;
+    if (field != 0) {
+      int codeField = field(header, indirect(header, field), 1);
+      code = codeField != 0 ? header.getInt(codeField) : 0;
+    }
+    if (code != 0 && code != 4326 && code != 3857 && code != 900913) {
+      throw new IOException("Unsupported CRS EPSG:" + code);
+    }
+    mercator = code == 3857 || code == 900913;
+
+    indexStart = 12 + headerSize;
+    if (nodeSize > 0 && featureCount > 0) {
+      tree = new PackedRTree(featureCount, nodeSize);
+      featuresStart = indexStart + tree.sizeInBytes();
+      indexNodes = tree.sizeInBytes() <= INDEX_CACHE_BYTES
+          ? copyOf(readAt(indexStart, (int) tree.sizeInBytes()))
+          : null;
+      leafItems = null;
+    } else {
+      featuresStart = indexStart;
+      IndexBuilder built = scan();
+      tree = built.tree;
+      indexNodes = built.nodes;
+      leafItems = built.leafItems;
+    }
+  }
+
+  /**
+   * Reads the header of the file, and scans it to build an index if it has none. Run off the UI
+   * thread.
+   *
+   * @param channel closed by {@link #close()}
+   */
+  public static FlatGeobufFile open(FileChannel channel) throws IOException {
+    try {
+      return new FlatGeobufFile(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public int getFeatureCount() {
+    return tree != null ? tree.itemCount : 0;
+  }
+
+  /**
+   * Returns the features intersecting the box, in file order.
+   *
+   * @param west    may be greater than {@code east} for a box across the antimeridian
+   * @param minSize size in Web Mercator world units below which lines and polygons are left out
+   * @param limit   number of features after which the search stops
+   */
+  public GeojsonData query(double west, double south, double east, double north, double minSize,
+                           int limit) throws IOException {
+    final Results results = new Results(limit);
+    if (tree != null) {
+      if (west <= east) {
+        search(west, south, east, north, minSize, results);
+      } else {
+        search(west, south, 180, north, minSize, results);
+        search(-180, south, east, north, minSize, results);
+      }
+    }
+
+    long[] keys = results.sortedKeys();
+    GeojsonBuilder builder = new GeojsonBuilder(keys.length * 8, keys.length);
+    int previous = -1;
+    for (long key : keys) {
+      int item = (int) (key >>> 32);
+      // a feature found on both sides of the antimeridian
+      if (item == previous) continue;
+      previous = item;
+      long offset = results.offsets[(int) key];
+      GeojsonData feature = cache.get(offset);
+      if (feature == null) {
+        feature = readFeature(offset, item);
+        cache.put(offset, feature);
+      }
+      builder.addData(feature);
+    }
+    return builder.build(true);
+  }
+
+  private void search(double west, double south, double east, double north, double minSize,
+                      final Results results) throws IOException {
+    double minX, minY, maxX, maxY, minWidth, minHeight;
+    if (mercator) {
+      minX = (GeojsonData.mercatorX(west) - 0.5) * EARTH_CIRCUMFERENCE;
+      maxX = (GeojsonData.mercatorX(east) - 0.5) * EARTH_CIRCUMFERENCE;
+      minY = (0.5 - GeojsonData.mercatorY(south)) * EARTH_CIRCUMFERENCE;
+      maxY = (0.5 - GeojsonData.mercatorY(north)) * EARTH_CIRCUMFERENCE;
+      minWidth = minSize * EARTH_CIRCUMFERENCE;
+      minHeight = minWidth;
+    } else {
+      minX = west;
+      maxX = east;
+      minY = south;
+      maxY = north;
+      minWidth = minSize * 360;
+      // a world unit spans the fewest degrees of latitude farthest from the equator
+      double latitude = Math.min(85.05112878, Math.max(Math.abs(south), Math.abs(north)));
+      minHeight = minWidth * Math.cos(Math.toRadians(latitude));
+    }
+    boolean pruneSmall = geometryType == LINE_STRING || geometryType == POLYGON
+        || geometryType == MULTI_LINE_STRING || geometryType == MULTI_POLYGON;
+    tree.search(nodeReader, minX, minY, maxX, maxY, minWidth, minHeight, pruneSmall,
+        new PackedRTree.Visitor() {
+          @Override
+          public boolean visit(int leaf, long offset) {
+            return results.add(leafItems != null ? leafItems[leaf] : leaf, offset);
+          }
+        });
+  }
+
+  private final PackedRTree.NodeReader nodeReader = new PackedRTree.NodeReader() {
+    @Override
+    public ByteBuffer read(int first, int count) throws IOException {
+      if (indexNodes != null) {
+        ByteBuffer nodes = indexNodes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        nodes.position(first * PackedRTree.NODE_BYTES);
+        return nodes;
+      }
+      return readAt(indexStart + (long) first * PackedRTree.NODE_BYTES, count * PackedRTree.NODE_BYTES);
+    }
+  };
+
+  /**
+   * Found features: the item and offset of each, in the order found.
+   */
+  private static final class Results {
+    final int limit;
+    int size = 0;
+    int[] items = new int[256];
+    long[] offsets = new long[256];
+
+    Results(int limit) {
+      this.limit = limit;
+    }
+
+    boolean add(int item, long offset) {
+      if (size >= limit) return false;
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+        offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      items[size] = item;
+      offsets[size] = offset;
+      size++;
+      return size < limit;
+    }
+
+    /**
+     * The item of each result in the high half and its position in the low half, sorted, i.e.
+     * in file order.
+     */
+    long[] sortedKeys() {
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = (long) items[i] << 32 | i;
+      }
+      Arrays.sort(keys);
+      return keys;
+    }
+  }
+
+  // Features
+
+  private ByteBuffer featureAt(long offset) throws IOException {
+    long position = featuresStart + offset;
+    int size = readAt(position, 4).getInt(0);
+    return readAt(position + 4, size);
+  }
+
+  private GeojsonData readFeature(long offset, int item) throws IOException {
+    ByteBuffer buffer = featureAt(offset);
+    int table = buffer.getInt(0);
+    GeojsonBuilder builder = new GeojsonBuilder(64, 1);
+    int feature = builder.addFeature();
+    builder.setId(feature, Integer.toString(item));
+
+    int field = field(buffer, table, 1);
+    if (field != 0) {
+      String[] names = columnNames;
+      int[] types = columnTypes;
+      int columns = field(buffer, table, 2);
+      if (columns != 0) {
+        // columns of this feature only
+        int vector = indirect(buffer, columns);
+        int count = buffer.getInt(vector);
+        names = new String[count];
+        types = new int[count];
+        for (int i = 0; i < count; i++) {
+          int column = indirect(buffer, vector + 4 + i * 4);
+          int name = field(buffer, column, 0);
+          names[i] = name != 0 ? string(buffer, name) : "";
+          int type = field(buffer, column, 1);
+          types[i] = type != 0 ? buffer.get(type) & 0xff : BYTE;
+        }
+      }
+      builder.setProperties(feature, readProperties(buffer, indirect(buffer, field), names, types));
+    }
+
+    field = field(buffer, table, 0);
+    if (field != 0) {
+      readGeometry(builder, feature, buffer, indirect(buffer, field), geometryType);
+    }
+    return builder.build(false);
+  }
+
+  private void readGeometry(GeojsonBuilder builder, int feature, ByteBuffer buffer, int geometry,
+                            int type) {
+    if (type == UNKNOWN) {
+      int field = field(buffer, geometry, 6);
+      type = field != 0 ? buffer.get(field) & 0xff : UNKNOWN;
+    }
+    int firstRing = builder.getRingCount();
+    byte kind;
+    switch (type) {
+      case POINT:
+      case MULTI_POINT:
+        kind = GeojsonData.POINT;
+        readRings(builder, buffer, geometry);
+        break;
+      case LINE_STRING:
+      case MULTI_LINE_STRING:
+        kind = GeojsonData.LINE;
+        readRings(builder, buffer, geometry);
+        break;
+      case POLYGON:
+        kind = GeojsonData.POLYGON;
+        readRings(builder, buffer, geometry);
+        break;
+      case MULTI_POLYGON:
+        // all rings of all polygons make one shape, as in GeojsonParser
+        kind = GeojsonData.POLYGON;
+        int parts = field(buffer, geometry, 7);
+        if (parts == 0) break;
+        int vector = indirect(buffer, parts);
+        for (int i = 0; i < buffer.getInt(vector); i++) {
+          readRings(builder, buffer, indirect(buffer, vector + 4 + i * 4));
+        }
+        break;
+      case GEOMETRY_COLLECTION:
+        parts = field(buffer, geometry, 7);
+        if (parts == 0) return;
+        vector = indirect(buffer, parts);
+        for (int i = 0; i < buffer.getInt(vector); i++) {
+          readGeometry(builder, feature, buffer, indirect(buffer, vector + 4 + i * 4), UNKNOWN);
+        }
+        return;
+      default:
+        // curves and surfaces are not drawn
+        return;
+    }
+    if (builder.getRingCount() > firstRing) {
+      builder.addShape(kind, feature, firstRing, builder.getRingCount());
+    }
+  }
+
+  /**
+   * Reads the coordinates of a geometry as rings split at its {@code ends}.
+   */
+  private void readRings(GeojsonBuilder builder, ByteBuffer buffer, int geometry) {
+    int xyField = field(buffer, geometry, 1);
+    if (xyField == 0) return;
+    int xy = indirect(buffer, xyField);
+    int count = buffer.getInt(xy) / 2;
+    int endsField = field(buffer, geometry, 0);
+    int ends = endsField != 0 ? indirect(buffer, endsField) : 0;
+    int ringCount = ends != 0 ? buffer.getInt(ends) : 1;
+    int point = 0;
+    for (int ring = 0; ring < ringCount; ring++) {
+      int end = ends != 0 ? Math.min(count, buffer.getInt(ends + 4 + ring * 4)) : count;
+      for (; point < end; point++) {
+        double x = buffer.getDouble(xy + 4 + point * 16);
+        double y = buffer.getDouble(xy + 12 + point * 16);
+        if (mercator) {
+          builder.addPoint(x / EARTH_CIRCUMFERENCE + 0.5, 0.5 - y / EARTH_CIRCUMFERENCE);
+        } else {
+          builder.addPosition(x, y);
+        }
+      }
+      builder.closeRing();
+    }
+  }
+
+  /**
+   * Reads the scalar properties of a feature; JSON and binary values are left out.
+   */
+  private static Map<String, Object> readProperties(ByteBuffer buffer, int vector, String[] names,
+                                                    int[] types) {
+    Map<String, Object> result = new HashMap<>();
+    int position = vector + 4;
+    int end = position + buffer.getInt(vector);
+    while (position + 2 <= end) {
+      int column = buffer.getShort(position) & 0xffff;
+      position += 2;
+      if (column >= names.length) break;
+      String name = names[column];
+      switch (types[column]) {
+        case BYTE:
+          result.put(name, (double) buffer.get(position));
+          position += 1;
+          break;
+        case UBYTE:
+          result.put(name, (double) (buffer.get(position) & 0xff));
+          position += 1;
+          break;
+        case BOOL:
+          result.put(name, buffer.get(position) != 0);
+          position += 1;
+          break;
+        case SHORT:
+          result.put(name, (double) buffer.getShort(position));
+          position += 2;
+          break;
+        case USHORT:
+          result.put(name, (double) (buffer.getShort(position) & 0xffff));
+          position += 2;
+          break;
+        case INT:
+          result.put(name, (double) buffer.getInt(position));
+          position += 4;
+          break;
+        case UINT:
+          result.put(name, (double) (buffer.getInt(position) & 0xffffffffL));
+          position += 4;
+          break;
+        case LONG:
+        case ULONG:
+          result.put(name, (double) buffer.getLong(position));
+          position += 8;
+          break;
+        case FLOAT:
+          result.put(name, (double) buffer.getFloat(position));
+          position += 4;
+          break;
+        case DOUBLE:
+          result.put(name, buffer.getDouble(position));
+          position += 8;
+          break;
+        default:
+          int length = buffer.getInt(position);
+          position += 4;
+          if (types[column] == STRING || types[column] == DATE_TIME) {
+            result.put(name, new String(bytes(buffer, position, length), UTF_8));
+          }
+          position += length;
+      }
+    }
+    return result;
+  }
+
+  // Index built in memory
+
+  private static final class IndexBuilder {
+    PackedRTree tree;
+    ByteBuffer nodes;
+    int[] leafItems;
+  }
+
+  /**
+   * Reads the bounds of every feature of a file without an index and builds one.
+   */
+  private IndexBuilder scan() throws IOException {
+    int count = 0;
+    double[] bounds = new double[1024 * 4];
+    long[] offsets = new long[1024];
+    long size = channel.size();
+    long offset = 0;
+    while (featuresStart + offset + 4 <= size) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        bounds = Arrays.copyOf(bounds, count * 2 * 4);
+      }
+      ByteBuffer buffer = featureAt(offset);
+      bounds[count * 4] = Double.POSITIVE_INFINITY;
+      bounds[count * 4 + 1] = Double.POSITIVE_INFINITY;
+      bounds[count * 4 + 2] = Double.NEGATIVE_INFINITY;
+      bounds[count * 4 + 3] = Double.NEGATIVE_INFINITY;
+      int geometry = field(buffer, buffer.getInt(0), 0);
+      if (geometry != 0) {
+        extendBounds(buffer, indirect(buffer, geometry), bounds, count * 4);
+      }
+      offsets[count++] = offset;
+      offset += 4 + buffer.limit();
+    }
+
+    IndexBuilder result = new IndexBuilder();
+    if (count == 0) return result;
+    result.tree = new PackedRTree(count, 16);
+    result.leafItems = new int[count];
+    result.nodes = result.tree.build(bounds, offsets, result.leafItems);
+    return result;
+  }
+
+  private static void extendBounds(ByteBuffer buffer, int geometry, double[] bounds, int at) {
+    int xyField = field(buffer, geometry, 1);
+    if (xyField != 0) {
+      int xy = indirect(buffer, xyField);
+      int count = buffer.getInt(xy) / 2;
+      for (int point = 0; point < count; point++) {
+        double x = buffer.getDouble(xy + 4 + point * 16);
+        double y = buffer.getDouble(xy + 12 + point * 16);
+        bounds[at] = Math.min(bounds[at], x);
+        bounds[at + 1] = Math.min(bounds[at + 1], y);
+        bounds[at + 2] = Math.max(bounds[at + 2], x);
+        bounds[at + 3] = Math.max(bounds[at + 3], y);
+      }
+    }
+    int parts = field(buffer, geometry, 7);
+    if (parts != 0) {
+      int vector = indirect(buffer, parts);
+      for (int i = 0; i < buffer.getInt(vector); i++) {
+        extendBounds(buffer, indirect(buffer, vector + 4 + i * 4), bounds, at);
+      }
+    }
+  }
+
+  // Reading
+
+  /**
+   * Returns a little endian buffer of {@code length} bytes of the file from {@code position},
+   * valid until the next read. Reads ahead, so that nearby reads, such as consecutive features,
+   * are served from memory.
+   */
+  private ByteBuffer readAt(long position, int length) throws IOException {
+    if (length > READ_AHEAD_BYTES) {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      if (read(buffer, position) < length) {
+        throw new EOFException("FlatGeobuf file ends before " + (position + length));
+      }
+      buffer.flip();
+      return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    if (position < windowStart || position + length > windowStart + windowLength) {
+      window.clear();
+      windowStart = position;
+      windowLength = read(window, position);
+      if (windowLength < length) {
+        throw new EOFException("FlatGeobuf file ends before " + (position + length));
+      }
+    }
+    ByteBuffer slice = window.duplicate();
+    slice.limit((int) (position - windowStart) + length);
+    slice.position((int) (position - windowStart));
+    return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Fills {@code buffer} from {@code position}, or up to the end of the file.
+   *
+   * @return the number of bytes read
+   */
+  private int read(ByteBuffer buffer, long position) throws IOException {
+    int start = buffer.position();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position() - start) < 0) break;
+    }
+    return buffer.position() - start;
+  }
+
+  private static ByteBuffer copyOf(ByteBuffer buffer) {
+    ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+    copy.put(buffer.duplicate());
+    copy.flip();
+    return copy.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  // FlatBuffers
+
+  /**
+   * The position of field {@code id} of the table at {@code table}, or 0 when it is not set.
+   */
+  private static int field(ByteBuffer buffer, int table, int id) {
+    int vtable = table - buffer.getInt(table);
+    int entry = 4 + id * 2;
+    if (entry >= (buffer.getShort(vtable) & 0xffff)) return 0;
+    int offset = buffer.getShort(vtable + entry) & 0xffff;
+    return offset != 0 ? table + offset : 0;
+  }
+
+  /**
+   * The position referred to by the offset stored at {@code position}.
+   */
+  private static int indirect(ByteBuffer buffer, int position) {
+    return position + buffer.getInt(position);
+  }
+
+  private static String string(ByteBuffer buffer, int field) {
+    int string = indirect(buffer, field);
+    return new String(bytes(buffer, string + 4, buffer.getInt(string)), UTF_8);
+  }
+
+  private static byte[] bytes(ByteBuffer buffer, int position, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer source = buffer.duplicate();
+    source.position(position);
+    source.get(bytes);
+    return bytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    cache.evictAll();
+    channel.close();
+  }
+}
@@ -0,0 +1,190 @@
+package com.osmdroid.geojson;
+
+import com.osmdroid.utils.FeatureIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable flat arrays a {@link GeojsonData} is built from: features, then points closed into
+ * rings, then rings grouped into shapes.
+ */
+final class GeojsonBuilder {
+
+  private int pointCount = 0;
+  private double[] points;
+  // first point of the ring being read
+  private int openRing = 0;
+  private int ringCount = 0;
+  private int[] ringStarts;
+
+  private int shapeCount = 0;
+  private byte[] shapeKinds;
+  private int[] shapeFeatures;
+  private int[] firstRings;
+  private int[] endRings;
+  private double[] shapeBounds;
+
+  private final List<String> ids = new ArrayList<>();
+  private final List<Map<String, Object>> properties = new ArrayList<>();
+
+  GeojsonBuilder() {
+    this(512, 64);
+  }
+
+  /**
+   * @param pointCapacity points to allocate room for, grown as needed
+   * @param shapeCapacity rings and shapes to allocate room for, grown as needed
+   */
+  GeojsonBuilder(int pointCapacity, int shapeCapacity) {
+    int shapes = Math.max(shapeCapacity, 1);
+    points = new double[Math.max(pointCapacity, 1) * 2];
+    ringStarts = new int[shapes + 1];
+    shapeKinds = new byte[shapes];
+    shapeFeatures = new int[shapes];
+    firstRings = new int[shapes];
+    endRings = new int[shapes];
+    shapeBounds = new double[shapes * 4];
+  }
+
+  int addFeature() {
+    ids.add(null);
+    properties.add(null);
+    return properties.size() - 1;
+  }
+
+  void setId(int feature, String id) {
+    ids.set(feature, id);
+  }
+
+  void setProperties(int feature, Map<String, Object> featureProperties) {
+    properties.set(feature, featureProperties);
+  }
+
+  /**
+   * Drops the last feature added, which must not have any shapes.
+   */
+  void removeLastFeature() {
+    ids.remove(ids.size() - 1);
+    properties.remove(properties.size() - 1);
+  }
+
+  int getShapeCount() {
+    return shapeCount;
+  }
+
+  int getRingCount() {
+    return ringCount;
+  }
+
+  void addPosition(double longitude, double latitude) {
+    addPoint(GeojsonData.mercatorX(longitude), GeojsonData.mercatorY(latitude));
+  }
+
+  /**
+   * Adds a point given in Web Mercator world units.
+   */
+  void addPoint(double x, double y) {
+    ensurePoints(1);
+    points[pointCount * 2] = x;
+    points[pointCount * 2 + 1] = y;
+    pointCount++;
+  }
+
+  private void ensurePoints(int count) {
+    if ((pointCount + count) * 2 > points.length) {
+      points = Arrays.copyOf(points, Math.max(points.length * 2, (pointCount + count) * 2));
+    }
+  }
+
+  /**
+   * Closes the points added since the last ring into a ring, unless there are none.
+   */
+  void closeRing() {
+    if (pointCount == openRing) return;
+    if (ringCount + 1 >= ringStarts.length) {
+      ringStarts = Arrays.copyOf(ringStarts, ringStarts.length * 2);
+    }
+    ringStarts[ringCount++] = openRing;
+    ringStarts[ringCount] = pointCount;
+    openRing = pointCount;
+  }
+
+  void addShape(byte kind, int feature, int firstRing, int endRing) {
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for (int i = ringStarts[firstRing]; i < ringStarts[endRing]; i++) {
+      minX = Math.min(minX, points[i * 2]);
+      maxX = Math.max(maxX, points[i * 2]);
+      minY = Math.min(minY, points[i * 2 + 1]);
+      maxY = Math.max(maxY, points[i * 2 + 1]);
+    }
+    addShape(kind, feature, firstRing, endRing, minX, minY, maxX, maxY);
+  }
+
+  private void addShape(byte kind, int feature, int firstRing, int endRing,
+                        double minX, double minY, double maxX, double maxY) {
+    if (shapeCount == shapeKinds.length) {
+      int capacity = shapeKinds.length * 2;
+      shapeKinds = Arrays.copyOf(shapeKinds, capacity);
+      shapeFeatures = Arrays.copyOf(shapeFeatures, capacity);
+      firstRings = Arrays.copyOf(firstRings, capacity);
+      endRings = Arrays.copyOf(endRings, capacity);
+      shapeBounds = Arrays.copyOf(shapeBounds, capacity * 4);
+    }
+    int shape = shapeCount++;
+    shapeKinds[shape] = kind;
+    shapeFeatures[shape] = feature;
+    firstRings[shape] = firstRing;
+    endRings[shape] = endRing;
+    shapeBounds[shape * 4] = minX;
+    shapeBounds[shape * 4 + 1] = minY;
+    shapeBounds[shape * 4 + 2] = maxX;
+    shapeBounds[shape * 4 + 3] = maxY;
+  }
+
+  /**
+   * Copies every feature of {@code data}, with its shapes, after the ones added so far.
+   */
+  void addData(GeojsonData data) {
+    int featureOffset = properties.size();
+    for (int feature = 0; feature < data.getFeatureCount(); feature++) {
+      ids.add(data.getId(feature));
+      properties.add(data.getProperties(feature));
+    }
+    for (int shape = 0; shape < data.shapeCount; shape++) {
+      int firstRing = ringCount;
+      for (int ring = data.firstRings[shape]; ring < data.endRings[shape]; ring++) {
+        int count = data.ringStarts[ring + 1] - data.ringStarts[ring];
+        ensurePoints(count);
+        System.arraycopy(data.points, data.ringStarts[ring] * 2, points, pointCount * 2, count * 2);
+        pointCount += count;
+        closeRing();
+      }
+      addShape(data.shapeKinds[shape], featureOffset + data.shapeFeatures[shape], firstRing, ringCount,
+          data.shapeBounds[shape * 4], data.shapeBounds[shape * 4 + 1],
+          data.shapeBounds[shape * 4 + 2], data.shapeBounds[shape * 4 + 3]);
+    }
+  }
+
+  /**
+   * @param indexed whether to build the spatial index of the shapes, which drawing and taps need
+   */
+  GeojsonData build(boolean indexed) {
+    FeatureIndex<Integer> index = null;
+    if (indexed) {
+      index = new FeatureIndex<>();
+      for (int shape = 0; shape < shapeCount; shape++) {
+        index.put(shape, shapeBounds[shape * 4], shapeBounds[shape * 4 + 1],
+            shapeBounds[shape * 4 + 2], shapeBounds[shape * 4 + 3]);
+      }
+    }
+    return new GeojsonData(shapeCount, Arrays.copyOf(shapeKinds, shapeCount),
+        Arrays.copyOf(shapeFeatures, shapeCount), Arrays.copyOf(firstRings, shapeCount),
+        Arrays.copyOf(endRings, shapeCount),
+        Arrays.copyOf(shapeBounds, shapeCount * 4), Arrays.copyOf(ringStarts, ringCount + 1),
+        Arrays.copyOf(points, pointCount * 2), index, ids, properties);
+  }
+}
@@ -0,0 +1,89 @@
+package com.osmdroid.geojson;
+
+import com.osmdroid.utils.FeatureIndex;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Features of a GeoJSON document, or of the part of a FlatGeobuf file in view, as flat arrays.
+ *
+ * Geometry is stored as shapes: a point, line or polygon shape made of one or more rings of
+ * points. Multi-geometries become a single shape with one ring per part (a polygon's holes are
+ * rings of the same shape, filled even-odd), and each member of a geometry collection a shape of
+ * its own. Points are kept in Web Mercator world units (the whole map being 1 x 1), so drawing
+ * only scales and offsets them, and shapes are indexed by their bounds in the same units.
+ *
+ * Built by {@link GeojsonParser} or {@link FlatGeobufFile} off the UI thread; immutable afterwards.
+ */
+public final class GeojsonData {
+
+  public static final byte POINT = 0;
+  public static final byte LINE = 1;
+  public static final byte POLYGON = 2;
+
+  final int shapeCount;
+  final byte[] shapeKinds;
+  final int[] shapeFeatures;
+  // rings of shape i are firstRings[i] until endRings[i]
+  final int[] firstRings;
+  final int[] endRings;
+  // minX, minY, maxX, maxY per shape
+  final double[] shapeBounds;
+  // points of ring i are ringStarts[i] until ringStarts[i + 1]
+  final int[] ringStarts;
+  // x, y per point
+  final double[] points;
+  // null for the single features cached by FlatGeobufFile, which are never drawn on their own
+  final FeatureIndex<Integer> index;
+
+  private final List<String> ids;
+  private final List<Map<String, Object>> properties;
+
+  GeojsonData(int shapeCount, byte[] shapeKinds, int[] shapeFeatures, int[] firstRings,
+              int[] endRings, double[] shapeBounds, int[] ringStarts, double[] points,
+              FeatureIndex<Integer> index, List<String> ids, List<Map<String, Object>> properties) {
+    this.shapeCount = shapeCount;
+    this.shapeKinds = shapeKinds;
+    this.shapeFeatures = shapeFeatures;
+    this.firstRings = firstRings;
+    this.endRings = endRings;
+    this.shapeBounds = shapeBounds;
+    this.ringStarts = ringStarts;
+    this.points = points;
+    this.index = index;
+    this.ids = ids;
+    this.properties = properties;
+  }
+
+  public int getFeatureCount() {
+    return properties.size();
+  }
+
+  public int getShapeCount() {
+    return shapeCount;
+  }
+
+  /**
+   * The feature's {@code id} member as a string, or null.
+   */
+  public String getId(int feature) {
+    return ids.get(feature);
+  }
+
+  /**
+   * The feature's scalar properties; nested objects and arrays are left out.
+   */
+  public Map<String, Object> getProperties(int feature) {
+    return properties.get(feature);
+  }
+
+  static double mercatorX(double longitude) {
+    return (longitude + 180) / 360;
+  }
+
+  static double mercatorY(double latitude) {
+    double sin = Math.sin(Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, latitude))));
+    return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+  }
+}
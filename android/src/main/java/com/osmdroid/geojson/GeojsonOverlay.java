@@ -0,0 +1,317 @@
+package com.osmdroid.geojson;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Point;
+import android.view.MotionEvent;
+
+import org.osmdroid.util.PointL;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws every shape of a {@link GeojsonData} from one overlay.
+ *
+ * Each frame only the shapes whose bounds meet the circle around the screen are looked up in the
+ * data's index and drawn, in document order. Shapes smaller than a pixel are skipped, and points
+ * closer than a pixel to the last one drawn are left out of lines and polygons. Taps are tested
+ * against the shapes near the finger at full precision.
+ */
+public class GeojsonOverlay extends Overlay {
+
+  public interface OnFeaturePressListener {
+    void onFeaturePress(int feature, int x, int y);
+  }
+
+  private static final float POINT_RADIUS = 5;
+  private static final float TAP_TOLERANCE = 8;
+
+  private final float density;
+  private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint pointPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Path path = new Path();
+  private OnFeaturePressListener onFeaturePressListener;
+
+  private GeojsonData data;
+  private GeojsonStyle style;
+
+  private final List<Integer> candidates = new ArrayList<>();
+  private int[] visibleShapes = new int[0];
+  private final PointL projectedOrigin = new PointL();
+  private final PointL pixelOrigin = new PointL();
+  private final Point tapPixel = new Point();
+  // pixel position of the Mercator origin, and the size of the world in pixels, at the last draw or tap
+  private double originX;
+  private double originY;
+  private double worldSize;
+
+  public GeojsonOverlay(float density) {
+    this.density = density;
+    fillPaint.setStyle(Paint.Style.FILL);
+    strokePaint.setStyle(Paint.Style.STROKE);
+    strokePaint.setStrokeJoin(Paint.Join.ROUND);
+    strokePaint.setStrokeCap(Paint.Cap.ROUND);
+    pointPaint.setStyle(Paint.Style.FILL);
+    path.setFillType(Path.FillType.EVEN_ODD);
+  }
+
+  public void setOnFeaturePressListener(OnFeaturePressListener listener) {
+    this.onFeaturePressListener = listener;
+  }
+
+  /**
+   * Draws {@code data} in {@code style}, which must have been built for it. Null clears the layer.
+   */
+  public void setData(GeojsonData data, GeojsonStyle style) {
+    this.data = data;
+    this.style = style;
+  }
+
+  public GeojsonData getData() {
+    return data;
+  }
+
+  @Override
+  public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+    GeojsonData data = this.data;
+    GeojsonStyle style = this.style;
+    if (shadow || data == null || style == null) return;
+    updateOrigin(mapView.getProjection());
+
+    // the circle around the screen holds it at any rotation; points and strokes reach past bounds
+    double padding = Math.max(POINT_RADIUS, style.maxStrokeWidth / 2) * density;
+    double radius = (Math.hypot(mapView.getWidth(), mapView.getHeight()) / 2 + padding) / worldSize;
+    double centerX = (mapView.getWidth() / 2.0 - originX) / worldSize;
+    double centerY = (mapView.getHeight() / 2.0 - originY) / worldSize;
+    boolean wrap = mapView.isHorizontalMapRepetitionEnabled();
+    int count = queryVisible(data, centerX, centerY, radius, wrap);
+
+    float pointRadius = POINT_RADIUS * density;
+    for (int i = 0; i < count; i++) {
+      int shape = visibleShapes[i];
+      int feature = data.shapeFeatures[shape];
+      double minX = data.shapeBounds[shape * 4];
+      double minY = data.shapeBounds[shape * 4 + 1];
+      double maxX = data.shapeBounds[shape * 4 + 2];
+      double maxY = data.shapeBounds[shape * 4 + 3];
+      // whole worlds to move the shape by to reach the copy of the world on screen
+      double shift = wrap ? Math.rint(centerX - (minX + maxX) / 2) : 0;
+      double offsetX = originX + shift * worldSize;
+
+      byte kind = data.shapeKinds[shape];
+      if (kind == GeojsonData.POINT) {
+        pointPaint.setColor(style.pointColors[feature]);
+        for (int point = data.ringStarts[data.firstRings[shape]];
+             point < data.ringStarts[data.endRings[shape]]; point++) {
+          canvas.drawCircle((float) (offsetX + data.points[point * 2] * worldSize),
+              (float) (originY + data.points[point * 2 + 1] * worldSize), pointRadius, pointPaint);
+        }
+        continue;
+      }
+      if ((maxX - minX) * worldSize < 1 && (maxY - minY) * worldSize < 1) {
+        continue;
+      }
+
+      buildPath(data, shape, offsetX, kind == GeojsonData.POLYGON);
+      if (kind == GeojsonData.POLYGON && (style.fillColors[feature] >>> 24) != 0) {
+        fillPaint.setColor(style.fillColors[feature]);
+        canvas.drawPath(path, fillPaint);
+      }
+      float strokeWidth = style.strokeWidths[feature] * density;
+      if (strokeWidth > 0 && (style.strokeColors[feature] >>> 24) != 0) {
+        strokePaint.setColor(style.strokeColors[feature]);
+        strokePaint.setStrokeWidth(strokeWidth);
+        canvas.drawPath(path, strokePaint);
+      }
+    }
+  }
+
+  private void buildPath(GeojsonData data, int shape, double offsetX, boolean close) {
+    path.rewind();
+    for (int ring = data.firstRings[shape]; ring < data.endRings[shape]; ring++) {
+      int start = data.ringStarts[ring];
+      int end = data.ringStarts[ring + 1];
+      float lastX = (float) (offsetX + data.points[start * 2] * worldSize);
+      float lastY = (float) (originY + data.points[start * 2 + 1] * worldSize);
+      path.moveTo(lastX, lastY);
+      for (int point = start + 1; point < end; point++) {
+        float x = (float) (offsetX + data.points[point * 2] * worldSize);
+        float y = (float) (originY + data.points[point * 2 + 1] * worldSize);
+        // the last point of a ring is always drawn
+        if (Math.abs(x - lastX) < 1 && Math.abs(y - lastY) < 1 && point < end - 1) {
+          continue;
+        }
+        path.lineTo(x, y);
+        lastX = x;
+        lastY = y;
+      }
+      if (close) {
+        path.close();
+      }
+    }
+  }
+
+  /**
+   * Collects the shapes meeting the box around the given center into {@link #visibleShapes},
+   * sorted into document order.
+   */
+  private int queryVisible(GeojsonData data, double centerX, double centerY, double radius, boolean wrap) {
+    candidates.clear();
+    double minY = centerY - radius;
+    double maxY = centerY + radius;
+    if (!wrap) {
+      data.index.query(centerX - radius, minY, centerX + radius, maxY, candidates);
+    } else if (radius >= 0.5) {
+      data.index.query(0, minY, 1, maxY, candidates);
+    } else {
+      double x = centerX - Math.floor(centerX);
+      data.index.query(x - radius, minY, x + radius, maxY, candidates);
+      // the parts of the box across the antimeridian
+      if (x - radius < 0) {
+        data.index.query(x - radius + 1, minY, 1, maxY, candidates);
+      }
+      if (x + radius > 1) {
+        data.index.query(0, minY, x + radius - 1, maxY, candidates);
+      }
+    }
+
+    if (visibleShapes.length < candidates.size()) {
+      visibleShapes = new int[Math.max(candidates.size(), visibleShapes.length * 2)];
+    }
+    for (int i = 0; i < candidates.size(); i++) {
+      visibleShapes[i] = candidates.get(i);
+    }
+    Arrays.sort(visibleShapes, 0, candidates.size());
+    int count = 0;
+    for (int i = 0; i < candidates.size(); i++) {
+      // a shape can be found on both sides of the antimeridian
+      if (count == 0 || visibleShapes[count - 1] != visibleShapes[i]) {
+        visibleShapes[count++] = visibleShapes[i];
+      }
+    }
+    return count;
+  }
+
+  private void updateOrigin(Projection projection) {
+    projectedOrigin.set(0, 0);
+    projection.getLongPixelsFromProjected(projectedOrigin, projection.getProjectedPowerDifference(),
+        false, pixelOrigin);
+    originX = pixelOrigin.x;
+    originY = pixelOrigin.y;
+    worldSize = projection.getWorldMapSize();
+  }
+
+  @Override
+  public boolean onSingleTapConfirmed(MotionEvent e, MapView mapView) {
+    GeojsonData data = this.data;
+    GeojsonStyle style = this.style;
+    if (data == null || style == null || onFeaturePressListener == null) return false;
+    Projection projection = mapView.getProjection();
+    updateOrigin(projection);
+    projection.unrotateAndScalePoint((int) e.getX(), (int) e.getY(), tapPixel);
+    double x = (tapPixel.x - originX) / worldSize;
+    double y = (tapPixel.y - originY) / worldSize;
+    if (mapView.isHorizontalMapRepetitionEnabled()) {
+      x -= Math.floor(x);
+    }
+    double tolerance = TAP_TOLERANCE * density / worldSize;
+    double reach = tolerance + Math.max(style.maxStrokeWidth / 2, POINT_RADIUS) * density / worldSize;
+
+    candidates.clear();
+    data.index.query(x - reach, y - reach, x + reach, y + reach, candidates);
+    int hit = -1;
+    for (int i = 0; i < candidates.size(); i++) {
+      int shape = candidates.get(i);
+      // the shape drawn last is on top
+      if (shape <= hit) continue;
+      int feature = data.shapeFeatures[shape];
+      double slop;
+      switch (data.shapeKinds[shape]) {
+        case GeojsonData.POINT:
+          slop = tolerance + POINT_RADIUS * density / worldSize;
+          if (nearPoints(data, shape, x, y, slop)) hit = shape;
+          break;
+        case GeojsonData.LINE:
+          slop = tolerance + style.strokeWidths[feature] / 2 * density / worldSize;
+          if (nearRings(data, shape, x, y, slop, false)) hit = shape;
+          break;
+        default:
+          slop = tolerance + style.strokeWidths[feature] / 2 * density / worldSize;
+          if (contains(data, shape, x, y) || nearRings(data, shape, x, y, slop, true)) hit = shape;
+      }
+    }
+    if (hit < 0) return false;
+    onFeaturePressListener.onFeaturePress(data.shapeFeatures[hit], (int) e.getX(), (int) e.getY());
+    return true;
+  }
+
+  private static boolean nearPoints(GeojsonData data, int shape, double x, double y, double distance) {
+    for (int point = data.ringStarts[data.firstRings[shape]];
+         point < data.ringStarts[data.endRings[shape]]; point++) {
+      double dx = data.points[point * 2] - x;
+      double dy = data.points[point * 2 + 1] - y;
+      if (dx * dx + dy * dy <= distance * distance) return true;
+    }
+    return false;
+  }
+
+  private static boolean nearRings(GeojsonData data, int shape, double x, double y, double distance,
+                                   boolean closed) {
+    for (int ring = data.firstRings[shape]; ring < data.endRings[shape]; ring++) {
+      int start = data.ringStarts[ring];
+      int end = data.ringStarts[ring + 1];
+      for (int point = start + 1; point <= end; point++) {
+        if (point == end && !closed) break;
+        int a = point - 1;
+        int b = point == end ? start : point;
+        if (segmentDistanceSquared(x, y, data.points[a * 2], data.points[a * 2 + 1],
+            data.points[b * 2], data.points[b * 2 + 1]) <= distance * distance) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Even-odd crossing test over all rings of the shape, so holes are left out.
+   */
+  private static boolean contains(GeojsonData data, int shape, double x, double y) {
+    boolean inside = false;
+    for (int ring = data.firstRings[shape]; ring < data.endRings[shape]; ring++) {
+      int start = data.ringStarts[ring];
+      int end = data.ringStarts[ring + 1];
+      for (int i = start, j = end - 1; i < end; j = i++) {
+        double yi = data.points[i * 2 + 1];
+        double yj = data.points[j * 2 + 1];
+        if ((yi > y) != (yj > y)) {
+          double xi = data.points[i * 2];
+          double xj = data.points[j * 2];
+          if (x < xi + (y - yi) / (yj - yi) * (xj - xi)) {
+            inside = !inside;
+          }
+        }
+      }
+    }
+    return inside;
+  }
+
+  private static double segmentDistanceSquared(double px, double py,
+                                               double ax, double ay, double bx, double by) {
+    double dx = bx - ax;
+    double dy = by - ay;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+    double ex = px - (ax + t * dx);
+    double ey = py - (ay + t * dy);
+    return ex * ex + ey * ey;
+  }
+}
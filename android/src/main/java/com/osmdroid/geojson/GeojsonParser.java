@@ -0,0 +1,204 @@
+package com.osmdroid.geojson;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming GeoJSON parser.
+ *
+ * Reads a FeatureCollection, a Feature or a bare geometry token by token, writing coordinates
+ * straight into the flat arrays of a {@link GeojsonData}, so that no object tree of the document
+ * is ever built. Members may come in any order: coordinates read before the {@code type} of their
+ * geometry only become a shape once the geometry object ends. Run off the UI thread.
+ */
+public final class GeojsonParser {
+
+  private final GeojsonBuilder builder = new GeojsonBuilder();
+  // property names repeat in every feature: keep one copy of each
+  private final Map<String, String> names = new HashMap<>();
+
+  private GeojsonParser() {
+  }
+
+  /**
+   * @throws IOException when reading fails or the input is not JSON
+   * @throws IllegalStateException when the JSON does not have the structure of GeoJSON
+   */
+  public static GeojsonData parse(Reader input) throws IOException {
+    GeojsonParser parser = new GeojsonParser();
+    JsonReader reader = new JsonReader(input);
+    try {
+      parser.readObject(reader, -1);
+    } finally {
+      reader.close();
+    }
+    return parser.builder.build(true);
+  }
+
+  /**
+   * Reads a FeatureCollection, Feature or geometry object.
+   *
+   * @param feature the feature geometries found in the object belong to, or -1 at the top level,
+   *                where one is created when the object turns out to be a feature or geometry
+   */
+  private void readObject(JsonReader reader, int feature) throws IOException {
+    String type = null;
+    int coordinatesStart = -1;
+    int coordinatesEnd = -1;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        continue;
+      }
+      switch (name) {
+        case "type":
+          type = reader.nextString();
+          break;
+
+        case "features":
+          reader.beginArray();
+          while (reader.hasNext()) {
+            int shapesBefore = builder.getShapeCount();
+            int member = builder.addFeature();
+            readObject(reader, member);
+            if (builder.getShapeCount() == shapesBefore) {
+              // nothing to draw
+              builder.removeLastFeature();
+            }
+          }
+          reader.endArray();
+          break;
+
+        case "geometry":
+          if (feature < 0) feature = builder.addFeature();
+          readObject(reader, feature);
+          break;
+
+        case "geometries":
+          if (feature < 0) feature = builder.addFeature();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            readObject(reader, feature);
+          }
+          reader.endArray();
+          break;
+
+        case "coordinates":
+          if (feature < 0) feature = builder.addFeature();
+          coordinatesStart = builder.getRingCount();
+          if (readCoordinates(reader)) {
+            // a single position
+            builder.closeRing();
+          }
+          coordinatesEnd = builder.getRingCount();
+          break;
+
+        case "properties":
+          if (feature < 0) feature = builder.addFeature();
+          builder.setProperties(feature, readProperties(reader));
+          break;
+
+        case "id":
+          if (feature < 0) feature = builder.addFeature();
+          if (reader.peek() == JsonToken.STRING || reader.peek() == JsonToken.NUMBER) {
+            builder.setId(feature, reader.nextString());
+          } else {
+            reader.skipValue();
+          }
+          break;
+
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    byte kind = kindOf(type);
+    if (kind >= 0 && coordinatesEnd > coordinatesStart) {
+      builder.addShape(kind, feature, coordinatesStart, coordinatesEnd);
+    }
+    // coordinates of an unknown geometry type stay unused
+  }
+
+  /**
+   * Reads a coordinates array of any depth, closing a ring after each array of positions.
+   *
+   * @return whether the array was a single position
+   */
+  private boolean readCoordinates(JsonReader reader) throws IOException {
+    reader.beginArray();
+    if (reader.peek() == JsonToken.NUMBER) {
+      double longitude = reader.nextDouble();
+      double latitude = reader.nextDouble();
+      while (reader.hasNext()) {
+        // altitude
+        reader.skipValue();
+      }
+      reader.endArray();
+      builder.addPosition(longitude, latitude);
+      return true;
+    }
+    boolean positions = false;
+    while (reader.hasNext()) {
+      positions |= readCoordinates(reader);
+    }
+    reader.endArray();
+    if (positions) {
+      builder.closeRing();
+    }
+    return false;
+  }
+
+  private Map<String, Object> readProperties(JsonReader reader) throws IOException {
+    Map<String, Object> result = new HashMap<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      String shared = names.get(name);
+      if (shared == null) {
+        names.put(name, name);
+        shared = name;
+      }
+      switch (reader.peek()) {
+        case STRING:
+          result.put(shared, reader.nextString());
+          break;
+        case NUMBER:
+          result.put(shared, reader.nextDouble());
+          break;
+        case BOOLEAN:
+          result.put(shared, reader.nextBoolean());
+          break;
+        default:
+          // nulls, objects and arrays are not used for styling
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return result;
+  }
+
+  private static byte kindOf(String type) {
+    if (type == null) return -1;
+    switch (type) {
+      case "Point":
+      case "MultiPoint":
+        return GeojsonData.POINT;
+      case "LineString":
+      case "MultiLineString":
+        return GeojsonData.LINE;
+      case "Polygon":
+      case "MultiPolygon":
+        return GeojsonData.POLYGON;
+      default:
+        return -1;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.osmdroid.geojson;
+
+import java.util.Map;
+
+/**
+ * Colors and stroke width of every feature of a {@link GeojsonData}, evaluated once from the
+ * layer's style expressions so that drawing only looks them up.
+ *
+ * A style left unset falls back to the feature's simplestyle properties ({@code stroke},
+ * {@code stroke-opacity}, {@code stroke-width}, {@code fill}, {@code fill-opacity},
+ * {@code marker-color}), as the JS {@code Geojson} component does.
+ */
+public final class GeojsonStyle {
+
+  private static final int DEFAULT_STROKE_COLOR = 0xff000000;
+  private static final int DEFAULT_FILL_COLOR = 0x00000000;
+  private static final int DEFAULT_POINT_COLOR = 0xffff0000;
+  private static final double DEFAULT_STROKE_WIDTH = 1;
+
+  final int[] strokeColors;
+  final int[] fillColors;
+  final int[] pointColors;
+  // dp
+  final float[] strokeWidths;
+  final float maxStrokeWidth;
+
+  private GeojsonStyle(int[] strokeColors, int[] fillColors, int[] pointColors, float[] strokeWidths,
+                       float maxStrokeWidth) {
+    this.strokeColors = strokeColors;
+    this.fillColors = fillColors;
+    this.pointColors = pointColors;
+    this.strokeWidths = strokeWidths;
+    this.maxStrokeWidth = maxStrokeWidth;
+  }
+
+  /**
+   * Evaluates the styles for every feature. Any expression may be null. Run off the UI thread.
+   */
+  public static GeojsonStyle build(GeojsonData data, StyleExpression strokeColor,
+                                   StyleExpression fillColor, StyleExpression strokeWidth,
+                                   StyleExpression pointColor) {
+    int count = data.getFeatureCount();
+    int[] strokeColors = new int[count];
+    int[] fillColors = new int[count];
+    int[] pointColors = new int[count];
+    float[] strokeWidths = new float[count];
+    float maxStrokeWidth = 0;
+    for (int feature = 0; feature < count; feature++) {
+      Map<String, Object> properties = data.getProperties(feature);
+      strokeColors[feature] = strokeColor != null
+          ? strokeColor.evaluateColor(properties, DEFAULT_STROKE_COLOR)
+          : simplestyleColor(properties, "stroke", DEFAULT_STROKE_COLOR);
+      fillColors[feature] = fillColor != null
+          ? fillColor.evaluateColor(properties, DEFAULT_FILL_COLOR)
+          : simplestyleColor(properties, "fill", DEFAULT_FILL_COLOR);
+      pointColors[feature] = pointColor != null
+          ? pointColor.evaluateColor(properties, DEFAULT_POINT_COLOR)
+          : simplestyleColor(properties, "marker-color", DEFAULT_POINT_COLOR);
+      double width = strokeWidth != null
+          ? strokeWidth.evaluateNumber(properties, DEFAULT_STROKE_WIDTH)
+          : simplestyleNumber(properties, "stroke-width", DEFAULT_STROKE_WIDTH);
+      strokeWidths[feature] = (float) Math.max(0, width);
+      maxStrokeWidth = Math.max(maxStrokeWidth, strokeWidths[feature]);
+    }
+    return new GeojsonStyle(strokeColors, fillColors, pointColors, strokeWidths, maxStrokeWidth);
+  }
+
+  private static int simplestyleColor(Map<String, Object> properties, String name, int fallback) {
+    if (properties == null) return fallback;
+    Integer color = StyleExpression.toColor(properties.get(name));
+    if (color == null) return fallback;
+    Object opacity = properties.get(name + "-opacity");
+    if (opacity instanceof Number) {
+      int alpha = (int) Math.round(Math.max(0, Math.min(1, ((Number) opacity).doubleValue())) * 255);
+      color = (color & 0x00ffffff) | alpha << 24;
+    }
+    return color;
+  }
+
+  private static double simplestyleNumber(Map<String, Object> properties, String name, double fallback) {
+    Object value = properties != null ? properties.get(name) : null;
+    return value instanceof Number ? ((Number) value).doubleValue() : fallback;
+  }
+}
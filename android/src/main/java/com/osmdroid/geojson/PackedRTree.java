@@ -0,0 +1,225 @@
+package com.osmdroid.geojson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static R-tree packed into one array of nodes, in the layout of the FlatGeobuf index.
+ *
+ * Each node is {@link #NODE_BYTES} bytes, little endian: minX, minY, maxX, maxY as doubles and a
+ * 64 bit offset. The root comes first and the leaves, one per item, last. The offset of a leaf is
+ * the byte offset of its item in the feature section of the file; the offset of any other node is
+ * the index of its first child. Every node but the last of a level has {@code nodeSize} children.
+ */
+final class PackedRTree {
+
+  static final int NODE_BYTES = 40;
+
+  /**
+   * Reads nodes of the tree, from a file or from memory.
+   */
+  interface NodeReader {
+    /**
+     * @return a little endian buffer holding nodes {@code first} until {@code first + count},
+     * with node {@code first} at its position
+     */
+    ByteBuffer read(int first, int count) throws IOException;
+  }
+
+  /**
+   * Receives the leaves found by a search, in leaf order.
+   */
+  interface Visitor {
+    /**
+     * @return false to end the search
+     */
+    boolean visit(int leaf, long offset);
+  }
+
+  final int itemCount;
+  final int nodeSize;
+  final int nodeCount;
+  // nodes of level i are levelStarts[i] until levelEnds[i], the leaves being level 0
+  private final int[] levelStarts;
+  private final int[] levelEnds;
+
+  PackedRTree(long itemCount, int nodeSize) {
+    if (nodeSize < 2) {
+      throw new IllegalArgumentException("Node size must be at least 2: " + nodeSize);
+    }
+    if (itemCount <= 0 || itemCount > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("Unsupported item count: " + itemCount);
+    }
+    this.itemCount = (int) itemCount;
+    this.nodeSize = nodeSize;
+    List<Integer> levelSizes = new ArrayList<>();
+    int n = this.itemCount;
+    int count = n;
+    levelSizes.add(n);
+    // as in the reference implementation, a single item still gets a root above its leaf
+    do {
+      n = (n + nodeSize - 1) / nodeSize;
+      count += n;
+      levelSizes.add(n);
+    } while (n != 1);
+    nodeCount = count;
+    levelStarts = new int[levelSizes.size()];
+    levelEnds = new int[levelSizes.size()];
+    int end = nodeCount;
+    for (int level = 0; level < levelSizes.size(); level++) {
+      levelStarts[level] = end - levelSizes.get(level);
+      levelEnds[level] = end;
+      end = levelStarts[level];
+    }
+  }
+
+  long sizeInBytes() {
+    return (long) nodeCount * NODE_BYTES;
+  }
+
+  /**
+   * Visits the leaves whose box intersects the query box.
+   *
+   * Leaves smaller than {@code minWidth} by {@code minHeight} are left out, except for boxes
+   * without any extent, i.e. points. With {@code pruneSmall} inner nodes that small are left out
+   * as a whole, which is only right when no item is a point.
+   */
+  void search(NodeReader reader, double minX, double minY, double maxX, double maxY,
+              double minWidth, double minHeight, boolean pruneSmall, Visitor visitor) throws IOException {
+    int leafStart = levelStarts[0];
+    // depth first, children in order, so leaves are visited in leaf order
+    int[] stack = new int[levelStarts.length * nodeSize * 2];
+    int top = 0;
+    stack[top++] = 0;
+    stack[top++] = levelStarts.length - 1;
+    while (top > 0) {
+      int level = stack[--top];
+      int first = stack[--top];
+      int end = Math.min(first + nodeSize, levelEnds[level]);
+      ByteBuffer nodes = reader.read(first, end - first);
+      int base = nodes.position();
+      int childrenTop = top;
+      for (int node = first; node < end; node++) {
+        int at = base + (node - first) * NODE_BYTES;
+        double nodeMinX = nodes.getDouble(at);
+        double nodeMinY = nodes.getDouble(at + 8);
+        double nodeMaxX = nodes.getDouble(at + 16);
+        double nodeMaxY = nodes.getDouble(at + 24);
+        if (nodeMinX > maxX || nodeMaxX < minX || nodeMinY > maxY || nodeMaxY < minY) continue;
+        boolean small = nodeMaxX - nodeMinX < minWidth && nodeMaxY - nodeMinY < minHeight;
+        long offset = nodes.getLong(at + 32);
+        if (level == 0) {
+          boolean point = nodeMaxX == nodeMinX && nodeMaxY == nodeMinY;
+          if (small && !point) continue;
+          if (!visitor.visit(node - leafStart, offset)) return;
+        } else {
+          if (small && pruneSmall) continue;
+          stack[top++] = (int) offset;
+          stack[top++] = level - 1;
+        }
+      }
+      // the children were pushed in order: reverse them so the first is searched first
+      for (int i = childrenTop, j = top - 2; i < j; i += 2, j -= 2) {
+        int swapNode = stack[i];
+        int swapLevel = stack[i + 1];
+        stack[i] = stack[j];
+        stack[i + 1] = stack[j + 1];
+        stack[j] = swapNode;
+        stack[j + 1] = swapLevel;
+      }
+    }
+  }
+
+  /**
+   * Builds the nodes of a tree over items given by their boxes, sorting the leaves along a
+   * Hilbert curve through the box centers.
+   *
+   * @param bounds  minX, minY, maxX, maxY per item
+   * @param offsets offset of each item, stored in its leaf
+   * @param order   receives the item of each leaf
+   */
+  ByteBuffer build(double[] bounds, long[] offsets, int[] order) {
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < itemCount; i++) {
+      minX = Math.min(minX, bounds[i * 4]);
+      minY = Math.min(minY, bounds[i * 4 + 1]);
+      maxX = Math.max(maxX, bounds[i * 4 + 2]);
+      maxY = Math.max(maxY, bounds[i * 4 + 3]);
+    }
+    double scaleX = maxX > minX ? HILBERT_MAX / (maxX - minX) : 0;
+    double scaleY = maxY > minY ? HILBERT_MAX / (maxY - minY) : 0;
+    long[] keys = new long[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      int x = (int) ((bounds[i * 4] + bounds[i * 4 + 2]) / 2 * scaleX - minX * scaleX);
+      int y = (int) ((bounds[i * 4 + 1] + bounds[i * 4 + 3]) / 2 * scaleY - minY * scaleY);
+      keys[i] = hilbert(x, y) << 32 | i;
+    }
+    Arrays.sort(keys);
+
+    ByteBuffer nodes = ByteBuffer.allocate(nodeCount * NODE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    int leafStart = levelStarts[0];
+    for (int leaf = 0; leaf < itemCount; leaf++) {
+      int item = (int) keys[leaf];
+      order[leaf] = item;
+      int at = (leafStart + leaf) * NODE_BYTES;
+      nodes.putDouble(at, bounds[item * 4]);
+      nodes.putDouble(at + 8, bounds[item * 4 + 1]);
+      nodes.putDouble(at + 16, bounds[item * 4 + 2]);
+      nodes.putDouble(at + 24, bounds[item * 4 + 3]);
+      nodes.putLong(at + 32, offsets[item]);
+    }
+    for (int level = 1; level < levelStarts.length; level++) {
+      int child = levelStarts[level - 1];
+      for (int node = levelStarts[level]; node < levelEnds[level]; node++) {
+        int firstChild = child;
+        double nodeMinX = Double.POSITIVE_INFINITY, nodeMinY = Double.POSITIVE_INFINITY;
+        double nodeMaxX = Double.NEGATIVE_INFINITY, nodeMaxY = Double.NEGATIVE_INFINITY;
+        for (; child < Math.min(firstChild + nodeSize, levelEnds[level - 1]); child++) {
+          int at = child * NODE_BYTES;
+          nodeMinX = Math.min(nodeMinX, nodes.getDouble(at));
+          nodeMinY = Math.min(nodeMinY, nodes.getDouble(at + 8));
+          nodeMaxX = Math.max(nodeMaxX, nodes.getDouble(at + 16));
+          nodeMaxY = Math.max(nodeMaxY, nodes.getDouble(at + 24));
+        }
+        int at = node * NODE_BYTES;
+        nodes.putDouble(at, nodeMinX);
+        nodes.putDouble(at + 8, nodeMinY);
+        nodes.putDouble(at + 16, nodeMaxX);
+        nodes.putDouble(at + 24, nodeMaxY);
+        nodes.putLong(at + 32, firstChild);
+      }
+    }
+    return nodes;
+  }
+
+  private static final int HILBERT_ORDER = 15;
+  private static final int HILBERT_MAX = (1 << HILBERT_ORDER) - 1;
+
+  /**
+   * Distance along a Hilbert curve filling a {@code 2^15} by {@code 2^15} grid, which fits in 30
+   * bits so that it can be sorted together with an item index.
+   */
+  static long hilbert(int x, int y) {
+    long distance = 0;
+    for (int s = 1 << (HILBERT_ORDER - 1); s > 0; s >>= 1) {
+      int rx = (x & s) != 0 ? 1 : 0;
+      int ry = (y & s) != 0 ? 1 : 0;
+      distance += (long) s * s * ((3 * rx) ^ ry);
+      if (ry == 0) {
+        if (rx == 1) {
+          x = HILBERT_MAX - x;
+          y = HILBERT_MAX - y;
+        }
+        int swap = x;
+        x = y;
+        y = swap;
+      }
+    }
+    return distance;
+  }
+}
@@ -0,0 +1,324 @@
+package com.osmdroid.geojson;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Value of a GeoJSON layer style, computed from the properties of each feature.
+ *
+ * A small subset of the Mapbox style expression syntax, given as nested lists:
+ * <ul>
+ *   <li>a number, string or boolean is used as it is</li>
+ *   <li>{@code ["get", name]} reads a property</li>
+ *   <li>{@code ["match", input, label, output, ..., fallback]}, where a label can also be a list
+ *   of labels</li>
+ *   <li>{@code ["step", input, output, stop, output, ...]}</li>
+ *   <li>{@code ["interpolate", ["linear"], input, stop, output, ...]}, per channel for colors</li>
+ *   <li>{@code ["coalesce", value, ...]} takes the first value that is not null</li>
+ * </ul>
+ * Colors are numbers as produced by {@code processColor}, or {@code #rgb} / {@code #rrggbb}
+ * strings as found in feature properties.
+ */
+public abstract class StyleExpression {
+
+  StyleExpression() {
+  }
+
+  /**
+   * Parses an expression from numbers, strings, booleans and lists, as read from a
+   * {@code ReadableArray}.
+   *
+   * @throws IllegalArgumentException for unknown operators or a wrong number of arguments
+   */
+  public static StyleExpression parse(Object value) {
+    if (!(value instanceof List)) {
+      return new Literal(value);
+    }
+    List<?> list = (List<?>) value;
+    if (list.isEmpty() || !(list.get(0) instanceof String)) {
+      throw new IllegalArgumentException("Expected an operator in " + list);
+    }
+    String operator = (String) list.get(0);
+    switch (operator) {
+      case "get":
+        requireArguments(list, list.size() == 2);
+        return new Get(String.valueOf(list.get(1)));
+
+      case "match": {
+        requireArguments(list, list.size() >= 5 && list.size() % 2 == 1);
+        int cases = (list.size() - 3) / 2;
+        Object[][] labels = new Object[cases][];
+        StyleExpression[] outputs = new StyleExpression[cases];
+        for (int i = 0; i < cases; i++) {
+          Object label = list.get(2 + i * 2);
+          labels[i] = label instanceof List ? ((List<?>) label).toArray() : new Object[]{label};
+          outputs[i] = parse(list.get(3 + i * 2));
+        }
+        return new Match(parse(list.get(1)), labels, outputs, parse(list.get(list.size() - 1)));
+      }
+
+      case "step": {
+        requireArguments(list, list.size() >= 3 && list.size() % 2 == 1);
+        int stops = (list.size() - 3) / 2;
+        double[] inputs = new double[stops];
+        StyleExpression[] outputs = new StyleExpression[stops + 1];
+        outputs[0] = parse(list.get(2));
+        for (int i = 0; i < stops; i++) {
+          inputs[i] = toNumber(list.get(3 + i * 2));
+          outputs[i + 1] = parse(list.get(4 + i * 2));
+        }
+        return new Step(parse(list.get(1)), inputs, outputs);
+      }
+
+      case "interpolate": {
+        requireArguments(list, list.size() >= 5 && list.size() % 2 == 1);
+        Object type = list.get(1);
+        if (!(type instanceof List) || ((List<?>) type).isEmpty()
+            || !"linear".equals(((List<?>) type).get(0))) {
+          throw new IllegalArgumentException("Only linear interpolation is supported: " + list);
+        }
+        int stops = (list.size() - 3) / 2;
+        double[] inputs = new double[stops];
+        StyleExpression[] outputs = new StyleExpression[stops];
+        for (int i = 0; i < stops; i++) {
+          inputs[i] = toNumber(list.get(3 + i * 2));
+          outputs[i] = parse(list.get(4 + i * 2));
+        }
+        return new Interpolate(parse(list.get(2)), inputs, outputs);
+      }
+
+      case "coalesce": {
+        StyleExpression[] values = new StyleExpression[list.size() - 1];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = parse(list.get(i + 1));
+        }
+        return new Coalesce(values);
+      }
+
+      default:
+        throw new IllegalArgumentException("Unknown style expression operator " + operator);
+    }
+  }
+
+  public static StyleExpression literal(Object value) {
+    return new Literal(value);
+  }
+
+  /**
+   * @param color whether the value is a color, which changes how interpolation blends outputs
+   */
+  abstract Object evaluate(Map<String, Object> properties, boolean color);
+
+  public double evaluateNumber(Map<String, Object> properties, double fallback) {
+    Object value = evaluate(properties, false);
+    return value instanceof Number ? ((Number) value).doubleValue() : fallback;
+  }
+
+  public int evaluateColor(Map<String, Object> properties, int fallback) {
+    Integer color = toColor(evaluate(properties, true));
+    return color != null ? color : fallback;
+  }
+
+  /**
+   * A processed color number, or a {@code #rgb} / {@code #rrggbb} string; null for anything else.
+   */
+  static Integer toColor(Object value) {
+    if (value instanceof Number) {
+      // processColor yields unsigned 32 bit values
+      return (int) ((Number) value).longValue();
+    }
+    if (!(value instanceof String)) {
+      return null;
+    }
+    String string = ((String) value).trim();
+    if (!string.startsWith("#")) {
+      return null;
+    }
+    try {
+      if (string.length() == 7) {
+        return 0xff000000 | Integer.parseInt(string.substring(1), 16);
+      }
+      if (string.length() == 4) {
+        int rgb = Integer.parseInt(string.substring(1), 16);
+        int r = (rgb >> 8) & 0xf;
+        int g = (rgb >> 4) & 0xf;
+        int b = rgb & 0xf;
+        return 0xff000000 | (r * 0x11) << 16 | (g * 0x11) << 8 | b * 0x11;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return null;
+  }
+
+  private static void requireArguments(List<?> list, boolean valid) {
+    if (!valid) {
+      throw new IllegalArgumentException("Wrong number of arguments in " + list);
+    }
+  }
+
+  private static double toNumber(Object value) {
+    if (!(value instanceof Number)) {
+      throw new IllegalArgumentException("Expected a number, got " + value);
+    }
+    return ((Number) value).doubleValue();
+  }
+
+  private static boolean matches(Object value, Object label) {
+    if (value instanceof Number && label instanceof Number) {
+      return ((Number) value).doubleValue() == ((Number) label).doubleValue();
+    }
+    return value != null && value.equals(label);
+  }
+
+  private static final class Literal extends StyleExpression {
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> properties, boolean color) {
+      return value;
+    }
+  }
+
+  private static final class Get extends StyleExpression {
+    private final String name;
+
+    Get(String name) {
+      this.name = name;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> properties, boolean color) {
+      return properties != null ? properties.get(name) : null;
+    }
+  }
+
+  private static final class Match extends StyleExpression {
+    private final StyleExpression input;
+    private final Object[][] labels;
+    private final StyleExpression[] outputs;
+    private final StyleExpression fallback;
+
+    Match(StyleExpression input, Object[][] labels, StyleExpression[] outputs, StyleExpression fallback) {
+      this.input = input;
+      this.labels = labels;
+      this.outputs = outputs;
+      this.fallback = fallback;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> properties, boolean color) {
+      Object value = input.evaluate(properties, false);
+      for (int i = 0; i < labels.length; i++) {
+        for (Object label : labels[i]) {
+          if (matches(value, label)) {
+            return outputs[i].evaluate(properties, color);
+          }
+        }
+      }
+      return fallback.evaluate(properties, color);
+    }
+  }
+
+  private static final class Step extends StyleExpression {
+    private final StyleExpression input;
+    private final double[] inputs;
+    private final StyleExpression[] outputs;
+
+    Step(StyleExpression input, double[] inputs, StyleExpression[] outputs) {
+      this.input = input;
+      this.inputs = inputs;
+      this.outputs = outputs;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> properties, boolean color) {
+      Object value = input.evaluate(properties, false);
+      int step = 0;
+      if (value instanceof Number) {
+        double number = ((Number) value).doubleValue();
+        while (step < inputs.length && number >= inputs[step]) {
+          step++;
+        }
+      }
+      return outputs[step].evaluate(properties, color);
+    }
+  }
+
+  private static final class Interpolate extends StyleExpression {
+    private final StyleExpression input;
+    private final double[] inputs;
+    private final StyleExpression[] outputs;
+
+    Interpolate(StyleExpression input, double[] inputs, StyleExpression[] outputs) {
+      this.input = input;
+      this.inputs = inputs;
+      this.outputs = outputs;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> properties, boolean color) {
+      Object value = input.evaluate(properties, false);
+      if (!(value instanceof Number)) {
+        return null;
+      }
+      double number = ((Number) value).doubleValue();
+      int last = inputs.length - 1;
+      if (number <= inputs[0]) {
+        return outputs[0].evaluate(properties, color);
+      }
+      if (number >= inputs[last]) {
+        return outputs[last].evaluate(properties, color);
+      }
+      int upper = 1;
+      while (number > inputs[upper]) {
+        upper++;
+      }
+      double t = (number - inputs[upper - 1]) / (inputs[upper] - inputs[upper - 1]);
+      Object from = outputs[upper - 1].evaluate(properties, color);
+      Object to = outputs[upper].evaluate(properties, color);
+      if (color) {
+        Integer fromColor = toColor(from);
+        Integer toColor = toColor(to);
+        if (fromColor == null || toColor == null) return null;
+        return (double) (blendChannel(fromColor, toColor, 24, t) | blendChannel(fromColor, toColor, 16, t)
+            | blendChannel(fromColor, toColor, 8, t) | blendChannel(fromColor, toColor, 0, t));
+      }
+      if (!(from instanceof Number) || !(to instanceof Number)) {
+        return null;
+      }
+      double a = ((Number) from).doubleValue();
+      double b = ((Number) to).doubleValue();
+      return a + (b - a) * t;
+    }
+
+    private static long blendChannel(int from, int to, int shift, double t) {
+      int a = (from >>> shift) & 0xff;
+      int b = (to >>> shift) & 0xff;
+      return (long) Math.round(a + (b - a) * t) << shift;
+    }
+  }
+
+  private static final class Coalesce extends StyleExpression {
+    private final StyleExpression[] values;
+
+    Coalesce(StyleExpression[] values) {
+      this.values = values;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> properties, boolean color) {
+      for (StyleExpression value : values) {
+        Object result = value.evaluate(properties, color);
+        if (result != null) {
+          return result;
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.osmdroid.markers;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, reused between queries to avoid boxing.
+ */
+final class IntArray {
+
+  private int[] values;
+  private int size;
+
+  IntArray() {
+    this(16);
+  }
+
+  IntArray(int capacity) {
+    values = new int[Math.max(capacity, 1)];
+  }
+
+  void add(int value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size++] = value;
+  }
+
+  int get(int index) {
+    return values[index];
+  }
+
+  void removeLast() {
+    size--;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  int[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+}
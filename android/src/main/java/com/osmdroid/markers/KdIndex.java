@@ -0,0 +1,182 @@
+package com.osmdroid.markers;
+
+import java.util.Arrays;
+
+/**
+ * Static 2D k-d tree over points given as parallel coordinate arrays.
+ *
+ * Built once (points are sorted in place into k-d order, leaves of {@link #NODE_SIZE} points are
+ * scanned linearly) and then only queried, which is all a cluster level needs.
+ */
+final class KdIndex {
+
+  private static final int NODE_SIZE = 64;
+
+  private final int[] ids;
+  private final double[] coords;
+
+  KdIndex(double[] xs, double[] ys, int count) {
+    ids = new int[count];
+    coords = new double[count * 2];
+    for (int i = 0; i < count; i++) {
+      ids[i] = i;
+      coords[2 * i] = xs[i];
+      coords[2 * i + 1] = ys[i];
+    }
+    sort(0, count - 1, 0);
+  }
+
+  /**
+   * Appends the indexes of the points inside the box to {@code out}.
+   */
+  void range(double minX, double minY, double maxX, double maxY, IntArray out) {
+    int[] stack = new int[64];
+    int top = 0;
+    stack[top++] = 0;
+    stack[top++] = ids.length - 1;
+    stack[top++] = 0;
+
+    while (top > 0) {
+      int axis = stack[--top];
+      int right = stack[--top];
+      int left = stack[--top];
+
+      if (right - left <= NODE_SIZE) {
+        for (int i = left; i <= right; i++) {
+          double x = coords[2 * i];
+          double y = coords[2 * i + 1];
+          if (x >= minX && x <= maxX && y >= minY && y <= maxY) out.add(ids[i]);
+        }
+        continue;
+      }
+
+      int m = (left + right) >> 1;
+      double x = coords[2 * m];
+      double y = coords[2 * m + 1];
+      if (x >= minX && x <= maxX && y >= minY && y <= maxY) out.add(ids[m]);
+
+      if (top + 6 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+      if (axis == 0 ? minX <= x : minY <= y) {
+        stack[top++] = left;
+        stack[top++] = m - 1;
+        stack[top++] = 1 - axis;
+      }
+      if (axis == 0 ? maxX >= x : maxY >= y) {
+        stack[top++] = m + 1;
+        stack[top++] = right;
+        stack[top++] = 1 - axis;
+      }
+    }
+  }
+
+  /**
+   * Appends the indexes of the points within {@code radius} of ({@code qx}, {@code qy}).
+   */
+  void within(double qx, double qy, double radius, IntArray out) {
+    double r2 = radius * radius;
+    int[] stack = new int[64];
+    int top = 0;
+    stack[top++] = 0;
+    stack[top++] = ids.length - 1;
+    stack[top++] = 0;
+
+    while (top > 0) {
+      int axis = stack[--top];
+      int right = stack[--top];
+      int left = stack[--top];
+
+      if (right - left <= NODE_SIZE) {
+        for (int i = left; i <= right; i++) {
+          if (sqDist(coords[2 * i], coords[2 * i + 1], qx, qy) <= r2) out.add(ids[i]);
+        }
+        continue;
+      }
+
+      int m = (left + right) >> 1;
+      double x = coords[2 * m];
+      double y = coords[2 * m + 1];
+      if (sqDist(x, y, qx, qy) <= r2) out.add(ids[m]);
+
+      if (top + 6 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+      if (axis == 0 ? qx - radius <= x : qy - radius <= y) {
+        stack[top++] = left;
+        stack[top++] = m - 1;
+        stack[top++] = 1 - axis;
+      }
+      if (axis == 0 ? qx + radius >= x : qy + radius >= y) {
+        stack[top++] = m + 1;
+        stack[top++] = right;
+        stack[top++] = 1 - axis;
+      }
+    }
+  }
+
+  private void sort(int left, int right, int axis) {
+    if (right - left <= NODE_SIZE) return;
+    int m = (left + right) >> 1;
+    select(m, left, right, axis);
+    sort(left, m - 1, 1 - axis);
+    sort(m + 1, right, 1 - axis);
+  }
+
+  /**
+   * Floyd-Rivest selection: puts the k-th smallest value along {@code axis} at {@code k}.
+   */
+  private void select(int k, int left, int right, int axis) {
+    while (right > left) {
+      if (right - left > 600) {
+        int n = right - left + 1;
+        int m = k - left + 1;
+        double z = Math.log(n);
+        double s = 0.5 * Math.exp(2 * z / 3);
+        double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * (m - n / 2 < 0 ? -1 : 1);
+        int newLeft = (int) Math.max(left, Math.floor(k - m * s / n + sd));
+        int newRight = (int) Math.min(right, Math.floor(k + (n - m) * s / n + sd));
+        select(k, newLeft, newRight, axis);
+      }
+
+      double t = coords[2 * k + axis];
+      int i = left;
+      int j = right;
+
+      swap(left, k);
+      if (coords[2 * right + axis] > t) swap(left, right);
+
+      while (i < j) {
+        swap(i, j);
+        i++;
+        j--;
+        while (coords[2 * i + axis] < t) i++;
+        while (coords[2 * j + axis] > t) j--;
+      }
+
+      if (coords[2 * left + axis] == t) {
+        swap(left, j);
+      } else {
+        j++;
+        swap(j, right);
+      }
+
+      if (j <= k) left = j + 1;
+      if (k <= j) right = j - 1;
+    }
+  }
+
+  private void swap(int i, int j) {
+    int id = ids[i];
+    ids[i] = ids[j];
+    ids[j] = id;
+    double x = coords[2 * i];
+    coords[2 * i] = coords[2 * j];
+    coords[2 * j] = x;
+    double y = coords[2 * i + 1];
+    coords[2 * i + 1] = coords[2 * j + 1];
+    coords[2 * j + 1] = y;
+  }
+
+  private static double sqDist(double ax, double ay, double bx, double by) {
+    double dx = ax - bx;
+    double dy = ay - by;
+    return dx * dx + dy * dy;
+  }
+}
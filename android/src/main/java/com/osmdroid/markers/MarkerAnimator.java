@@ -0,0 +1,205 @@
+package com.osmdroid.markers;
+
+import android.view.Choreographer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves markers of one map to new coordinates on display frames.
+ *
+ * Running animations are kept in parallel arrays and all advanced from a single Choreographer
+ * callback, which then runs {@code onFrame} once, so hundreds of moving markers cost one pass and
+ * one redraw per frame and nothing is allocated while they move.
+ */
+public final class MarkerAnimator implements Choreographer.FrameCallback {
+
+  public interface Target {
+    /**
+     * Called on every frame of an animation, {@code finished} on its last one.
+     */
+    void onAnimationFrame(double latitude, double longitude, boolean finished);
+  }
+
+  public static final int EASING_LINEAR = 0;
+  public static final int EASING_EASE_IN = 1;
+  public static final int EASING_EASE_OUT = 2;
+  public static final int EASING_EASE_IN_OUT = 3;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Runnable onFrame;
+  private final Map<Target, Integer> slots = new HashMap<>();
+  private Target[] targets = new Target[INITIAL_CAPACITY];
+  private double[] fromLatitudes = new double[INITIAL_CAPACITY];
+  private double[] fromLongitudes = new double[INITIAL_CAPACITY];
+  private double[] toLatitudes = new double[INITIAL_CAPACITY];
+  private double[] toLongitudes = new double[INITIAL_CAPACITY];
+  private long[] startTimes = new long[INITIAL_CAPACITY];
+  private long[] durations = new long[INITIAL_CAPACITY];
+  private int[] easings = new int[INITIAL_CAPACITY];
+  private int count = 0;
+  private boolean scheduled = false;
+
+  /**
+   * @param onFrame run after each frame that moved markers, e.g. to redraw the map
+   */
+  public MarkerAnimator(Runnable onFrame) {
+    this.onFrame = onFrame;
+  }
+
+  public static int parseEasing(String easing) {
+    if (easing == null) return EASING_LINEAR;
+    switch (easing) {
+      case "ease-in":
+        return EASING_EASE_IN;
+      case "ease-out":
+        return EASING_EASE_OUT;
+      case "ease-in-out":
+        return EASING_EASE_IN_OUT;
+      default:
+        return EASING_LINEAR;
+    }
+  }
+
+  /**
+   * Animates {@code target} from the given position, replacing any animation it already runs.
+   */
+  public void animate(Target target, double fromLatitude, double fromLongitude,
+                      double toLatitude, double toLongitude, int duration, int easing) {
+    if (duration <= 0) {
+      cancel(target);
+      target.onAnimationFrame(toLatitude, toLongitude, true);
+      onFrame.run();
+      return;
+    }
+    Integer slot = slots.get(target);
+    if (slot == null) {
+      ensureCapacity(count + 1);
+      slot = count++;
+      slots.put(target, slot);
+      targets[slot] = target;
+    }
+    // go the short way around the antimeridian
+    if (toLongitude - fromLongitude > 180) {
+      fromLongitude += 360;
+    } else if (fromLongitude - toLongitude > 180) {
+      fromLongitude -= 360;
+    }
+    fromLatitudes[slot] = fromLatitude;
+    fromLongitudes[slot] = fromLongitude;
+    toLatitudes[slot] = toLatitude;
+    toLongitudes[slot] = toLongitude;
+    startTimes[slot] = System.nanoTime();
+    durations[slot] = duration * 1000000L;
+    easings[slot] = easing;
+
+    if (!scheduled) {
+      scheduled = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  public boolean isAnimating(Target target) {
+    return slots.containsKey(target);
+  }
+
+  /**
+   * Stops the animation of {@code target} where it is.
+   */
+  public void cancel(Target target) {
+    Integer slot = slots.get(target);
+    if (slot != null) {
+      removeAt(slot);
+    }
+  }
+
+  public void cancelAll() {
+    slots.clear();
+    Arrays.fill(targets, 0, count, null);
+    count = 0;
+    if (scheduled) {
+      scheduled = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    scheduled = false;
+    if (count == 0) return;
+
+    for (int i = count - 1; i >= 0; i--) {
+      Target target = targets[i];
+      float t = Math.min(1f, Math.max(0f, (frameTimeNanos - startTimes[i]) / (float) durations[i]));
+      if (t >= 1f) {
+        double latitude = toLatitudes[i];
+        double longitude = toLongitudes[i];
+        // removed first, so the target may start a new animation from its callback
+        removeAt(i);
+        target.onAnimationFrame(latitude, longitude, true);
+        continue;
+      }
+      float eased = ease(easings[i], t);
+      double latitude = fromLatitudes[i] + (toLatitudes[i] - fromLatitudes[i]) * eased;
+      double longitude = fromLongitudes[i] + (toLongitudes[i] - fromLongitudes[i]) * eased;
+      if (longitude > 180) longitude -= 360;
+      else if (longitude < -180) longitude += 360;
+      target.onAnimationFrame(latitude, longitude, false);
+    }
+    onFrame.run();
+
+    if (count > 0 && !scheduled) {
+      scheduled = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  static float ease(int easing, float t) {
+    switch (easing) {
+      case EASING_EASE_IN:
+        return t * t * t;
+      case EASING_EASE_OUT: {
+        float u = 1 - t;
+        return 1 - u * u * u;
+      }
+      case EASING_EASE_IN_OUT:
+        if (t < 0.5f) return 4 * t * t * t;
+        float u = -2 * t + 2;
+        return 1 - u * u * u / 2;
+      default:
+        return t;
+    }
+  }
+
+  private void removeAt(int slot) {
+    slots.remove(targets[slot]);
+    int last = --count;
+    if (slot != last) {
+      targets[slot] = targets[last];
+      fromLatitudes[slot] = fromLatitudes[last];
+      fromLongitudes[slot] = fromLongitudes[last];
+      toLatitudes[slot] = toLatitudes[last];
+      toLongitudes[slot] = toLongitudes[last];
+      startTimes[slot] = startTimes[last];
+      durations[slot] = durations[last];
+      easings[slot] = easings[last];
+      slots.put(targets[slot], slot);
+    }
+    targets[last] = null;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= targets.length) return;
+    int newCapacity = Math.max(capacity, targets.length * 2);
+    targets = Arrays.copyOf(targets, newCapacity);
+    fromLatitudes = Arrays.copyOf(fromLatitudes, newCapacity);
+    fromLongitudes = Arrays.copyOf(fromLongitudes, newCapacity);
+    toLatitudes = Arrays.copyOf(toLatitudes, newCapacity);
+    toLongitudes = Arrays.copyOf(toLongitudes, newCapacity);
+    startTimes = Arrays.copyOf(startTimes, newCapacity);
+    durations = Arrays.copyOf(durations, newCapacity);
+    easings = Arrays.copyOf(easings, newCapacity);
+  }
+}
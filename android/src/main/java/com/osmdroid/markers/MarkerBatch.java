@@ -0,0 +1,130 @@
+package com.osmdroid.markers;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import java.util.Arrays;
+
+/**
+ * Collects icon quads during a frame and draws runs of quads from the same atlas page with one
+ * {@link Canvas#drawVertices} call.
+ *
+ * Quads are two indexed triangles whose texture coordinates address the page in pixels, sampled
+ * through the page's {@link android.graphics.BitmapShader}. Icons must stack in the order they are
+ * added, so the pending quads are drawn as soon as an icon from another page comes up, and the
+ * caller flushes before drawing anything itself. Index buffers hold shorts, so a draw covers at most
+ * {@link #MAX_QUADS} quads and longer runs are split into several draws.
+ */
+final class MarkerBatch {
+
+  private static final int MAX_QUADS = 65536 / 4 - 1;
+
+  private static short[] indices = new short[0];
+
+  private float[] vertices = new float[64];
+  private float[] textures = new float[64];
+  private int count = 0;
+  // page of the pending quads
+  private int page = -1;
+
+  private Canvas canvas;
+  private MarkerIconAtlas atlas;
+  private float cos = 1;
+  private float sin = 0;
+
+  /**
+   * Starts a frame drawn to {@code canvas}. Quads are counter-rotated by the map orientation to
+   * keep icons upright.
+   */
+  void begin(Canvas canvas, MarkerIconAtlas atlas, float orientation) {
+    this.canvas = canvas;
+    this.atlas = atlas;
+    count = 0;
+    page = -1;
+    double radians = Math.toRadians(-orientation);
+    cos = (float) Math.cos(radians);
+    sin = (float) Math.sin(radians);
+  }
+
+  /**
+   * Adds an icon anchored at ({@code x}, {@code y}); {@code left} and {@code top} are the offsets
+   * of its top left corner from the anchor.
+   */
+  void add(int page, Rect source, float x, float y, float left, float top) {
+    if (page != this.page) {
+      flush();
+      this.page = page;
+    }
+    int offset = count * 8;
+    if (offset + 8 > vertices.length) {
+      vertices = Arrays.copyOf(vertices, vertices.length * 2);
+      textures = Arrays.copyOf(textures, textures.length * 2);
+    }
+    float right = left + source.width();
+    float bottom = top + source.height();
+    float[] v = vertices;
+    setCorner(v, offset, x, y, left, top);
+    setCorner(v, offset + 2, x, y, right, top);
+    setCorner(v, offset + 4, x, y, right, bottom);
+    setCorner(v, offset + 6, x, y, left, bottom);
+
+    float[] t = textures;
+    t[offset] = source.left;
+    t[offset + 1] = source.top;
+    t[offset + 2] = source.right;
+    t[offset + 3] = source.top;
+    t[offset + 4] = source.right;
+    t[offset + 5] = source.bottom;
+    t[offset + 6] = source.left;
+    t[offset + 7] = source.bottom;
+    count++;
+  }
+
+  private void setCorner(float[] vertices, int offset, float x, float y, float dx, float dy) {
+    vertices[offset] = x + dx * cos - dy * sin;
+    vertices[offset + 1] = y + dx * sin + dy * cos;
+  }
+
+  /**
+   * Draws the pending quads, one call per {@link #MAX_QUADS} quads.
+   */
+  void flush() {
+    for (int first = 0; first < count; first += MAX_QUADS) {
+      int quads = Math.min(MAX_QUADS, count - first);
+      canvas.drawVertices(Canvas.VertexMode.TRIANGLES,
+          quads * 8, vertices, first * 8,
+          textures, first * 8,
+          null, 0,
+          indices(quads), 0, quads * 6,
+          atlas.getPagePaint(page));
+    }
+    count = 0;
+  }
+
+  /**
+   * Draws the pending quads and ends the frame.
+   */
+  void end() {
+    flush();
+    canvas = null;
+    atlas = null;
+  }
+
+  private static short[] indices(int quads) {
+    if (indices.length < quads * 6) {
+      int capacity = Math.min(MAX_QUADS, Math.max(quads, indices.length / 6 * 2));
+      short[] grown = new short[capacity * 6];
+      for (int q = 0; q < capacity; q++) {
+        int vertex = q * 4;
+        grown[q * 6] = (short) vertex;
+        grown[q * 6 + 1] = (short) (vertex + 1);
+        grown[q * 6 + 2] = (short) (vertex + 2);
+        grown[q * 6 + 3] = (short) vertex;
+        grown[q * 6 + 4] = (short) (vertex + 2);
+        grown[q * 6 + 5] = (short) (vertex + 3);
+      }
+      indices = grown;
+    }
+    return indices;
+  }
+}
@@ -0,0 +1,345 @@
+package com.osmdroid.markers;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical clusters of the points of a marker layer, one level per integer zoom.
+ *
+ * Built the way supercluster does it: the finest level holds every point, and each coarser level
+ * greedily merges the items of the level below that lie within the cluster radius (in pixels at
+ * that zoom). Every level has its own {@link KdIndex}, so showing a zoom is a box query on one level.
+ * An index is immutable once built and only reads the copy of the points taken by its
+ * {@link Builder}, so it is built off the UI thread and swapped in when done.
+ */
+public final class MarkerClusterIndex {
+
+  private static final double TILE_SIZE = 256;
+
+  /**
+   * Clustering parameters. {@code radius} is in screen pixels.
+   */
+  public static final class Options {
+    public final float radius;
+    public final int minZoom;
+    public final int maxZoom;
+    public final int minPoints;
+
+    public Options(float radius, int minZoom, int maxZoom, int minPoints) {
+      this.radius = radius;
+      this.minZoom = Math.max(0, minZoom);
+      this.maxZoom = Math.max(this.minZoom, maxZoom);
+      this.minPoints = Math.max(2, minPoints);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Options)) return false;
+      Options other = (Options) o;
+      return radius == other.radius && minZoom == other.minZoom
+          && maxZoom == other.maxZoom && minPoints == other.minPoints;
+    }
+
+    @Override
+    public int hashCode() {
+      return ((Float.floatToIntBits(radius) * 31 + minZoom) * 31 + maxZoom) * 31 + minPoints;
+    }
+  }
+
+  /**
+   * Copies the points of a store on the UI thread; {@link #build()} may then run on any thread.
+   */
+  public static final class Builder {
+    private final Options options;
+    private final int version;
+    private final int count;
+    private final String[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] icons;
+
+    public Builder(MarkerLayerStore store, Options options) {
+      this.options = options;
+      this.version = store.getVersion();
+      this.count = store.size();
+      this.ids = new String[count];
+      this.latitudes = new double[count];
+      this.longitudes = new double[count];
+      this.icons = new int[count];
+      for (int i = 0; i < count; i++) {
+        ids[i] = store.getId(i);
+        latitudes[i] = store.getLatitude(i);
+        longitudes[i] = store.getLongitude(i);
+        icons[i] = store.getIcon(i);
+      }
+    }
+
+    public MarkerClusterIndex build() {
+      return new MarkerClusterIndex(this);
+    }
+  }
+
+  private static final class Level {
+    final int size;
+    final double[] xs;
+    final double[] ys;
+    final double[] latitudes;
+    final double[] longitudes;
+    final int[] counts;
+    // the point of a single-point item, -1 for clusters
+    final int[] leaves;
+    // items of the next finer level merged into each item (CSR), null on the finest level
+    final int[] childStart;
+    final int[] children;
+    // item of the next coarser level each item was merged into, null on the coarsest level
+    int[] parents;
+    final KdIndex index;
+
+    Level(int size, double[] xs, double[] ys, int[] counts, int[] leaves,
+          int[] childStart, int[] children, double[] leafLatitudes, double[] leafLongitudes) {
+      this.size = size;
+      this.xs = xs;
+      this.ys = ys;
+      this.counts = counts;
+      this.leaves = leaves;
+      this.childStart = childStart;
+      this.children = children;
+      this.latitudes = new double[size];
+      this.longitudes = new double[size];
+      for (int i = 0; i < size; i++) {
+        if (leaves[i] >= 0) {
+          latitudes[i] = leafLatitudes[leaves[i]];
+          longitudes[i] = leafLongitudes[leaves[i]];
+        } else {
+          latitudes[i] = latitude(ys[i]);
+          longitudes[i] = longitude(xs[i]);
+        }
+      }
+      this.index = new KdIndex(xs, ys, size);
+    }
+  }
+
+  private final Options options;
+  private final int version;
+  private final String[] ids;
+  private final int[] icons;
+  private final Level[] levels;
+
+  private MarkerClusterIndex(Builder builder) {
+    options = builder.options;
+    version = builder.version;
+    ids = builder.ids;
+    icons = builder.icons;
+
+    int count = builder.count;
+    levels = new Level[options.maxZoom - options.minZoom + 2];
+
+    double[] xs = new double[count];
+    double[] ys = new double[count];
+    int[] counts = new int[count];
+    int[] leaves = new int[count];
+    for (int i = 0; i < count; i++) {
+      xs[i] = x(builder.longitudes[i]);
+      ys[i] = y(builder.latitudes[i]);
+      counts[i] = 1;
+      leaves[i] = i;
+    }
+    Level finer = new Level(count, xs, ys, counts, leaves, null, null,
+        builder.latitudes, builder.longitudes);
+    levels[levels.length - 1] = finer;
+
+    for (int zoom = options.maxZoom; zoom >= options.minZoom; zoom--) {
+      finer = cluster(finer, zoom, builder.latitudes, builder.longitudes);
+      levels[zoom - options.minZoom] = finer;
+    }
+  }
+
+  private Level cluster(Level finer, int zoom, double[] leafLatitudes, double[] leafLongitudes) {
+    double radius = options.radius / (TILE_SIZE * Math.pow(2, zoom));
+    int[] parents = new int[finer.size];
+    Arrays.fill(parents, -1);
+    finer.parents = parents;
+
+    IntArray neighbors = new IntArray();
+    IntArray childStart = new IntArray(finer.size / 2 + 2);
+    IntArray children = new IntArray(finer.size);
+    int capacity = Math.max(finer.size, 1);
+    double[] xs = new double[capacity];
+    double[] ys = new double[capacity];
+    int[] counts = new int[capacity];
+    int[] leaves = new int[capacity];
+    int size = 0;
+
+    for (int i = 0; i < finer.size; i++) {
+      if (parents[i] >= 0) continue;
+
+      neighbors.clear();
+      finer.index.within(finer.xs[i], finer.ys[i], radius, neighbors);
+      int total = finer.counts[i];
+      for (int n = 0; n < neighbors.size(); n++) {
+        int j = neighbors.get(n);
+        if (j != i && parents[j] < 0) total += finer.counts[j];
+      }
+
+      childStart.add(children.size());
+      parents[i] = size;
+      children.add(i);
+      if (total > finer.counts[i] && total >= options.minPoints) {
+        double wx = finer.xs[i] * finer.counts[i];
+        double wy = finer.ys[i] * finer.counts[i];
+        for (int n = 0; n < neighbors.size(); n++) {
+          int j = neighbors.get(n);
+          if (j == i || parents[j] >= 0) continue;
+          parents[j] = size;
+          children.add(j);
+          wx += finer.xs[j] * finer.counts[j];
+          wy += finer.ys[j] * finer.counts[j];
+        }
+        xs[size] = wx / total;
+        ys[size] = wy / total;
+        counts[size] = total;
+        leaves[size] = -1;
+      } else {
+        // too few neighbours: carried over as is, the neighbours get their own turn
+        xs[size] = finer.xs[i];
+        ys[size] = finer.ys[i];
+        counts[size] = finer.counts[i];
+        leaves[size] = finer.leaves[i];
+      }
+      size++;
+    }
+    childStart.add(children.size());
+
+    return new Level(size, xs, ys, counts, leaves, childStart.toArray(), children.toArray(),
+        leafLatitudes, leafLongitudes);
+  }
+
+  public Options getOptions() {
+    return options;
+  }
+
+  /**
+   * The store version this index was built from.
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  public int getLevelCount() {
+    return levels.length;
+  }
+
+  /**
+   * Level shown at a map zoom. The last level holds the unclustered points.
+   */
+  public int levelForZoom(double zoom) {
+    int z = (int) Math.floor(zoom);
+    return Math.max(0, Math.min(levels.length - 1, z - options.minZoom));
+  }
+
+  /**
+   * Appends the items of {@code level} inside the given bounds to {@code out}. A west edge east of
+   * the east edge means the bounds cross the antimeridian.
+   */
+  void query(int level, double north, double east, double south, double west, IntArray out) {
+    KdIndex index = levels[level].index;
+    if (levels[level].size == 0) return;
+    double minY = y(north);
+    double maxY = y(south);
+    if (west <= east) {
+      index.range(x(west), minY, x(east), maxY, out);
+    } else {
+      index.range(x(west), minY, 1, maxY, out);
+      index.range(0, minY, x(east), maxY, out);
+    }
+  }
+
+  public int size(int level) {
+    return levels[level].size;
+  }
+
+  public int getCount(int level, int item) {
+    return levels[level].counts[item];
+  }
+
+  public double getLatitude(int level, int item) {
+    return levels[level].latitudes[item];
+  }
+
+  public double getLongitude(int level, int item) {
+    return levels[level].longitudes[item];
+  }
+
+  /**
+   * The point a single-point item stands for, or -1 for a cluster.
+   */
+  public int getPoint(int level, int item) {
+    return levels[level].leaves[item];
+  }
+
+  public String getPointId(int point) {
+    return ids[point];
+  }
+
+  public int getPointIcon(int point) {
+    return icons[point];
+  }
+
+  /**
+   * The item of the coarser {@code ancestorLevel} that {@code item} was merged into.
+   */
+  public int getAncestor(int level, int item, int ancestorLevel) {
+    for (int l = level; l > ancestorLevel; l--) {
+      item = levels[l].parents[item];
+    }
+    return item;
+  }
+
+  /**
+   * Ids of all points merged into an item.
+   */
+  public String[] getPointIds(int level, int item) {
+    String[] result = new String[levels[level].counts[item]];
+    IntArray stack = new IntArray();
+    IntArray stackLevels = new IntArray();
+    stack.add(item);
+    stackLevels.add(level);
+    int found = 0;
+    while (stack.size() > 0) {
+      int top = stack.size() - 1;
+      int current = stack.get(top);
+      int currentLevel = stackLevels.get(top);
+      stack.removeLast();
+      stackLevels.removeLast();
+
+      Level l = levels[currentLevel];
+      if (l.leaves[current] >= 0) {
+        result[found++] = ids[l.leaves[current]];
+        continue;
+      }
+      for (int c = l.childStart[current]; c < l.childStart[current + 1]; c++) {
+        stack.add(l.children[c]);
+        stackLevels.add(currentLevel + 1);
+      }
+    }
+    return result;
+  }
+
+  static double x(double longitude) {
+    return longitude / 360 + 0.5;
+  }
+
+  static double y(double latitude) {
+    double sin = Math.sin(Math.toRadians(latitude));
+    double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+    return y < 0 ? 0 : y > 1 ? 1 : y;
+  }
+
+  static double longitude(double x) {
+    return (x - 0.5) * 360;
+  }
+
+  static double latitude(double y) {
+    double y2 = (180 - y * 360) * Math.PI / 180;
+    return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+  }
+}
@@ -0,0 +1,158 @@
+package com.osmdroid.markers;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Shader;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The icons of a marker layer packed into one or a few atlas bitmaps.
+ *
+ * Icons are placed on shelves sorted by height, with a transparent gutter so filtering never picks
+ * up a neighbour. An icon too large for a page is left out and drawn on its own. The atlas is rebuilt
+ * only when the set of loaded icon bitmaps changes.
+ */
+final class MarkerIconAtlas {
+
+  private static final int PAGE_SIZE = 2048;
+  private static final int GUTTER = 1;
+
+  private final List<Bitmap> pages = new ArrayList<>();
+  private final List<Paint> pagePaints = new ArrayList<>();
+  private Bitmap[] sources = new Bitmap[0];
+  private int[] iconPages = new int[0];
+  private Rect[] iconRects = new Rect[0];
+
+  /**
+   * Rebuilds the atlas if any icon bitmap changed since the last call.
+   */
+  void update(List<MarkerLayerIcon> icons) {
+    boolean changed = sources.length != icons.size();
+    for (int i = 0; !changed && i < sources.length; i++) {
+      changed = sources[i] != icons.get(i).getBitmap();
+    }
+    if (!changed) return;
+
+    int count = icons.size();
+    sources = new Bitmap[count];
+    for (int i = 0; i < count; i++) {
+      sources[i] = icons.get(i).getBitmap();
+    }
+    build();
+  }
+
+  /**
+   * Page holding the icon, or -1 when the icon is not loaded or did not fit.
+   */
+  int getPage(int icon) {
+    return icon >= 0 && icon < iconPages.length ? iconPages[icon] : -1;
+  }
+
+  Rect getRect(int icon) {
+    return iconRects[icon];
+  }
+
+  Bitmap getPageBitmap(int page) {
+    return pages.get(page);
+  }
+
+  /**
+   * Paint whose shader samples the page, for drawing with texture coordinates in page pixels.
+   */
+  Paint getPagePaint(int page) {
+    return pagePaints.get(page);
+  }
+
+  private void build() {
+    int count = sources.length;
+    iconPages = new int[count];
+    iconRects = new Rect[count];
+    Arrays.fill(iconPages, -1);
+    pages.clear();
+    pagePaints.clear();
+
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) order[i] = i;
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return height(sources[b]) - height(sources[a]);
+      }
+    });
+
+    // shelf packing: fill rows left to right, start a new page when the rows run out
+    int page = -1;
+    int shelfX = 0;
+    int shelfY = 0;
+    int shelfHeight = 0;
+    int[] pageHeights = new int[count];
+    for (int i : order) {
+      Bitmap bitmap = sources[i];
+      if (bitmap == null) continue;
+      int width = bitmap.getWidth() + GUTTER;
+      int height = bitmap.getHeight() + GUTTER;
+      if (width + GUTTER > PAGE_SIZE || height + GUTTER > PAGE_SIZE) continue;
+
+      if (page < 0 || shelfX + width + GUTTER > PAGE_SIZE) {
+        shelfX = 0;
+        shelfY += shelfHeight;
+        shelfHeight = 0;
+      }
+      if (page < 0 || shelfY + height + GUTTER > PAGE_SIZE) {
+        page++;
+        shelfX = 0;
+        shelfY = 0;
+        shelfHeight = 0;
+      }
+      int left = shelfX + GUTTER;
+      int top = shelfY + GUTTER;
+      iconPages[i] = page;
+      iconRects[i] = new Rect(left, top, left + bitmap.getWidth(), top + bitmap.getHeight());
+      shelfX += width;
+      shelfHeight = Math.max(shelfHeight, height);
+      pageHeights[page] = Math.max(pageHeights[page], shelfY + shelfHeight + GUTTER);
+    }
+
+    for (int p = 0; p <= page; p++) {
+      int width = p < page ? PAGE_SIZE : pageWidth(p);
+      Bitmap pageBitmap = Bitmap.createBitmap(width, pageHeights[p], Bitmap.Config.ARGB_8888);
+      Canvas canvas = new Canvas(pageBitmap);
+      for (int i = 0; i < count; i++) {
+        if (iconPages[i] != p) continue;
+        Rect rect = iconRects[i];
+        canvas.drawBitmap(software(sources[i]), rect.left, rect.top, null);
+      }
+      pages.add(pageBitmap);
+      Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+      paint.setShader(new BitmapShader(pageBitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+      pagePaints.add(paint);
+    }
+  }
+
+  private int pageWidth(int page) {
+    int width = 1;
+    for (int i = 0; i < iconPages.length; i++) {
+      if (iconPages[i] == page) width = Math.max(width, iconRects[i].right + GUTTER);
+    }
+    return width;
+  }
+
+  private static int height(Bitmap bitmap) {
+    return bitmap != null ? bitmap.getHeight() : 0;
+  }
+
+  private static Bitmap software(Bitmap bitmap) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && bitmap.getConfig() == Bitmap.Config.HARDWARE) {
+      return bitmap.copy(Bitmap.Config.ARGB_8888, false);
+    }
+    return bitmap;
+  }
+}
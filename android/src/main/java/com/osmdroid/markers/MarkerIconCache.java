@@ -0,0 +1,196 @@
+package com.osmdroid.markers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.net.Uri;
+
+import com.facebook.common.executors.UiThreadImmediateExecutorService;
+import com.facebook.common.references.CloseableReference;
+import com.facebook.datasource.BaseDataSubscriber;
+import com.facebook.datasource.DataSource;
+import com.facebook.drawee.backends.pipeline.Fresco;
+import com.facebook.imagepipeline.image.CloseableImage;
+import com.facebook.imagepipeline.image.CloseableStaticBitmap;
+import com.facebook.imagepipeline.request.ImageRequest;
+import com.facebook.imagepipeline.request.ImageRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide cache of marker icon bitmaps keyed by uri, size and tint.
+ *
+ * Every marker showing the same image shares one bitmap. Icons are reference counted: the first
+ * {@link #acquire} loads the image, the last {@link #release} drops it. When no resize or tint is
+ * asked for, the decoded bitmap of the Fresco pipeline is shared as is (its reference is kept open
+ * instead of copying it). Shared bitmaps must never be drawn into; compositing draws them into a
+ * new bitmap. Only used from the UI thread.
+ */
+public final class MarkerIconCache {
+
+  public interface Listener {
+    void onIconLoaded(Icon icon);
+  }
+
+  public static final class Icon {
+    private final String key;
+    private int references = 0;
+    private Bitmap bitmap;
+    private CloseableReference<CloseableImage> imageReference;
+    private DataSource<CloseableReference<CloseableImage>> dataSource;
+    private final List<Listener> listeners = new ArrayList<>(1);
+
+    private Icon(String key) {
+      this.key = key;
+    }
+
+    /**
+     * The shared bitmap, or null while loading or when the image could not be loaded.
+     */
+    public Bitmap getBitmap() {
+      return bitmap;
+    }
+
+    private void loaded(Bitmap bitmap) {
+      this.bitmap = bitmap;
+      List<Listener> waiting = new ArrayList<>(listeners);
+      listeners.clear();
+      for (Listener listener : waiting) {
+        listener.onIconLoaded(this);
+      }
+    }
+  }
+
+  private static final MarkerIconCache instance = new MarkerIconCache();
+
+  private final Map<String, Icon> icons = new HashMap<>();
+
+  public static MarkerIconCache getInstance() {
+    return instance;
+  }
+
+  private MarkerIconCache() {
+  }
+
+  /**
+   * Returns the shared icon for the image and takes a reference on it. If it is still loading,
+   * {@code listener} is called once it is loaded.
+   *
+   * @param width  icon width in pixels, or 0 to use the image size
+   * @param height icon height in pixels, or 0 to use the image size
+   * @param tint   color the opaque pixels are painted with, or 0 for none
+   */
+  public Icon acquire(Context context, String uri, int width, int height, int tint, Listener listener) {
+    String key = uri + '|' + width + 'x' + height + '|' + Integer.toHexString(tint);
+    Icon icon = icons.get(key);
+    if (icon == null) {
+      icon = new Icon(key);
+      icons.put(key, icon);
+      load(context, icon, uri, width, height, tint);
+    }
+    icon.references++;
+    if (icon.bitmap == null && icon.dataSource != null && listener != null) {
+      icon.listeners.add(listener);
+    }
+    return icon;
+  }
+
+  /**
+   * Takes one more reference on an icon already acquired, for work that outlives its owner.
+   */
+  public void retain(Icon icon) {
+    icon.references++;
+  }
+
+  /**
+   * Gives back a reference taken by {@link #acquire} or {@link #retain}. Null icons are ignored.
+   */
+  public void release(Icon icon, Listener listener) {
+    if (icon == null) return;
+    icon.listeners.remove(listener);
+    if (--icon.references > 0) return;
+
+    icons.remove(icon.key);
+    if (icon.dataSource != null) {
+      icon.dataSource.close();
+      icon.dataSource = null;
+    }
+    CloseableReference.closeSafely(icon.imageReference);
+    icon.imageReference = null;
+    icon.bitmap = null;
+    icon.listeners.clear();
+  }
+
+  private void load(Context context, final Icon icon, String uri,
+                    final int width, final int height, final int tint) {
+    if (uri.startsWith("http://") || uri.startsWith("https://") ||
+        uri.startsWith("file://") || uri.startsWith("asset://")) {
+      ImageRequest imageRequest = ImageRequestBuilder
+          .newBuilderWithSource(Uri.parse(uri))
+          .build();
+      final DataSource<CloseableReference<CloseableImage>> dataSource =
+          Fresco.getImagePipeline().fetchDecodedImage(imageRequest, null);
+      icon.dataSource = dataSource;
+      dataSource.subscribe(new BaseDataSubscriber<CloseableReference<CloseableImage>>() {
+        @Override
+        protected void onNewResultImpl(DataSource<CloseableReference<CloseableImage>> source) {
+          if (!source.isFinished() || icon.dataSource != source) return;
+          icon.dataSource = null;
+          CloseableReference<CloseableImage> imageReference = source.getResult();
+          Bitmap bitmap = null;
+          try {
+            if (imageReference != null && imageReference.get() instanceof CloseableStaticBitmap) {
+              Bitmap decoded = ((CloseableStaticBitmap) imageReference.get()).getUnderlyingBitmap();
+              bitmap = shape(decoded, width, height, tint);
+              if (bitmap == decoded) {
+                // shared straight from the pipeline: keep it alive while the icon is in use
+                icon.imageReference = imageReference.clone();
+              }
+            }
+          } finally {
+            CloseableReference.closeSafely(imageReference);
+          }
+          icon.loaded(bitmap);
+        }
+
+        @Override
+        protected void onFailureImpl(DataSource<CloseableReference<CloseableImage>> source) {
+          if (icon.dataSource != source) return;
+          icon.dataSource = null;
+          icon.loaded(null);
+        }
+      }, UiThreadImmediateExecutorService.getInstance());
+      return;
+    }
+
+    int resourceId = context.getResources().getIdentifier(uri, "drawable", context.getPackageName());
+    if (resourceId != 0) {
+      Bitmap decoded = BitmapFactory.decodeResource(context.getResources(), resourceId);
+      icon.bitmap = decoded != null ? shape(decoded, width, height, tint) : null;
+    }
+  }
+
+  /**
+   * Resizes and tints a decoded image, or returns it unchanged when neither is needed.
+   */
+  private static Bitmap shape(Bitmap bitmap, int width, int height, int tint) {
+    if (width > 0 && height > 0 && (bitmap.getWidth() != width || bitmap.getHeight() != height)) {
+      bitmap = Bitmap.createScaledBitmap(bitmap, width, height, true);
+    }
+    if (tint != 0) {
+      Bitmap tinted = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
+      Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+      paint.setColorFilter(new PorterDuffColorFilter(tint, PorterDuff.Mode.SRC_IN));
+      new Canvas(tinted).drawBitmap(bitmap, 0, 0, paint);
+      bitmap = tinted;
+    }
+    return bitmap;
+  }
+}
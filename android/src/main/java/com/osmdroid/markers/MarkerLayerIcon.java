@@ -0,0 +1,76 @@
+package com.osmdroid.markers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+/**
+ * One icon of a marker layer. Points refer to icons by their index in the layer's icon list, so an
+ * icon bitmap is loaded once no matter how many points use it. The bitmap itself comes from the
+ * {@link MarkerIconCache}, shared with every marker and layer showing the same image.
+ */
+public class MarkerLayerIcon {
+
+  private final Context context;
+  private final Runnable onLoaded;
+  private final int width;
+  private final int height;
+  private final float anchorX;
+  private final float anchorY;
+  private String uri;
+  private MarkerIconCache.Icon icon;
+
+  private final MarkerIconCache.Listener iconListener = new MarkerIconCache.Listener() {
+    @Override
+    public void onIconLoaded(MarkerIconCache.Icon loaded) {
+      onLoaded.run();
+    }
+  };
+
+  /**
+   * @param width  icon width in pixels, or 0 to use the image size
+   * @param height icon height in pixels, or 0 to use the image size
+   */
+  public MarkerLayerIcon(Context context, int width, int height, float anchorX, float anchorY,
+                         Runnable onLoaded) {
+    this.context = context;
+    this.width = width;
+    this.height = height;
+    this.anchorX = anchorX;
+    this.anchorY = anchorY;
+    this.onLoaded = onLoaded;
+  }
+
+  public void load(String uri) {
+    this.uri = uri;
+    MarkerIconCache.Icon previous = icon;
+    icon = MarkerIconCache.getInstance().acquire(context, uri, width, height, 0, iconListener);
+    MarkerIconCache.getInstance().release(previous, iconListener);
+    onLoaded.run();
+  }
+
+  /**
+   * Loads the image again after {@link #release()}.
+   */
+  public void reload() {
+    if (uri != null && icon == null) {
+      load(uri);
+    }
+  }
+
+  public void release() {
+    MarkerIconCache.getInstance().release(icon, iconListener);
+    icon = null;
+  }
+
+  public Bitmap getBitmap() {
+    return icon != null ? icon.getBitmap() : null;
+  }
+
+  public float getAnchorX() {
+    return anchorX;
+  }
+
+  public float getAnchorY() {
+    return anchorY;
+  }
+}
@@ -0,0 +1,455 @@
+package com.osmdroid.markers;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import com.osmdroid.utils.PaddedViewport;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.util.PointL;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws every point of a {@link MarkerLayerStore} from one overlay.
+ *
+ * Only points inside the visible area are drawn. Their screen positions are remembered from the
+ * last draw, so a tap is tested against what is on screen without projecting the whole layer again.
+ * Points are projected to Mercator pixels once per store version, so a frame only scales and offsets
+ * them. Icons are packed into a {@link MarkerIconAtlas} and drawn through a {@link MarkerBatch},
+ * which merges consecutive icons into one draw. Clusters and icons outside the atlas flush it first,
+ * so everything stacks in drawing order, the order taps are tested in. Hardware canvases before
+ * Android 10 cannot draw vertices: there each icon is a separate draw, but of the same atlas bitmap,
+ * which the renderer still merges.
+ *
+ * With a {@link MarkerClusterIndex} set, the items of the level for the current zoom are drawn
+ * instead. They are looked up by {@link #updateViewport(MapView)} for an area padded around the
+ * screen, so panning within that area and redrawing reuse the same items. Changing level animates
+ * the items of the finer level out of (or into) their clusters.
+ */
+public class MarkerLayerOverlay extends Overlay {
+
+  public interface OnPointPressListener {
+    void onPointPress(int slot, int x, int y);
+  }
+
+  public interface OnClusterPressListener {
+    void onClusterPress(MarkerClusterIndex index, int level, int item, int x, int y);
+  }
+
+  private static final long CLUSTER_ANIMATION_DURATION = 300;
+
+  private final MarkerLayerStore store;
+  private final List<MarkerLayerIcon> icons;
+  private final float fallbackRadius;
+  private final float clusterRadius;
+  private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final Paint fallbackPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint clusterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint clusterStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint clusterTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Interpolator interpolator = new DecelerateInterpolator();
+  private OnPointPressListener onPointPressListener;
+  private OnClusterPressListener onClusterPressListener;
+
+  private final GeoPoint projected = new GeoPoint(0.0, 0.0);
+  private final Point pixel = new Point();
+  private final Point fromPixel = new Point();
+  private final Point tapPixel = new Point();
+  private final Rect visible = new Rect();
+  private final RectF iconBounds = new RectF();
+
+  private final MarkerIconAtlas atlas = new MarkerIconAtlas();
+  private final MarkerBatch batch = new MarkerBatch();
+  private boolean batchVertices;
+
+  private long[] projectedX = new long[0];
+  private long[] projectedY = new long[0];
+  private int projectedVersion = -1;
+  private final PointL projectedPoint = new PointL();
+  private final PointL projectedPixel = new PointL();
+
+  private int[] drawnSlots = new int[0];
+  private float[] drawnX = new float[0];
+  private float[] drawnY = new float[0];
+  private int drawnCount = 0;
+
+  private MarkerClusterIndex clusterIndex;
+  private boolean viewportStale = true;
+  private int shownLevel = -1;
+  private final IntArray shownItems = new IntArray();
+  private final PaddedViewport shownArea = new PaddedViewport();
+  private int drawnLevel = -1;
+
+  private int animationLevel = -1;
+  private int animationAncestorLevel = -1;
+  private boolean animationSplits;
+  private long animationStart;
+  private final IntArray animationItems = new IntArray();
+
+  public MarkerLayerOverlay(MarkerLayerStore store, List<MarkerLayerIcon> icons, float density) {
+    this.store = store;
+    this.icons = icons;
+    this.fallbackRadius = 6 * density;
+    this.clusterRadius = 16 * density;
+    fallbackPaint.setColor(Color.RED);
+    clusterPaint.setColor(Color.rgb(0x1e, 0x88, 0xe5));
+    clusterStrokePaint.setColor(Color.WHITE);
+    clusterStrokePaint.setStyle(Paint.Style.STROKE);
+    clusterStrokePaint.setStrokeWidth(2 * density);
+    clusterTextPaint.setColor(Color.WHITE);
+    clusterTextPaint.setTextAlign(Paint.Align.CENTER);
+    clusterTextPaint.setTextSize(12 * density);
+    clusterTextPaint.setFakeBoldText(true);
+  }
+
+  public void setOnPointPressListener(OnPointPressListener listener) {
+    this.onPointPressListener = listener;
+  }
+
+  public void setOnClusterPressListener(OnClusterPressListener listener) {
+    this.onClusterPressListener = listener;
+  }
+
+  public void setClusterColor(int color) {
+    clusterPaint.setColor(color);
+  }
+
+  public void setClusterTextColor(int color) {
+    clusterTextPaint.setColor(color);
+  }
+
+  /**
+   * Switches to drawing the clusters of {@code index}, or back to every point when null.
+   */
+  public void setClusterIndex(MarkerClusterIndex index) {
+    clusterIndex = index;
+    shownLevel = -1;
+    animationLevel = -1;
+    viewportStale = true;
+  }
+
+  public MarkerClusterIndex getClusterIndex() {
+    return clusterIndex;
+  }
+
+  /**
+   * Looks up the cluster items to show when the zoom level changed or the map moved out of the
+   * area looked up last time. Cheap to call on every region change.
+   */
+  public void updateViewport(MapView mapView) {
+    MarkerClusterIndex index = clusterIndex;
+    if (index == null) return;
+    BoundingBox bounds = mapView.getBoundingBox();
+    if (bounds == null) return;
+
+    int level = index.levelForZoom(mapView.getZoomLevelDouble());
+    if (!viewportStale && level == shownLevel && shownArea.contains(bounds)) {
+      return;
+    }
+    viewportStale = false;
+    shownArea.set(bounds);
+
+    if (shownLevel >= 0 && level != shownLevel) {
+      animationSplits = level > shownLevel;
+      animationLevel = Math.max(level, shownLevel);
+      animationAncestorLevel = Math.min(level, shownLevel);
+      animationStart = SystemClock.uptimeMillis();
+      animationItems.clear();
+      index.query(animationLevel, shownArea.getNorth(), shownArea.getEast(), shownArea.getSouth(),
+          shownArea.getWest(), animationItems);
+    }
+    shownLevel = level;
+    shownItems.clear();
+    index.query(level, shownArea.getNorth(), shownArea.getEast(), shownArea.getSouth(),
+        shownArea.getWest(), shownItems);
+    mapView.postInvalidate();
+  }
+
+  @Override
+  public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+    if (shadow) return;
+    float orientation = mapView.getMapOrientation();
+    atlas.update(icons);
+    batchVertices = !canvas.isHardwareAccelerated() || Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+    batch.begin(canvas, atlas, orientation);
+
+    if (clusterIndex != null) {
+      drawClusters(canvas, mapView);
+    } else {
+      drawPoints(canvas, mapView);
+    }
+    batch.end();
+  }
+
+  private void drawPoints(Canvas canvas, MapView mapView) {
+    Projection projection = mapView.getProjection();
+    float orientation = mapView.getMapOrientation();
+    setVisibleArea(projection);
+    updateProjected(projection);
+    double powerDifference = projection.getProjectedPowerDifference();
+
+    int size = store.size();
+    ensureDrawnCapacity(size);
+    drawnCount = 0;
+    drawnLevel = -1;
+
+    for (int slot = 0; slot < size; slot++) {
+      projectedPoint.set(projectedX[slot], projectedY[slot]);
+      projection.getLongPixelsFromProjected(projectedPoint, powerDifference, true, projectedPixel);
+      if (!visible.contains((int) projectedPixel.x, (int) projectedPixel.y)) {
+        continue;
+      }
+      drawPoint(canvas, store.getIcon(slot), projectedPixel.x, projectedPixel.y, orientation);
+      addDrawn(slot, projectedPixel.x, projectedPixel.y);
+    }
+  }
+
+  /**
+   * Projects the points to Mercator pixels at the projection's fixed zoom, once per store version.
+   */
+  private void updateProjected(Projection projection) {
+    if (projectedVersion == store.getVersion()) return;
+    int size = store.size();
+    if (projectedX.length < size) {
+      projectedX = new long[Math.max(size, projectedX.length * 2)];
+      projectedY = new long[projectedX.length];
+    }
+    for (int slot = 0; slot < size; slot++) {
+      projection.toProjectedPixels(store.getLatitude(slot), store.getLongitude(slot), projectedPoint);
+      projectedX[slot] = projectedPoint.x;
+      projectedY[slot] = projectedPoint.y;
+    }
+    projectedVersion = store.getVersion();
+  }
+
+  private void drawClusters(Canvas canvas, MapView mapView) {
+    MarkerClusterIndex index = clusterIndex;
+    if (viewportStale) {
+      updateViewport(mapView);
+    }
+    Projection projection = mapView.getProjection();
+    float orientation = mapView.getMapOrientation();
+    setVisibleArea(projection);
+    drawnCount = 0;
+
+    if (animationLevel >= 0) {
+      float elapsed = (SystemClock.uptimeMillis() - animationStart) / (float) CLUSTER_ANIMATION_DURATION;
+      if (elapsed < 1) {
+        float t = interpolator.getInterpolation(elapsed);
+        // splitting items move out of their cluster, merging items move into it
+        float progress = animationSplits ? t : 1 - t;
+        drawnLevel = animationLevel;
+        ensureDrawnCapacity(animationItems.size());
+        for (int i = 0; i < animationItems.size(); i++) {
+          int item = animationItems.get(i);
+          int ancestor = index.getAncestor(animationLevel, item, animationAncestorLevel);
+          projected.setCoords(index.getLatitude(animationAncestorLevel, ancestor),
+              index.getLongitude(animationAncestorLevel, ancestor));
+          projection.toPixels(projected, fromPixel);
+          projected.setCoords(index.getLatitude(animationLevel, item), index.getLongitude(animationLevel, item));
+          projection.toPixels(projected, pixel);
+          float x = fromPixel.x + (pixel.x - fromPixel.x) * progress;
+          float y = fromPixel.y + (pixel.y - fromPixel.y) * progress;
+          if (visible.contains((int) x, (int) y)) {
+            drawItem(canvas, index, animationLevel, item, x, y, orientation);
+            addDrawn(item, x, y);
+          }
+        }
+        mapView.postInvalidateOnAnimation();
+        return;
+      }
+      animationLevel = -1;
+      animationItems.clear();
+    }
+
+    drawnLevel = shownLevel;
+    ensureDrawnCapacity(shownItems.size());
+    for (int i = 0; i < shownItems.size(); i++) {
+      int item = shownItems.get(i);
+      projected.setCoords(index.getLatitude(shownLevel, item), index.getLongitude(shownLevel, item));
+      projection.toPixels(projected, pixel);
+      if (visible.contains(pixel.x, pixel.y)) {
+        drawItem(canvas, index, shownLevel, item, pixel.x, pixel.y, orientation);
+        addDrawn(item, pixel.x, pixel.y);
+      }
+    }
+  }
+
+  private void drawItem(Canvas canvas, MarkerClusterIndex index, int level, int item,
+                        float x, float y, float orientation) {
+    int point = index.getPoint(level, item);
+    if (point >= 0) {
+      drawPoint(canvas, index.getPointIcon(point), x, y, orientation);
+      return;
+    }
+    int count = index.getCount(level, item);
+    float radius = clusterRadius(count);
+    // drawn over the icons before it, like taps expect
+    batch.flush();
+    canvas.drawCircle(x, y, radius, clusterPaint);
+    canvas.drawCircle(x, y, radius, clusterStrokePaint);
+    String label = count < 1000 ? Integer.toString(count)
+        : count < 10000 ? (count / 100) / 10f + "k" : count / 1000 + "k";
+    float baseline = y - (clusterTextPaint.descent() + clusterTextPaint.ascent()) / 2;
+    if (orientation == 0) {
+      canvas.drawText(label, x, baseline, clusterTextPaint);
+    } else {
+      canvas.save();
+      canvas.rotate(-orientation, x, y);
+      canvas.drawText(label, x, baseline, clusterTextPaint);
+      canvas.restore();
+    }
+  }
+
+  private float clusterRadius(int count) {
+    // grow with the number of digits
+    return clusterRadius * (1 + 0.15f * (int) Math.log10(count));
+  }
+
+  private void drawPoint(Canvas canvas, int iconIndex, float x, float y, float orientation) {
+    MarkerLayerIcon icon = iconAt(iconIndex);
+    Bitmap bitmap = icon != null ? icon.getBitmap() : null;
+    if (bitmap == null) {
+      batch.flush();
+      canvas.drawCircle(x, y, fallbackRadius, fallbackPaint);
+      return;
+    }
+    float left = -icon.getAnchorX() * bitmap.getWidth();
+    float top = -icon.getAnchorY() * bitmap.getHeight();
+    int page = atlas.getPage(iconIndex);
+    if (page >= 0 && batchVertices) {
+      batch.add(page, atlas.getRect(iconIndex), x, y, left, top);
+      return;
+    }
+    batch.flush();
+
+    iconBounds.set(x + left, y + top, x + left + bitmap.getWidth(), y + top + bitmap.getHeight());
+    if (orientation != 0) {
+      // keep icons upright on a rotated map
+      canvas.save();
+      canvas.rotate(-orientation, x, y);
+    }
+    if (page >= 0) {
+      canvas.drawBitmap(atlas.getPageBitmap(page), atlas.getRect(iconIndex), iconBounds, bitmapPaint);
+    } else {
+      canvas.drawBitmap(bitmap, null, iconBounds, bitmapPaint);
+    }
+    if (orientation != 0) {
+      canvas.restore();
+    }
+  }
+
+  @Override
+  public boolean onSingleTapConfirmed(MotionEvent e, MapView mapView) {
+    if (drawnCount == 0) {
+      return false;
+    }
+    mapView.getProjection().unrotateAndScalePoint((int) e.getX(), (int) e.getY(), tapPixel);
+    double radians = Math.toRadians(mapView.getMapOrientation());
+    float cos = (float) Math.cos(radians);
+    float sin = (float) Math.sin(radians);
+    MarkerClusterIndex index = clusterIndex;
+
+    // last drawn is on top
+    for (int i = drawnCount - 1; i >= 0; i--) {
+      // icons are drawn counter-rotated around their position: undo that for the tap
+      float dx = tapPixel.x - drawnX[i];
+      float dy = tapPixel.y - drawnY[i];
+      float rx = dx * cos - dy * sin;
+      float ry = dx * sin + dy * cos;
+
+      if (drawnLevel < 0 || index == null) {
+        int slot = drawnSlots[i];
+        if (slot >= store.size() || !hits(store.getIcon(slot), rx, ry)) continue;
+        if (onPointPressListener == null) return false;
+        onPointPressListener.onPointPress(slot, (int) e.getX(), (int) e.getY());
+        return true;
+      }
+
+      int item = drawnSlots[i];
+      int point = index.getPoint(drawnLevel, item);
+      if (point >= 0) {
+        if (!hits(index.getPointIcon(point), rx, ry)) continue;
+        // the index may be older than the store: press the point only if it still exists
+        int slot = store.indexOf(index.getPointId(point));
+        if (slot < 0 || onPointPressListener == null) return false;
+        onPointPressListener.onPointPress(slot, (int) e.getX(), (int) e.getY());
+        return true;
+      }
+      float radius = clusterRadius(index.getCount(drawnLevel, item));
+      if (dx * dx + dy * dy > radius * radius) continue;
+      if (onClusterPressListener == null) return false;
+      onClusterPressListener.onClusterPress(index, drawnLevel, item, (int) e.getX(), (int) e.getY());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Tests a tap given relative to the point's position against the point's icon.
+   */
+  private boolean hits(int iconIndex, float dx, float dy) {
+    MarkerLayerIcon icon = iconAt(iconIndex);
+    Bitmap bitmap = icon != null ? icon.getBitmap() : null;
+    if (bitmap == null) {
+      return dx * dx + dy * dy <= fallbackRadius * fallbackRadius;
+    }
+    float left = -icon.getAnchorX() * bitmap.getWidth();
+    float top = -icon.getAnchorY() * bitmap.getHeight();
+    return dx >= left && dx <= left + bitmap.getWidth()
+        && dy >= top && dy <= top + bitmap.getHeight();
+  }
+
+  private MarkerLayerIcon iconAt(int index) {
+    return index >= 0 && index < icons.size() ? icons.get(index) : null;
+  }
+
+  private void setVisibleArea(Projection projection) {
+    // grow the screen by the largest icon so markers anchored just outside still show
+    int margin = (int) Math.ceil(maxIconExtent());
+    visible.set(projection.getScreenRect());
+    visible.inset(-margin, -margin);
+  }
+
+  private float maxIconExtent() {
+    float extent = Math.max(fallbackRadius, clusterRadius * 1.6f);
+    for (int i = 0; i < icons.size(); i++) {
+      Bitmap bitmap = icons.get(i).getBitmap();
+      if (bitmap != null) {
+        extent = Math.max(extent, Math.max(bitmap.getWidth(), bitmap.getHeight()));
+      }
+    }
+    return extent;
+  }
+
+  private void addDrawn(int slot, float x, float y) {
+    drawnSlots[drawnCount] = slot;
+    drawnX[drawnCount] = x;
+    drawnY[drawnCount] = y;
+    drawnCount++;
+  }
+
+  private void ensureDrawnCapacity(int capacity) {
+    if (drawnSlots.length >= capacity) return;
+    int newCapacity = Math.max(capacity, drawnSlots.length * 2);
+    drawnSlots = Arrays.copyOf(drawnSlots, newCapacity);
+    drawnX = Arrays.copyOf(drawnX, newCapacity);
+    drawnY = Arrays.copyOf(drawnY, newCapacity);
+  }
+}
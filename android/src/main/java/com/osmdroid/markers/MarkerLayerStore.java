@@ -0,0 +1,109 @@
+package com.osmdroid.markers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Points of a marker layer, kept in parallel primitive arrays and addressed by id.
+ *
+ * Slots are dense: removing a point moves the last point into its slot, so drawing and hit-testing
+ * walk plain arrays and there is no per-point object besides the id string.
+ */
+public class MarkerLayerStore {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Map<String, Integer> slots = new HashMap<>();
+  private String[] ids = new String[INITIAL_CAPACITY];
+  private double[] latitudes = new double[INITIAL_CAPACITY];
+  private double[] longitudes = new double[INITIAL_CAPACITY];
+  private int[] icons = new int[INITIAL_CAPACITY];
+  private int size = 0;
+  private int version = 0;
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Incremented on every change, so derived data (clusters, screen positions) can tell it is stale.
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  public String getId(int slot) {
+    return ids[slot];
+  }
+
+  public double getLatitude(int slot) {
+    return latitudes[slot];
+  }
+
+  public double getLongitude(int slot) {
+    return longitudes[slot];
+  }
+
+  public int getIcon(int slot) {
+    return icons[slot];
+  }
+
+  /**
+   * Returns the slot of {@code id}, or -1 when there is no such point.
+   */
+  public int indexOf(String id) {
+    Integer slot = slots.get(id);
+    return slot != null ? slot : -1;
+  }
+
+  public void clear() {
+    slots.clear();
+    Arrays.fill(ids, 0, size, null);
+    size = 0;
+    version++;
+  }
+
+  public void upsert(String id, double latitude, double longitude, int icon) {
+    Integer slot = slots.get(id);
+    if (slot == null) {
+      ensureCapacity(size + 1);
+      slot = size++;
+      slots.put(id, slot);
+      ids[slot] = id;
+    }
+    latitudes[slot] = latitude;
+    longitudes[slot] = longitude;
+    icons[slot] = icon;
+    version++;
+  }
+
+  public boolean remove(String id) {
+    Integer slot = slots.remove(id);
+    if (slot == null) {
+      return false;
+    }
+    int last = --size;
+    if (slot != last) {
+      ids[slot] = ids[last];
+      latitudes[slot] = latitudes[last];
+      longitudes[slot] = longitudes[last];
+      icons[slot] = icons[last];
+      slots.put(ids[slot], slot);
+    }
+    ids[last] = null;
+    version++;
+    return true;
+  }
+
+  public void ensureCapacity(int capacity) {
+    if (capacity <= ids.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, ids.length * 2);
+    ids = Arrays.copyOf(ids, newCapacity);
+    latitudes = Arrays.copyOf(latitudes, newCapacity);
+    longitudes = Arrays.copyOf(longitudes, newCapacity);
+    icons = Arrays.copyOf(icons, newCapacity);
+  }
+}
@@ -0,0 +1,284 @@
+package com.osmdroid.markers;
+
+import android.view.Choreographer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies streamed live positions to the markers of one map, bypassing React props.
+ *
+ * Records arrive in batches of (identifier, latitude, longitude, heading, timestamp). Each record
+ * moves the marker with that identifier; records older than the last one applied to it are dropped.
+ * With dead reckoning, markers keep moving between records along the velocity of their last two
+ * fixes (for at most {@code maxExtrapolation} milliseconds) and glide towards each new fix instead
+ * of jumping. All markers are moved from one Choreographer callback, which then runs
+ * {@code onFrame} once.
+ */
+public final class MarkerPositionFeed implements Choreographer.FrameCallback {
+
+  public interface Target {
+    /**
+     * Moves the target. {@code fix} is true for a received position and false for positions
+     * extrapolated between fixes. A NaN {@code heading} leaves the rotation as it is.
+     *
+     * @return false when the target is no longer shown, to stop feeding it
+     */
+    boolean onFeedPosition(double latitude, double longitude, float heading, boolean fix);
+  }
+
+  public interface Resolver {
+    Target find(String identifier);
+  }
+
+  /** Values per record: latitude, longitude, heading, timestamp. */
+  public static final int RECORD_SIZE = 4;
+
+  private static final int INITIAL_CAPACITY = 16;
+  // bounds for the time a marker takes to glide from where it shows to a new fix
+  private static final long MIN_CORRECTION_MS = 100;
+  private static final long MAX_CORRECTION_MS = 1000;
+
+  private final Resolver resolver;
+  private final Runnable onFrame;
+  private final Map<String, Integer> slots = new HashMap<>();
+  private String[] identifiers = new String[INITIAL_CAPACITY];
+  private Target[] targets = new Target[INITIAL_CAPACITY];
+  private double[] fixLatitudes = new double[INITIAL_CAPACITY];
+  private double[] fixLongitudes = new double[INITIAL_CAPACITY];
+  private float[] headings = new float[INITIAL_CAPACITY];
+  private double[] fixTimes = new double[INITIAL_CAPACITY];
+  private long[] receivedTimes = new long[INITIAL_CAPACITY];
+  // degrees per millisecond
+  private double[] latitudeVelocities = new double[INITIAL_CAPACITY];
+  private double[] longitudeVelocities = new double[INITIAL_CAPACITY];
+  // offset from the fix to where the marker showed when the fix arrived, faded out over time
+  private double[] latitudeCorrections = new double[INITIAL_CAPACITY];
+  private double[] longitudeCorrections = new double[INITIAL_CAPACITY];
+  private long[] correctionDurations = new long[INITIAL_CAPACITY];
+  private boolean[] moving = new boolean[INITIAL_CAPACITY];
+  private int count = 0;
+  private long maxExtrapolation = 0;
+  private boolean scheduled = false;
+
+  /**
+   * @param onFrame run once after markers were moved, e.g. to redraw the map
+   */
+  public MarkerPositionFeed(Resolver resolver, Runnable onFrame) {
+    this.resolver = resolver;
+    this.onFrame = onFrame;
+  }
+
+  /**
+   * Applies a batch of records. {@code records} holds {@link #RECORD_SIZE} values per identifier.
+   *
+   * @param maxExtrapolation milliseconds a marker keeps moving after its last fix, or 0 to move
+   *                         markers only when records arrive
+   */
+  public void apply(String[] ids, double[] records, long maxExtrapolation) {
+    this.maxExtrapolation = maxExtrapolation;
+    long now = System.nanoTime();
+    boolean moved = false;
+
+    for (int i = 0; i < ids.length; i++) {
+      String identifier = ids[i];
+      int offset = i * RECORD_SIZE;
+      double latitude = records[offset];
+      double longitude = records[offset + 1];
+      float heading = (float) records[offset + 2];
+      // records without a timestamp count as taken when they arrive
+      double time = Double.isNaN(records[offset + 3]) ? now / 1e6 : records[offset + 3];
+
+      Target target = identifier != null ? resolver.find(identifier) : null;
+      Integer slot = slots.get(identifier);
+      if (target == null) {
+        if (slot != null) removeAt(slot);
+        continue;
+      }
+      if (slot != null && targets[slot] != target) {
+        // the identifier moved to another marker: start over
+        removeAt(slot);
+        slot = null;
+      }
+
+      if (slot == null) {
+        ensureCapacity(count + 1);
+        slot = count++;
+        slots.put(identifier, slot);
+        identifiers[slot] = identifier;
+        targets[slot] = target;
+        latitudeVelocities[slot] = 0;
+        longitudeVelocities[slot] = 0;
+        latitudeCorrections[slot] = 0;
+        longitudeCorrections[slot] = 0;
+      } else if (time <= fixTimes[slot]) {
+        // out of order
+        continue;
+      } else if (maxExtrapolation > 0) {
+        double elapsed = time - fixTimes[slot];
+        double shownLatitude = latitudeAt(slot, now);
+        double shownLongitude = longitudeAt(slot, now);
+        latitudeVelocities[slot] = (latitude - fixLatitudes[slot]) / elapsed;
+        longitudeVelocities[slot] = wrap(longitude - fixLongitudes[slot]) / elapsed;
+        latitudeCorrections[slot] = shownLatitude - latitude;
+        longitudeCorrections[slot] = wrap(shownLongitude - longitude);
+        long correction = Math.max(MIN_CORRECTION_MS, Math.min(MAX_CORRECTION_MS, (long) elapsed));
+        correctionDurations[slot] = correction * 1000000L;
+      } else {
+        latitudeVelocities[slot] = 0;
+        longitudeVelocities[slot] = 0;
+        latitudeCorrections[slot] = 0;
+        longitudeCorrections[slot] = 0;
+      }
+
+      fixLatitudes[slot] = latitude;
+      fixLongitudes[slot] = longitude;
+      headings[slot] = heading;
+      fixTimes[slot] = time;
+      receivedTimes[slot] = now;
+
+      if (maxExtrapolation > 0 && (latitudeCorrections[slot] != 0 || longitudeCorrections[slot] != 0
+          || latitudeVelocities[slot] != 0 || longitudeVelocities[slot] != 0)) {
+        moving[slot] = true;
+      } else {
+        moving[slot] = false;
+        if (!target.onFeedPosition(latitude, longitude, heading, true)) {
+          removeAt(slot);
+        }
+        moved = true;
+      }
+    }
+
+    if (moved) {
+      onFrame.run();
+    }
+    scheduleIfMoving();
+  }
+
+  /**
+   * Stops feeding the marker with {@code identifier}, e.g. when its position is set otherwise.
+   */
+  public void cancel(String identifier) {
+    Integer slot = slots.get(identifier);
+    if (slot != null) {
+      removeAt(slot);
+    }
+  }
+
+  public void cancelAll() {
+    slots.clear();
+    Arrays.fill(identifiers, 0, count, null);
+    Arrays.fill(targets, 0, count, null);
+    count = 0;
+    if (scheduled) {
+      scheduled = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    scheduled = false;
+    boolean moved = false;
+    for (int i = count - 1; i >= 0; i--) {
+      if (!moving[i]) continue;
+      long elapsed = frameTimeNanos - receivedTimes[i];
+      // done once extrapolation ran out and the correction faded
+      boolean settled = elapsed >= maxExtrapolation * 1000000L && elapsed >= correctionDurations[i];
+      moving[i] = !settled;
+      moved = true;
+      if (!targets[i].onFeedPosition(latitudeAt(i, frameTimeNanos), longitudeAt(i, frameTimeNanos),
+          headings[i], settled)) {
+        removeAt(i);
+      }
+    }
+    if (moved) {
+      onFrame.run();
+    }
+    scheduleIfMoving();
+  }
+
+  private void scheduleIfMoving() {
+    if (scheduled) return;
+    for (int i = 0; i < count; i++) {
+      if (moving[i]) {
+        scheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+        return;
+      }
+    }
+  }
+
+  private double latitudeAt(int slot, long nanos) {
+    long elapsed = nanos - receivedTimes[slot];
+    double latitude = fixLatitudes[slot]
+        + latitudeVelocities[slot] * extrapolationMillis(elapsed)
+        + latitudeCorrections[slot] * correctionLeft(slot, elapsed);
+    return Math.max(-90, Math.min(90, latitude));
+  }
+
+  private double longitudeAt(int slot, long nanos) {
+    long elapsed = nanos - receivedTimes[slot];
+    return wrap(fixLongitudes[slot]
+        + longitudeVelocities[slot] * extrapolationMillis(elapsed)
+        + longitudeCorrections[slot] * correctionLeft(slot, elapsed));
+  }
+
+  private double extrapolationMillis(long elapsedNanos) {
+    return Math.min(elapsedNanos / 1e6, maxExtrapolation);
+  }
+
+  private double correctionLeft(int slot, long elapsedNanos) {
+    long duration = correctionDurations[slot];
+    if (duration <= 0 || elapsedNanos >= duration) return 0;
+    return 1 - elapsedNanos / (double) duration;
+  }
+
+  private static double wrap(double longitude) {
+    if (longitude > 180) return longitude - 360;
+    if (longitude < -180) return longitude + 360;
+    return longitude;
+  }
+
+  private void removeAt(int slot) {
+    slots.remove(identifiers[slot]);
+    int last = --count;
+    if (slot != last) {
+      identifiers[slot] = identifiers[last];
+      targets[slot] = targets[last];
+      fixLatitudes[slot] = fixLatitudes[last];
+      fixLongitudes[slot] = fixLongitudes[last];
+      headings[slot] = headings[last];
+      fixTimes[slot] = fixTimes[last];
+      receivedTimes[slot] = receivedTimes[last];
+      latitudeVelocities[slot] = latitudeVelocities[last];
+      longitudeVelocities[slot] = longitudeVelocities[last];
+      latitudeCorrections[slot] = latitudeCorrections[last];
+      longitudeCorrections[slot] = longitudeCorrections[last];
+      correctionDurations[slot] = correctionDurations[last];
+      moving[slot] = moving[last];
+      slots.put(identifiers[slot], slot);
+    }
+    identifiers[last] = null;
+    targets[last] = null;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= targets.length) return;
+    int newCapacity = Math.max(capacity, targets.length * 2);
+    identifiers = Arrays.copyOf(identifiers, newCapacity);
+    targets = Arrays.copyOf(targets, newCapacity);
+    fixLatitudes = Arrays.copyOf(fixLatitudes, newCapacity);
+    fixLongitudes = Arrays.copyOf(fixLongitudes, newCapacity);
+    headings = Arrays.copyOf(headings, newCapacity);
+    fixTimes = Arrays.copyOf(fixTimes, newCapacity);
+    receivedTimes = Arrays.copyOf(receivedTimes, newCapacity);
+    latitudeVelocities = Arrays.copyOf(latitudeVelocities, newCapacity);
+    longitudeVelocities = Arrays.copyOf(longitudeVelocities, newCapacity);
+    latitudeCorrections = Arrays.copyOf(latitudeCorrections, newCapacity);
+    longitudeCorrections = Arrays.copyOf(longitudeCorrections, newCapacity);
+    correctionDurations = Arrays.copyOf(correctionDurations, newCapacity);
+    moving = Arrays.copyOf(moving, newCapacity);
+  }
+}
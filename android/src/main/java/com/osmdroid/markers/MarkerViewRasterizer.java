@@ -0,0 +1,222 @@
+package com.osmdroid.markers;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide cache of rasterized custom marker views, shared by every marker whose view renders
+ * the same content.
+ *
+ * A view is identified by a hash of what it draws ({@link #contentKey}: the layout, visibility and
+ * alpha of every view in it, plus texts, text colors, background colors and drawables), so a view
+ * is only drawn into a bitmap again when that changes, and identical views across markers are
+ * drawn once. Drawing a view must happen on the UI thread; combining it with a marker image
+ * happens on a background thread, also once per (image, view) pair.
+ */
+public final class MarkerViewRasterizer {
+
+  public interface Callback {
+    void onComposited(Bitmap bitmap);
+  }
+
+  private static final int CACHE_BYTES = 8 * 1024 * 1024;
+
+  private static final MarkerViewRasterizer instance = new MarkerViewRasterizer();
+
+  private static final ExecutorService compositeExecutor = Executors.newSingleThreadExecutor();
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  private final LruCache<Long, Bitmap> views = new LruCache<Long, Bitmap>(CACHE_BYTES) {
+    @Override
+    protected int sizeOf(Long key, Bitmap bitmap) {
+      return bitmap.getByteCount();
+    }
+  };
+
+  private final LruCache<CompositeKey, Bitmap> composites = new LruCache<CompositeKey, Bitmap>(CACHE_BYTES) {
+    @Override
+    protected int sizeOf(CompositeKey key, Bitmap bitmap) {
+      return bitmap.getByteCount();
+    }
+  };
+
+  private final Map<CompositeKey, List<Callback>> pending = new HashMap<>();
+
+  /**
+   * Composites are keyed by the identity of the shared icon and the content key of the view.
+   */
+  private static final class CompositeKey {
+    final MarkerIconCache.Icon icon;
+    final long viewKey;
+
+    CompositeKey(MarkerIconCache.Icon icon, long viewKey) {
+      this.icon = icon;
+      this.viewKey = viewKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof CompositeKey)) return false;
+      CompositeKey other = (CompositeKey) o;
+      return icon == other.icon && viewKey == other.viewKey;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(icon) * 31 + (int) (viewKey ^ (viewKey >>> 32));
+    }
+  }
+
+  public static MarkerViewRasterizer getInstance() {
+    return instance;
+  }
+
+  private MarkerViewRasterizer() {
+  }
+
+  /**
+   * Hash of everything {@code view} draws at the given bitmap size.
+   */
+  public static long contentKey(View view, int width, int height) {
+    long hash = mix(mix(17, width), height);
+    // where the marker view itself sits does not change what it draws
+    return hashView(hash, view, false);
+  }
+
+  private static long hashView(long hash, View view, boolean hashPosition) {
+    hash = mix(hash, view.getClass().getName().hashCode());
+    if (hashPosition) {
+      hash = mix(hash, view.getLeft());
+      hash = mix(hash, view.getTop());
+    }
+    hash = mix(hash, view.getWidth());
+    hash = mix(hash, view.getHeight());
+    hash = mix(hash, view.getVisibility());
+    hash = mix(hash, Float.floatToIntBits(view.getAlpha()));
+    hash = mix(hash, drawableHash(view.getBackground()));
+
+    if (view instanceof TextView) {
+      TextView text = (TextView) view;
+      hash = mix(hash, text.getText().toString().hashCode());
+      hash = mix(hash, text.getCurrentTextColor());
+      hash = mix(hash, Float.floatToIntBits(text.getTextSize()));
+    } else if (view instanceof ImageView) {
+      hash = mix(hash, drawableHash(((ImageView) view).getDrawable()));
+    }
+
+    if (view instanceof ViewGroup) {
+      ViewGroup group = (ViewGroup) view;
+      hash = mix(hash, group.getChildCount());
+      for (int i = 0; i < group.getChildCount(); i++) {
+        hash = hashView(hash, group.getChildAt(i), true);
+      }
+    }
+    return hash;
+  }
+
+  private static int drawableHash(Drawable drawable) {
+    if (drawable == null) return 0;
+    if (drawable instanceof ColorDrawable) return ((ColorDrawable) drawable).getColor();
+    Drawable current = drawable.getCurrent();
+    return System.identityHashCode(current) * 31 + current.getLevel();
+  }
+
+  private static long mix(long hash, int value) {
+    return hash * 1099511628211L ^ value;
+  }
+
+  /**
+   * Returns the bitmap of a view with content key {@code key}, drawing the view only when no
+   * marker has drawn the same content yet. UI thread only.
+   */
+  public Bitmap rasterize(View view, int width, int height, long key) {
+    Bitmap bitmap = views.get(key);
+    if (bitmap == null) {
+      bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      view.draw(new Canvas(bitmap));
+      views.put(key, bitmap);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns the already composited image and view, or null if it has to be made with
+   * {@link #composite}.
+   */
+  public Bitmap getComposite(MarkerIconCache.Icon icon, long viewKey) {
+    return composites.get(new CompositeKey(icon, viewKey));
+  }
+
+  /**
+   * Draws the view bitmap over the icon on a background thread and hands the result to
+   * {@code callback} on the UI thread. Requests for the same pair made meanwhile share the work.
+   * An icon that is not loaded, or was released, has no bitmap to draw; the view bitmap is then
+   * handed back as is.
+   */
+  public void composite(final MarkerIconCache.Icon icon, long viewKey, final Bitmap viewBitmap,
+                        Callback callback) {
+    final Bitmap source = icon != null ? icon.getBitmap() : null;
+    if (source == null) {
+      callback.onComposited(viewBitmap);
+      return;
+    }
+    final CompositeKey key = new CompositeKey(icon, viewKey);
+    List<Callback> callbacks = pending.get(key);
+    if (callbacks != null) {
+      callbacks.add(callback);
+      return;
+    }
+    callbacks = new ArrayList<>();
+    callbacks.add(callback);
+    pending.put(key, callbacks);
+
+    // keep the icon bitmap alive while the background thread reads it
+    MarkerIconCache.getInstance().retain(icon);
+    compositeExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        Bitmap iconBitmap = source;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && iconBitmap.getConfig() == Bitmap.Config.HARDWARE) {
+          // hardware bitmaps cannot be drawn into a software canvas
+          iconBitmap = iconBitmap.copy(Bitmap.Config.ARGB_8888, false);
+        }
+        int width = Math.max(iconBitmap.getWidth(), viewBitmap.getWidth());
+        int height = Math.max(iconBitmap.getHeight(), viewBitmap.getHeight());
+        final Bitmap combined = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(combined);
+        canvas.drawBitmap(iconBitmap, 0, 0, null);
+        canvas.drawBitmap(viewBitmap, 0, 0, null);
+
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            MarkerIconCache.getInstance().release(icon, null);
+            composites.put(key, combined);
+            List<Callback> waiting = pending.remove(key);
+            for (Callback callback : waiting) {
+              callback.onComposited(combined);
+            }
+          }
+        });
+      }
+    });
+  }
+}
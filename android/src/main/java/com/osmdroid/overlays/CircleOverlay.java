@@ -0,0 +1,256 @@
+package com.osmdroid.overlays;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.view.MotionEvent;
+
+import org.osmdroid.util.PointL;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+/**
+ * Circle on the ground, drawn straight from its center and radius instead of from a list of
+ * points.
+ *
+ * While the Mercator projection stretches the circle by less than half a pixel it is drawn with a
+ * single {@link Canvas#drawCircle}. Otherwise it is drawn as a polygon with as many vertices as
+ * its on-screen radius needs. The vertices are offsets from the center in world units, computed
+ * from a shared template of unit bearings only when the center, radius or vertex count changes;
+ * each frame only scales and translates them. Moving the circle or changing its radius allocates
+ * nothing.
+ */
+public class CircleOverlay extends Overlay {
+
+  // the sphere osmdroid computes destinations on
+  static final double EARTH_RADIUS = 6378137;
+  static final int MIN_VERTICES = 16;
+  static final int MAX_VERTICES = 512;
+
+  // sine and cosine of evenly spaced bearings, per power of two vertex count
+  private static final double[][] bearings = new double[Integer.numberOfTrailingZeros(MAX_VERTICES) + 1][];
+
+  private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Path path = new Path();
+  private final PointL projectedOrigin = new PointL();
+  private final PointL pixelOrigin = new PointL();
+
+  private boolean hasCenter = false;
+  private double latitude;
+  private double longitude;
+  private double radius;
+
+  // center, and distance to the north, south and east edges, in world units
+  private boolean geometryValid = false;
+  private double centerX;
+  private double centerY;
+  private double radiusNorth;
+  private double radiusSouth;
+  private double radiusEast;
+
+  // vertex offsets from the center in world units, x then y
+  private final double[] offsets = new double[MAX_VERTICES * 2];
+  private int vertexCount = 0;
+
+  public CircleOverlay() {
+    fillPaint.setStyle(Paint.Style.FILL);
+    strokePaint.setStyle(Paint.Style.STROKE);
+  }
+
+  public void setCenter(double latitude, double longitude) {
+    this.latitude = latitude;
+    this.longitude = longitude;
+    hasCenter = true;
+    geometryValid = false;
+  }
+
+  /**
+   * @param radius in meters
+   */
+  public void setRadius(double radius) {
+    this.radius = radius;
+    geometryValid = false;
+  }
+
+  public void setFillColor(int color) {
+    fillPaint.setColor(color);
+  }
+
+  public void setStrokeColor(int color) {
+    strokePaint.setColor(color);
+  }
+
+  public void setStrokeWidth(float width) {
+    strokePaint.setStrokeWidth(width);
+  }
+
+  /**
+   * Writes the bounds of the circle, as west longitude, south latitude, east longitude, north
+   * latitude, to {@code out}.
+   *
+   * @return false when the circle has no center yet
+   */
+  public boolean getBounds(double[] out) {
+    if (!hasCenter) return false;
+    double distance = Math.max(radius, 0) / EARTH_RADIUS;
+    double latitudeSpan = Math.toDegrees(distance);
+    double cosLatitude = Math.cos(Math.toRadians(latitude));
+    out[1] = Math.max(-90, latitude - latitudeSpan);
+    out[3] = Math.min(90, latitude + latitudeSpan);
+    if (out[1] <= -90 || out[3] >= 90 || Math.sin(distance) >= cosLatitude) {
+      // the circle holds a pole
+      out[0] = -180;
+      out[2] = 180;
+      return true;
+    }
+    double longitudeSpan = Math.toDegrees(Math.asin(Math.sin(distance) / cosLatitude));
+    if (longitude - longitudeSpan < -180 || longitude + longitudeSpan > 180) {
+      // crosses the antimeridian
+      out[0] = -180;
+      out[2] = 180;
+    } else {
+      out[0] = longitude - longitudeSpan;
+      out[2] = longitude + longitudeSpan;
+    }
+    return true;
+  }
+
+  @Override
+  public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+    if (shadow || !hasCenter || radius <= 0) return;
+    if (!geometryValid) {
+      updateGeometry();
+    }
+    Projection projection = mapView.getProjection();
+    projectedOrigin.set(0, 0);
+    projection.getLongPixelsFromProjected(projectedOrigin, projection.getProjectedPowerDifference(),
+        false, pixelOrigin);
+    double worldSize = projection.getWorldMapSize();
+
+    // whole worlds to move the circle by to reach the copy of the world on screen
+    double screenX = (mapView.getWidth() / 2.0 - pixelOrigin.x) / worldSize;
+    double shift = mapView.isHorizontalMapRepetitionEnabled() ? Math.rint(screenX - centerX) : 0;
+    double x = pixelOrigin.x + (centerX + shift) * worldSize;
+    double y = pixelOrigin.y + centerY * worldSize;
+    double north = radiusNorth * worldSize;
+    double south = radiusSouth * worldSize;
+    double east = radiusEast * worldSize;
+
+    // the circle around the screen holds it at any rotation
+    double reach = Math.max(Math.max(north, south), east) + strokePaint.getStrokeWidth();
+    double screenRadius = Math.hypot(mapView.getWidth(), mapView.getHeight()) / 2;
+    if (Math.hypot(x - mapView.getWidth() / 2.0, y - mapView.getHeight() / 2.0) > screenRadius + reach) {
+      return;
+    }
+
+    boolean fill = (fillPaint.getColor() >>> 24) != 0;
+    boolean stroke = strokePaint.getStrokeWidth() > 0 && (strokePaint.getColor() >>> 24) != 0;
+    if (Math.abs(north - south) < 0.5 && Math.abs((north + south) / 2 - east) < 0.5) {
+      float pixelRadius = (float) ((north + south + 2 * east) / 4);
+      if (fill) canvas.drawCircle((float) x, (float) y, pixelRadius, fillPaint);
+      if (stroke) canvas.drawCircle((float) x, (float) y, pixelRadius, strokePaint);
+      return;
+    }
+
+    int count = vertexCountFor(Math.max(Math.max(north, south), east));
+    if (count != vertexCount) {
+      updateOffsets(count);
+    }
+    path.rewind();
+    path.moveTo((float) (x + offsets[0] * worldSize), (float) (y + offsets[1] * worldSize));
+    for (int i = 1; i < vertexCount; i++) {
+      path.lineTo((float) (x + offsets[i * 2] * worldSize), (float) (y + offsets[i * 2 + 1] * worldSize));
+    }
+    path.close();
+    if (fill) canvas.drawPath(path, fillPaint);
+    if (stroke) canvas.drawPath(path, strokePaint);
+  }
+
+  private void updateGeometry() {
+    centerX = mercatorX(longitude);
+    centerY = mercatorY(latitude);
+    double distance = radius / EARTH_RADIUS;
+    radiusNorth = centerY - mercatorY(latitude + Math.toDegrees(distance));
+    radiusSouth = mercatorY(latitude - Math.toDegrees(distance)) - centerY;
+    double phi = Math.toRadians(latitude);
+    radiusEast = Math.atan2(Math.sin(distance) * Math.cos(phi),
+        Math.cos(distance) - Math.sin(phi) * Math.sin(phi) * Math.cos(distance)) / (2 * Math.PI);
+    geometryValid = true;
+    // the offsets are for the old center and radius
+    vertexCount = 0;
+  }
+
+  private void updateOffsets(int count) {
+    computeOffsets(latitude, radius, count, offsets);
+    vertexCount = count;
+  }
+
+  /**
+   * Vertices the circle needs for its edges to stay within half a pixel of the true circle, as a
+   * power of two between {@link #MIN_VERTICES} and {@link #MAX_VERTICES}.
+   */
+  static int vertexCountFor(double pixelRadius) {
+    int count = MIN_VERTICES;
+    if (pixelRadius <= 0.5) return count;
+    // an edge across angle a sags r * (1 - cos(a / 2)) from the circle
+    double needed = Math.PI / Math.acos(1 - 0.5 / pixelRadius);
+    while (count < needed && count < MAX_VERTICES) {
+      count <<= 1;
+    }
+    return count;
+  }
+
+  /**
+   * Writes to {@code out} the offsets in world units from the center of each of {@code count}
+   * points on the circle, starting due north, x then y.
+   */
+  static void computeOffsets(double latitude, double radius, int count, double[] out) {
+    double[] unit = bearings(count);
+    double distance = radius / EARTH_RADIUS;
+    double sinDistance = Math.sin(distance);
+    double cosDistance = Math.cos(distance);
+    double phi = Math.toRadians(latitude);
+    double sinPhi = Math.sin(phi);
+    double cosPhi = Math.cos(phi);
+    double centerY = mercatorY(latitude);
+    for (int i = 0; i < count; i++) {
+      double sinBearing = unit[i * 2];
+      double cosBearing = unit[i * 2 + 1];
+      double sinLatitude = sinPhi * cosDistance + cosPhi * sinDistance * cosBearing;
+      double longitudeDelta = Math.atan2(sinBearing * sinDistance * cosPhi, cosDistance - sinPhi * sinLatitude);
+      out[i * 2] = longitudeDelta / (2 * Math.PI);
+      out[i * 2 + 1] = mercatorY(Math.toDegrees(Math.asin(sinLatitude))) - centerY;
+    }
+  }
+
+  private static double[] bearings(int count) {
+    int level = Integer.numberOfTrailingZeros(count);
+    double[] unit = bearings[level];
+    if (unit == null) {
+      unit = new double[count * 2];
+      for (int i = 0; i < count; i++) {
+        double bearing = 2 * Math.PI * i / count;
+        unit[i * 2] = Math.sin(bearing);
+        unit[i * 2 + 1] = Math.cos(bearing);
+      }
+      bearings[level] = unit;
+    }
+    return unit;
+  }
+
+  private static double mercatorX(double longitude) {
+    return (longitude + 180) / 360;
+  }
+
+  private static double mercatorY(double latitude) {
+    double sin = Math.sin(Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, latitude))));
+    return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+  }
+
+  @Override
+  public boolean onSingleTapConfirmed(MotionEvent e, MapView mapView) {
+    return false;
+  }
+}
@@ -0,0 +1,21 @@
+package com.osmdroid.overlays;
+
+import android.view.MotionEvent;
+
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Marker;
+
+/**
+ * Marker whose taps are resolved by {@link com.osmdroid.OsmMapView} through its feature index, so a
+ * tap doesn't hit-test every marker on the map.
+ */
+public class IndexedMarker extends Marker {
+
+  public IndexedMarker(MapView mapView) {
+    super(mapView);
+  }
+
+  @Override public boolean onSingleTapConfirmed(MotionEvent event, MapView mapView) {
+    return false;
+  }
+}
@@ -0,0 +1,49 @@
+package com.osmdroid.overlays;
+
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+
+import com.osmdroid.utils.LineSimplification;
+
+import org.osmdroid.util.TileSystem;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Polygon;
+
+/**
+ * Polygon that ignores taps on its own; {@link com.osmdroid.OsmMapView} looks tapped polygons up in
+ * its feature index and runs the containment test on those candidates only.
+ */
+public class IndexedPolygon extends Polygon {
+
+  private LineSimplification simplification;
+  private int shownLevel = -1;
+
+  public IndexedPolygon() {
+  }
+
+  /**
+   * Draws the points {@code simplification} keeps at the current zoom level instead of all of
+   * them. The points are only replaced when the zoom crosses a level. Null draws the points set
+   * last.
+   */
+  public void setSimplification(LineSimplification simplification) {
+    this.simplification = simplification;
+    shownLevel = -1;
+  }
+
+  @Override public void draw(Canvas canvas, Projection projection) {
+    if (simplification != null) {
+      int level = LineSimplification.levelFor(TileSystem.MapSize(projection.getZoomLevel()));
+      if (level != shownLevel) {
+        shownLevel = level;
+        setPoints(simplification.getPoints(level));
+      }
+    }
+    super.draw(canvas, projection);
+  }
+
+  @Override public boolean onSingleTapConfirmed(MotionEvent event, MapView mapView) {
+    return false;
+  }
+}
@@ -0,0 +1,80 @@
+package com.osmdroid.overlays;
+
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+
+import com.osmdroid.utils.LineSimplification;
+
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.util.TileSystem;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Polyline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Polyline that leaves taps to {@link com.osmdroid.OsmMapView}, which only measures the distance to
+ * the polylines whose bounds are near the finger.
+ */
+public class IndexedPolyline extends Polyline {
+
+  private LineSimplification simplification;
+  // points added after the ones the simplification was built from, drawn as they are
+  private final List<GeoPoint> tail = new ArrayList<>();
+  private int shownLevel = -1;
+
+  public IndexedPolyline() {
+  }
+
+  /**
+   * Draws the points {@code simplification} keeps at the current zoom level instead of all of
+   * them. The points are only replaced when the zoom crosses a level. Null draws the points set
+   * last.
+   *
+   * @param tail points of the line past the ones {@code simplification} was built from
+   */
+  public void setSimplification(LineSimplification simplification, List<GeoPoint> tail) {
+    this.simplification = simplification;
+    this.tail.clear();
+    if (simplification != null) {
+      this.tail.addAll(tail);
+    }
+    shownLevel = -1;
+  }
+
+  /**
+   * Adds points to the end of the line without setting the others again.
+   */
+  public void appendPoints(List<GeoPoint> points) {
+    for (int i = 0; i < points.size(); i++) {
+      addPoint(points.get(i));
+    }
+    if (simplification != null) {
+      tail.addAll(points);
+    }
+  }
+
+  @Override public void draw(Canvas canvas, Projection projection) {
+    if (simplification != null) {
+      int level = LineSimplification.levelFor(TileSystem.MapSize(projection.getZoomLevel()));
+      if (level != shownLevel) {
+        shownLevel = level;
+        List<GeoPoint> points = simplification.getPoints(level);
+        if (!tail.isEmpty()) {
+          List<GeoPoint> joined = new ArrayList<>(points.size() + tail.size());
+          joined.addAll(points);
+          joined.addAll(tail);
+          points = joined;
+        }
+        setPoints(points);
+      }
+    }
+    super.draw(canvas, projection);
+  }
+
+  @Override public boolean onSingleTapConfirmed(MotionEvent event, MapView mapView) {
+    return false;
+  }
+}
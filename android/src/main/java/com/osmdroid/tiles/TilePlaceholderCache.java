@@ -0,0 +1,141 @@
+package com.osmdroid.tiles;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.osmdroid.views.MapView;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loading and failure placeholders for tile layers, prerendered once per map.
+ *
+ * Each image is decoded off the UI thread and drawn into a single tile-sized bitmap, and the
+ * resulting drawable is shared by every tile slot of the map (and by every tile layer of the map
+ * that asks for the same image), so drawing a missing tile is a plain bitmap blit.
+ */
+public class TilePlaceholderCache {
+
+  private static final String TAG = "TilePlaceholderCache";
+
+  private static final Map<MapView, TilePlaceholderCache> caches = new WeakHashMap<>();
+  private static final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor();
+
+  private final Context context;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, BitmapDrawable> placeholders = new HashMap<>();
+  private final Map<String, List<Callback>> pending = new HashMap<>();
+
+  public interface Callback {
+    void onPlaceholderReady(BitmapDrawable placeholder);
+  }
+
+  private TilePlaceholderCache(Context context) {
+    this.context = context.getApplicationContext();
+  }
+
+  public static TilePlaceholderCache forMap(MapView map) {
+    TilePlaceholderCache cache = caches.get(map);
+    if (cache == null) {
+      cache = new TilePlaceholderCache(map.getContext());
+      caches.put(map, cache);
+    }
+    return cache;
+  }
+
+  /**
+   * Delivers the placeholder for {@code uri} at {@code tileSize} on the main thread, immediately if
+   * it was already rendered for this map. Nothing is delivered when the image cannot be loaded.
+   */
+  public void get(final String uri, final int tileSize, Callback callback) {
+    final String key = tileSize + ":" + uri;
+    BitmapDrawable placeholder = placeholders.get(key);
+    if (placeholder != null) {
+      callback.onPlaceholderReady(placeholder);
+      return;
+    }
+    List<Callback> waiting = pending.get(key);
+    if (waiting != null) {
+      waiting.add(callback);
+      return;
+    }
+    waiting = new ArrayList<>();
+    waiting.add(callback);
+    pending.put(key, waiting);
+
+    decodeExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        final Bitmap bitmap = render(decode(uri), tileSize);
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            List<Callback> callbacks = pending.remove(key);
+            if (bitmap == null || callbacks == null) {
+              return;
+            }
+            BitmapDrawable drawable = new BitmapDrawable(context.getResources(), bitmap);
+            placeholders.put(key, drawable);
+            for (Callback waitingCallback : callbacks) {
+              waitingCallback.onPlaceholderReady(drawable);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private Bitmap decode(String uri) {
+    try {
+      if (uri.startsWith("http://") || uri.startsWith("https://")) {
+        InputStream stream = new URL(uri).openStream();
+        try {
+          return BitmapFactory.decodeStream(stream);
+        } finally {
+          stream.close();
+        }
+      }
+      if (uri.startsWith("file://")) {
+        return BitmapFactory.decodeFile(uri.substring("file://".length()));
+      }
+      int resourceId = context.getResources().getIdentifier(uri, "drawable", context.getPackageName());
+      if (resourceId != 0) {
+        return BitmapFactory.decodeResource(context.getResources(), resourceId);
+      }
+      return BitmapFactory.decodeFile(uri);
+    } catch (Exception e) {
+      Log.w(TAG, "Cannot load tile placeholder " + uri, e);
+      return null;
+    }
+  }
+
+  private static Bitmap render(Bitmap source, int tileSize) {
+    if (source == null) {
+      return null;
+    }
+    if (source.getWidth() == tileSize && source.getHeight() == tileSize) {
+      return source;
+    }
+    Bitmap tile = Bitmap.createBitmap(tileSize, tileSize, Bitmap.Config.ARGB_8888);
+    new Canvas(tile).drawBitmap(source, null, new Rect(0, 0, tileSize, tileSize),
+        new Paint(Paint.FILTER_BITMAP_FLAG));
+    source.recycle();
+    return tile;
+  }
+}
@@ -0,0 +1,186 @@
+package com.osmdroid.tiles;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.ExpirableBitmapDrawable;
+import org.osmdroid.tileprovider.IRegisterReceiver;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase.CantContinueException;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
+
+/**
+ * Serves a missing tile by upscaling the matching part of the nearest cached ancestor tile.
+ *
+ * Meant to be the last module of an offline provider chain: it only sees tiles every other module
+ * failed to load. Decoded ancestors are kept in memory so the sibling tiles sharing an ancestor are
+ * cropped from the same bitmap instead of hitting the disk again, and ancestors known to be missing
+ * are remembered so a sparse pack doesn't keep probing the same files.
+ */
+public class ZoomFallbackTileProvider extends MapTileModuleProviderBase {
+
+  private static final int MISSING_CACHE_SIZE = 1024;
+
+  private final MapTileModuleProviderBase[] sources;
+  private final int maxZoomDiff;
+  private final LruCache<Long, Bitmap> ancestorCache;
+  private final LruCache<Long, Boolean> missingAncestors = new LruCache<>(MISSING_CACHE_SIZE);
+  private final Paint scalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+  private ITileSource tileSource;
+
+  public ZoomFallbackTileProvider(IRegisterReceiver registerReceiver,
+                                  ITileSource tileSource,
+                                  MapTileModuleProviderBase[] sources,
+                                  int maxZoomDiff) {
+    super(Configuration.getInstance().getTileFileSystemThreads(),
+        Configuration.getInstance().getTileFileSystemMaxQueueSize());
+    this.tileSource = tileSource;
+    this.sources = sources;
+    this.maxZoomDiff = maxZoomDiff;
+
+    // an eighth of the heap is plenty: a few dozen ancestors cover a whole screen
+    int cacheSizeKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+    ancestorCache = new LruCache<Long, Bitmap>(cacheSizeKb) {
+      @Override
+      protected int sizeOf(Long key, Bitmap bitmap) {
+        return bitmap.getByteCount() / 1024;
+      }
+    };
+  }
+
+  @Override
+  public boolean getUsesDataConnection() {
+    return false;
+  }
+
+  @Override
+  protected String getName() {
+    return "Zoom fallback provider";
+  }
+
+  @Override
+  protected String getThreadGroupName() {
+    return "zoomFallback";
+  }
+
+  @Override
+  public TileLoader getTileLoader() {
+    return new FallbackTileLoader();
+  }
+
+  @Override
+  public int getMinimumZoomLevel() {
+    return tileSource != null ? tileSource.getMinimumZoomLevel() : 0;
+  }
+
+  @Override
+  public int getMaximumZoomLevel() {
+    return tileSource != null ? tileSource.getMaximumZoomLevel() : 29;
+  }
+
+  @Override
+  public void setTileSource(ITileSource tileSource) {
+    this.tileSource = tileSource;
+    ancestorCache.evictAll();
+    missingAncestors.evictAll();
+  }
+
+  @Override
+  public void detach() {
+    ancestorCache.evictAll();
+    missingAncestors.evictAll();
+    super.detach();
+  }
+
+  /**
+   * Returns the area of an ancestor tile, {@code zoomDiff} levels up, that covers tile
+   * ({@code x}, {@code y}), or null when that area would be less than a pixel wide.
+   */
+  public static Rect ancestorSourceRect(int x, int y, int zoomDiff, int tileSize) {
+    int size = tileSize >> zoomDiff;
+    if (size < 1) {
+      return null;
+    }
+    int mask = (1 << zoomDiff) - 1;
+    int left = (x & mask) * size;
+    int top = (y & mask) * size;
+    return new Rect(left, top, left + size, top + size);
+  }
+
+  private Bitmap loadAncestor(long ancestorIndex) {
+    Bitmap cached = ancestorCache.get(ancestorIndex);
+    if (cached != null) {
+      return cached;
+    }
+    if (missingAncestors.get(ancestorIndex) != null) {
+      return null;
+    }
+    boolean sourceFailed = false;
+    for (MapTileModuleProviderBase source : sources) {
+      Drawable drawable;
+      try {
+        drawable = source.getTileLoader().loadTileIfReachable(ancestorIndex);
+      } catch (CantContinueException e) {
+        // that source is out of order, the others may still have the ancestor
+        sourceFailed = true;
+        continue;
+      }
+      if (drawable instanceof BitmapDrawable) {
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        if (bitmap != null && !bitmap.isRecycled()) {
+          ancestorCache.put(ancestorIndex, bitmap);
+          return bitmap;
+        }
+      }
+    }
+    // only remembered as missing when every source could look for it
+    if (!sourceFailed) {
+      missingAncestors.put(ancestorIndex, Boolean.TRUE);
+    }
+    return null;
+  }
+
+  private class FallbackTileLoader extends TileLoader {
+
+    @Override
+    public Drawable loadTile(long pMapTileIndex) {
+      if (tileSource == null) {
+        return null;
+      }
+      int zoom = MapTileIndex.getZoom(pMapTileIndex);
+      int x = MapTileIndex.getX(pMapTileIndex);
+      int y = MapTileIndex.getY(pMapTileIndex);
+      int tileSize = tileSource.getTileSizePixels();
+
+      for (int zoomDiff = 1; zoomDiff <= maxZoomDiff && zoom - zoomDiff >= 0; zoomDiff++) {
+        long ancestorIndex = MapTileIndex.getTileIndex(zoom - zoomDiff, x >> zoomDiff, y >> zoomDiff);
+        Bitmap ancestor = loadAncestor(ancestorIndex);
+        if (ancestor == null) {
+          continue;
+        }
+
+        // ancestors may be stored at a different resolution than the source advertises
+        Rect src = ancestorSourceRect(x, y, zoomDiff, ancestor.getWidth());
+        if (src == null) {
+          return null;
+        }
+        Bitmap tile = Bitmap.createBitmap(tileSize, tileSize, Bitmap.Config.ARGB_8888);
+        new Canvas(tile).drawBitmap(ancestor, src, new Rect(0, 0, tileSize, tileSize), scalePaint);
+
+        BitmapDrawable drawable = new BitmapDrawable(null, tile);
+        // flag it as scaled so a real tile replaces it as soon as one becomes available
+        ExpirableBitmapDrawable.setState(drawable, ExpirableBitmapDrawable.SCALED);
+        return drawable;
+      }
+      return null;
+    }
+  }
+}
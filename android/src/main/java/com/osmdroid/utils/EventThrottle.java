@@ -0,0 +1,68 @@
+package com.osmdroid.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Limits how often a continuous event stream is emitted.
+ *
+ * Callers {@link #request()} an emission whenever their state changes; the emitter runs at most once
+ * per interval and reads the latest state itself, so intermediate states are never materialized.
+ * A request that arrives inside the interval schedules one trailing emission, which guarantees the
+ * last state is sent. With an interval of 0 every request emits immediately.
+ */
+public class EventThrottle {
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable emitter;
+  private long intervalMs = 0;
+  private long lastEmitTime = 0;
+  private boolean trailingScheduled = false;
+
+  private final Runnable trailing = new Runnable() {
+    @Override
+    public void run() {
+      trailingScheduled = false;
+      lastEmitTime = SystemClock.uptimeMillis();
+      emitter.run();
+    }
+  };
+
+  public EventThrottle(Runnable emitter) {
+    this.emitter = emitter;
+  }
+
+  public void setInterval(long intervalMs) {
+    this.intervalMs = Math.max(0, intervalMs);
+  }
+
+  public void request() {
+    if (intervalMs == 0) {
+      emitter.run();
+      return;
+    }
+    if (trailingScheduled) {
+      return;
+    }
+    long now = SystemClock.uptimeMillis();
+    long wait = lastEmitTime + intervalMs - now;
+    if (wait <= 0) {
+      lastEmitTime = now;
+      emitter.run();
+    } else {
+      trailingScheduled = true;
+      handler.postDelayed(trailing, wait);
+    }
+  }
+
+  /**
+   * Drops a pending trailing emission, e.g. when the stream ends with its own final event.
+   */
+  public void cancel() {
+    if (trailingScheduled) {
+      handler.removeCallbacks(trailing);
+      trailingScheduled = false;
+    }
+  }
+}
@@ -0,0 +1,363 @@
+package com.osmdroid.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * R-tree over the bounding boxes of map features, kept up to date one feature at a time.
+ *
+ * Boxes are given as longitude ({@code x}) / latitude ({@code y}) ranges. Items are inserted,
+ * moved and removed incrementally (Guttman's R-tree with linear splits and re-insertion of
+ * underfull nodes), so adding or removing a single feature never rebuilds the whole tree.
+ */
+public class FeatureIndex<T> {
+
+  private static final int MAX_ENTRIES = 16;
+  private static final int MIN_ENTRIES = MAX_ENTRIES * 2 / 5;
+
+  private static class Box {
+    double minX, minY, maxX, maxY;
+    Node parent;
+
+    double area() {
+      return (maxX - minX) * (maxY - minY);
+    }
+
+    double enlargedArea(Box other) {
+      return (Math.max(maxX, other.maxX) - Math.min(minX, other.minX))
+          * (Math.max(maxY, other.maxY) - Math.min(minY, other.minY));
+    }
+
+    boolean intersects(double qMinX, double qMinY, double qMaxX, double qMaxY) {
+      return minX <= qMaxX && maxX >= qMinX && minY <= qMaxY && maxY >= qMinY;
+    }
+
+    void setEmpty() {
+      minX = Double.POSITIVE_INFINITY;
+      minY = Double.POSITIVE_INFINITY;
+      maxX = Double.NEGATIVE_INFINITY;
+      maxY = Double.NEGATIVE_INFINITY;
+    }
+
+    void extend(Box other) {
+      minX = Math.min(minX, other.minX);
+      minY = Math.min(minY, other.minY);
+      maxX = Math.max(maxX, other.maxX);
+      maxY = Math.max(maxY, other.maxY);
+    }
+  }
+
+  private static final class Node extends Box {
+    final boolean leaf;
+    final List<Box> children = new ArrayList<>(MAX_ENTRIES + 1);
+
+    Node(boolean leaf) {
+      this.leaf = leaf;
+      setEmpty();
+    }
+
+    void add(Box child) {
+      children.add(child);
+      child.parent = this;
+      extend(child);
+    }
+
+    void recomputeBounds() {
+      setEmpty();
+      for (Box child : children) {
+        extend(child);
+      }
+    }
+  }
+
+  private static final class Entry<T> extends Box {
+    final T item;
+
+    Entry(T item) {
+      this.item = item;
+    }
+  }
+
+  private final Map<T, Entry<T>> entries = new HashMap<>();
+  private Node root = new Node(true);
+
+  public int size() {
+    return entries.size();
+  }
+
+  public boolean contains(T item) {
+    return entries.containsKey(item);
+  }
+
+  public void clear() {
+    entries.clear();
+    root = new Node(true);
+  }
+
+  /**
+   * Adds {@code item}, or moves it if it is already indexed.
+   */
+  public void put(T item, double minX, double minY, double maxX, double maxY) {
+    Entry<T> entry = entries.get(item);
+    if (entry != null) {
+      if (entry.minX == minX && entry.minY == minY && entry.maxX == maxX && entry.maxY == maxY) {
+        return;
+      }
+      detach(entry);
+    } else {
+      entry = new Entry<>(item);
+      entries.put(item, entry);
+    }
+    entry.minX = minX;
+    entry.minY = minY;
+    entry.maxX = maxX;
+    entry.maxY = maxY;
+    insert(entry, 0);
+  }
+
+  /**
+   * Copies the box of {@code item} into {@code out} as minX, minY, maxX, maxY.
+   *
+   * @return false if the item is not indexed
+   */
+  public boolean getBounds(T item, double[] out) {
+    Entry<T> entry = entries.get(item);
+    if (entry == null) {
+      return false;
+    }
+    out[0] = entry.minX;
+    out[1] = entry.minY;
+    out[2] = entry.maxX;
+    out[3] = entry.maxY;
+    return true;
+  }
+
+  public void remove(T item) {
+    Entry<T> entry = entries.remove(item);
+    if (entry != null) {
+      detach(entry);
+    }
+  }
+
+  /**
+   * Appends every item whose box intersects the query box to {@code out}.
+   */
+  @SuppressWarnings("unchecked")
+  public void query(double minX, double minY, double maxX, double maxY, List<T> out) {
+    if (entries.isEmpty() || !root.intersects(minX, minY, maxX, maxY)) {
+      return;
+    }
+    ArrayList<Node> stack = new ArrayList<>();
+    stack.add(root);
+    while (!stack.isEmpty()) {
+      Node node = stack.remove(stack.size() - 1);
+      for (Box child : node.children) {
+        if (!child.intersects(minX, minY, maxX, maxY)) {
+          continue;
+        }
+        if (node.leaf) {
+          out.add(((Entry<T>) child).item);
+        } else {
+          stack.add((Node) child);
+        }
+      }
+    }
+  }
+
+  /**
+   * Inserts an entry (depth 0) or an orphaned subtree (its height) at the matching tree level.
+   */
+  private void insert(Box box, int height) {
+    Node node = root;
+    int level = heightOf(root);
+    while (level > height + 1) {
+      node = chooseChild(node, box);
+      level--;
+    }
+    node.add(box);
+    for (Node parent = node.parent; parent != null; parent = parent.parent) {
+      parent.extend(box);
+    }
+    if (node.children.size() > MAX_ENTRIES) {
+      split(node);
+    }
+  }
+
+  private static Node chooseChild(Node node, Box box) {
+    Node best = null;
+    double bestEnlargement = Double.POSITIVE_INFINITY;
+    double bestArea = Double.POSITIVE_INFINITY;
+    for (Box child : node.children) {
+      double area = child.area();
+      double enlargement = child.enlargedArea(box) - area;
+      if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+        best = (Node) child;
+        bestEnlargement = enlargement;
+        bestArea = area;
+      }
+    }
+    return best;
+  }
+
+  private void split(Node node) {
+    List<Box> children = new ArrayList<>(node.children);
+    node.children.clear();
+    Node sibling = new Node(node.leaf);
+
+    int[] seeds = pickSeeds(children);
+    Box seedA = children.get(seeds[0]);
+    Box seedB = children.get(seeds[1]);
+    node.setEmpty();
+    node.add(seedA);
+    sibling.add(seedB);
+
+    int remaining = children.size() - 2;
+    for (int i = 0; i < children.size(); i++) {
+      if (i == seeds[0] || i == seeds[1]) {
+        continue;
+      }
+      Box child = children.get(i);
+      Node target;
+      if (node.children.size() + remaining == MIN_ENTRIES) {
+        target = node;
+      } else if (sibling.children.size() + remaining == MIN_ENTRIES) {
+        target = sibling;
+      } else {
+        double growA = node.enlargedArea(child) - node.area();
+        double growB = sibling.enlargedArea(child) - sibling.area();
+        target = growA < growB || (growA == growB && node.children.size() <= sibling.children.size())
+            ? node : sibling;
+      }
+      target.add(child);
+      remaining--;
+    }
+
+    Node parent = node.parent;
+    if (parent == null) {
+      Node newRoot = new Node(false);
+      newRoot.add(node);
+      newRoot.add(sibling);
+      root = newRoot;
+      return;
+    }
+    parent.recomputeBounds();
+    parent.add(sibling);
+    if (parent.children.size() > MAX_ENTRIES) {
+      split(parent);
+    }
+  }
+
+  /**
+   * Linear seed selection: the pair with the greatest normalized separation along either axis.
+   */
+  private static int[] pickSeeds(List<Box> boxes) {
+    int highestMinX = 0, lowestMaxX = 0, highestMinY = 0, lowestMaxY = 0;
+    double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < boxes.size(); i++) {
+      Box box = boxes.get(i);
+      if (box.minX > boxes.get(highestMinX).minX) highestMinX = i;
+      if (box.maxX < boxes.get(lowestMaxX).maxX) lowestMaxX = i;
+      if (box.minY > boxes.get(highestMinY).minY) highestMinY = i;
+      if (box.maxY < boxes.get(lowestMaxY).maxY) lowestMaxY = i;
+      minX = Math.min(minX, box.minX);
+      maxX = Math.max(maxX, box.maxX);
+      minY = Math.min(minY, box.minY);
+      maxY = Math.max(maxY, box.maxY);
+    }
+    double widthX = Math.max(maxX - minX, Double.MIN_VALUE);
+    double widthY = Math.max(maxY - minY, Double.MIN_VALUE);
+    double separationX = (boxes.get(highestMinX).minX - boxes.get(lowestMaxX).maxX) / widthX;
+    double separationY = (boxes.get(highestMinY).minY - boxes.get(lowestMaxY).maxY) / widthY;
+
+    int a, b;
+    if (separationX >= separationY) {
+      a = lowestMaxX;
+      b = highestMinX;
+    } else {
+      a = lowestMaxY;
+      b = highestMinY;
+    }
+    if (a == b) {
+      b = a == 0 ? 1 : 0;
+    }
+    return new int[]{a, b};
+  }
+
+  private void detach(Entry<T> entry) {
+    Node leaf = entry.parent;
+    leaf.children.remove(entry);
+    entry.parent = null;
+
+    // condense: drop underfull nodes on the way up and re-insert what they held
+    List<Box> orphans = new ArrayList<>();
+    List<Integer> orphanHeights = new ArrayList<>();
+    Node node = leaf;
+    int height = 0;
+    while (node != root) {
+      Node parent = node.parent;
+      if (node.children.size() < MIN_ENTRIES) {
+        parent.children.remove(node);
+        node.parent = null;
+        for (Box child : node.children) {
+          child.parent = null;
+          orphans.add(child);
+          orphanHeights.add(height);
+        }
+      } else {
+        node.recomputeBounds();
+      }
+      node = parent;
+      height++;
+    }
+    root.recomputeBounds();
+
+    while (!root.leaf && root.children.size() == 1) {
+      root = (Node) root.children.get(0);
+      root.parent = null;
+    }
+    if (!root.leaf && root.children.isEmpty()) {
+      root = new Node(true);
+    }
+
+    for (int i = 0; i < orphans.size(); i++) {
+      Box orphan = orphans.get(i);
+      int orphanHeight = orphanHeights.get(i);
+      if (orphanHeight >= heightOf(root)) {
+        // the tree shrank below this subtree: fall back to re-inserting its entries one by one
+        reinsertEntries(orphan);
+      } else {
+        insert(orphan, orphanHeight);
+      }
+    }
+  }
+
+  private void reinsertEntries(Box box) {
+    if (box instanceof Entry) {
+      insert(box, 0);
+      return;
+    }
+    for (Box child : new ArrayList<>(((Node) box).children)) {
+      child.parent = null;
+      reinsertEntries(child);
+    }
+  }
+
+  /**
+   * Height of the subtree rooted at {@code box}: 0 for an entry, 1 for a leaf node.
+   */
+  private static int depthOf(Box box) {
+    int height = 0;
+    while (box instanceof Node) {
+      height++;
+      box = ((Node) box).children.isEmpty() ? null : ((Node) box).children.get(0);
+    }
+    return height;
+  }
+
+  private static int heightOf(Node node) {
+    return depthOf(node);
+  }
+}
@@ -3,9 +3,7 @@ package com.osmdroid.utils;
 import android.content.Context;
 import android.net.Uri;
 import android.os.AsyncTask;
-
-import com.facebook.common.logging.FLog;
-import com.facebook.react.common.ReactConstants;
+import android.util.Log;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -40,10 +38,7 @@ public class FileUtil extends AsyncTask<String, Void, InputStream> {
       return context.getContentResolver().openInputStream(fileContentUri);
     } catch (Exception e) {
       this.exception = e;
-      FLog.e(
-          ReactConstants.TAG,
-          "Could not retrieve file for contentUri " + urls[0],
-          e);
+      Log.e(NAME, "Could not retrieve file for contentUri " + urls[0], e);
       return null;
     }
   }
@@ -1,24 +1,25 @@
 package com.osmdroid.utils;
 
 import org.osmdroid.util.BoundingBox;
-import org.osmdroid.util.GeoPoint;
 
 public class LatLngBoundsUtils {
     public static boolean BoundsAreDifferent(BoundingBox a, BoundingBox b) {
-        GeoPoint centerA = a.getCenterWithDateLine();
-        double latA = centerA.getLatitude();
-        double lngA = centerA.getLongitude();
-        double latDeltaA = a.getLatitudeSpan();
-        double lngDeltaA = a.getLongitudeSpanWithDateLine();
-
-        GeoPoint centerB = b.getCenterWithDateLine();
-        double latB = centerB.getLatitude();
-        double lngB = centerB.getLongitude();
-        double latDeltaB = b.getLatitudeSpan();
-        double lngDeltaB = b.getLongitudeSpanWithDateLine();
+        return BoundsAreDifferent(
+                a.getCenterLatitude(), a.getCenterLongitude(),
+                a.getLatitudeSpan(), a.getLongitudeSpanWithDateLine(),
+                b.getCenterLatitude(), b.getCenterLongitude(),
+                b.getLatitudeSpan(), b.getLongitudeSpanWithDateLine());
+    }
 
-        double latEps = LatitudeEpsilon(a, b);
-        double lngEps = LongitudeEpsilon(a, b);
+    /**
+     * Same comparison as {@link #BoundsAreDifferent(BoundingBox, BoundingBox)} on regions given as
+     * center and span, so callers sampling the map every frame can keep the last region in fields
+     * instead of allocating bounds and center points.
+     */
+    public static boolean BoundsAreDifferent(double latA, double lngA, double latDeltaA, double lngDeltaA,
+                                             double latB, double lngB, double latDeltaB, double lngDeltaB) {
+        double latEps = Epsilon(latDeltaA, latDeltaB);
+        double lngEps = Epsilon(lngDeltaA, lngDeltaB);
 
         return
                 different(latA, latB, latEps) ||
@@ -31,16 +32,7 @@ public class LatLngBoundsUtils {
         return Math.abs(a - b) > epsilon;
     }
 
-    private static double LatitudeEpsilon(BoundingBox a, BoundingBox b) {
-        double sizeA = a.getLatitudeSpan(); // something mod 180?
-        double sizeB = b.getLatitudeSpan(); // something mod 180?
-        double size = Math.min(Math.abs(sizeA), Math.abs(sizeB));
-        return size / 2560;
-    }
-
-    private static double LongitudeEpsilon(BoundingBox a, BoundingBox b) {
-        double sizeA = a.getLongitudeSpanWithDateLine();
-        double sizeB = b.getLongitudeSpanWithDateLine();
+    private static double Epsilon(double sizeA, double sizeB) {
         double size = Math.min(Math.abs(sizeA), Math.abs(sizeB));
         return size / 2560;
     }
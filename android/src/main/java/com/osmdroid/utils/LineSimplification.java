@@ -0,0 +1,153 @@
+package com.osmdroid.utils;
+
+import org.osmdroid.util.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Douglas-Peucker simplification of a line or ring for every zoom level at once.
+ *
+ * Building ranks every vertex by the tolerance at which Douglas-Peucker would drop it, measured in
+ * Web Mercator world units (the whole map being 1 x 1), in a single run of the algorithm. The
+ * points kept at a zoom level are those ranked above that level's tolerance, so every level is cut
+ * from the same ranking and is a subset of the next one. Levels from the one that keeps every
+ * point upwards share the original list. Build off the UI thread; the result is immutable.
+ */
+public final class LineSimplification {
+
+  public static final int MAX_LEVEL = 22;
+
+  private static final double TILE_SIZE = 256;
+
+  private final List<GeoPoint> points;
+  private final List<List<GeoPoint>> levels;
+
+  private LineSimplification(List<GeoPoint> points, List<List<GeoPoint>> levels) {
+    this.points = points;
+    this.levels = levels;
+  }
+
+  /**
+   * @param tolerance how far (pixels) a line may be moved by dropping points at any zoom level
+   */
+  public static LineSimplification build(List<GeoPoint> points, double tolerance) {
+    int n = points.size();
+    double[] x = new double[n];
+    double[] y = new double[n];
+    for (int i = 0; i < n; i++) {
+      GeoPoint point = points.get(i);
+      x[i] = (point.getLongitude() + 180) / 360;
+      double sin = Math.sin(Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, point.getLatitude()))));
+      y[i] = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+    double[] ranks = rank(x, y);
+
+    List<List<GeoPoint>> levels = new ArrayList<>();
+    for (int level = 0; level <= MAX_LEVEL; level++) {
+      double levelTolerance = tolerance / (TILE_SIZE * (1 << level));
+      List<GeoPoint> kept = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        if (ranks[i] > levelTolerance) {
+          kept.add(points.get(i));
+        }
+      }
+      if (kept.size() == n) {
+        // nothing is dropped from here on
+        break;
+      }
+      levels.add(Collections.unmodifiableList(kept));
+    }
+    return new LineSimplification(points, levels);
+  }
+
+  /**
+   * Points to draw at a zoom level; see {@link #levelFor}.
+   */
+  public List<GeoPoint> getPoints(int level) {
+    return level < levels.size() ? levels.get(level) : points;
+  }
+
+  /**
+   * Number of points the simplification was built from.
+   */
+  public int size() {
+    return points.size();
+  }
+
+  /**
+   * Level whose tolerance holds for a map {@code mapSize} pixels wide.
+   */
+  public static int levelFor(double mapSize) {
+    int level = (int) Math.floor(Math.log(mapSize / TILE_SIZE) / Math.log(2));
+    return Math.max(0, Math.min(MAX_LEVEL, level));
+  }
+
+  /**
+   * Douglas-Peucker rank of each vertex: the largest tolerance at which it is still kept. The end
+   * points are never dropped. A vertex never ranks above the vertex that split its range, so the
+   * points kept at any tolerance are exactly what Douglas-Peucker keeps at that tolerance.
+   */
+  static double[] rank(double[] x, double[] y) {
+    int n = x.length;
+    double[] ranks = new double[n];
+    if (n == 0) return ranks;
+    ranks[0] = Double.POSITIVE_INFINITY;
+    ranks[n - 1] = Double.POSITIVE_INFINITY;
+
+    // ranges still to split, with the rank of the vertex that made them; at most n are pending
+    int[] firsts = new int[n];
+    int[] lasts = new int[n];
+    double[] parentRanks = new double[n];
+    int pending = 0;
+    firsts[0] = 0;
+    lasts[0] = n - 1;
+    parentRanks[0] = Double.POSITIVE_INFINITY;
+    pending++;
+    while (pending > 0) {
+      pending--;
+      int first = firsts[pending];
+      int last = lasts[pending];
+      double parentRank = parentRanks[pending];
+      if (last - first < 2) continue;
+
+      int split = -1;
+      double maxDistance = -1;
+      for (int i = first + 1; i < last; i++) {
+        double distance = segmentDistanceSquared(x[i], y[i], x[first], y[first], x[last], y[last]);
+        if (distance > maxDistance) {
+          maxDistance = distance;
+          split = i;
+        }
+      }
+      double rank = Math.min(Math.sqrt(maxDistance), parentRank);
+      ranks[split] = rank;
+      if (split - first >= 2) {
+        firsts[pending] = first;
+        lasts[pending] = split;
+        parentRanks[pending] = rank;
+        pending++;
+      }
+      if (last - split >= 2) {
+        firsts[pending] = split;
+        lasts[pending] = last;
+        parentRanks[pending] = rank;
+        pending++;
+      }
+    }
+    return ranks;
+  }
+
+  private static double segmentDistanceSquared(double px, double py,
+                                               double ax, double ay, double bx, double by) {
+    double dx = bx - ax;
+    double dy = by - ay;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+    double ex = px - (ax + t * dx);
+    double ey = py - (ay + t * dy);
+    return ex * ex + ey * ey;
+  }
+}
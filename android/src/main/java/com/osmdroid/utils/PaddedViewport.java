@@ -0,0 +1,77 @@
+package com.osmdroid.utils;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.views.MapView;
+
+/**
+ * The area around a viewport that was queried last, half a screen larger on each side so that
+ * small pans stay inside it and don't query again.
+ *
+ * Latitudes are clamped to those the map can show. When the padded area is a whole world wide or
+ * more it spans every longitude; otherwise its west edge may lie east of its east edge, when it
+ * crosses the antimeridian.
+ */
+public final class PaddedViewport {
+
+  private boolean empty = true;
+  private double north;
+  private double south;
+  private double west;
+  private double east;
+
+  /**
+   * Pads {@code bounds} by half its span on each side.
+   */
+  public void set(BoundingBox bounds) {
+    double latitudePadding = bounds.getLatitudeSpan() / 2;
+    double longitudePadding = bounds.getLongitudeSpanWithDateLine() / 2;
+    north = Math.min(MapView.getTileSystem().getMaxLatitude(), bounds.getLatNorth() + latitudePadding);
+    south = Math.max(MapView.getTileSystem().getMinLatitude(), bounds.getLatSouth() - latitudePadding);
+    if (bounds.getLongitudeSpanWithDateLine() + 2 * longitudePadding >= 360) {
+      west = -180;
+      east = 180;
+    } else {
+      west = wrapLongitude(bounds.getLonWest() - longitudePadding);
+      east = wrapLongitude(bounds.getLonEast() + longitudePadding);
+    }
+    empty = false;
+  }
+
+  /**
+   * @return whether {@code bounds} lies within the padded area; false before it is first set
+   */
+  public boolean contains(BoundingBox bounds) {
+    if (empty) return false;
+    if (bounds.getLatNorth() > north || bounds.getLatSouth() < south) return false;
+    if (west == -180 && east == 180) return true;
+    return inLongitudeRange(bounds.getLonWest()) && inLongitudeRange(bounds.getLonEast());
+  }
+
+  private boolean inLongitudeRange(double longitude) {
+    return west <= east
+        ? longitude >= west && longitude <= east
+        : longitude >= west || longitude <= east;
+  }
+
+  private static double wrapLongitude(double longitude) {
+    while (longitude < -180) longitude += 360;
+    while (longitude > 180) longitude -= 360;
+    return longitude;
+  }
+
+  public double getNorth() {
+    return north;
+  }
+
+  public double getSouth() {
+    return south;
+  }
+
+  public double getWest() {
+    return west;
+  }
+
+  public double getEast() {
+    return east;
+  }
+}
@@ -0,0 +1,89 @@
+package com.osmdroid.utils;
+
+/**
+ * Encoded polyline algorithm format (as used by Google Maps, OSRM and Valhalla).
+ *
+ * Coordinates are handled as one array of latitude, longitude pairs, so that a whole line crosses
+ * the bridge as a single string and is decoded in one pass without per-vertex objects.
+ */
+public final class PolylineEncoding {
+
+  public static final int DEFAULT_PRECISION = 5;
+
+  private PolylineEncoding() {
+  }
+
+  /**
+   * Decodes {@code encoded} into latitude, longitude pairs.
+   *
+   * @param precision decimal digits the coordinates were encoded with, 5 for Google polylines
+   * @throws IllegalArgumentException if the string ends in the middle of a value
+   */
+  public static double[] decode(String encoded, int precision) {
+    int length = encoded.length();
+    // every value takes at least one character
+    double[] coordinates = new double[length + (length & 1)];
+    double factor = Math.pow(10, precision);
+    int count = 0;
+    int index = 0;
+    long latitude = 0;
+    long longitude = 0;
+    while (index < length) {
+      for (int axis = 0; axis < 2; axis++) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+          if (index >= length) {
+            throw new IllegalArgumentException("Truncated encoded polyline at character " + index);
+          }
+          b = encoded.charAt(index++) - 63;
+          result |= (long) (b & 0x1f) << shift;
+          shift += 5;
+        } while (b >= 0x20);
+        long delta = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+        if (axis == 0) {
+          latitude += delta;
+        } else {
+          longitude += delta;
+        }
+      }
+      coordinates[count++] = latitude / factor;
+      coordinates[count++] = longitude / factor;
+    }
+    if (count == coordinates.length) {
+      return coordinates;
+    }
+    double[] trimmed = new double[count];
+    System.arraycopy(coordinates, 0, trimmed, 0, count);
+    return trimmed;
+  }
+
+  /**
+   * Encodes latitude, longitude pairs.
+   */
+  public static String encode(double[] coordinates, int precision) {
+    double factor = Math.pow(10, precision);
+    StringBuilder encoded = new StringBuilder(coordinates.length * 4);
+    long previousLatitude = 0;
+    long previousLongitude = 0;
+    for (int i = 0; i + 1 < coordinates.length; i += 2) {
+      long latitude = Math.round(coordinates[i] * factor);
+      long longitude = Math.round(coordinates[i + 1] * factor);
+      encodeValue(latitude - previousLatitude, encoded);
+      encodeValue(longitude - previousLongitude, encoded);
+      previousLatitude = latitude;
+      previousLongitude = longitude;
+    }
+    return encoded.toString();
+  }
+
+  private static void encodeValue(long value, StringBuilder out) {
+    long shifted = value < 0 ? ~(value << 1) : value << 1;
+    while (shifted >= 0x20) {
+      out.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+      shifted >>= 5;
+    }
+    out.append((char) (shifted + 63));
+  }
+}
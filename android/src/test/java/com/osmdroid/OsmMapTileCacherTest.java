@@ -0,0 +1,169 @@
+package com.osmdroid;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, manifest = Config.NONE)
+public class OsmMapTileCacherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+    private OsmMapTileCacher cacher;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        cacher = new OsmMapTileCacher(context);
+    }
+
+    @After
+    public void tearDown() {
+        cacher.close();
+    }
+
+    @Test
+    public void parseTilePath_readsZxy() {
+        assertArrayEquals(new int[]{12, 2048, 1361},
+                OsmMapTileCacher.Companion.parseTilePath("12/2048/1361.png"));
+    }
+
+    @Test
+    public void parseTilePath_rejectsOtherLayouts() {
+        assertNull(OsmMapTileCacher.Companion.parseTilePath("12/2048.png"));
+        assertNull(OsmMapTileCacher.Companion.parseTilePath("a/b/c.png"));
+    }
+
+    @Test
+    public void applyDelta_writesChangedAndDeletesRemovedTiles() throws IOException {
+        File v1 = folder.newFolder("v1");
+        writeFile(v1, "1/0/0.png", new byte[]{1});
+        writeFile(v1, "1/0/1.png", new byte[]{2});
+        writeFile(v1, "1/1/0.png", new byte[]{3});
+        String manifestV1 = "{\"pack\": \"north\", \"tiles\": {"
+                + "\"1/0/0.png\": \"" + OsmMapTileCacher.Companion.contentHash(new byte[]{1}) + "\","
+                + "\"1/0/1.png\": \"" + OsmMapTileCacher.Companion.contentHash(new byte[]{2}) + "\","
+                + "\"1/1/0.png\": \"" + OsmMapTileCacher.Companion.contentHash(new byte[]{3}) + "\""
+                + "}}";
+        writeFile(v1, "manifest.json", manifestV1.getBytes(StandardCharsets.UTF_8));
+        assertEquals(3, cacher.applyDelta(
+                v1.getPath(), new File(v1, "manifest.json").getPath(), null, "CustomTiles", null, null).getWritten());
+
+        File v2 = folder.newFolder("v2");
+        writeFile(v2, "1/0/1.png", new byte[]{9});
+        writeFile(v2, "1/1/1.png", new byte[]{4});
+        String manifest = "{\"version\": 2, \"tiles\": {"
+                + "\"1/0/0.png\": \"" + OsmMapTileCacher.Companion.contentHash(new byte[]{1}) + "\","
+                + "\"1/0/1.png\": \"" + OsmMapTileCacher.Companion.contentHash(new byte[]{9}) + "\","
+                + "\"1/1/1.png\": \"" + OsmMapTileCacher.Companion.contentHash(new byte[]{4}) + "\""
+                + "}}";
+        writeFile(v2, "manifest.json", manifest.getBytes(StandardCharsets.UTF_8));
+
+        OsmMapTileCacher.DeltaResult result = cacher.applyDelta(
+                v2.getPath(), new File(v2, "manifest.json").getPath(), "north", "CustomTiles", null, null);
+
+        assertEquals(2, result.getWritten());
+        assertEquals(1, result.getDeleted());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(0, result.getRejected());
+
+        assertArrayEquals(new byte[]{1}, readTile(1, 0, 0));
+        assertArrayEquals(new byte[]{9}, readTile(1, 0, 1));
+        assertArrayEquals(new byte[]{4}, readTile(1, 1, 1));
+        assertNull(readTile(1, 1, 0));
+    }
+
+    @Test
+    public void applyDelta_keepsTilesOfOtherPacksAndDirectoryImports() throws IOException {
+        File imported = folder.newFolder("imported");
+        writeFile(imported, "2/0/0.png", new byte[]{1});
+        cacher.cacheTilesFromDirectory(imported.getPath(), false, null);
+
+        File south = folder.newFolder("south");
+        writeFile(south, "2/3/3.png", new byte[]{2});
+        String southManifest = "{\"tiles\": {\"2/3/3.png\": \""
+                + OsmMapTileCacher.Companion.contentHash(new byte[]{2}) + "\"}}";
+        writeFile(south, "manifest.json", southManifest.getBytes(StandardCharsets.UTF_8));
+        cacher.applyDelta(south.getPath(), new File(south, "manifest.json").getPath(), "south", "CustomTiles", null, null);
+
+        File north = folder.newFolder("north");
+        writeFile(north, "2/1/1.png", new byte[]{3});
+        String northManifest = "{\"pack\": \"north\", \"tiles\": {\"2/1/1.png\": \""
+                + OsmMapTileCacher.Companion.contentHash(new byte[]{3}) + "\"}}";
+        writeFile(north, "manifest.json", northManifest.getBytes(StandardCharsets.UTF_8));
+
+        OsmMapTileCacher.DeltaResult result = cacher.applyDelta(
+                north.getPath(), new File(north, "manifest.json").getPath(), null, "CustomTiles", null, null);
+
+        assertEquals(1, result.getWritten());
+        assertEquals(0, result.getDeleted());
+        assertArrayEquals(new byte[]{1}, readTile(2, 0, 0));
+        assertArrayEquals(new byte[]{2}, readTile(2, 3, 3));
+        assertArrayEquals(new byte[]{3}, readTile(2, 1, 1));
+    }
+
+    @Test
+    public void applyDelta_rejectsTilesThatDoNotMatchTheManifest() throws IOException {
+        File v2 = folder.newFolder("corrupt");
+        writeFile(v2, "1/0/0.png", new byte[]{5});
+        String manifest = "{\"tiles\": {\"1/0/0.png\": \""
+                + OsmMapTileCacher.Companion.contentHash(new byte[]{6}) + "\"}}";
+        writeFile(v2, "manifest.json", manifest.getBytes(StandardCharsets.UTF_8));
+
+        OsmMapTileCacher.DeltaResult result = cacher.applyDelta(
+                v2.getPath(), new File(v2, "manifest.json").getPath(), null, "CustomTiles", null, null);
+
+        assertEquals(0, result.getWritten());
+        assertEquals(1, result.getRejected());
+        assertNull(readTile(1, 0, 0));
+    }
+
+    private byte[] readTile(int z, int x, int y) {
+        File dbFile = new File(context.getFilesDir(), "osmdroid/tiles/cache.db");
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            long key = OsmMapTileCacher.Companion.getIndex(x, y, z);
+            Cursor cursor = db.rawQuery("SELECT tile FROM tiles WHERE key = ?", new String[]{Long.toString(key)});
+            try {
+                return cursor.moveToFirst() ? cursor.getBlob(0) : null;
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    private void writeFile(File root, String relativePath, byte[] data) throws IOException {
+        File file = new File(root, relativePath);
+        file.getParentFile().mkdirs();
+        FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.osmdroid;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, manifest = Config.NONE)
+public class OsmMapTilePackConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private OsmMapTilePackConverter converter;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        converter = new OsmMapTilePackConverter(context);
+    }
+
+    @Test
+    public void toTmsRow_flipsXyzRows() {
+        assertEquals(0, OsmMapTilePackConverter.Companion.toTmsRow(1, 1, false));
+        assertEquals(5, OsmMapTilePackConverter.Companion.toTmsRow(3, 2, false));
+    }
+
+    @Test
+    public void toTmsRow_keepsTmsRows() {
+        assertEquals(2, OsmMapTilePackConverter.Companion.toTmsRow(3, 2, true));
+    }
+
+    @Test
+    public void convertDirectoryToMBTiles_packsEveryTileWithTmsRows() throws IOException {
+        File source = folder.newFolder("tiles");
+        writeTile(source, "1/0/0.png", new byte[]{1, 2, 3});
+        writeTile(source, "1/1/0.png", new byte[]{4, 5, 6});
+        writeTile(source, "2/3/1.png", new byte[]{7});
+        writeTile(source, "README.txt", new byte[]{0});
+        File output = new File(folder.getRoot(), "out/tiles.mbtiles");
+
+        OsmMapTilePackConverter.Result result = converter.convertDirectoryToMBTiles(
+                source.getPath(),
+                output.getPath(),
+                new OsmMapTilePackConverter.Options(null, false, true, 2),
+                null);
+
+        assertEquals(3, result.getTileCount());
+        assertEquals(1, result.getSkippedFiles());
+        assertEquals(1, result.getMinZoom());
+        assertEquals(2, result.getMaxZoom());
+        assertTrue(output.exists());
+        assertFalse(new File(output.getPath() + ".tmp").exists());
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(output.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            Cursor cursor = db.rawQuery(
+                    "SELECT tile_data FROM tiles WHERE zoom_level = 2 AND tile_column = 3 AND tile_row = 2", null);
+            assertTrue(cursor.moveToFirst());
+            assertArrayEquals(new byte[]{7}, cursor.getBlob(0));
+            cursor.close();
+
+            cursor = db.rawQuery("SELECT value FROM metadata WHERE name = 'format'", null);
+            assertTrue(cursor.moveToFirst());
+            assertEquals("png", cursor.getString(0));
+            cursor.close();
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void convertDirectoryToMBTiles_failsOnEmptyDirectory() throws IOException {
+        File source = folder.newFolder("empty");
+        converter.convertDirectoryToMBTiles(
+                source.getPath(),
+                new File(folder.getRoot(), "empty.mbtiles").getPath(),
+                new OsmMapTilePackConverter.Options(null, false, true, 1),
+                null);
+    }
+
+    private void writeTile(File root, String relativePath, byte[] data) throws IOException {
+        File file = new File(root, relativePath);
+        file.getParentFile().mkdirs();
+        FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -1,16 +1,33 @@
 package com.osmdroid;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import com.osmdroid.tiles.ZoomFallbackTileProvider;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase.CantContinueException;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 28, manifest = Config.NONE)
@@ -100,4 +117,74 @@ public class OsmMapUrlTileOfflineBehaviorTest {
                 urlTile.resolveOnlineTileCoordinates(3, 4, 2, 15, true)
         );
     }
+
+    @Test
+    public void ancestorSourceRect_selectsQuadrantOfParentTile() {
+        assertEquals(
+                new Rect(128, 0, 256, 128),
+                ZoomFallbackTileProvider.ancestorSourceRect(5, 2, 1, 256)
+        );
+    }
+
+    @Test
+    public void ancestorSourceRect_scalesWithZoomDifference() {
+        assertEquals(
+                new Rect(64, 192, 128, 256),
+                ZoomFallbackTileProvider.ancestorSourceRect(17, 15, 2, 256)
+        );
+    }
+
+    @Test
+    public void ancestorSourceRect_givesUpBelowOnePixel() {
+        assertNull(ZoomFallbackTileProvider.ancestorSourceRect(0, 0, 9, 256));
+    }
+
+    private static MapTileModuleProviderBase source(MapTileModuleProviderBase.TileLoader loader) {
+        MapTileModuleProviderBase source = mock(MapTileModuleProviderBase.class);
+        when(source.getTileLoader()).thenReturn(loader);
+        return source;
+    }
+
+    private static ZoomFallbackTileProvider fallbackProvider(MapTileModuleProviderBase... sources) {
+        ITileSource tileSource = mock(ITileSource.class);
+        when(tileSource.getTileSizePixels()).thenReturn(256);
+        return new ZoomFallbackTileProvider(null, tileSource, sources, 4);
+    }
+
+    @Test
+    public void zoomFallback_upscalesAncestorFromNextSourceWhenOneCannotContinue() throws Exception {
+        long parent = MapTileIndex.getTileIndex(9, 2, 1);
+        MapTileModuleProviderBase.TileLoader failing = mock(MapTileModuleProviderBase.TileLoader.class);
+        when(failing.loadTileIfReachable(parent)).thenThrow(CantContinueException.class);
+        MapTileModuleProviderBase.TileLoader cached = mock(MapTileModuleProviderBase.TileLoader.class);
+        when(cached.loadTileIfReachable(parent)).thenReturn(
+                new BitmapDrawable(null, Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888)));
+        ZoomFallbackTileProvider provider = fallbackProvider(source(failing), source(cached));
+
+        Drawable tile = provider.getTileLoader().loadTile(MapTileIndex.getTileIndex(10, 5, 2));
+        assertTrue(tile instanceof BitmapDrawable);
+        assertEquals(256, ((BitmapDrawable) tile).getBitmap().getWidth());
+
+        // the sibling is cropped from the decoded ancestor without asking the sources again
+        assertNotNull(provider.getTileLoader().loadTile(MapTileIndex.getTileIndex(10, 4, 3)));
+        verify(cached, times(1)).loadTileIfReachable(parent);
+    }
+
+    @Test
+    public void zoomFallback_remembersMissingAncestorsOnlyWhenEverySourceLooked() throws Exception {
+        long tileIndex = MapTileIndex.getTileIndex(10, 5, 2);
+        long parent = MapTileIndex.getTileIndex(9, 2, 1);
+        MapTileModuleProviderBase.TileLoader empty = mock(MapTileModuleProviderBase.TileLoader.class);
+        ZoomFallbackTileProvider provider = fallbackProvider(source(empty));
+        assertNull(provider.getTileLoader().loadTile(tileIndex));
+        assertNull(provider.getTileLoader().loadTile(tileIndex));
+        verify(empty, times(1)).loadTileIfReachable(parent);
+
+        MapTileModuleProviderBase.TileLoader failing = mock(MapTileModuleProviderBase.TileLoader.class);
+        when(failing.loadTileIfReachable(parent)).thenThrow(CantContinueException.class);
+        provider = fallbackProvider(source(failing));
+        assertNull(provider.getTileLoader().loadTile(tileIndex));
+        assertNull(provider.getTileLoader().loadTile(tileIndex));
+        verify(failing, times(2)).loadTileIfReachable(parent);
+    }
 }
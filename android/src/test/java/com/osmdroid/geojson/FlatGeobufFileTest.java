@@ -0,0 +1,355 @@
+package com.osmdroid.geojson;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FlatGeobufFile, reading files written by a minimal FlatBuffers writer
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, manifest = Config.NONE)
+public class FlatGeobufFileTest {
+
+    private static final byte POINT = 1;
+    private static final byte LINE_STRING = 2;
+    private static final byte POLYGON = 3;
+    private static final byte UNKNOWN = 0;
+
+    private static final byte INT = 5;
+    private static final byte DOUBLE = 10;
+    private static final byte STRING = 11;
+
+    private final List<File> files = new ArrayList<>();
+
+    @After
+    public void deleteFiles() {
+        for (File file : files) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    // FlatBuffers writer: every table is a vtable followed by the table, with one 8 byte slot per
+    // field, and everything a table refers to is written after it
+
+    private static final class Table {
+        final Object[] fields;
+
+        Table(Object... fields) {
+            this.fields = fields;
+        }
+    }
+
+    private static final class Writer {
+        ByteBuffer out = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        byte[] root(Table table) {
+            out.putInt(0);
+            int root = writeTable(table);
+            out.putInt(0, root);
+            return Arrays.copyOf(out.array(), out.position());
+        }
+
+        int writeTable(Table table) {
+            int count = table.fields.length;
+            int vtable = out.position();
+            out.putShort((short) (4 + count * 2));
+            out.putShort((short) (4 + count * 8));
+            for (int i = 0; i < count; i++) {
+                out.putShort((short) (table.fields[i] != null ? 4 + i * 8 : 0));
+            }
+            int start = out.position();
+            out.putInt(start - vtable);
+            for (int i = 0; i < count; i++) {
+                Object value = table.fields[i];
+                int slot = out.position();
+                if (value instanceof Byte) {
+                    out.put((Byte) value);
+                } else if (value instanceof Short) {
+                    out.putShort((Short) value);
+                } else if (value instanceof Integer) {
+                    out.putInt((Integer) value);
+                } else if (value instanceof Long) {
+                    out.putLong((Long) value);
+                }
+                out.position(slot + 8);
+            }
+            for (int i = 0; i < count; i++) {
+                Object value = table.fields[i];
+                int slot = start + 4 + i * 8;
+                int target = out.position();
+                if (value instanceof String) {
+                    byte[] bytes = ((String) value).getBytes(Charset.forName("UTF-8"));
+                    out.putInt(bytes.length).put(bytes).put((byte) 0);
+                } else if (value instanceof double[]) {
+                    double[] values = (double[]) value;
+                    out.putInt(values.length);
+                    for (double v : values) out.putDouble(v);
+                } else if (value instanceof int[]) {
+                    int[] values = (int[]) value;
+                    out.putInt(values.length);
+                    for (int v : values) out.putInt(v);
+                } else if (value instanceof byte[]) {
+                    byte[] values = (byte[]) value;
+                    out.putInt(values.length).put(values);
+                } else if (value instanceof Table) {
+                    target = writeTable((Table) value);
+                } else if (value instanceof List) {
+                    List<?> tables = (List<?>) value;
+                    out.putInt(tables.size());
+                    int elements = out.position();
+                    out.position(elements + tables.size() * 4);
+                    for (int j = 0; j < tables.size(); j++) {
+                        int element = writeTable((Table) tables.get(j));
+                        out.putInt(elements + j * 4, element - (elements + j * 4));
+                    }
+                } else {
+                    continue;
+                }
+                out.putInt(slot, target - slot);
+            }
+            return start;
+        }
+    }
+
+    private static final class Feature {
+        final Table geometry;
+        final byte[] properties;
+        final double[] bounds;
+
+        Feature(Table geometry, byte[] properties, double... bounds) {
+            this.geometry = geometry;
+            this.properties = properties;
+            this.bounds = bounds;
+        }
+    }
+
+    private static Table geometry(byte type, int[] ends, double... xy) {
+        return new Table(ends, xy, null, null, null, null, type != UNKNOWN ? type : null);
+    }
+
+    private static byte[] properties(Object... columnsAndValues) {
+        ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            buffer.putShort(((Integer) columnsAndValues[i]).shortValue());
+            Object value = columnsAndValues[i + 1];
+            if (value instanceof Integer) {
+                buffer.putInt((Integer) value);
+            } else if (value instanceof Double) {
+                buffer.putDouble((Double) value);
+            } else {
+                byte[] bytes = ((String) value).getBytes(Charset.forName("UTF-8"));
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static List<Feature> sampleFeatures() {
+        List<Feature> features = new ArrayList<>();
+        features.add(new Feature(geometry(POINT, null, 10, 10),
+                properties(0, "a", 1, 3), 10, 10, 10, 10));
+        features.add(new Feature(geometry(LINE_STRING, null, 0, 0, 20, 20),
+                properties(0, "b", 2, 1.5), 0, 0, 20, 20));
+        features.add(new Feature(geometry(POLYGON, new int[]{5, 9},
+                -50, -50, -40, -50, -40, -40, -50, -40, -50, -50,
+                -48, -48, -46, -48, -46, -46, -48, -48),
+                properties(0, "c"), -50, -50, -40, -40));
+        return features;
+    }
+
+    private File write(List<Feature> features, boolean indexed, byte geometryType) throws IOException {
+        List<Table> columns = new ArrayList<>();
+        columns.add(new Table("name", STRING));
+        columns.add(new Table("count", INT));
+        columns.add(new Table("weight", DOUBLE));
+        int count = features.size();
+
+        // features are written in leaf order, so the index has to be laid out first
+        List<Feature> ordered = features;
+        ByteBuffer index = null;
+        if (indexed) {
+            PackedRTree tree = new PackedRTree(count, 2);
+            double[] bounds = new double[count * 4];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(features.get(i).bounds, 0, bounds, i * 4, 4);
+            }
+            int[] order = new int[count];
+            tree.build(bounds, new long[count], order);
+            ordered = new ArrayList<>();
+            for (int item : order) {
+                ordered.add(features.get(item));
+            }
+            long[] offsets = new long[count];
+            long offset = 0;
+            for (int leaf = 0; leaf < count; leaf++) {
+                offsets[order[leaf]] = offset;
+                offset += 4 + feature(ordered.get(leaf)).length;
+            }
+            index = tree.build(bounds, offsets, order);
+        }
+
+        byte[] header = new Writer().root(new Table(
+                "test", null, geometryType, null, null, null, null, columns, (long) count,
+                indexed ? (short) 2 : (short) 0, new Table(null, 4326)));
+
+        File file = File.createTempFile("features", ".fgb");
+        files.add(file);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[]{'f', 'g', 'b', 3, 'f', 'g', 'b', 0});
+            out.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(header.length).array());
+            out.write(header);
+            if (index != null) {
+                out.write(index.array());
+            }
+            for (Feature feature : ordered) {
+                byte[] bytes = feature(feature);
+                out.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length).array());
+                out.write(bytes);
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static byte[] feature(Feature feature) {
+        return new Writer().root(new Table(feature.geometry, feature.properties));
+    }
+
+    private static FlatGeobufFile open(File file) throws IOException {
+        return FlatGeobufFile.open(new FileInputStream(file).getChannel());
+    }
+
+    private static Map<String, Integer> featuresByName(GeojsonData data) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int feature = 0; feature < data.getFeatureCount(); feature++) {
+            result.put((String) data.getProperties(feature).get("name"), feature);
+        }
+        return result;
+    }
+
+    @Test
+    public void query_readsOnlyIntersectingFeaturesThroughTheFileIndex() throws IOException {
+        FlatGeobufFile file = open(write(sampleFeatures(), true, UNKNOWN));
+        try {
+            assertEquals(3, file.getFeatureCount());
+
+            GeojsonData data = file.query(5, 5, 15, 15, 0, Integer.MAX_VALUE);
+            Map<String, Integer> byName = featuresByName(data);
+            assertEquals(2, data.getFeatureCount());
+            assertTrue(byName.containsKey("a"));
+            assertTrue(byName.containsKey("b"));
+            Map<String, Object> a = data.getProperties(byName.get("a"));
+            assertEquals(3.0, a.get("count"));
+            assertEquals(1.5, data.getProperties(byName.get("b")).get("weight"));
+            assertNotNull(data.index);
+
+            data = file.query(-60, -60, -30, -30, 0, Integer.MAX_VALUE);
+            assertEquals(1, data.getShapeCount());
+            assertEquals(GeojsonData.POLYGON, data.shapeKinds[0]);
+            assertEquals(2, data.endRings[0] - data.firstRings[0]);
+            assertEquals(4, data.ringStarts[2] - data.ringStarts[1]);
+            assertEquals(GeojsonData.mercatorX(-50), data.shapeBounds[0], 1e-12);
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void query_buildsAnIndexForFilesWithoutOne() throws IOException {
+        FlatGeobufFile file = open(write(sampleFeatures(), false, UNKNOWN));
+        try {
+            assertEquals(3, file.getFeatureCount());
+            GeojsonData data = file.query(-180, -85, 180, 85, 0, Integer.MAX_VALUE);
+
+            // in file order, identified by their position in the file
+            assertEquals(3, data.getFeatureCount());
+            for (int feature = 0; feature < 3; feature++) {
+                assertEquals(Integer.toString(feature), data.getId(feature));
+            }
+            assertEquals("a", data.getProperties(0).get("name"));
+            assertEquals(GeojsonData.POINT, data.shapeKinds[0]);
+            assertEquals(GeojsonData.LINE, data.shapeKinds[1]);
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void query_skipsSmallShapesAndStopsAtLimit() throws IOException {
+        FlatGeobufFile file = open(write(sampleFeatures(), true, UNKNOWN));
+        try {
+            // the line and polygon are less than a fifth of the world across: only the point is left
+            GeojsonData data = file.query(-180, -60, 180, 60, 0.2, Integer.MAX_VALUE);
+            assertEquals(1, data.getFeatureCount());
+            assertEquals("a", data.getProperties(0).get("name"));
+
+            assertEquals(2, file.query(-180, -85, 180, 85, 0, 2).getFeatureCount());
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void query_acrossTheAntimeridian() throws IOException {
+        List<Feature> features = new ArrayList<>();
+        features.add(new Feature(geometry(POINT, null, 179, 0), properties(0, "east"), 179, 0, 179, 0));
+        features.add(new Feature(geometry(POINT, null, -179, 0), properties(0, "west"), -179, 0, -179, 0));
+        features.add(new Feature(geometry(POINT, null, 0, 0), properties(0, "zero"), 0, 0, 0, 0));
+        FlatGeobufFile file = open(write(features, true, POINT));
+        try {
+            Map<String, Integer> byName = featuresByName(file.query(170, -10, -170, 10, 0, Integer.MAX_VALUE));
+            assertEquals(2, byName.size());
+            assertTrue(byName.containsKey("east"));
+            assertTrue(byName.containsKey("west"));
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void query_reusesDecodedFeatures() throws IOException {
+        FlatGeobufFile file = open(write(sampleFeatures(), true, UNKNOWN));
+        try {
+            GeojsonData first = file.query(5, 5, 15, 15, 0, Integer.MAX_VALUE);
+            GeojsonData second = file.query(5, 5, 15, 15, 0, Integer.MAX_VALUE);
+            // the property maps come from the same cached features
+            assertSame(first.getProperties(0), second.getProperties(0));
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsOtherFiles() throws IOException {
+        File file = File.createTempFile("features", ".fgb");
+        files.add(file);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write("{\"type\":\"FeatureCollection\"}".getBytes(Charset.forName("UTF-8")));
+        } finally {
+            out.close();
+        }
+        open(file);
+    }
+}
@@ -0,0 +1,120 @@
+package com.osmdroid.geojson;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for GeojsonParser and the style evaluation of its result
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, manifest = Config.NONE)
+public class GeojsonParserTest {
+
+    private static GeojsonData parse(String json) throws IOException {
+        return GeojsonParser.parse(new StringReader(json));
+    }
+
+    @Test
+    public void featureCollection_readsShapesPropertiesAndIds() throws IOException {
+        GeojsonData data = parse("{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"id\":7,\"properties\":{\"name\":\"a\",\"lanes\":2,\"tags\":{\"x\":1}},"
+                + "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[10,10,5]]}},"
+                + "{\"type\":\"Feature\",\"properties\":null,\"geometry\":null},"
+                + "{\"type\":\"Feature\",\"id\":\"p\",\"properties\":{},"
+                + "\"geometry\":{\"type\":\"Polygon\",\"coordinates\":["
+                + "[[0,0],[4,0],[4,4],[0,4],[0,0]],[[1,1],[2,1],[2,2],[1,1]]]}}]}");
+
+        // the feature without geometry is dropped
+        assertEquals(2, data.getFeatureCount());
+        assertEquals(2, data.getShapeCount());
+        assertEquals("7", data.getId(0));
+        assertEquals("p", data.getId(1));
+        assertEquals("a", data.getProperties(0).get("name"));
+        assertEquals(2.0, data.getProperties(0).get("lanes"));
+        assertFalse(data.getProperties(0).containsKey("tags"));
+
+        assertEquals(GeojsonData.LINE, data.shapeKinds[0]);
+        assertEquals(1, data.endRings[0] - data.firstRings[0]);
+        assertEquals(GeojsonData.POLYGON, data.shapeKinds[1]);
+        assertEquals(1, data.shapeFeatures[1]);
+        assertEquals(2, data.endRings[1] - data.firstRings[1]);
+        int hole = data.firstRings[1] + 1;
+        assertEquals(4, data.ringStarts[hole + 1] - data.ringStarts[hole]);
+
+        assertEquals(0.5, data.shapeBounds[0], 1e-12);
+        assertEquals(GeojsonData.mercatorX(10), data.shapeBounds[2], 1e-12);
+        assertEquals(GeojsonData.mercatorY(10), data.shapeBounds[1], 1e-12);
+        assertEquals(0.5, data.shapeBounds[3], 1e-12);
+    }
+
+    @Test
+    public void membersInAnyOrder_andGeometryCollections() throws IOException {
+        GeojsonData data = parse("{\"geometry\":{\"coordinates\":[[[1,2],[3,4]],[[5,6],[7,8]]],"
+                + "\"type\":\"MultiLineString\"},\"properties\":{\"k\":true},\"type\":\"Feature\"}");
+        assertEquals(1, data.getShapeCount());
+        assertEquals(GeojsonData.LINE, data.shapeKinds[0]);
+        assertEquals(2, data.endRings[0] - data.firstRings[0]);
+        assertEquals(Boolean.TRUE, data.getProperties(0).get("k"));
+
+        data = parse("{\"type\":\"GeometryCollection\",\"geometries\":["
+                + "{\"type\":\"Point\",\"coordinates\":[1,2]},"
+                + "{\"type\":\"Unknown\",\"coordinates\":[[1,2],[3,4]]},"
+                + "{\"type\":\"MultiPoint\",\"coordinates\":[[1,2],[3,4]]}]}");
+        assertEquals(1, data.getFeatureCount());
+        assertEquals(2, data.getShapeCount());
+        assertEquals(GeojsonData.POINT, data.shapeKinds[0]);
+        assertEquals(GeojsonData.POINT, data.shapeKinds[1]);
+        assertEquals(2, data.ringStarts[data.endRings[1]] - data.ringStarts[data.firstRings[1]]);
+    }
+
+    @Test
+    public void index_findsShapesByMercatorBounds() throws IOException {
+        GeojsonData data = parse("{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[-90,0]}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[90,0]}}]}");
+        List<Integer> found = new ArrayList<>();
+        data.index.query(0.7, 0.4, 0.8, 0.6, found);
+
+        assertEquals(1, found.size());
+        assertEquals(1, (int) found.get(0));
+    }
+
+    @Test
+    public void style_usesExpressionsOrSimplestyleProperties() throws IOException {
+        GeojsonData data = parse("{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"properties\":{\"stroke\":\"#ff0000\",\"stroke-opacity\":0.5,\"stroke-width\":3},"
+                + "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}},"
+                + "{\"type\":\"Feature\",\"properties\":{\"w\":6},"
+                + "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}}]}");
+
+        GeojsonStyle defaults = GeojsonStyle.build(data, null, null, null, null);
+        assertEquals(0x80ff0000, defaults.strokeColors[0]);
+        assertEquals(3, defaults.strokeWidths[0], 0);
+        assertEquals(0xff000000, defaults.strokeColors[1]);
+        assertEquals(1, defaults.strokeWidths[1], 0);
+        assertEquals(3, defaults.maxStrokeWidth, 0);
+
+        List<Object> width = new ArrayList<>();
+        width.add("get");
+        width.add("w");
+        GeojsonStyle styled = GeojsonStyle.build(data, StyleExpression.literal(0xff00ff00L), null,
+                StyleExpression.parse(width), null);
+        assertEquals(0xff00ff00, styled.strokeColors[0]);
+        assertEquals(1, styled.strokeWidths[0], 0);
+        assertEquals(6, styled.strokeWidths[1], 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedJson_throws() throws IOException {
+        parse("{\"type\":\"Feature\",");
+    }
+}
@@ -0,0 +1,131 @@
+package com.osmdroid.geojson;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PackedRTree, checked against a brute-force scan
+ */
+public class PackedRTreeTest {
+
+    private static PackedRTree.NodeReader memory(final ByteBuffer nodes) {
+        return new PackedRTree.NodeReader() {
+            @Override
+            public ByteBuffer read(int first, int count) {
+                ByteBuffer view = nodes.duplicate().order(nodes.order());
+                view.position(first * PackedRTree.NODE_BYTES);
+                return view;
+            }
+        };
+    }
+
+    private static List<Integer> search(PackedRTree tree, ByteBuffer nodes, final int[] order,
+                                        double minX, double minY, double maxX, double maxY,
+                                        double minSize, final int limit) throws IOException {
+        final List<Integer> found = new ArrayList<>();
+        tree.search(memory(nodes), minX, minY, maxX, maxY, minSize, minSize, false,
+                new PackedRTree.Visitor() {
+                    @Override
+                    public boolean visit(int leaf, long offset) {
+                        // offsets are the item index times ten
+                        assertEquals(order[leaf] * 10L, offset);
+                        found.add(leaf);
+                        return found.size() < limit;
+                    }
+                });
+        return found;
+    }
+
+    @Test
+    public void nodeCount_matchesFlatGeobufLayout() {
+        // a single leaf still has a root
+        assertEquals(2, new PackedRTree(1, 16).nodeCount);
+        assertEquals(6, new PackedRTree(3, 2).nodeCount);
+        assertEquals(100 + 7 + 1, new PackedRTree(100, 16).nodeCount);
+        assertEquals(108 * 40L, new PackedRTree(100, 16).sizeInBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nodeSize_mustBeAtLeastTwo() {
+        new PackedRTree(10, 1);
+    }
+
+    @Test
+    public void hilbert_firstCellsFillTheCornerSquare() {
+        long[] distances = new long[16];
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                distances[x * 4 + y] = PackedRTree.hilbert(x, y);
+            }
+        }
+        Arrays.sort(distances);
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, distances[i]);
+        }
+    }
+
+    @Test
+    public void search_matchesBruteForceInLeafOrder() throws IOException {
+        Random random = new Random(7);
+        int count = 500;
+        double[] bounds = new double[count * 4];
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 100;
+            bounds[i * 4] = x;
+            bounds[i * 4 + 1] = y;
+            bounds[i * 4 + 2] = x + random.nextDouble() * 3;
+            bounds[i * 4 + 3] = y + random.nextDouble() * 3;
+            offsets[i] = i * 10L;
+        }
+        PackedRTree tree = new PackedRTree(count, 4);
+        int[] order = new int[count];
+        ByteBuffer nodes = tree.build(bounds, offsets, order);
+
+        List<Integer> found = search(tree, nodes, order, 20, 30, 45, 50, 0, Integer.MAX_VALUE);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int leaf = 0; leaf < count; leaf++) {
+            int i = order[leaf];
+            if (bounds[i * 4] <= 45 && bounds[i * 4 + 2] >= 20
+                    && bounds[i * 4 + 1] <= 50 && bounds[i * 4 + 3] >= 30) {
+                expected.add(leaf);
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void search_skipsSmallBoxesButKeepsPointsAndStopsAtLimit() throws IOException {
+        double[] bounds = {
+                0, 0, 10, 10,
+                1, 1, 1.5, 1.5,
+                2, 2, 2, 2,
+        };
+        long[] offsets = {0, 10, 20};
+        PackedRTree tree = new PackedRTree(3, 2);
+        int[] order = new int[3];
+        ByteBuffer nodes = tree.build(bounds, offsets, order);
+
+        List<Integer> found = search(tree, nodes, order, 0, 0, 10, 10, 1, Integer.MAX_VALUE);
+        List<Integer> items = new ArrayList<>();
+        for (int leaf : found) {
+            items.add(order[leaf]);
+        }
+        assertEquals(2, items.size());
+        assertTrue(items.contains(0));
+        assertTrue(items.contains(2));
+
+        assertEquals(1, search(tree, nodes, order, 0, 0, 10, 10, 0, 1).size());
+    }
+}
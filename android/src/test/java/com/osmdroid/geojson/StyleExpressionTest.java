@@ -0,0 +1,91 @@
+package com.osmdroid.geojson;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for StyleExpression parsing and evaluation
+ */
+public class StyleExpressionTest {
+
+    private static List<Object> list(Object... values) {
+        return Arrays.asList(values);
+    }
+
+    private static Map<String, Object> properties(Object... entries) {
+        Map<String, Object> result = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            result.put((String) entries[i], entries[i + 1]);
+        }
+        return result;
+    }
+
+    @Test
+    public void get_readsPropertyOrFallsBack() {
+        StyleExpression width = StyleExpression.parse(list("get", "width"));
+
+        assertEquals(3, width.evaluateNumber(properties("width", 3.0), 1), 0);
+        assertEquals(1, width.evaluateNumber(properties(), 1), 0);
+        assertEquals(1, width.evaluateNumber(null, 1), 0);
+    }
+
+    @Test
+    public void match_comparesLabelsAndLabelLists() {
+        StyleExpression color = StyleExpression.parse(list("match", list("get", "zone"),
+                "residential", 0xff00ff00L,
+                list("industrial", "commercial"), 0xffff0000L,
+                0xff0000ffL));
+
+        assertEquals(0xff00ff00, color.evaluateColor(properties("zone", "residential"), 0));
+        assertEquals(0xffff0000, color.evaluateColor(properties("zone", "commercial"), 0));
+        assertEquals(0xff0000ff, color.evaluateColor(properties("zone", "park"), 0));
+        // numbers match whatever their boxed type
+        StyleExpression level = StyleExpression.parse(list("match", list("get", "level"), 2, 5.0, 1.0));
+        assertEquals(5, level.evaluateNumber(properties("level", 2.0), 0), 0);
+    }
+
+    @Test
+    public void step_picksOutputOfLastStopReached() {
+        StyleExpression width = StyleExpression.parse(list("step", list("get", "lanes"),
+                1.0, 2.0, 2.0, 4.0, 4.0));
+
+        assertEquals(1, width.evaluateNumber(properties("lanes", 1.0), 0), 0);
+        assertEquals(2, width.evaluateNumber(properties("lanes", 2.0), 0), 0);
+        assertEquals(2, width.evaluateNumber(properties("lanes", 3.0), 0), 0);
+        assertEquals(4, width.evaluateNumber(properties("lanes", 6.0), 0), 0);
+        assertEquals(1, width.evaluateNumber(properties(), 0), 0);
+    }
+
+    @Test
+    public void interpolate_blendsNumbersAndColorChannels() {
+        StyleExpression width = StyleExpression.parse(list("interpolate", list("linear"),
+                list("get", "area"), 0.0, 1.0, 100.0, 3.0));
+        assertEquals(2, width.evaluateNumber(properties("area", 50.0), 0), 1e-9);
+        assertEquals(1, width.evaluateNumber(properties("area", -5.0), 0), 0);
+        assertEquals(3, width.evaluateNumber(properties("area", 500.0), 0), 0);
+
+        StyleExpression color = StyleExpression.parse(list("interpolate", list("linear"),
+                list("get", "t"), 0.0, 0xff000000L, 1.0, 0x00ffffffL));
+        assertEquals(0x80808080, color.evaluateColor(properties("t", 0.5), 0));
+    }
+
+    @Test
+    public void coalesce_andHexColors() {
+        StyleExpression color = StyleExpression.parse(list("coalesce", list("get", "stroke"), "#f00"));
+
+        assertEquals(0xff123456, color.evaluateColor(properties("stroke", "#123456"), 0));
+        assertEquals(0xffff0000, color.evaluateColor(properties(), 0));
+        assertEquals(7, StyleExpression.parse(list("coalesce", list("get", "x"))).evaluateColor(properties(), 7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsUnknownOperator() {
+        StyleExpression.parse(list("zoom"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.osmdroid.markers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for MarkerClusterIndex
+ */
+public class MarkerClusterIndexTest {
+
+    private static MarkerClusterIndex build(MarkerLayerStore store) {
+        return new MarkerClusterIndex.Builder(store, new MarkerClusterIndex.Options(40, 0, 16, 2)).build();
+    }
+
+    @Test
+    public void nearbyPointsMergeAtLowZoomAndSplitAtHighZoom() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        store.upsert("a", 60.1700, 24.9400, 0);
+        store.upsert("b", 60.1710, 24.9410, 0);
+        store.upsert("c", 40.7128, -74.0060, 0);
+        MarkerClusterIndex index = build(store);
+
+        int low = index.levelForZoom(5);
+        assertEquals(2, index.size(low));
+
+        int leaves = index.levelForZoom(20);
+        assertEquals(index.getLevelCount() - 1, leaves);
+        assertEquals(3, index.size(leaves));
+    }
+
+    @Test
+    public void everyLevelAccountsForEveryPoint() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            store.upsert("p" + i, random.nextDouble() * 10 + 50, random.nextDouble() * 10, 0);
+        }
+        MarkerClusterIndex index = build(store);
+
+        for (int level = 0; level < index.getLevelCount(); level++) {
+            int total = 0;
+            for (int item = 0; item < index.size(level); item++) {
+                total += index.getCount(level, item);
+            }
+            assertEquals(2000, total);
+        }
+    }
+
+    @Test
+    public void getPointIds_returnsAllMergedIds() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        store.upsert("a", 0.0, 0.0, 0);
+        store.upsert("b", 0.001, 0.001, 0);
+        store.upsert("c", 0.002, 0.0, 0);
+        MarkerClusterIndex index = build(store);
+
+        int level = index.levelForZoom(3);
+        assertEquals(1, index.size(level));
+        assertEquals(-1, index.getPoint(level, 0));
+        Set<String> ids = new HashSet<>(Arrays.asList(index.getPointIds(level, 0)));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), ids);
+    }
+
+    @Test
+    public void getAncestor_findsTheClusterContainingAPoint() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        store.upsert("a", 0.0, 0.0, 0);
+        store.upsert("b", 0.001, 0.001, 0);
+        store.upsert("c", 45.0, 90.0, 0);
+        MarkerClusterIndex index = build(store);
+
+        int leaves = index.getLevelCount() - 1;
+        int low = index.levelForZoom(3);
+        int a = index.getAncestor(leaves, 0, low);
+        int b = index.getAncestor(leaves, 1, low);
+        int c = index.getAncestor(leaves, 2, low);
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+        assertEquals(2, index.getCount(low, a));
+    }
+
+    @Test
+    public void query_returnsOnlyItemsInBounds() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        store.upsert("in", 10.0, 10.0, 0);
+        store.upsert("out", -10.0, -10.0, 0);
+        store.upsert("across", 0.0, 179.5, 0);
+        MarkerClusterIndex index = build(store);
+        int leaves = index.getLevelCount() - 1;
+
+        IntArray out = new IntArray();
+        index.query(leaves, 20, 20, 0, 0, out);
+        assertEquals(1, out.size());
+        assertEquals("in", index.getPointId(index.getPoint(leaves, out.get(0))));
+
+        // west edge east of the east edge: the bounds cross the antimeridian
+        out.clear();
+        index.query(leaves, 5, -170, -5, 170, out);
+        assertEquals(1, out.size());
+        assertEquals("across", index.getPointId(index.getPoint(leaves, out.get(0))));
+    }
+}
@@ -0,0 +1,54 @@
+package com.osmdroid.markers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for MarkerLayerStore
+ */
+public class MarkerLayerStoreTest {
+
+    @Test
+    public void upsert_updatesExistingIdInPlace() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        store.upsert("a", 60.0, 25.0, 0);
+        store.upsert("a", 61.0, 26.0, 2);
+
+        assertEquals(1, store.size());
+        int slot = store.indexOf("a");
+        assertEquals(61.0, store.getLatitude(slot), 0);
+        assertEquals(26.0, store.getLongitude(slot), 0);
+        assertEquals(2, store.getIcon(slot));
+    }
+
+    @Test
+    public void remove_movesLastPointIntoFreedSlot() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        store.upsert("a", 1, 1, 0);
+        store.upsert("b", 2, 2, 0);
+        store.upsert("c", 3, 3, 1);
+
+        assertTrue(store.remove("a"));
+        assertFalse(store.remove("a"));
+
+        assertEquals(2, store.size());
+        assertEquals(-1, store.indexOf("a"));
+        int slot = store.indexOf("c");
+        assertEquals("c", store.getId(slot));
+        assertEquals(3, store.getLatitude(slot), 0);
+        assertEquals(1, store.getIcon(slot));
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        MarkerLayerStore store = new MarkerLayerStore();
+        int version = store.getVersion();
+        for (int i = 0; i < 50000; i++) {
+            store.upsert("p" + i, i % 90, i % 180, i % 4);
+        }
+        assertEquals(50000, store.size());
+        assertEquals(49999 % 90, store.getLatitude(store.indexOf("p49999")), 0);
+        assertTrue(store.getVersion() > version);
+    }
+}
@@ -0,0 +1,97 @@
+package com.osmdroid.overlays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the geometry of CircleOverlay
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, manifest = Config.NONE)
+public class CircleOverlayTest {
+
+    private static double mercatorY(double latitude) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    @Test
+    public void vertexCountFor_growsWithRadiusAsPowerOfTwo() {
+        assertEquals(CircleOverlay.MIN_VERTICES, CircleOverlay.vertexCountFor(0));
+        assertEquals(CircleOverlay.MIN_VERTICES, CircleOverlay.vertexCountFor(10));
+        int previous = 0;
+        for (double radius = 1; radius < 1e6; radius *= 2) {
+            int count = CircleOverlay.vertexCountFor(radius);
+            assertEquals(0, count & (count - 1));
+            assertTrue(count >= previous);
+            assertTrue(count <= CircleOverlay.MAX_VERTICES);
+            // edges stay within half a pixel of the circle until the cap
+            if (count < CircleOverlay.MAX_VERTICES) {
+                assertTrue(radius * (1 - Math.cos(Math.PI / count)) <= 0.5);
+            }
+            previous = count;
+        }
+        assertEquals(CircleOverlay.MAX_VERTICES, CircleOverlay.vertexCountFor(1e6));
+    }
+
+    @Test
+    public void computeOffsets_followsTheCircleOnTheSphere() {
+        double latitude = 50;
+        double radius = 500000;
+        double[] offsets = new double[64 * 2];
+        CircleOverlay.computeOffsets(latitude, radius, 64, offsets);
+
+        double span = Math.toDegrees(radius / CircleOverlay.EARTH_RADIUS);
+        // due north and due south, with the Mercator stretch making the north half taller
+        assertEquals(0, offsets[0], 1e-12);
+        assertEquals(mercatorY(latitude + span) - mercatorY(latitude), offsets[1], 1e-12);
+        assertEquals(0, offsets[64], 1e-12);
+        assertEquals(mercatorY(latitude - span) - mercatorY(latitude), offsets[65], 1e-12);
+        assertTrue(-offsets[1] > offsets[65]);
+        // east and west mirror each other
+        assertEquals(-offsets[32], offsets[96], 1e-12);
+        assertEquals(offsets[33], offsets[97], 1e-12);
+        assertTrue(offsets[32] > 0);
+    }
+
+    @Test
+    public void getBounds_holdsEveryVertex() {
+        CircleOverlay circle = new CircleOverlay();
+        double[] bounds = new double[4];
+        assertFalse(circle.getBounds(bounds));
+
+        circle.setCenter(-33.9, 18.4);
+        circle.setRadius(20000);
+        assertTrue(circle.getBounds(bounds));
+        double[] offsets = new double[256 * 2];
+        CircleOverlay.computeOffsets(-33.9, 20000, 256, offsets);
+        for (int i = 0; i < 256; i++) {
+            double longitude = 18.4 + offsets[i * 2] * 360;
+            assertTrue(longitude >= bounds[0] - 1e-9 && longitude <= bounds[2] + 1e-9);
+        }
+        assertEquals(-33.9 - Math.toDegrees(20000 / CircleOverlay.EARTH_RADIUS), bounds[1], 1e-9);
+        assertEquals(-33.9 + Math.toDegrees(20000 / CircleOverlay.EARTH_RADIUS), bounds[3], 1e-9);
+    }
+
+    @Test
+    public void getBounds_spansAllLongitudesAroundAPoleOrTheAntimeridian() {
+        CircleOverlay circle = new CircleOverlay();
+        double[] bounds = new double[4];
+        circle.setCenter(88, 0);
+        circle.setRadius(300000);
+        circle.getBounds(bounds);
+        assertEquals(-180, bounds[0], 0);
+        assertEquals(180, bounds[2], 0);
+        assertEquals(90, bounds[3], 0);
+
+        circle.setCenter(0, 179.9);
+        circle.setRadius(50000);
+        circle.getBounds(bounds);
+        assertEquals(-180, bounds[0], 0);
+        assertEquals(180, bounds[2], 0);
+    }
+}
@@ -0,0 +1,110 @@
+package com.osmdroid.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FeatureIndex, checked against a brute-force scan
+ */
+public class FeatureIndexTest {
+
+    @Test
+    public void query_returnsOnlyIntersectingItems() {
+        FeatureIndex<String> index = new FeatureIndex<>();
+        index.put("helsinki", 24.9, 60.1, 25.0, 60.2);
+        index.put("tampere", 23.7, 61.4, 23.8, 61.5);
+        index.put("point", 24.95, 60.15, 24.95, 60.15);
+
+        List<String> result = new ArrayList<>();
+        index.query(24.94, 60.14, 24.96, 60.16, result);
+        Collections.sort(result);
+
+        assertEquals(2, result.size());
+        assertEquals("helsinki", result.get(0));
+        assertEquals("point", result.get(1));
+    }
+
+    @Test
+    public void put_movesExistingItem() {
+        FeatureIndex<String> index = new FeatureIndex<>();
+        index.put("marker", 10, 10, 10, 10);
+        index.put("marker", 20, 20, 20, 20);
+
+        List<String> result = new ArrayList<>();
+        index.query(9, 9, 11, 11, result);
+        assertTrue(result.isEmpty());
+        index.query(19, 19, 21, 21, result);
+        assertEquals(1, result.size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void getBounds_returnsCurrentBox() {
+        FeatureIndex<String> index = new FeatureIndex<>();
+        double[] bounds = new double[4];
+        assertFalse(index.getBounds("line", bounds));
+
+        index.put("line", 1, 2, 3, 4);
+        index.put("line", 5, 6, 7, 8);
+        assertTrue(index.getBounds("line", bounds));
+        assertArrayEquals(new double[]{5, 6, 7, 8}, bounds, 0);
+
+        index.remove("line");
+        assertFalse(index.getBounds("line", bounds));
+    }
+
+    @Test
+    public void randomInsertsAndRemovals_matchBruteForce() {
+        Random random = new Random(42);
+        FeatureIndex<Integer> index = new FeatureIndex<>();
+        Map<Integer, double[]> boxes = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            int id = random.nextInt(1500);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                boxes.remove(id);
+            } else {
+                double x = random.nextDouble() * 360 - 180;
+                double y = random.nextDouble() * 170 - 85;
+                double[] box = {x, y, x + random.nextDouble() * 2, y + random.nextDouble() * 2};
+                index.put(id, box[0], box[1], box[2], box[3]);
+                boxes.put(id, box);
+            }
+
+            if (step % 250 == 0) {
+                assertEquals(boxes.size(), index.size());
+                for (int q = 0; q < 20; q++) {
+                    double x = random.nextDouble() * 360 - 180;
+                    double y = random.nextDouble() * 170 - 85;
+                    assertQueryMatches(index, boxes, x, y, x + 10, y + 10);
+                }
+            }
+        }
+        assertQueryMatches(index, boxes, -180, -90, 180, 90);
+    }
+
+    private static void assertQueryMatches(FeatureIndex<Integer> index, Map<Integer, double[]> boxes,
+                                           double minX, double minY, double maxX, double maxY) {
+        List<Integer> expected = new ArrayList<>();
+        for (Map.Entry<Integer, double[]> entry : boxes.entrySet()) {
+            double[] b = entry.getValue();
+            if (b[0] <= maxX && b[2] >= minX && b[1] <= maxY && b[3] >= minY) {
+                expected.add(entry.getKey());
+            }
+        }
+        List<Integer> actual = new ArrayList<>();
+        index.query(minX, minY, maxX, maxY, actual);
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+}
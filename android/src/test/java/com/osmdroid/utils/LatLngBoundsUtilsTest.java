@@ -0,0 +1,49 @@
+package com.osmdroid.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.util.BoundingBox;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for LatLngBoundsUtils region comparison
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, manifest = Config.NONE)
+public class LatLngBoundsUtilsTest {
+
+    @Test
+    public void primitiveComparison_ignoresSubPixelMoves() {
+        // a 1 degree wide region, moved by far less than 1/2560 of its span
+        assertFalse(LatLngBoundsUtils.BoundsAreDifferent(
+                60.0, 25.0, 1.0, 1.0,
+                60.0001, 25.0001, 1.0, 1.0));
+    }
+
+    @Test
+    public void primitiveComparison_detectsPanAndZoom() {
+        assertTrue(LatLngBoundsUtils.BoundsAreDifferent(
+                60.0, 25.0, 1.0, 1.0,
+                60.01, 25.0, 1.0, 1.0));
+        assertTrue(LatLngBoundsUtils.BoundsAreDifferent(
+                60.0, 25.0, 1.0, 1.0,
+                60.0, 25.0, 0.5, 0.5));
+    }
+
+    @Test
+    public void boundingBoxComparison_matchesPrimitiveComparison() {
+        BoundingBox a = new BoundingBox(60.5, 25.5, 59.5, 24.5);
+        BoundingBox b = new BoundingBox(60.51, 25.5, 59.51, 24.5);
+
+        assertFalse(LatLngBoundsUtils.BoundsAreDifferent(a, a));
+        assertEquals(
+                LatLngBoundsUtils.BoundsAreDifferent(a, b),
+                LatLngBoundsUtils.BoundsAreDifferent(
+                        a.getCenterLatitude(), a.getCenterLongitude(), a.getLatitudeSpan(), a.getLongitudeSpanWithDateLine(),
+                        b.getCenterLatitude(), b.getCenterLongitude(), b.getLatitudeSpan(), b.getLongitudeSpanWithDateLine()));
+        assertTrue(LatLngBoundsUtils.BoundsAreDifferent(a, b));
+    }
+}
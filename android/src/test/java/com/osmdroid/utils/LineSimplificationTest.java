@@ -0,0 +1,125 @@
+package com.osmdroid.utils;
+
+import org.junit.Test;
+import org.osmdroid.util.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for LineSimplification, checked against a plain recursive Douglas-Peucker
+ */
+public class LineSimplificationTest {
+
+    @Test
+    public void rank_dropsCollinearPointsAndKeepsEnds() {
+        double[] x = {0, 1, 2, 3, 4};
+        double[] y = {0, 0, 0, 0, 0};
+        double[] ranks = LineSimplification.rank(x, y);
+
+        assertEquals(Double.POSITIVE_INFINITY, ranks[0], 0);
+        assertEquals(Double.POSITIVE_INFINITY, ranks[4], 0);
+        for (int i = 1; i < 4; i++) {
+            assertEquals(0, ranks[i], 0);
+        }
+    }
+
+    @Test
+    public void rank_matchesRecursiveDouglasPeucker() {
+        Random random = new Random(7);
+        int n = 2000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            // a random walk, like a GPS track
+            x[i] = i == 0 ? 0.5 : x[i - 1] + (random.nextDouble() - 0.5) * 1e-4;
+            y[i] = i == 0 ? 0.5 : y[i - 1] + (random.nextDouble() - 0.5) * 1e-4;
+        }
+        double[] ranks = LineSimplification.rank(x, y);
+
+        for (double tolerance : new double[]{1e-7, 1e-6, 1e-5, 1e-4}) {
+            boolean[] expected = new boolean[n];
+            expected[0] = true;
+            expected[n - 1] = true;
+            douglasPeucker(x, y, 0, n - 1, tolerance, expected);
+            for (int i = 0; i < n; i++) {
+                assertEquals("point " + i + " at " + tolerance, expected[i], ranks[i] > tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void build_levelsGrowWithZoom() {
+        List<GeoPoint> points = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            double t = i / 1000.0;
+            points.add(new GeoPoint(60 + 0.01 * Math.sin(t * 40), 24 + t * 0.5));
+        }
+        LineSimplification simplification = LineSimplification.build(points, 1);
+
+        List<GeoPoint> previous = simplification.getPoints(0);
+        assertTrue(previous.size() >= 2);
+        assertSame(points.get(0), previous.get(0));
+        assertSame(points.get(1000), previous.get(previous.size() - 1));
+        for (int level = 1; level <= LineSimplification.MAX_LEVEL; level++) {
+            List<GeoPoint> current = simplification.getPoints(level);
+            assertTrue(current.size() >= previous.size());
+            assertTrue(current.containsAll(previous));
+            previous = current;
+        }
+        assertTrue(simplification.getPoints(5).size() < points.size());
+    }
+
+    @Test
+    public void build_sharesOriginalListOnceNothingIsDropped() {
+        List<GeoPoint> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // a zigzag: every point is a corner
+            points.add(new GeoPoint(60 + (i % 2) * 0.01, 24 + i * 0.01));
+        }
+        LineSimplification simplification = LineSimplification.build(points, 1);
+
+        assertEquals(2, simplification.getPoints(0).size());
+        assertSame(points, simplification.getPoints(LineSimplification.MAX_LEVEL));
+        assertEquals(100, simplification.size());
+    }
+
+    @Test
+    public void levelFor_usesTileSizedLevels() {
+        assertEquals(0, LineSimplification.levelFor(256));
+        assertEquals(0, LineSimplification.levelFor(100));
+        assertEquals(10, LineSimplification.levelFor(256 * 1024));
+        assertEquals(10, LineSimplification.levelFor(256 * 1024 * 1.5));
+        assertEquals(LineSimplification.MAX_LEVEL, LineSimplification.levelFor(Math.pow(2, 40)));
+    }
+
+    private static void douglasPeucker(double[] x, double[] y, int first, int last,
+                                       double tolerance, boolean[] keep) {
+        if (last - first < 2) return;
+        int split = -1;
+        double max = -1;
+        for (int i = first + 1; i < last; i++) {
+            double distance = distance(x[i], y[i], x[first], y[first], x[last], y[last]);
+            if (distance > max) {
+                max = distance;
+                split = i;
+            }
+        }
+        if (max > tolerance) {
+            keep[split] = true;
+            douglasPeucker(x, y, first, split, tolerance, keep);
+            douglasPeucker(x, y, split, last, tolerance, keep);
+        }
+    }
+
+    private static double distance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -0,0 +1,67 @@
+package com.osmdroid.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.views.MapView;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PaddedViewport
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, manifest = Config.NONE)
+public class PaddedViewportTest {
+
+    @Test
+    public void contains_falseBeforeSet() {
+        assertFalse(new PaddedViewport().contains(new BoundingBox(20, 20, 10, 10)));
+    }
+
+    @Test
+    public void set_padsByHalfTheSpanOnEachSide() {
+        PaddedViewport area = new PaddedViewport();
+        area.set(new BoundingBox(20, 20, 10, 10));
+
+        assertEquals(25, area.getNorth(), 1e-9);
+        assertEquals(5, area.getSouth(), 1e-9);
+        assertEquals(5, area.getWest(), 1e-9);
+        assertEquals(25, area.getEast(), 1e-9);
+        // a small pan stays inside, a larger one leaves it
+        assertTrue(area.contains(new BoundingBox(23, 17, 13, 7)));
+        assertFalse(area.contains(new BoundingBox(27, 20, 17, 10)));
+    }
+
+    @Test
+    public void set_clampsToTheLatitudesTheMapShows() {
+        PaddedViewport area = new PaddedViewport();
+        area.set(new BoundingBox(80, 20, 60, 10));
+
+        assertEquals(MapView.getTileSystem().getMaxLatitude(), area.getNorth(), 1e-9);
+        assertEquals(50, area.getSouth(), 1e-9);
+    }
+
+    @Test
+    public void set_wrapsAcrossTheAntimeridian() {
+        PaddedViewport area = new PaddedViewport();
+        area.set(new BoundingBox(10, 179, 0, 170));
+
+        assertEquals(165.5, area.getWest(), 1e-9);
+        assertEquals(-176.5, area.getEast(), 1e-9);
+        assertTrue(area.contains(new BoundingBox(10, -178, 0, 175)));
+        assertFalse(area.contains(new BoundingBox(10, -170, 0, 175)));
+    }
+
+    @Test
+    public void set_spansEveryLongitudeWhenPaddedPastAWorld() {
+        PaddedViewport area = new PaddedViewport();
+        area.set(new BoundingBox(10, 100, 0, -100));
+
+        assertEquals(-180, area.getWest(), 0);
+        assertEquals(180, area.getEast(), 0);
+        assertTrue(area.contains(new BoundingBox(10, -150, 0, 150)));
+    }
+}
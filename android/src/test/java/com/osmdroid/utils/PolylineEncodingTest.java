@@ -0,0 +1,85 @@
+package com.osmdroid.utils;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PolylineEncoding
+ */
+public class PolylineEncodingTest {
+
+    @Test
+    public void decode_readsReferenceExample() {
+        // from the format description of the encoded polyline algorithm
+        double[] coordinates = PolylineEncoding.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 5);
+
+        assertArrayEquals(new double[]{38.5, -120.2, 40.7, -120.95, 43.252, -126.453}, coordinates, 1e-9);
+    }
+
+    @Test
+    public void decode_emptyString() {
+        assertEquals(0, PolylineEncoding.decode("", 5).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsTruncatedString() {
+        // the longitude of the last point is cut off
+        PolylineEncoding.decode("_p~iF~ps|U_ulL", 5);
+    }
+
+    @Test
+    public void encode_roundTripsAtPrecision() {
+        Random random = new Random(3);
+        double[] coordinates = new double[2000];
+        for (int i = 0; i < coordinates.length; i += 2) {
+            coordinates[i] = random.nextDouble() * 170 - 85;
+            coordinates[i + 1] = random.nextDouble() * 360 - 180;
+        }
+        for (int precision : new int[]{5, 6}) {
+            double[] decoded = PolylineEncoding.decode(PolylineEncoding.encode(coordinates, precision), precision);
+            assertArrayEquals(coordinates, decoded, 0.5 / Math.pow(10, precision) + 1e-12);
+        }
+    }
+
+    @Test
+    public void decode_longTrackAgreesWithCoordinateMaps() {
+        int n = 100000;
+        double[] track = new double[n * 2];
+        Random random = new Random(11);
+        double latitude = 60.17;
+        double longitude = 24.94;
+        JavaOnlyArray maps = new JavaOnlyArray();
+        for (int i = 0; i < n; i++) {
+            latitude += (random.nextDouble() - 0.5) * 1e-3;
+            longitude += (random.nextDouble() - 0.5) * 1e-3;
+            // what a 5-digit string can carry
+            track[i * 2] = Math.round(latitude * 1e5) / 1e5;
+            track[i * 2 + 1] = Math.round(longitude * 1e5) / 1e5;
+            maps.pushMap(JavaOnlyMap.of("latitude", track[i * 2], "longitude", track[i * 2 + 1]));
+        }
+        String encoded = PolylineEncoding.encode(track, 5);
+
+        assertArrayEquals(readMaps(maps), PolylineEncoding.decode(encoded, 5), 1e-9);
+    }
+
+    /**
+     * How the coordinates prop is read: one map and two doubles per vertex.
+     */
+    private static double[] readMaps(ReadableArray coordinates) {
+        double[] result = new double[coordinates.size() * 2];
+        for (int i = 0; i < coordinates.size(); i++) {
+            ReadableMap coordinate = coordinates.getMap(i);
+            result[i * 2] = coordinate.getDouble("latitude");
+            result[i * 2 + 1] = coordinate.getDouble("longitude");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+import * as React from 'react';
+import { ColorValue, requireNativeComponent, ViewProps } from 'react-native';
+
+import type { NativeComponent } from './decorateMapComponent';
+import {
+  GeojsonLayerPressEvent,
+  GeojsonStyleExpression,
+  NativeStyle,
+  processColorStyle,
+} from './MapGeojsonLayer';
+
+export type MapFlatGeobufLayerProps = ViewProps & {
+  /**
+   * A `file://` or `content://` URI, or a file path, of a [FlatGeobuf](https://flatgeobuf.org/)
+   * file in WGS 84 or Web Mercator. Only the features around the visible region are read.
+   */
+  uri: string;
+
+  /**
+   * Stroke color of lines and polygon outlines. Defaults to the `stroke` and `stroke-opacity`
+   * properties of each feature, or black.
+   */
+  strokeColor?: ColorValue | GeojsonStyleExpression;
+
+  /**
+   * Fill color of polygons. Defaults to the `fill` and `fill-opacity` properties of each
+   * feature, or transparent.
+   */
+  fillColor?: ColorValue | GeojsonStyleExpression;
+
+  /**
+   * Stroke width in dp. Defaults to the `stroke-width` property of each feature, or 1.
+   */
+  strokeWidth?: number | GeojsonStyleExpression;
+
+  /**
+   * Color of points. Defaults to the `marker-color` property of each feature, or red.
+   */
+  color?: ColorValue | GeojsonStyleExpression;
+
+  /**
+   * Largest number of features read for one region. Zoomed out over a dense file, the features
+   * past it are not drawn.
+   *
+   * @default 20000
+   */
+  maxFeatures?: number;
+
+  /**
+   * Callback that is called when a feature is tapped. The `id` of a feature is its position in
+   * the file.
+   */
+  onPress?: (event: GeojsonLayerPressEvent) => void;
+};
+
+type NativeProps = Omit<
+  MapFlatGeobufLayerProps,
+  'strokeColor' | 'fillColor' | 'color'
+> & {
+  strokeColor?: NativeStyle;
+  fillColor?: NativeStyle;
+  color?: NativeStyle;
+};
+
+/**
+ * Draws a FlatGeobuf file too large to load from a single native overlay.
+ *
+ * The file's spatial index is queried in the background for the visible region, and only the
+ * features found are decoded. Styles work as on `<GeojsonLayer />`.
+ */
+class MapFlatGeobufLayer extends React.Component<MapFlatGeobufLayerProps> {
+  render() {
+    const { strokeColor, fillColor, color, ...props } = this.props;
+    return (
+      <OsmMapFlatGeobuf
+        {...props}
+        strokeColor={processColorStyle(strokeColor)}
+        fillColor={processColorStyle(fillColor)}
+        color={processColorStyle(color)}
+      />
+    );
+  }
+}
+
+const OsmMapFlatGeobuf: NativeComponent<NativeProps> =
+  requireNativeComponent<NativeProps>('OsmMapFlatGeobuf');
+
+export default MapFlatGeobufLayer;
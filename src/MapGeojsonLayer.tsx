@@ -0,0 +1,172 @@
+import * as React from 'react';
+import {
+  ColorValue,
+  processColor,
+  requireNativeComponent,
+  ViewProps,
+} from 'react-native';
+import type { Feature, FeatureCollection, Geometry } from 'geojson';
+
+import type { NativeComponent } from './decorateMapComponent';
+import type { ClickEvent } from './sharedTypes';
+
+/**
+ * Subset of the Mapbox style expressions evaluated natively once per feature:
+ * `['get', name]`, `['match', input, label, output, ..., fallback]`,
+ * `['step', input, output, stop, output, ...]`,
+ * `['interpolate', ['linear'], input, stop, output, ...]` and `['coalesce', ...]`.
+ */
+export type GeojsonStyleExpression = [string, ...unknown[]];
+
+export type GeojsonLayerPressEvent = ClickEvent<{
+  action: 'geojson-press';
+  id: string;
+  properties: { [key: string]: string | number | boolean };
+}>;
+
+export type MapGeojsonLayerProps = ViewProps & {
+  /**
+   * The GeoJSON document, as an object or as a string. Takes precedence over `uri`.
+   */
+  geojson?: FeatureCollection | Feature | Geometry | string;
+
+  /**
+   * A `file://` or `content://` URI, or a file path, of a GeoJSON document. The file is read
+   * natively and never crosses the bridge.
+   */
+  uri?: string;
+
+  /**
+   * Stroke color of lines and polygon outlines. Defaults to the `stroke` and `stroke-opacity`
+   * properties of each feature, or black.
+   */
+  strokeColor?: ColorValue | GeojsonStyleExpression;
+
+  /**
+   * Fill color of polygons. Defaults to the `fill` and `fill-opacity` properties of each
+   * feature, or transparent.
+   */
+  fillColor?: ColorValue | GeojsonStyleExpression;
+
+  /**
+   * Stroke width in dp. Defaults to the `stroke-width` property of each feature, or 1.
+   */
+  strokeWidth?: number | GeojsonStyleExpression;
+
+  /**
+   * Color of points. Defaults to the `marker-color` property of each feature, or red.
+   */
+  color?: ColorValue | GeojsonStyleExpression;
+
+  /**
+   * Callback that is called when a feature is tapped.
+   */
+  onPress?: (event: GeojsonLayerPressEvent) => void;
+};
+
+export type NativeStyle = number | string | boolean | unknown[] | null | undefined;
+
+type NativeProps = Omit<
+  MapGeojsonLayerProps,
+  'geojson' | 'strokeColor' | 'fillColor' | 'color'
+> & {
+  geojson?: string;
+  strokeColor?: NativeStyle;
+  fillColor?: NativeStyle;
+  color?: NativeStyle;
+};
+
+/**
+ * Indexes of the outputs of an expression, which are colors when the expression is a color.
+ */
+function outputIndexes(expression: unknown[]): number[] {
+  const indexes: number[] = [];
+  switch (expression[0]) {
+    case 'match':
+      for (let i = 3; i < expression.length; i += 2) {
+        indexes.push(i);
+      }
+      if (expression.length % 2 === 1) {
+        indexes.push(expression.length - 1);
+      }
+      break;
+    case 'step':
+      for (let i = 2; i < expression.length; i += 2) {
+        indexes.push(i);
+      }
+      break;
+    case 'interpolate':
+      for (let i = 4; i < expression.length; i += 2) {
+        indexes.push(i);
+      }
+      break;
+    case 'coalesce':
+      for (let i = 1; i < expression.length; i++) {
+        indexes.push(i);
+      }
+      break;
+  }
+  return indexes;
+}
+
+export function processColorStyle(
+  value: ColorValue | GeojsonStyleExpression | undefined
+): NativeStyle {
+  if (value == null) {
+    return value;
+  }
+  if (!Array.isArray(value)) {
+    return processColor(value) as number | null | undefined;
+  }
+  const processed: unknown[] = value.slice();
+  outputIndexes(processed).forEach((i) => {
+    const output = processed[i];
+    processed[i] =
+      typeof output === 'string' || Array.isArray(output)
+        ? processColorStyle(output as ColorValue | GeojsonStyleExpression)
+        : output;
+  });
+  return processed;
+}
+
+/**
+ * Draws a whole GeoJSON document from a single native overlay.
+ *
+ * Unlike `<Geojson />`, which renders one component per geometry, the document is parsed natively
+ * on a background thread into flat arrays and a spatial index, and styled by expressions evaluated
+ * once per feature.
+ */
+class MapGeojsonLayer extends React.Component<MapGeojsonLayerProps> {
+  private lastGeojson?: MapGeojsonLayerProps['geojson'];
+  private lastGeojsonString?: string;
+
+  private stringify(geojson: MapGeojsonLayerProps['geojson']) {
+    if (geojson == null || typeof geojson === 'string') {
+      return geojson;
+    }
+    // only stringify again when the object changed
+    if (geojson !== this.lastGeojson) {
+      this.lastGeojson = geojson;
+      this.lastGeojsonString = JSON.stringify(geojson);
+    }
+    return this.lastGeojsonString;
+  }
+
+  render() {
+    const { geojson, strokeColor, fillColor, color, ...props } = this.props;
+    return (
+      <OsmMapGeojson
+        {...props}
+        geojson={this.stringify(geojson)}
+        strokeColor={processColorStyle(strokeColor)}
+        fillColor={processColorStyle(fillColor)}
+        color={processColorStyle(color)}
+      />
+    );
+  }
+}
+
+const OsmMapGeojson: NativeComponent<NativeProps> =
+  requireNativeComponent<NativeProps>('OsmMapGeojson');
+
+export default MapGeojsonLayer;
@@ -17,6 +17,7 @@ import {
 import type {
   CalloutPressEvent,
   LatLng,
+  MarkerAnimationEasing,
   MarkerDragEvent,
   MarkerDragStartEndEvent,
   MarkerPressEvent,
@@ -215,12 +216,21 @@ class MapMarker extends React.Component<MapMarkerProps> {
     }
   }
 
-  animateMarkerToCoordinate(coordinate: LatLng, duration: number = 500) {
+  /**
+   * Moves the marker to `coordinate` over `duration` milliseconds. The animation runs natively,
+   * so it does not need a React render per frame.
+   */
+  animateMarkerToCoordinate(
+    coordinate: LatLng,
+    duration: number = 500,
+    easing: MarkerAnimationEasing = 'linear'
+  ) {
     if (this.marker.current) {
       Commands.animateMarkerToCoordinate(
         this.marker.current,
         coordinate,
-        duration
+        duration,
+        easing
       );
     }
   }
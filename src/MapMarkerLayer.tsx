@@ -0,0 +1,295 @@
+import * as React from 'react';
+import {
+  ColorValue,
+  Image,
+  ImageRequireSource,
+  ImageURISource,
+  requireNativeComponent,
+  ViewProps,
+} from 'react-native';
+
+import type { NativeComponent } from './decorateMapComponent';
+import {
+  Commands,
+  MapMarkerLayerNativeComponentType,
+} from './MapMarkerLayerNativeComponent';
+import type { LatLng, MarkerPressEvent, Point } from './sharedTypes';
+
+export type MarkerLayerIcon = {
+  /**
+   * Image of the icon.
+   */
+  image: ImageURISource | ImageRequireSource;
+
+  /**
+   * Width of the icon. Defaults to the image width.
+   */
+  width?: number;
+
+  /**
+   * Height of the icon. Defaults to the image height.
+   */
+  height?: number;
+
+  /**
+   * Point of the icon anchored to the coordinate, see `Marker.anchor`.
+   *
+   * @default {x: 0.5, y: 1.0}
+   */
+  anchor?: Point;
+};
+
+export type MarkerLayerPoint = {
+  /**
+   * Unique id of the point. Updates are applied by id.
+   */
+  id: string;
+
+  coordinate: LatLng;
+
+  /**
+   * Key of the icon in `icons`. Defaults to the first icon.
+   */
+  icon?: string;
+};
+
+export type MarkerLayerClustering = {
+  /**
+   * Radius within which points are merged into a cluster, in dp.
+   *
+   * @default 40
+   */
+  radius?: number;
+
+  /**
+   * Lowest zoom level at which clusters are computed.
+   *
+   * @default 0
+   */
+  minZoom?: number;
+
+  /**
+   * Highest zoom level at which points are clustered. Above it every point is shown.
+   *
+   * @default 16
+   */
+  maxZoom?: number;
+
+  /**
+   * Smallest number of points that form a cluster.
+   *
+   * @default 2
+   */
+  minPoints?: number;
+};
+
+export type MapMarkerLayerProps = ViewProps & {
+  /**
+   * Icons shared by the points, keyed by icon id.
+   */
+  icons?: { [iconId: string]: MarkerLayerIcon };
+
+  /**
+   * All points of the layer. On every change only the points that were added, moved or
+   * changed icon, and the ids that disappeared, are sent to the native layer.
+   */
+  points?: MarkerLayerPoint[];
+
+  /**
+   * Merges nearby points into clusters showing their count. Clusters are computed natively in
+   * the background and split or merge, animated, as the zoom level changes.
+   *
+   * @default false
+   */
+  clustering?: boolean | MarkerLayerClustering;
+
+  /**
+   * Fill color of the clusters.
+   *
+   * @default '#1e88e5'
+   */
+  clusterColor?: ColorValue;
+
+  /**
+   * Color of the point count drawn on the clusters.
+   *
+   * @default 'white'
+   */
+  clusterTextColor?: ColorValue;
+
+  /**
+   * Callback that is called when a point or a cluster is tapped. The event contains the point
+   * `id`, or for a cluster the `ids` of all of its points.
+   */
+  onPress?: (event: MarkerPressEvent) => void;
+};
+
+type NativeIcon = {
+  uri?: string;
+  width?: number;
+  height?: number;
+  anchor?: Point;
+};
+
+export type NativeProps = Omit<
+  MapMarkerLayerProps,
+  'icons' | 'points' | 'clustering'
+> & {
+  icons?: NativeIcon[];
+  clustering?: MarkerLayerClustering | null;
+  ref: React.RefObject<MapMarkerLayerNativeComponentType>;
+};
+
+type PackedPoints = {
+  ids: string[];
+  coordinates: number[];
+  icons: number[];
+};
+
+function sameIconKeys(
+  a: MapMarkerLayerProps['icons'],
+  b: MapMarkerLayerProps['icons']
+): boolean {
+  if (a === b) {
+    return true;
+  }
+  const aKeys = Object.keys(a || {});
+  const bKeys = Object.keys(b || {});
+  return (
+    aKeys.length === bKeys.length &&
+    aKeys.every((key, index) => key === bKeys[index])
+  );
+}
+
+/**
+ * Draws many markers from a single native overlay.
+ *
+ * Unlike `<Marker />`, points are not React components: they are passed as data, packed into flat
+ * arrays and applied natively by id.
+ */
+class MapMarkerLayer extends React.Component<MapMarkerLayerProps> {
+  private layer: NativeProps['ref'];
+  private sent = new Map<string, MarkerLayerPoint>();
+
+  constructor(props: MapMarkerLayerProps) {
+    super(props);
+    this.layer = React.createRef<MapMarkerLayerNativeComponentType>();
+  }
+
+  componentDidMount() {
+    this.syncPoints(this.props.points || []);
+  }
+
+  componentDidUpdate(prevProps: MapMarkerLayerProps) {
+    // points refer to icons by index, which only moves when the keys do
+    const iconsMoved = !sameIconKeys(prevProps.icons, this.props.icons);
+    if (iconsMoved) {
+      // send every point again with its new icon index
+      this.sent.clear();
+    }
+    if (prevProps.points !== this.props.points || iconsMoved) {
+      this.syncPoints(this.props.points || []);
+    }
+  }
+
+  /**
+   * Adds or updates points without going through the `points` prop.
+   */
+  upsert(points: MarkerLayerPoint[]) {
+    if (!this.layer.current || points.length === 0) {
+      return;
+    }
+    const packed = this.pack(points);
+    points.forEach((point) => this.sent.set(point.id, point));
+    Commands.upsertPoints(
+      this.layer.current,
+      packed.ids,
+      packed.coordinates,
+      packed.icons
+    );
+  }
+
+  /**
+   * Removes points by id without going through the `points` prop.
+   */
+  remove(ids: string[]) {
+    if (!this.layer.current || ids.length === 0) {
+      return;
+    }
+    ids.forEach((id) => this.sent.delete(id));
+    Commands.removePoints(this.layer.current, ids);
+  }
+
+  private syncPoints(points: MarkerLayerPoint[]) {
+    const changed: MarkerLayerPoint[] = [];
+    const next = new Set<string>();
+    for (const point of points) {
+      next.add(point.id);
+      const previous = this.sent.get(point.id);
+      if (
+        !previous ||
+        previous.icon !== point.icon ||
+        previous.coordinate.latitude !== point.coordinate.latitude ||
+        previous.coordinate.longitude !== point.coordinate.longitude
+      ) {
+        changed.push(point);
+      }
+    }
+    const removed: string[] = [];
+    this.sent.forEach((_, id) => {
+      if (!next.has(id)) {
+        removed.push(id);
+      }
+    });
+
+    this.remove(removed);
+    this.upsert(changed);
+  }
+
+  private pack(points: MarkerLayerPoint[]): PackedPoints {
+    const iconIndexes = new Map<string, number>();
+    Object.keys(this.props.icons || {}).forEach((iconId, index) =>
+      iconIndexes.set(iconId, index)
+    );
+    const ids = new Array<string>(points.length);
+    const coordinates = new Array<number>(points.length * 2);
+    const icons = new Array<number>(points.length);
+    points.forEach((point, i) => {
+      ids[i] = point.id;
+      coordinates[i * 2] = point.coordinate.latitude;
+      coordinates[i * 2 + 1] = point.coordinate.longitude;
+      icons[i] = (point.icon && iconIndexes.get(point.icon)) || 0;
+    });
+    return { ids, coordinates, icons };
+  }
+
+  render() {
+    const { icons: iconMap = {}, clustering, ...props } = this.props;
+    // points go through commands, never through props
+    delete props.points;
+    const icons = Object.keys(iconMap).map((iconId) => {
+      const icon = iconMap[iconId];
+      const resolved = Image.resolveAssetSource(icon.image) || {};
+      return {
+        uri: resolved.uri,
+        width: icon.width,
+        height: icon.height,
+        anchor: icon.anchor,
+      };
+    });
+
+    return (
+      <OsmMapMarkerLayer
+        {...props}
+        icons={icons}
+        clustering={clustering === true ? {} : clustering || null}
+        ref={this.layer}
+      />
+    );
+  }
+}
+
+const OsmMapMarkerLayer: NativeComponent<NativeProps> =
+  requireNativeComponent<NativeProps>('OsmMapMarkerLayer');
+
+export default MapMarkerLayer;
@@ -0,0 +1,34 @@
+import type { HostComponent } from 'react-native';
+import codegenNativeCommands from 'react-native/Libraries/Utilities/codegenNativeCommands';
+import type { NativeProps } from './MapMarkerLayer';
+
+export type MapMarkerLayerNativeComponentType = HostComponent<NativeProps>;
+
+interface NativeCommands {
+  setPoints: (
+    viewRef: NonNullable<
+      React.RefObject<MapMarkerLayerNativeComponentType>['current']
+    >,
+    ids: string[],
+    coordinates: number[],
+    icons: number[] | null
+  ) => void;
+  upsertPoints: (
+    viewRef: NonNullable<
+      React.RefObject<MapMarkerLayerNativeComponentType>['current']
+    >,
+    ids: string[],
+    coordinates: number[],
+    icons: number[] | null
+  ) => void;
+  removePoints: (
+    viewRef: NonNullable<
+      React.RefObject<MapMarkerLayerNativeComponentType>['current']
+    >,
+    ids: string[]
+  ) => void;
+}
+
+export const Commands: NativeCommands = codegenNativeCommands<NativeCommands>({
+  supportedCommands: ['setPoints', 'upsertPoints', 'removePoints'],
+});
@@ -1,7 +1,7 @@
 import type { HostComponent } from 'react-native';
 import codegenNativeCommands from 'react-native/Libraries/Utilities/codegenNativeCommands';
 import type { NativeProps } from './MapMarker';
-import type { LatLng } from './sharedTypes';
+import type { LatLng, MarkerAnimationEasing } from './sharedTypes';
 
 export type MapMarkerNativeComponentType = HostComponent<NativeProps>;
 
@@ -26,7 +26,8 @@ interface NativeCommands {
       React.RefObject<MapMarkerNativeComponentType>['current']
     >,
     coordinate: LatLng,
-    duration: number
+    duration: number,
+    easing: MarkerAnimationEasing
   ) => void;
   redraw: (
     viewRef: NonNullable<
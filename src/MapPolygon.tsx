@@ -13,7 +13,15 @@ export type MapPolygonProps = ViewProps & {
    * An array of coordinates to describe the polygon
    *
    */
-  coordinates: LatLng[];
+  coordinates?: LatLng[];
+
+  /**
+   * The coordinates as an encoded polyline string (precision 5), decoded natively in one pass.
+   * Takes the place of `coordinates` for large polygons.
+   *
+   * @platform android
+   */
+  encodedCoordinates?: string;
 
   /**
    * The fill color to use for the path.
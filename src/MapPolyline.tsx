@@ -2,17 +2,28 @@ import * as React from 'react';
 import {
   NativeSyntheticEvent,
   requireNativeComponent,
-  View,
   ViewProps,
 } from 'react-native';
 import type { NativeComponent } from './decorateMapComponent';
+import {
+  Commands,
+  MapPolylineNativeComponentType,
+} from './MapPolylineNativeComponent';
 import type { LatLng, LineCapType, Point } from './sharedTypes';
 
 export type MapPolylineProps = ViewProps & {
   /**
    * An array of coordinates to describe the polyline
    */
-  coordinates: LatLng[];
+  coordinates?: LatLng[];
+
+  /**
+   * The coordinates as an encoded polyline string (precision 5), decoded natively in one pass.
+   * Takes the place of `coordinates` for long lines.
+   *
+   * @platform android
+   */
+  encodedCoordinates?: string;
 
   /**
    * The fill color to use for the path.
@@ -83,20 +94,52 @@ type PolylinePressEvent = NativeSyntheticEvent<{
   position?: Point;
 }>;
 
-type NativeProps = MapPolylineProps & { ref: React.RefObject<View> };
+export type NativeProps = MapPolylineProps & {
+  ref: React.RefObject<MapPolylineNativeComponentType>;
+};
 
 class MapPolyline extends React.Component<MapPolylineProps> {
   private polyline: NativeProps['ref'];
 
   constructor(props: MapPolylineProps) {
     super(props);
-    this.polyline = React.createRef<View>();
+    this.polyline = React.createRef<MapPolylineNativeComponentType>();
   }
 
   setNativeProps(props: Partial<NativeProps>) {
+    // @ts-ignore
     this.polyline.current?.setNativeProps(props);
   }
 
+  /**
+   * Adds coordinates to the end of the line natively, without sending the whole line again.
+   * Meant for lines that grow, like a recorded track: keep `coordinates` unchanged meanwhile, as
+   * a new `coordinates` prop replaces every point.
+   *
+   * @platform android
+   */
+  appendCoordinates(coordinates: LatLng[]) {
+    if (!this.polyline.current || coordinates.length === 0) {
+      return;
+    }
+    const packed: number[] = [];
+    for (const coordinate of coordinates) {
+      packed.push(coordinate.latitude, coordinate.longitude);
+    }
+    Commands.appendCoordinates(this.polyline.current, packed);
+  }
+
+  /**
+   * Removes the first `count` coordinates of the line natively.
+   *
+   * @platform android
+   */
+  trimCoordinates(count: number) {
+    if (this.polyline.current && count > 0) {
+      Commands.trimCoordinates(this.polyline.current, count);
+    }
+  }
+
   render() {
     const {
       strokeColor = '#000',
@@ -0,0 +1,24 @@
+import type { HostComponent } from 'react-native';
+import codegenNativeCommands from 'react-native/Libraries/Utilities/codegenNativeCommands';
+import type { NativeProps } from './MapPolyline';
+
+export type MapPolylineNativeComponentType = HostComponent<NativeProps>;
+
+interface NativeCommands {
+  appendCoordinates: (
+    viewRef: NonNullable<
+      React.RefObject<MapPolylineNativeComponentType>['current']
+    >,
+    coordinates: number[]
+  ) => void;
+  trimCoordinates: (
+    viewRef: NonNullable<
+      React.RefObject<MapPolylineNativeComponentType>['current']
+    >,
+    count: number
+  ) => void;
+}
+
+export const Commands: NativeCommands = codegenNativeCommands<NativeCommands>({
+  supportedCommands: ['appendCoordinates', 'trimCoordinates'],
+});
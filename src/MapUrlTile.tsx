@@ -1,6 +1,12 @@
 import * as React from 'react';
 
-import { requireNativeComponent, ViewProps } from 'react-native';
+import {
+  Image,
+  ImageRequireSource,
+  ImageURISource,
+  requireNativeComponent,
+  ViewProps,
+} from 'react-native';
 
 export type MapUrlTileProps = ViewProps & {
   /**
@@ -17,6 +23,18 @@ export type MapUrlTileProps = ViewProps & {
    */
   flipY?: boolean;
 
+  /**
+   * Image drawn in place of a tile that failed to load or is missing from the cache.
+   * It is scaled to the tile size once and shared by every failed tile of the map.
+   */
+  failedTile?: ImageURISource | ImageRequireSource;
+
+  /**
+   * Image drawn in place of a tile while it is loading.
+   * It is scaled to the tile size once and shared by every loading tile of the map.
+   */
+  loadingTile?: ImageURISource | ImageRequireSource;
+
   /**
    * The maximum native zoom level for this tile overlay i.e. the highest zoom level that the tile server provides.
    * Tiles are auto-scaled for higher zoom levels.
@@ -92,12 +110,30 @@ export type MapUrlTileProps = ViewProps & {
   urlTemplate: string;
 };
 
-type NativeProps = MapUrlTileProps;
+type NativeProps = Omit<MapUrlTileProps, 'loadingTile' | 'failedTile'> & {
+  loadingTile?: string;
+  failedTile?: string;
+};
 
 class MapUrlTile extends React.Component<MapUrlTileProps> {
   render() {
-    return <OsmMapUrlTile {...this.props} />;
+    return (
+      <OsmMapUrlTile
+        {...this.props}
+        loadingTile={resolveTileImage(this.props.loadingTile)}
+        failedTile={resolveTileImage(this.props.failedTile)}
+      />
+    );
+  }
+}
+
+function resolveTileImage(
+  source: ImageURISource | ImageRequireSource | undefined
+): string | undefined {
+  if (!source) {
+    return undefined;
   }
+  return Image.resolveAssetSource(source)?.uri;
 }
 
 const OsmMapUrlTile = requireNativeComponent<NativeProps>('OsmMapUrlTile');
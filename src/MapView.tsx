@@ -28,6 +28,7 @@ import type {
   MarkerDragStartEndEvent,
   MarkerPressEvent,
   LatLng,
+  MarkerAnimationEasing,
 } from './sharedTypes';
 import type { Modify } from './sharedTypesInternal';
 
@@ -68,6 +69,14 @@ export type MapViewProps = ViewProps & {
    */
   camera?: Camera;
 
+  /**
+   * Minimum time in milliseconds between two `onPanDrag` or `onMarkerDrag` events.
+   * With `0` the events are still coalesced natively, so at most one of each is sent per frame.
+   *
+   * @default 0
+   */
+  dragEventThrottle?: number;
+
   /**
    * The initial camera view the map should use.  Use this prop instead of `camera`
    * only if you don't want to control the camera of the map besides the initial view.
@@ -107,6 +116,15 @@ export type MapViewProps = ViewProps & {
    */
   minZoomLevel?: number;
 
+  /**
+   * Polylines, polygons and circles smaller than this many points on screen at the current zoom
+   * are not drawn. Features outside the visible area are never drawn.
+   *
+   * @platform android
+   * @default 0
+   */
+  minFeatureSize?: number;
+
   /**
    * If `false` the map won't move to the marker when pressed.
    *
@@ -328,6 +346,54 @@ class MapView extends React.Component<MapViewProps, State> {
     }
   }
 
+  /**
+   * Moves many markers, found by their `identifier`, in one call. Each marker is animated as with
+   * `Marker.animateMarkerToCoordinate`, and all of them share one map redraw per frame.
+   */
+  animateMarkersToCoordinates(
+    markers: { identifier: string; coordinate: LatLng }[],
+    duration: number = 500,
+    easing: MarkerAnimationEasing = 'linear'
+  ) {
+    if (this.map.current) {
+      const identifiers: string[] = [];
+      const coordinates: number[] = [];
+      markers.forEach(({ identifier, coordinate }) => {
+        identifiers.push(identifier);
+        coordinates.push(coordinate.latitude, coordinate.longitude);
+      });
+      Commands.animateMarkersToCoordinates(
+        this.map.current,
+        identifiers,
+        coordinates,
+        duration,
+        easing
+      );
+    }
+  }
+
+  /**
+   * Moves markers, found by their `identifier`, to streamed live positions without re-rendering
+   * them. `records` holds `latitude, longitude, heading, timestamp` (milliseconds) for each
+   * identifier; pass `NaN` as heading to keep a marker's rotation. Records older than the last one
+   * applied to a marker are ignored. With `deadReckoning`, markers keep moving along their last
+   * velocity for up to `maxExtrapolation` milliseconds (default 2000) between updates.
+   *
+   * @platform android
+   */
+  updateMarkerPositions(
+    identifiers: string[],
+    records: ArrayLike<number>,
+    options: { deadReckoning?: boolean; maxExtrapolation?: number } = {}
+  ) {
+    NativeModules.OsmMapModule.updateMarkerPositions(
+      this._getHandle(),
+      identifiers,
+      Array.isArray(records) ? records : Array.from(records),
+      options
+    );
+  }
+
   /**
    * Get visible boudaries
    *
@@ -2,7 +2,11 @@ import type { HostComponent } from 'react-native';
 import codegenNativeCommands from 'react-native/Libraries/Utilities/codegenNativeCommands';
 import type { NativeProps } from './MapView';
 import type { Camera, EdgePadding } from './MapView.types';
-import type { LatLng, Region } from './sharedTypes';
+import type {
+  LatLng,
+  MarkerAnimationEasing,
+  Region,
+} from './sharedTypes';
 
 export type MapViewNativeComponentType = HostComponent<NativeProps>;
 
@@ -56,6 +60,16 @@ interface NativeCommands {
     animated: boolean
   ) => void;
 
+  animateMarkersToCoordinates: (
+    viewRef: NonNullable<
+      React.RefObject<MapViewNativeComponentType>['current']
+    >,
+    identifiers: string[],
+    coordinates: number[],
+    duration: number,
+    easing: MarkerAnimationEasing
+  ) => void;
+
   setMapBoundaries: (
     viewRef: NonNullable<
       React.RefObject<MapViewNativeComponentType>['current']
@@ -80,6 +94,7 @@ export const Commands: NativeCommands = codegenNativeCommands<NativeCommands>({
     'fitToElements',
     'fitToSuppliedMarkers',
     'fitToCoordinates',
+    'animateMarkersToCoordinates',
     'setMapBoundaries',
     'setIndoorActiveLevelIndex',
   ],
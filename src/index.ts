@@ -7,6 +7,21 @@ export type { MapPolylineProps } from './MapPolyline';
 export type { MapPolygonProps } from './MapPolygon';
 export { default as Callout } from './MapCallout';
 export type { MapCalloutProps } from './MapCallout';
+export { default as MarkerLayer } from './MapMarkerLayer';
+export { default as GeojsonLayer } from './MapGeojsonLayer';
+export type {
+  GeojsonLayerPressEvent,
+  GeojsonStyleExpression,
+  MapGeojsonLayerProps,
+} from './MapGeojsonLayer';
+export { default as FlatGeobufLayer } from './MapFlatGeobufLayer';
+export type { MapFlatGeobufLayerProps } from './MapFlatGeobufLayer';
+export type {
+  MapMarkerLayerProps,
+  MarkerLayerClustering,
+  MarkerLayerIcon,
+  MarkerLayerPoint,
+} from './MapMarkerLayer';
 export { default as Circle } from './MapCircle';
 export type { MapCircleProps } from './MapCircle';
 export { default as UrlTile } from './MapUrlTile';
@@ -39,9 +54,24 @@ const { TileCacher } = NativeModules;
  * a cache management strategy, such as periodic cleanup or size limitation, is recommended. The provided TileDatabaseHelper
  * class example showcases one method of managing cached tiles, but developers may employ any suitable cache size control technique.
  *
- * Usage example with progress toast:
+ * The import runs on a background thread and returns a promise that resolves with `{ tileCount }`. The options argument
+ * must be passed, as `null` when unused. Usage example with progress toast:
  * TileCacher.cacheTilesFromDirectory('/storage/emulated/0/map/tiles', { showProgressToast: true });
  *
+ * Passing `transcode: { format: 'webp', lossless?: boolean, quality?: number }` re-encodes the tiles as WebP while they
+ * are imported. Cached tiles are decoded by content, so PNG and WebP tiles can live in the same cache.
+ *
+ * `TileCacher.convertDirectoryToMBTiles` packs the same "/{z}/{x}/{y}.png" structure into a single MBTiles file and
+ * resolves with `{ outputPath, tileCount, skippedFiles, minZoom, maxZoom }`. Progress is reported through the
+ * `TileCacherProgress` device event. By default the pack is written to the `offline_tiles` directory read by the file
+ * tile layer.
+ *
+ * `TileCacher.applyTileDelta(directoryPath, manifestPath, options)` updates previously cached tiles from a manifest of
+ * `{ "pack": "<id>", "tiles": { "z/x/y.png": "<sha-256>" } }`, writing only changed tiles and deleting the ones the same
+ * pack owned that are no longer listed; tiles of other packs are kept. `options` accepts `pack`, which overrides the
+ * manifest's, and the same `transcode` option as above, and must be passed, as `null` when unused:
+ * TileCacher.applyTileDelta('/storage/emulated/0/map/tiles-v2', '/storage/emulated/0/map/tiles-v2/manifest.json', null);
+ *
  * Note: This functionality is Android-specific. Ensure the app has the required permissions to access external storage,
  * including runtime permissions necessary on Android.
  */
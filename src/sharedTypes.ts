@@ -51,6 +51,12 @@ export type CalloutPressEvent = NativeSyntheticEvent<{
 export type LineCapType = 'butt' | 'round' | 'square';
 export type LineJoinType = 'miter' | 'round' | 'bevel';
 
+export type MarkerAnimationEasing =
+  | 'linear'
+  | 'ease-in'
+  | 'ease-out'
+  | 'ease-in-out';
+
 export type ClickEvent<T = {}> = NativeSyntheticEvent<
   { coordinate: LatLng; position: Point } & T
 >;
@@ -91,9 +97,14 @@ export type MarkerDragStartEndEvent = NativeSyntheticEvent<{
 
 export type MarkerPressEvent = NativeSyntheticEvent<{
   id: string;
-  action: 'marker-press';
+  action: 'marker-press' | 'cluster-press';
   coordinate: LatLng;
 
+  /**
+   * Ids of all points of a tapped `<MarkerLayer />` cluster. `id` is empty for clusters.
+   */
+  ids?: string[];
+
   /**
    * @platform Android
    */